@@ -9,6 +9,7 @@ package org.jhotdraw.draw;
 
 import org.jhotdraw.draw.figure.Figure;
 import org.jhotdraw.draw.figure.AbstractAttributedCompositeFigure;
+import java.awt.Graphics2D;
 import java.awt.font.*;
 import java.io.*;
 import java.util.*;
@@ -33,6 +34,13 @@ public abstract class AbstractDrawing extends AbstractAttributedCompositeFigure
     private LinkedList<InputFormat> inputFormats = new LinkedList<>();
     private LinkedList<OutputFormat> outputFormats = new LinkedList<>();
     private static boolean debugMode = false;
+    private transient LevelOfDetailPolicy levelOfDetailPolicy;
+    /**
+     * The secondary indexes of the children. The key of the index by class
+     * is the class {@code Class}, the keys of the indexes by attribute
+     * value are attribute keys. The indexes are created on demand.
+     */
+    private transient HashMap<Object, FigureIndex> indexes;
 
     /**
      * Creates a new instance.
@@ -74,6 +82,85 @@ public abstract class AbstractDrawing extends AbstractAttributedCompositeFigure
         }
     }
 
+    @Override
+    public void setLevelOfDetailPolicy(LevelOfDetailPolicy newValue) {
+        LevelOfDetailPolicy oldValue = levelOfDetailPolicy;
+        levelOfDetailPolicy = newValue;
+        if (oldValue != newValue) {
+            fireAreaInvalidated(getDrawingArea());
+        }
+    }
+
+    @Override
+    public LevelOfDetailPolicy getLevelOfDetailPolicy() {
+        return levelOfDetailPolicy;
+    }
+
+    /**
+     * Draws the specified visible figure. If the drawing has a level of
+     * detail policy, the figure is drawn by the specified pass of the policy.
+     *
+     * @param g The graphics.
+     * @param f The figure.
+     * @param pass The level of detail pass or null.
+     */
+    protected void drawFigure(Graphics2D g, Figure f, LevelOfDetailPolicy.Pass pass) {
+        if (pass == null) {
+            f.draw(g);
+        } else {
+            pass.draw(f);
+        }
+    }
+
+    @Override
+    protected void childAdded(Figure figure) {
+        super.childAdded(figure);
+        if (indexes != null) {
+            for (FigureIndex index : indexes.values()) {
+                index.add(figure);
+            }
+        }
+    }
+
+    @Override
+    protected void childRemoved(Figure figure) {
+        if (indexes != null) {
+            for (FigureIndex index : indexes.values()) {
+                index.remove(figure);
+            }
+        }
+        super.childRemoved(figure);
+    }
+
+    /**
+     * Returns the index with the specified key. If the index does not
+     * exist yet, it is created and filled with the children.
+     */
+    private FigureIndex getIndex(Object indexKey, AttributeKey<?> attributeKey) {
+        if (indexes == null) {
+            indexes = new HashMap<>();
+        }
+        FigureIndex index = indexes.get(indexKey);
+        if (index == null) {
+            index = new FigureIndex(attributeKey);
+            for (Figure child : children) {
+                index.add(child);
+            }
+            indexes.put(indexKey, index);
+        }
+        return index;
+    }
+
+    @Override
+    public Collection<Figure> findFiguresByClass(Class<?> figureClass) {
+        return new ArrayList<>(getIndex(Class.class, null).get(figureClass));
+    }
+
+    @Override
+    public <T> Collection<Figure> findFiguresByAttribute(AttributeKey<T> key, T value) {
+        return new ArrayList<>(getIndex(key, key).get(value));
+    }
+
     @Override
     public FontRenderContext getFontRenderContext() {
         return fontRenderContext;
@@ -175,6 +262,7 @@ public abstract class AbstractDrawing extends AbstractAttributedCompositeFigure
         AbstractDrawing that = (AbstractDrawing) super.clone();
         that.inputFormats = (this.inputFormats == null) ? null : (LinkedList<InputFormat>) this.inputFormats.clone();
         that.outputFormats = (this.outputFormats == null) ? null : (LinkedList<OutputFormat>) this.outputFormats.clone();
+        that.indexes = null;
         return that;
     }
 
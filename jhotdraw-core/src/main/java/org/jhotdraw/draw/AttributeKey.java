@@ -8,6 +8,7 @@
 package org.jhotdraw.draw;
 
 import org.jhotdraw.draw.figure.Figure;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.*;
 import javax.swing.undo.*;
@@ -28,6 +29,12 @@ import org.jhotdraw.util.*;
  * </pre>
  * <p>
  * See {@link AttributeKeys} for a list of useful attribute keys.
+ * <p>
+ * Figures compare attribute keys by identity. Therefore a deserialized
+ * attribute key is resolved to the instance, which has been created with the
+ * same key string in this virtual machine. Since several instances may have
+ * the same key string, each instance also remembers how many instances with
+ * its key string have been created before it.
  *
  * @author Werner Randelshofer
  * @version $Id$
@@ -35,10 +42,20 @@ import org.jhotdraw.util.*;
 public class AttributeKey<T> implements Serializable {
 
     private static final long serialVersionUID = 1L;
+    /**
+     * Holds all instances by their key string, in the order in which they
+     * have been created.
+     */
+    private static final HashMap<String, ArrayList<AttributeKey<?>>> instances = new HashMap<>();
     /**
      * Holds a String representation of the attribute key.
      */
     private String key;
+    /**
+     * The number of instances with the same key string, which have been
+     * created before this instance.
+     */
+    private int ordinal;
     /**
      * Holds the default value.
      */
@@ -99,6 +116,33 @@ public class AttributeKey<T> implements Serializable {
         this.defaultValue = defaultValue;
         this.isNullValueAllowed = isNullValueAllowed;
         this.labels = (labels == null) ? ResourceBundleUtil.getBundle("org.jhotdraw.draw.Labels") : labels;
+        synchronized (instances) {
+            ArrayList<AttributeKey<?>> sameKey = instances.get(key);
+            if (sameKey == null) {
+                sameKey = new ArrayList<>(1);
+                instances.put(key, sameKey);
+            }
+            ordinal = sameKey.size();
+            sameKey.add(this);
+        }
+    }
+
+    /**
+     * Resolves a deserialized attribute key to the instance with the same
+     * key string, ordinal and type in this virtual machine. Returns the
+     * deserialized attribute key, if there is no such instance.
+     */
+    protected Object readResolve() throws ObjectStreamException {
+        synchronized (instances) {
+            ArrayList<AttributeKey<?>> sameKey = instances.get(key);
+            if (sameKey != null && ordinal < sameKey.size()) {
+                AttributeKey<?> instance = sameKey.get(ordinal);
+                if (instance.clazz == clazz) {
+                    return instance;
+                }
+            }
+        }
+        return this;
     }
 
     /**
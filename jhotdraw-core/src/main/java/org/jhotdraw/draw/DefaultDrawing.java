@@ -52,8 +52,8 @@ public class DefaultDrawing
     }
 
     @Override
-    public void basicAdd(int index, Figure figure) {
-        super.basicAdd(index, figure);
+    protected void childAdded(Figure figure) {
+        super.childAdded(figure);
         invalidateSortOrder();
     }
 
@@ -69,6 +69,11 @@ public class DefaultDrawing
                     toDraw.add(f);
                 }
             }
+            PaintMetrics metrics = PaintMetrics.get(g);
+            if (metrics != null) {
+                // Count the figures which have been culled here as visited
+                metrics.addFigures(getChildren().size() - toDraw.size(), 0);
+            }
             draw(g, toDraw);
         }
     }
@@ -76,18 +81,33 @@ public class DefaultDrawing
     public void draw(Graphics2D g, Collection<Figure> children) {
         Rectangle2D clipBounds = g.getClipBounds();
         double scale = AttributeKeys.getScaleFactorFromGraphics(g);
-        if (clipBounds != null) {
-            for (Figure f : children) {
-                if (f.isVisible() && f.getDrawingArea(scale).intersects(clipBounds)) {
-                    f.draw(g);
+        LevelOfDetailPolicy lod = getLevelOfDetailPolicy();
+        LevelOfDetailPolicy.Pass pass = (lod == null) ? null : lod.begin(g);
+        int drawn = 0;
+        try {
+            if (clipBounds != null) {
+                for (Figure f : children) {
+                    if (f.isVisible() && f.getDrawingArea(scale).intersects(clipBounds)) {
+                        drawFigure(g, f, pass);
+                        drawn++;
+                    }
                 }
-            }
-        } else {
-            for (Figure f : children) {
-                if (f.isVisible()) {
-                    f.draw(g);
+            } else {
+                for (Figure f : children) {
+                    if (f.isVisible()) {
+                        drawFigure(g, f, pass);
+                        drawn++;
+                    }
                 }
             }
+        } finally {
+            if (pass != null) {
+                pass.end();
+            }
+            PaintMetrics metrics = PaintMetrics.get(g);
+            if (metrics != null) {
+                metrics.addFigures(children.size(), drawn);
+            }
         }
     }
 
@@ -216,6 +236,11 @@ public class DefaultDrawing
         return new ReversedList<>(getChildren());
     }
 
+    @Override
+    protected void childrenReordered() {
+        invalidateSortOrder();
+    }
+
     /**
      * Invalidates the sort order.
      */
@@ -27,6 +27,8 @@ import org.jhotdraw.draw.event.FigureSelectionEvent;
 import org.jhotdraw.draw.event.FigureSelectionListener;
 import org.jhotdraw.draw.event.HandleEvent;
 import org.jhotdraw.draw.event.HandleListener;
+import org.jhotdraw.draw.event.PaintMetricsEvent;
+import org.jhotdraw.draw.event.PaintMetricsListener;
 import org.jhotdraw.draw.handle.Handle;
 import org.jhotdraw.util.*;
 
@@ -100,6 +102,11 @@ public class DefaultDrawingView
      */
     private Rectangle dirtyArea = new Rectangle(0, 0, -1, -1);
     private boolean paintEnabled = true;
+    /**
+     * Holds the metrics of the paint which is in progress, or null if the
+     * paint is not measured.
+     */
+    private transient PaintMetrics paintMetrics;
     private static final boolean IS_WINDOWS;
 
     static {
@@ -358,21 +365,53 @@ public class DefaultDrawingView
     @Override
     public void paintComponent(Graphics gr) {
         Graphics2D g = (Graphics2D) gr;
-        setViewRenderingHints(g);
-        drawBackground(g);
-        drawCanvas(g);
-        drawConstrainer(g);
-        if (isDrawingDoubleBuffered()) {
-            if (IS_WINDOWS) {
-                drawDrawingNonvolatileBuffered(g);
+        PaintMetrics metrics = (listenerList.getListenerCount(PaintMetricsListener.class) == 0)
+                ? null : new PaintMetrics();
+        paintMetrics = metrics;
+        try {
+            setViewRenderingHints(g);
+            long t = (metrics == null) ? 0 : System.nanoTime();
+            drawBackground(g);
+            t = measure(metrics, PaintMetrics.Phase.BACKGROUND, t);
+            drawCanvas(g);
+            t = measure(metrics, PaintMetrics.Phase.CANVAS, t);
+            drawConstrainer(g);
+            t = measure(metrics, PaintMetrics.Phase.CONSTRAINER, t);
+            if (isDrawingDoubleBuffered()) {
+                if (IS_WINDOWS) {
+                    drawDrawingNonvolatileBuffered(g);
+                } else {
+                    drawDrawingVolatileBuffered(g);
+                }
             } else {
-                drawDrawingVolatileBuffered(g);
+                drawDrawing(g);
             }
-        } else {
-            drawDrawing(g);
+            t = measure(metrics, PaintMetrics.Phase.DRAWING, t);
+            drawHandles(g);
+            t = measure(metrics, PaintMetrics.Phase.HANDLES, t);
+            drawTool(g);
+            measure(metrics, PaintMetrics.Phase.TOOL, t);
+        } finally {
+            paintMetrics = null;
+        }
+        if (metrics != null) {
+            firePaintMeasured(metrics);
         }
-        drawHandles(g);
-        drawTool(g);
+    }
+
+    /**
+     * Adds the time since {@code start} to the specified phase of the
+     * metrics. Does nothing if the metrics are null.
+     *
+     * @return the current time in nanoseconds, or 0 if the metrics are null.
+     */
+    private static long measure(PaintMetrics metrics, PaintMetrics.Phase phase, long start) {
+        if (metrics == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        metrics.addPhaseNanos(phase, now - start);
+        return now;
     }
 
     /**
@@ -422,6 +461,9 @@ public class DefaultDrawingView
                     // old buffer doesn't work with new GraphicsConfig; (re-)create it
                     try {
                     drawingBufferV = getGraphicsConfiguration().createCompatibleVolatileImage(vr.width, vr.height, Transparency.TRANSLUCENT);
+                    if (paintMetrics != null) {
+                        paintMetrics.bufferRecreated();
+                    }
                 } catch (OutOfMemoryError e) {
                     drawingBufferV = null;
                 }
@@ -517,6 +559,9 @@ public class DefaultDrawingView
                 // old buffer doesn't work with new GraphicsConfig; (re-)create it
                 try {
                 drawingBufferNV = getGraphicsConfiguration().createCompatibleImage(vr.width, vr.height, Transparency.TRANSLUCENT);
+                if (paintMetrics != null) {
+                    paintMetrics.bufferRecreated();
+                }
             } catch (OutOfMemoryError e) {
                 drawingBufferNV = null;
             }
@@ -643,6 +688,14 @@ public class DefaultDrawingView
                 emptyDrawingLabel.paint(gr);
             } else {
                 Graphics2D g = (Graphics2D) gr.create();
+                if (paintMetrics != null) {
+                    Rectangle clip = g.getClipBounds();
+                    if (clip == null) {
+                        clip = getVisibleRect();
+                    }
+                    paintMetrics.addDirtyArea((long) clip.width * clip.height);
+                    g.setRenderingHint(PaintMetrics.KEY_PAINT_METRICS, paintMetrics);
+                }
                 AffineTransform tx = g.getTransform();
                 tx.translate(-translation.x, -translation.y);
                 tx.scale(scaleFactor, scaleFactor);
@@ -663,6 +716,9 @@ public class DefaultDrawingView
             for (Handle h : getSecondaryHandles()) {
                 h.draw(g);
             }
+            if (paintMetrics != null) {
+                paintMetrics.addHandles(getSelectionHandles().size() + getSecondaryHandles().size());
+            }
         }
     }
 
@@ -1055,6 +1111,35 @@ public class DefaultDrawingView
         listenerList.remove(FigureSelectionListener.class, fsl);
     }
 
+    /**
+     * Adds a listener which is notified after each paint of this view with
+     * the measurements of the paint. Paints are only measured while this view
+     * has paint metrics listeners.
+     */
+    public void addPaintMetricsListener(PaintMetricsListener l) {
+        listenerList.add(PaintMetricsListener.class, l);
+    }
+
+    public void removePaintMetricsListener(PaintMetricsListener l) {
+        listenerList.remove(PaintMetricsListener.class, l);
+    }
+
+    /**
+     * Notify all listeners that have registered interest for paint metrics.
+     */
+    protected void firePaintMeasured(PaintMetrics metrics) {
+        PaintMetricsEvent event = null;
+        Object[] listeners = listenerList.getListenerList();
+        for (int i = listeners.length - 2; i >= 0; i -= 2) {
+            if (listeners[i] == PaintMetricsListener.class) {
+                if (event == null) {
+                    event = new PaintMetricsEvent(this, metrics);
+                }
+                ((PaintMetricsListener) listeners[i + 1]).paintMeasured(event);
+            }
+        }
+    }
+
     /**
      * Notify all listenerList that have registered interest for notification on this event type.
      * Also notify listeners who listen for {@link EditableComponent#SELECTION_EMPTY_PROPERTY}.
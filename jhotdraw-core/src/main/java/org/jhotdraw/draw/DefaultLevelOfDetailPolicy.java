@@ -0,0 +1,352 @@
+/*
+ * @(#)DefaultLevelOfDetailPolicy.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import static org.jhotdraw.draw.AttributeKeys.*;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.draw.figure.TextHolderFigure;
+
+/**
+ * Default implementation of {@link LevelOfDetailPolicy}.
+ * <p>
+ * A figure whose drawing area is smaller than the minimal size in device
+ * pixels is drawn using a simplified {@link Representation}. The minimal size
+ * and the representation can be configured per figure class; a setting for a
+ * class also applies to its subclasses unless they have their own setting.
+ * <p>
+ * Text figures with a font size below the minimal text size are drawn as
+ * greeked boxes in the text color. Line decorations below the minimal detail
+ * size are skipped by figures which honour
+ * {@link LevelOfDetailPolicy#KEY_MIN_DETAIL_SIZE}.
+ * <p>
+ * If a frame budget is set, all figures which are drawn after the budget has
+ * been used up are drawn in their simplified representation.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class DefaultLevelOfDetailPolicy implements LevelOfDetailPolicy {
+
+    /**
+     * Simplified representations of a figure.
+     */
+    public enum Representation {
+
+        /**
+         * The figure is drawn with full detail.
+         */
+        FULL,
+        /**
+         * The drawing area of the figure is filled with the figure color.
+         */
+        BOUNDS,
+        /**
+         * A single device pixel is drawn at the center of the figure.
+         */
+        POINT,
+        /**
+         * The figure is accumulated into a density raster, which is drawn
+         * on top of the other figures at the end of the pass.
+         */
+        DENSITY,
+        /**
+         * The figure is not drawn at all.
+         */
+        NONE
+    }
+
+    private static class Rule {
+
+        private double minSize;
+        private Representation representation;
+
+        private Rule(double minSize, Representation representation) {
+            this.minSize = minSize;
+            this.representation = representation;
+        }
+    }
+
+    /**
+     * Number of figures drawn between two checks of the frame budget.
+     */
+    private static final int BUDGET_CHECK_INTERVAL = 256;
+    private final HashMap<Class<?>, Rule> rules = new HashMap<>();
+    private final HashMap<Class<?>, Rule> resolvedRules = new HashMap<>();
+    private double minTextSize = 4;
+    private double minDetailSize = 3;
+    private int densityCellSize = 4;
+    private Color densityColor = Color.DARK_GRAY;
+    private long frameBudgetNanos;
+
+    /**
+     * Creates a new instance which draws figures smaller than two device
+     * pixels as filled bounds.
+     */
+    public DefaultLevelOfDetailPolicy() {
+        rules.put(Figure.class, new Rule(2, Representation.BOUNDS));
+    }
+
+    /**
+     * Sets the minimal size in device pixels below which figures of the
+     * specified class and its subclasses are drawn using the specified
+     * representation.
+     */
+    public synchronized void setThreshold(Class<? extends Figure> type, double minSize, Representation representation) {
+        rules.put(type, new Rule(minSize, representation));
+        resolvedRules.clear();
+    }
+
+    /**
+     * Removes the threshold of the specified class. Figures of this class
+     * use the threshold of the nearest superclass.
+     */
+    public synchronized void removeThreshold(Class<? extends Figure> type) {
+        if (type != Figure.class) {
+            rules.remove(type);
+            resolvedRules.clear();
+        }
+    }
+
+    /**
+     * Sets the minimal font size in device pixels below which text is
+     * greeked.
+     */
+    public void setMinTextSize(double newValue) {
+        minTextSize = newValue;
+    }
+
+    public double getMinTextSize() {
+        return minTextSize;
+    }
+
+    /**
+     * Sets the minimal size in device pixels below which details such as
+     * line decorations are not drawn.
+     */
+    public void setMinDetailSize(double newValue) {
+        minDetailSize = newValue;
+    }
+
+    public double getMinDetailSize() {
+        return minDetailSize;
+    }
+
+    /**
+     * Sets the size in device pixels of a cell of the density raster.
+     */
+    public void setDensityCellSize(int newValue) {
+        densityCellSize = Math.max(1, newValue);
+    }
+
+    public int getDensityCellSize() {
+        return densityCellSize;
+    }
+
+    /**
+     * Sets the color of the density raster.
+     */
+    public void setDensityColor(Color newValue) {
+        densityColor = newValue;
+    }
+
+    public Color getDensityColor() {
+        return densityColor;
+    }
+
+    /**
+     * Sets the time budget for drawing all figures of a pass in milliseconds.
+     * Specify 0 for no budget.
+     */
+    public void setFrameBudget(long millis) {
+        frameBudgetNanos = millis * 1000000L;
+    }
+
+    public long getFrameBudget() {
+        return frameBudgetNanos / 1000000L;
+    }
+
+    private synchronized Rule getRule(Class<?> type) {
+        Rule rule = resolvedRules.get(type);
+        if (rule == null) {
+            for (Class<?> c = type; c != null && rule == null; c = c.getSuperclass()) {
+                rule = rules.get(c);
+            }
+            if (rule == null) {
+                rule = rules.get(Figure.class);
+            }
+            resolvedRules.put(type, rule);
+        }
+        return rule;
+    }
+
+    @Override
+    public LevelOfDetailPolicy.Pass begin(Graphics2D g) {
+        return new Pass(g);
+    }
+
+    /**
+     * A drawing pass of the default level of detail policy.
+     */
+    protected class Pass implements LevelOfDetailPolicy.Pass {
+
+        private final Graphics2D g;
+        private final double scale;
+        private final Object oldMinDetailSize;
+        private final long deadline;
+        private int drawCount;
+        private boolean overBudget;
+        private int[] densities;
+        private Rectangle densityBounds;
+        private int densityColumns;
+
+        protected Pass(Graphics2D g) {
+            this.g = g;
+            // The scale factor of the graphics is the size of a device pixel in drawing units
+            this.scale = 1 / AttributeKeys.getScaleFactorFromGraphics(g);
+            this.oldMinDetailSize = g.getRenderingHint(KEY_MIN_DETAIL_SIZE);
+            this.deadline = frameBudgetNanos > 0 ? System.nanoTime() + frameBudgetNanos : 0;
+            g.setRenderingHint(KEY_MIN_DETAIL_SIZE, minDetailSize);
+        }
+
+        @Override
+        public void draw(Figure f) {
+            if (deadline != 0 && !overBudget && ++drawCount % BUDGET_CHECK_INTERVAL == 0) {
+                overBudget = System.nanoTime() > deadline;
+            }
+            Rectangle2D.Double r = f.getDrawingArea();
+            Representation representation = Representation.FULL;
+            Rule rule = getRule(f.getClass());
+            if (overBudget || Math.max(r.width, r.height) * scale < rule.minSize) {
+                representation = overBudget && rule.representation == Representation.FULL
+                        ? Representation.BOUNDS : rule.representation;
+            } else if (f instanceof TextHolderFigure
+                    && ((TextHolderFigure) f).getFontSize() * scale < minTextSize) {
+                drawGreeked((TextHolderFigure) f);
+                return;
+            }
+            switch (representation) {
+                case FULL:
+                    f.draw(g);
+                    break;
+                case BOUNDS:
+                    drawBounds(f, r);
+                    break;
+                case POINT:
+                    drawPoint(f, r);
+                    break;
+                case DENSITY:
+                    if (!addDensity(r)) {
+                        drawPoint(f, r);
+                    }
+                    break;
+                case NONE:
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void end() {
+            if (densities != null) {
+                drawDensities();
+            }
+            g.setRenderingHint(KEY_MIN_DETAIL_SIZE, oldMinDetailSize);
+        }
+
+        /**
+         * Returns the color with which a simplified figure is drawn.
+         */
+        protected Color getColor(Figure f) {
+            Color c = f.get(FILL_COLOR);
+            if (c == null) {
+                c = f.get(STROKE_COLOR);
+            }
+            return c == null ? Color.BLACK : c;
+        }
+
+        protected void drawBounds(Figure f, Rectangle2D.Double r) {
+            // Make sure that at least one device pixel is covered
+            double min = 1 / scale;
+            g.setColor(getColor(f));
+            g.fill(new Rectangle2D.Double(r.x, r.y, Math.max(min, r.width), Math.max(min, r.height)));
+        }
+
+        protected void drawPoint(Figure f, Rectangle2D.Double r) {
+            double size = 1 / scale;
+            g.setColor(getColor(f));
+            g.fill(new Rectangle2D.Double(r.getCenterX() - size / 2, r.getCenterY() - size / 2, size, size));
+        }
+
+        protected void drawGreeked(TextHolderFigure f) {
+            Color c = f.getTextColor();
+            if (c == null) {
+                c = Color.BLACK;
+            }
+            g.setColor(new Color((c.getRGB() & 0xffffff) | 0x60000000, true));
+            g.fill(f.getBounds());
+        }
+
+        /**
+         * Adds the center of the specified drawing area to the density
+         * raster.
+         *
+         * @return false if there is no density raster for this pass.
+         */
+        private boolean addDensity(Rectangle2D.Double r) {
+            if (densities == null) {
+                Rectangle clip = g.getClipBounds();
+                if (clip == null) {
+                    return false;
+                }
+                densityBounds = g.getTransform().createTransformedShape(clip).getBounds();
+                densityColumns = (densityBounds.width + densityCellSize - 1) / densityCellSize;
+                int rows = (densityBounds.height + densityCellSize - 1) / densityCellSize;
+                if (densityColumns <= 0 || rows <= 0) {
+                    return false;
+                }
+                densities = new int[densityColumns * rows];
+            }
+            double[] p = {r.getCenterX(), r.getCenterY()};
+            g.getTransform().transform(p, 0, p, 0, 1);
+            int col = (int) Math.floor((p[0] - densityBounds.x) / densityCellSize);
+            int row = (int) Math.floor((p[1] - densityBounds.y) / densityCellSize);
+            if (col >= 0 && row >= 0 && col < densityColumns && row * densityColumns + col < densities.length) {
+                densities[row * densityColumns + col]++;
+            }
+            return true;
+        }
+
+        private void drawDensities() {
+            int cols = densityColumns;
+            int rows = densities.length / cols;
+            BufferedImage img = new BufferedImage(cols, rows, BufferedImage.TYPE_INT_ARGB);
+            int rgb = densityColor.getRGB() & 0xffffff;
+            int[] pixels = new int[densities.length];
+            for (int i = 0; i < densities.length; i++) {
+                int alpha = Math.min(255, densities[i] * 64);
+                pixels[i] = (alpha << 24) | rgb;
+            }
+            img.setRGB(0, 0, cols, rows, pixels, 0, cols);
+            AffineTransform tx = g.getTransform();
+            try {
+                g.setTransform(new AffineTransform());
+                g.drawImage(img, densityBounds.x, densityBounds.y,
+                        cols * densityCellSize, rows * densityCellSize, null);
+            } finally {
+                g.setTransform(tx);
+            }
+        }
+    }
+}
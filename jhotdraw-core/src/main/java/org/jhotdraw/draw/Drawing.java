@@ -104,6 +104,19 @@ public interface Drawing extends CompositeFigure, Serializable, DOMStorable {
      */
     public void drawCanvas(Graphics2D g);
 
+    /**
+     * Sets the level of detail policy which is consulted when the figures
+     * of the drawing are drawn. Specify null to draw all figures with full
+     * detail.
+     */
+    public void setLevelOfDetailPolicy(LevelOfDetailPolicy newValue);
+
+    /**
+     * Gets the level of detail policy of the drawing. Returns null if all
+     * figures are drawn with full detail.
+     */
+    public LevelOfDetailPolicy getLevelOfDetailPolicy();
+
     /**
      * Adds a figure to the drawing.
      * The drawing sends an {@code addNotify} message to the figure
@@ -240,6 +253,18 @@ public interface Drawing extends CompositeFigure, Serializable, DOMStorable {
      */
     List<Figure> findFiguresWithin(Rectangle2D.Double bounds);
 
+    /**
+     * Returns all top level figures which are instances of exactly the
+     * specified class. The figures are returned in no particular order.
+     */
+    Collection<Figure> findFiguresByClass(Class<?> figureClass);
+
+    /**
+     * Returns all top level figures which have the specified attribute
+     * value. The figures are returned in no particular order.
+     */
+    <T> Collection<Figure> findFiguresByAttribute(AttributeKey<T> key, T value);
+
     /**
      * Finds a top level Figure. Use this call for hit detection that
      * should not descend into children of composite figures.
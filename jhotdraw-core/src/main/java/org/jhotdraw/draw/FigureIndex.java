@@ -0,0 +1,160 @@
+/*
+ * @(#)FigureIndex.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.util.*;
+import org.jhotdraw.draw.event.FigureAdapter;
+import org.jhotdraw.draw.event.FigureEvent;
+import org.jhotdraw.draw.figure.Figure;
+
+/**
+ * A secondary index which groups figures by their class or by the value
+ * of an attribute.
+ * <p>
+ * An index by attribute value registers itself as a listener on its
+ * figures, and moves a figure to another group when one of its attributes
+ * changes.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class FigureIndex extends FigureAdapter {
+
+    /**
+     * The attribute by which the figures are indexed, or null if they are
+     * indexed by their class.
+     */
+    private final AttributeKey<?> attributeKey;
+    private final HashMap<Object, Set<Figure>> groups = new HashMap<>();
+    private final HashMap<Figure, Object> keys = new HashMap<>();
+
+    /**
+     * Creates an index which groups figures by their class.
+     */
+    public FigureIndex() {
+        this(null);
+    }
+
+    /**
+     * Creates an index which groups figures by the value of the specified
+     * attribute.
+     */
+    public FigureIndex(AttributeKey<?> attributeKey) {
+        this.attributeKey = attributeKey;
+    }
+
+    /**
+     * Returns the attribute by which the figures are indexed, or null if
+     * they are indexed by their class.
+     */
+    public AttributeKey<?> getAttributeKey() {
+        return attributeKey;
+    }
+
+    /**
+     * Returns the key under which a figure is indexed.
+     */
+    protected Object getKey(Figure figure) {
+        return attributeKey == null ? figure.getClass() : figure.get(attributeKey);
+    }
+
+    /**
+     * Adds a figure to the index.
+     */
+    public void add(Figure figure) {
+        if (!keys.containsKey(figure)) {
+            Object key = getKey(figure);
+            keys.put(figure, key);
+            group(key).add(figure);
+            if (attributeKey != null) {
+                figure.addFigureListener(this);
+            }
+        }
+    }
+
+    /**
+     * Removes a figure from the index.
+     */
+    public void remove(Figure figure) {
+        if (keys.containsKey(figure)) {
+            ungroup(keys.remove(figure), figure);
+            if (attributeKey != null) {
+                figure.removeFigureListener(this);
+            }
+        }
+    }
+
+    /**
+     * Removes all figures from the index.
+     */
+    public void clear() {
+        if (attributeKey != null) {
+            for (Figure figure : keys.keySet()) {
+                figure.removeFigureListener(this);
+            }
+        }
+        keys.clear();
+        groups.clear();
+    }
+
+    /**
+     * Returns the figures which are indexed under the specified key. The
+     * returned set is a view which reflects later changes of the index.
+     */
+    public Set<Figure> get(Object key) {
+        Set<Figure> group = groups.get(key);
+        return group == null ? Collections.<Figure>emptySet() : Collections.unmodifiableSet(group);
+    }
+
+    private Set<Figure> group(Object key) {
+        Set<Figure> group = groups.get(key);
+        if (group == null) {
+            group = new LinkedHashSet<>();
+            groups.put(key, group);
+        }
+        return group;
+    }
+
+    private void ungroup(Object key, Figure figure) {
+        Set<Figure> group = groups.get(key);
+        group.remove(figure);
+        if (group.isEmpty()) {
+            groups.remove(key);
+        }
+    }
+
+    /**
+     * Moves a figure to another group if its key has changed.
+     */
+    private void update(Figure figure) {
+        if (keys.containsKey(figure)) {
+            Object oldKey = keys.get(figure);
+            Object newKey = getKey(figure);
+            if (!Objects.equals(oldKey, newKey)) {
+                ungroup(oldKey, figure);
+                keys.put(figure, newKey);
+                group(newKey).add(figure);
+            }
+        }
+    }
+
+    @Override
+    public void attributeChanged(FigureEvent e) {
+        update(e.getFigure());
+    }
+
+    /**
+     * Attributes may be restored without an attribute event, for example
+     * when an edit is undone. Therefore we check the key on every change
+     * of the figure as well.
+     */
+    @Override
+    public void figureChanged(FigureEvent e) {
+        update(e.getFigure());
+    }
+}
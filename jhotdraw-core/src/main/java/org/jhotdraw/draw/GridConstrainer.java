@@ -10,6 +10,7 @@ package org.jhotdraw.draw;
 import org.jhotdraw.draw.figure.Figure;
 import java.awt.*;
 import java.awt.geom.*;
+import java.awt.image.BufferedImage;
 
 /**
  * Constrains a point such that it falls on a grid.
@@ -53,6 +54,24 @@ public class GridConstrainer extends AbstractConstrainer {
      * The spacing factor for a major grid cell.
      */
     private int majorGridSpacing = 5;
+    /**
+     * The maximal width and height of a grid tile in pixels.
+     */
+    private static final int MAX_TILE_SIZE = 512;
+    /**
+     * A tile holding one major grid cell rendered at {@code tileScaleX},
+     * {@code tileScaleY}, at the resolution of the device. The tile is
+     * recreated when the scale, the device scale or one of the grid
+     * parameters changes.
+     */
+    private transient BufferedImage tile;
+    private transient double tileScaleX;
+    private transient double tileScaleY;
+    private transient double tileWidth;
+    private transient double tileHeight;
+    private transient int tileSpacing;
+    private transient Color tileMinorColor;
+    private transient Color tileMajorColor;
 
     /**
      * Creates a new instance with a grid of 1x1.
@@ -369,55 +388,188 @@ public class GridConstrainer extends AbstractConstrainer {
     @Override
     public void draw(Graphics2D g, DrawingView view) {
         if (isVisible) {
-            AffineTransform t = view.getDrawingToViewTransform();
-            Rectangle viewBounds = g.getClipBounds();
-            Rectangle2D.Double bounds = view.viewToDrawing(viewBounds);
-            Point2D.Double origin = constrainPoint(new Point2D.Double(bounds.x, bounds.y));
-            Point2D.Double point = new Point2D.Double();
-            Point2D.Double viewPoint = new Point2D.Double();
-            // vertical grid lines are only drawn, if they are at least two
-            // pixels apart on the view coordinate system.
-            if (width * view.getScaleFactor() > 2) {
-                g.setColor(minorColor);
-                for (int i = (int) (origin.x / width), m = (int) ((origin.x + bounds.width) / width) + 1; i <= m; i++) {
-                    g.setColor((i % majorGridSpacing == 0) ? majorColor : minorColor);
+            TexturePaint gridPaint = getGridPaint(g, view);
+            if (gridPaint != null) {
+                Paint oldPaint = g.getPaint();
+                g.setPaint(gridPaint);
+                g.fill(g.getClipBounds());
+                g.setPaint(oldPaint);
+            } else {
+                drawGridLines(g, view);
+            }
+        }
+    }
+
+    /**
+     * Returns a paint which fills the view with the grid, or null if the grid
+     * can not be drawn with a repeating tile.
+     * <p>
+     * A tile can only be used if a major grid cell covers a whole number of
+     * pixels, if the drawing is not rotated or sheared, and if the graphics
+     * only translates or scales by a whole number, because the tile would
+     * otherwise be interpolated. The tile is rendered at the resolution of
+     * the device, so that it can be used on high resolution displays, where
+     * the graphics scales by 2 or more.
+     */
+    protected TexturePaint getGridPaint(Graphics2D g, DrawingView view) {
+        AffineTransform gt = g.getTransform();
+        if ((gt.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_MASK_SCALE)) != 0) {
+            return null;
+        }
+        int deviceScaleX = getDeviceScale(gt.getScaleX());
+        int deviceScaleY = getDeviceScale(gt.getScaleY());
+        if (deviceScaleX <= 0 || deviceScaleY <= 0) {
+            return null;
+        }
+        AffineTransform t = view.getDrawingToViewTransform();
+        if ((t.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_MASK_SCALE)) != 0) {
+            return null;
+        }
+        double scale = view.getScaleFactor();
+        boolean isMinorX = width * scale > 2;
+        boolean isMinorY = height * scale > 2;
+        int w = getTileSize(isMinorX || width * majorGridSpacing * scale > 2, width * majorGridSpacing * t.getScaleX());
+        int h = getTileSize(isMinorY || height * majorGridSpacing * scale > 2, height * majorGridSpacing * t.getScaleY());
+        if (w <= 0 || h <= 0) {
+            return null;
+        }
+        if (tile == null || tile.getWidth() != w * deviceScaleX || tile.getHeight() != h * deviceScaleY
+                || tileScaleX != t.getScaleX() || tileScaleY != t.getScaleY()
+                || tileWidth != width || tileHeight != height
+                || tileSpacing != majorGridSpacing
+                || !minorColor.equals(tileMinorColor) || !majorColor.equals(tileMajorColor)) {
+            tile = createTile(w, h, t.getScaleX(), t.getScaleY(), deviceScaleX, deviceScaleY, isMinorX, isMinorY);
+            tileScaleX = t.getScaleX();
+            tileScaleY = t.getScaleY();
+            tileWidth = width;
+            tileHeight = height;
+            tileSpacing = majorGridSpacing;
+            tileMinorColor = minorColor;
+            tileMajorColor = majorColor;
+        }
+        // The tile is anchored at the origin of the drawing
+        Point2D.Double origin = (Point2D.Double) t.transform(new Point2D.Double(0, 0), null);
+        return new TexturePaint(tile, new Rectangle2D.Double(Math.floor(origin.x), Math.floor(origin.y), w, h));
+    }
+
+    /**
+     * Returns the scale factor of the graphics along one axis as a whole
+     * number, or -1 if the graphics does not scale by a whole number.
+     */
+    private static int getDeviceScale(double deviceScale) {
+        double scale = Math.rint(deviceScale);
+        if (Math.abs(scale - deviceScale) > 1e-6 || scale < 1 || scale > 4) {
+            return -1;
+        }
+        return (int) scale;
+    }
+
+    /**
+     * Returns the size of a tile along one axis, or -1 if the major grid
+     * spacing does not cover a whole number of pixels.
+     *
+     * @param hasLines Whether grid lines are drawn along the axis.
+     * @param majorCellSize The size of a major grid cell in pixels.
+     */
+    private static int getTileSize(boolean hasLines, double majorCellSize) {
+        if (!hasLines) {
+            return 1;
+        }
+        double size = Math.rint(majorCellSize);
+        if (Math.abs(size - majorCellSize) > 1e-6 || size < 1 || size > MAX_TILE_SIZE) {
+            return -1;
+        }
+        return (int) size;
+    }
+
+    /**
+     * Renders one major grid cell of w by h pixels into a tile, which has
+     * deviceScaleX by deviceScaleY device pixels for each pixel.
+     */
+    private BufferedImage createTile(int w, int h, double scaleX, double scaleY,
+            int deviceScaleX, int deviceScaleY, boolean isMinorX, boolean isMinorY) {
+        BufferedImage img = new BufferedImage(w * deviceScaleX, h * deviceScaleY, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            // Vertical lines are drawn first, so that horizontal lines are on
+            // top of them, as in drawGridLines. On a scaling device, a line
+            // is centered on its grid position, and the part of a line which
+            // lies before the tile is drawn at the end of the tile.
+            if (w > 1) {
+                for (int i = 0, n = isMinorX ? majorGridSpacing : 1; i < n; i++) {
+                    g.setColor(i == 0 ? majorColor : minorColor);
+                    int x = (int) (width * i * scaleX) * deviceScaleX - deviceScaleX / 2;
+                    g.fillRect(x, 0, deviceScaleX, img.getHeight());
+                    g.fillRect(x + img.getWidth(), 0, deviceScaleX, img.getHeight());
+                }
+            }
+            if (h > 1) {
+                for (int i = 0, n = isMinorY ? majorGridSpacing : 1; i < n; i++) {
+                    g.setColor(i == 0 ? majorColor : minorColor);
+                    int y = (int) (height * i * scaleY) * deviceScaleY - deviceScaleY / 2;
+                    g.fillRect(0, y, img.getWidth(), deviceScaleY);
+                    g.fillRect(0, y + img.getHeight(), img.getWidth(), deviceScaleY);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    /**
+     * Draws the grid with one line per grid line. This is used when the grid
+     * can not be drawn with a tile.
+     */
+    protected void drawGridLines(Graphics2D g, DrawingView view) {
+        AffineTransform t = view.getDrawingToViewTransform();
+        Rectangle viewBounds = g.getClipBounds();
+        Rectangle2D.Double bounds = view.viewToDrawing(viewBounds);
+        Point2D.Double origin = constrainPoint(new Point2D.Double(bounds.x, bounds.y));
+        Point2D.Double point = new Point2D.Double();
+        Point2D.Double viewPoint = new Point2D.Double();
+        // vertical grid lines are only drawn, if they are at least two
+        // pixels apart on the view coordinate system.
+        if (width * view.getScaleFactor() > 2) {
+            g.setColor(minorColor);
+            for (int i = (int) (origin.x / width), m = (int) ((origin.x + bounds.width) / width) + 1; i <= m; i++) {
+                g.setColor((i % majorGridSpacing == 0) ? majorColor : minorColor);
+                point.x = width * i;
+                t.transform(point, viewPoint);
+                g.drawLine((int) viewPoint.x, viewBounds.y,
+                        (int) viewPoint.x, viewBounds.y + viewBounds.height);
+            }
+        } else if (width * majorGridSpacing * view.getScaleFactor() > 2) {
+            g.setColor(majorColor);
+            for (int i = (int) (origin.x / width), m = (int) ((origin.x + bounds.width) / width) + 1; i <= m; i++) {
+                if (i % majorGridSpacing == 0) {
                     point.x = width * i;
                     t.transform(point, viewPoint);
                     g.drawLine((int) viewPoint.x, viewBounds.y,
                             (int) viewPoint.x, viewBounds.y + viewBounds.height);
                 }
-            } else if (width * majorGridSpacing * view.getScaleFactor() > 2) {
-                g.setColor(majorColor);
-                for (int i = (int) (origin.x / width), m = (int) ((origin.x + bounds.width) / width) + 1; i <= m; i++) {
-                    if (i % majorGridSpacing == 0) {
-                        point.x = width * i;
-                        t.transform(point, viewPoint);
-                        g.drawLine((int) viewPoint.x, viewBounds.y,
-                                (int) viewPoint.x, viewBounds.y + viewBounds.height);
-                    }
-                }
             }
-            // horizontal grid lines are only drawn, if they are at least two
-            // pixels apart on the view coordinate system.
-            if (height * view.getScaleFactor() > 2) {
-                g.setColor(minorColor);
-                for (int i = (int) (origin.y / height), m = (int) ((origin.y + bounds.height) / height) + 1; i <= m; i++) {
-                    g.setColor((i % majorGridSpacing == 0) ? majorColor : minorColor);
+        }
+        // horizontal grid lines are only drawn, if they are at least two
+        // pixels apart on the view coordinate system.
+        if (height * view.getScaleFactor() > 2) {
+            g.setColor(minorColor);
+            for (int i = (int) (origin.y / height), m = (int) ((origin.y + bounds.height) / height) + 1; i <= m; i++) {
+                g.setColor((i % majorGridSpacing == 0) ? majorColor : minorColor);
+                point.y = height * i;
+                t.transform(point, viewPoint);
+                g.drawLine(viewBounds.x, (int) viewPoint.y,
+                        viewBounds.x + viewBounds.width, (int) viewPoint.y);
+            }
+        } else if (height * majorGridSpacing * view.getScaleFactor() > 2) {
+            g.setColor(majorColor);
+            for (int i = (int) (origin.y / height), m = (int) ((origin.y + bounds.height) / height) + 1; i <= m; i++) {
+                if (i % majorGridSpacing == 0) {
                     point.y = height * i;
                     t.transform(point, viewPoint);
                     g.drawLine(viewBounds.x, (int) viewPoint.y,
                             viewBounds.x + viewBounds.width, (int) viewPoint.y);
                 }
-            } else if (height * majorGridSpacing * view.getScaleFactor() > 2) {
-                g.setColor(majorColor);
-                for (int i = (int) (origin.y / height), m = (int) ((origin.y + bounds.height) / height) + 1; i <= m; i++) {
-                    if (i % majorGridSpacing == 0) {
-                        point.y = height * i;
-                        t.transform(point, viewPoint);
-                        g.drawLine(viewBounds.x, (int) viewPoint.y,
-                                viewBounds.x + viewBounds.width, (int) viewPoint.y);
-                    }
-                }
             }
         }
     }
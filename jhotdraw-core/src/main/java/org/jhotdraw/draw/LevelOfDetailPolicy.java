@@ -0,0 +1,105 @@
+/*
+ * @(#)LevelOfDetailPolicy.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import org.jhotdraw.draw.figure.Figure;
+
+/**
+ * A {@code LevelOfDetailPolicy} decides with how much detail the figures of a
+ * {@link Drawing} are drawn.
+ * <p>
+ * When a drawing is zoomed out, most figures cover only a few pixels on the
+ * screen. A level of detail policy can draw such figures in a simplified
+ * form, for example as a filled rectangle or as a single point.
+ * <p>
+ * The drawing consults its policy in method {@code draw}. For each pass, it
+ * calls {@link #begin}, then {@link Pass#draw} for each visible figure, and
+ * finally {@link Pass#end}.
+ * <p>
+ * Figures can query the {@link #KEY_MIN_DETAIL_SIZE} rendering hint
+ * using {@link #isDetailVisible} to skip details such as line decorations
+ * which would not be readable at the current scale.
+ *
+ * <hr>
+ * <b>Design Patterns</b>
+ *
+ * <p>
+ * <em>Strategy</em><br>
+ * The level of detail with which a drawing is drawn is encapsulated by a
+ * strategy.<br>
+ * Strategy: {@link LevelOfDetailPolicy}; Context: {@link Drawing}.
+ * <hr>
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public interface LevelOfDetailPolicy {
+
+    /**
+     * Rendering hint key for the minimal size in device pixels of a detail
+     * of a figure, such as a line decoration, below which the detail is not
+     * drawn. The value is a {@code Double}.
+     */
+    public static final RenderingHints.Key KEY_MIN_DETAIL_SIZE = new RenderingHints.Key(0x4c4f44) {
+        @Override
+        public boolean isCompatibleValue(Object val) {
+            return val == null || val instanceof Double;
+        }
+
+        @Override
+        public String toString() {
+            return "Minimal detail size";
+        }
+    };
+
+    /**
+     * Begins a drawing pass on the specified graphics.
+     *
+     * @param g The graphics on which the figures are drawn.
+     * @return A pass object which draws the figures.
+     */
+    public Pass begin(Graphics2D g);
+
+    /**
+     * A drawing pass. A pass is used by a single thread and only for the
+     * duration of one invocation of {@code Drawing.draw}.
+     */
+    public interface Pass {
+
+        /**
+         * Draws the specified visible figure, possibly with reduced detail.
+         */
+        public void draw(Figure figure);
+
+        /**
+         * Ends the pass. Representations which combine multiple figures
+         * are drawn here.
+         */
+        public void end();
+    }
+
+    /**
+     * Returns true, if a detail with the specified size in drawing
+     * coordinates is large enough to be drawn on the specified graphics.
+     * <p>
+     * Returns true, if the graphics has no value for the
+     * {@link #KEY_MIN_DETAIL_SIZE} rendering hint.
+     *
+     * @param g The graphics.
+     * @param size The size of the detail in drawing coordinates.
+     */
+    public static boolean isDetailVisible(Graphics2D g, double size) {
+        Object value = g.getRenderingHint(KEY_MIN_DETAIL_SIZE);
+        if (!(value instanceof Double)) {
+            return true;
+        }
+        return size / AttributeKeys.getScaleFactorFromGraphics(g) >= (Double) value;
+    }
+}
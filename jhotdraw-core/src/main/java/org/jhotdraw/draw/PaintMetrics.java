@@ -0,0 +1,164 @@
+/*
+ * @(#)PaintMetrics.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+/**
+ * Holds the measurements of a single paint of a {@link DrawingView}.
+ * <p>
+ * A drawing view only measures its paints if somebody listens for them, see
+ * {@link DefaultDrawingView#addPaintMetricsListener}. While a paint is being
+ * measured, the view puts its metrics into the {@link #KEY_PAINT_METRICS}
+ * rendering hint of the graphics on which it draws the drawing. Drawings
+ * use {@link #get} to report how many figures they have visited and drawn.
+ * <p>
+ * Instances are filled in by the painting thread and must not be modified
+ * after they have been handed to the listeners.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class PaintMetrics {
+
+    /**
+     * The phases of a paint of a drawing view.
+     */
+    public enum Phase {
+
+        BACKGROUND,
+        CANVAS,
+        CONSTRAINER,
+        DRAWING,
+        HANDLES,
+        TOOL
+    }
+    /**
+     * Rendering hint key for the metrics of the paint which is in progress.
+     * The value is a {@code PaintMetrics} object.
+     */
+    public static final RenderingHints.Key KEY_PAINT_METRICS = new RenderingHints.Key(0x504d54) {
+        @Override
+        public boolean isCompatibleValue(Object val) {
+            return val == null || val instanceof PaintMetrics;
+        }
+
+        @Override
+        public String toString() {
+            return "Paint metrics";
+        }
+    };
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private int figuresVisited;
+    private int figuresDrawn;
+    private long dirtyArea;
+    private int bufferRecreations;
+    private int handleCount;
+
+    /**
+     * Returns the metrics of the paint which is in progress on the specified
+     * graphics, or null if the paint is not measured.
+     */
+    public static PaintMetrics get(Graphics2D g) {
+        Object value = g.getRenderingHint(KEY_PAINT_METRICS);
+        return (value instanceof PaintMetrics) ? (PaintMetrics) value : null;
+    }
+
+    /**
+     * Adds the specified duration in nanoseconds to a phase.
+     */
+    public void addPhaseNanos(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * Returns the duration of a phase in nanoseconds.
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Returns the sum of the durations of all phases in nanoseconds.
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : phaseNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    /**
+     * Adds figures to the counts of visited and drawn figures. A figure is
+     * visited if the drawing considered it for drawing, it is drawn if it
+     * was visible and intersected the clip bounds.
+     */
+    public void addFigures(int visited, int drawn) {
+        figuresVisited += visited;
+        figuresDrawn += drawn;
+    }
+
+    public int getFiguresVisited() {
+        return figuresVisited;
+    }
+
+    public int getFiguresDrawn() {
+        return figuresDrawn;
+    }
+
+    /**
+     * Adds an area in view pixels which has been redrawn.
+     */
+    public void addDirtyArea(long pixels) {
+        dirtyArea += pixels;
+    }
+
+    /**
+     * Returns the area in view pixels which has been redrawn.
+     */
+    public long getDirtyArea() {
+        return dirtyArea;
+    }
+
+    /**
+     * Counts a (re-)creation of the drawing buffer.
+     */
+    public void bufferRecreated() {
+        bufferRecreations++;
+    }
+
+    public int getBufferRecreations() {
+        return bufferRecreations;
+    }
+
+    public void addHandles(int count) {
+        handleCount += count;
+    }
+
+    /**
+     * Returns the number of handles which have been drawn.
+     */
+    public int getHandleCount() {
+        return handleCount;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(getClass().getSimpleName()).append('[');
+        for (Phase phase : Phase.values()) {
+            buf.append(phase.name().toLowerCase()).append('=')
+                    .append(getPhaseNanos(phase) / 1000).append("us,");
+        }
+        return buf.append("figures=").append(figuresDrawn).append('/').append(figuresVisited)
+                .append(",dirtyArea=").append(dirtyArea)
+                .append(",bufferRecreations=").append(bufferRecreations)
+                .append(",handles=").append(handleCount).append(']').toString();
+    }
+}
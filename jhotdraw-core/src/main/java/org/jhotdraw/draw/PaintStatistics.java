@@ -0,0 +1,285 @@
+/*
+ * @(#)PaintStatistics.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.jhotdraw.draw.event.PaintMetricsEvent;
+import org.jhotdraw.draw.event.PaintMetricsListener;
+
+/**
+ * Collects the {@link PaintMetrics} of one or more drawing views and
+ * publishes them as a JMX MBean.
+ * <p>
+ * Usage:
+ * <pre>
+ * PaintStatistics stats = new PaintStatistics();
+ * view.addPaintMetricsListener(stats);
+ * stats.register("myView");
+ * </pre>
+ * Means and percentiles are computed over a sliding window of the most recent
+ * paints. Counters are accumulated since the creation of the statistics or
+ * the last invocation of {@link #reset}.
+ * <p>
+ * The statistics are updated on the AWT event dispatcher thread and may be
+ * read from any thread.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class PaintStatistics implements PaintStatisticsMBean, PaintMetricsListener {
+
+    private static final int PHASE_COUNT = PaintMetrics.Phase.values().length;
+    private final long[] totalNanos;
+    private final long[] phaseNanos;
+    private final long[] dirtyAreas;
+    private int next;
+    private int size;
+    private long paintCount;
+    private long figuresVisited;
+    private long figuresDrawn;
+    private long bufferRecreations;
+    private int lastHandleCount;
+    private ObjectName objectName;
+
+    /**
+     * Creates statistics over the 1024 most recent paints.
+     */
+    public PaintStatistics() {
+        this(1024);
+    }
+
+    /**
+     * Creates statistics over the specified number of most recent paints.
+     */
+    public PaintStatistics(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize=" + windowSize);
+        }
+        totalNanos = new long[windowSize];
+        phaseNanos = new long[windowSize * PHASE_COUNT];
+        dirtyAreas = new long[windowSize];
+    }
+
+    @Override
+    public void paintMeasured(PaintMetricsEvent e) {
+        add(e.getMetrics());
+    }
+
+    /**
+     * Adds the metrics of a paint to the statistics.
+     */
+    public synchronized void add(PaintMetrics m) {
+        totalNanos[next] = m.getTotalNanos();
+        for (PaintMetrics.Phase phase : PaintMetrics.Phase.values()) {
+            phaseNanos[next * PHASE_COUNT + phase.ordinal()] = m.getPhaseNanos(phase);
+        }
+        dirtyAreas[next] = m.getDirtyArea();
+        next = (next + 1) % totalNanos.length;
+        size = Math.min(size + 1, totalNanos.length);
+        paintCount++;
+        figuresVisited += m.getFiguresVisited();
+        figuresDrawn += m.getFiguresDrawn();
+        bufferRecreations += m.getBufferRecreations();
+        lastHandleCount = m.getHandleCount();
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server under the
+     * name {@code org.jhotdraw.draw:type=PaintStatistics,name=<name>}.
+     */
+    public synchronized void register(String name) throws JMException {
+        unregister();
+        ObjectName on = new ObjectName("org.jhotdraw.draw:type=PaintStatistics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+        objectName = on;
+    }
+
+    /**
+     * Unregisters the statistics from the platform MBean server. Does
+     * nothing if the statistics are not registered.
+     */
+    public synchronized void unregister() throws JMException {
+        if (objectName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            objectName = null;
+        }
+    }
+
+    /**
+     * Returns the name under which the statistics are registered, or null.
+     */
+    public synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Returns the array index of the paint with the specified age in the
+     * window, where 0 is the most recent paint.
+     */
+    private int indexOf(int age) {
+        return (next - 1 - age + totalNanos.length) % totalNanos.length;
+    }
+
+    private double meanPhaseMillis(PaintMetrics.Phase phase) {
+        if (size == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += phaseNanos[indexOf(i) * PHASE_COUNT + phase.ordinal()];
+        }
+        return toMillis((double) sum / size);
+    }
+
+    /**
+     * Returns the specified percentile of the paint durations in the window
+     * using the nearest rank method.
+     *
+     * @param percentile A value between 0 and 100.
+     */
+    public synchronized double getPercentilePaintMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        // Until the window is full, its entries are at the start of the array
+        long[] sorted = Arrays.copyOf(totalNanos, size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return toMillis(sorted[Math.max(0, Math.min(size - 1, rank - 1))]);
+    }
+
+    @Override
+    public synchronized long getPaintCount() {
+        return paintCount;
+    }
+
+    @Override
+    public synchronized double getLastPaintMillis() {
+        return size == 0 ? 0 : toMillis(totalNanos[indexOf(0)]);
+    }
+
+    @Override
+    public synchronized double getMeanPaintMillis() {
+        if (size == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += totalNanos[indexOf(i)];
+        }
+        return toMillis((double) sum / size);
+    }
+
+    @Override
+    public synchronized double getMaxPaintMillis() {
+        long max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, totalNanos[indexOf(i)]);
+        }
+        return toMillis(max);
+    }
+
+    @Override
+    public double getMedianPaintMillis() {
+        return getPercentilePaintMillis(50);
+    }
+
+    @Override
+    public double get90thPercentilePaintMillis() {
+        return getPercentilePaintMillis(90);
+    }
+
+    @Override
+    public double get99thPercentilePaintMillis() {
+        return getPercentilePaintMillis(99);
+    }
+
+    @Override
+    public synchronized double getMeanBackgroundMillis() {
+        return meanPhaseMillis(PaintMetrics.Phase.BACKGROUND);
+    }
+
+    @Override
+    public synchronized double getMeanCanvasMillis() {
+        return meanPhaseMillis(PaintMetrics.Phase.CANVAS);
+    }
+
+    @Override
+    public synchronized double getMeanConstrainerMillis() {
+        return meanPhaseMillis(PaintMetrics.Phase.CONSTRAINER);
+    }
+
+    @Override
+    public synchronized double getMeanDrawingMillis() {
+        return meanPhaseMillis(PaintMetrics.Phase.DRAWING);
+    }
+
+    @Override
+    public synchronized double getMeanHandlesMillis() {
+        return meanPhaseMillis(PaintMetrics.Phase.HANDLES);
+    }
+
+    @Override
+    public synchronized double getMeanToolMillis() {
+        return meanPhaseMillis(PaintMetrics.Phase.TOOL);
+    }
+
+    @Override
+    public synchronized long getFiguresVisited() {
+        return figuresVisited;
+    }
+
+    @Override
+    public synchronized long getFiguresDrawn() {
+        return figuresDrawn;
+    }
+
+    @Override
+    public synchronized double getMeanDirtyArea() {
+        if (size == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += dirtyAreas[indexOf(i)];
+        }
+        return (double) sum / size;
+    }
+
+    @Override
+    public synchronized long getBufferRecreations() {
+        return bufferRecreations;
+    }
+
+    @Override
+    public synchronized int getLastHandleCount() {
+        return lastHandleCount;
+    }
+
+    @Override
+    public synchronized void reset() {
+        next = 0;
+        size = 0;
+        paintCount = 0;
+        figuresVisited = 0;
+        figuresDrawn = 0;
+        bufferRecreations = 0;
+        lastHandleCount = 0;
+    }
+}
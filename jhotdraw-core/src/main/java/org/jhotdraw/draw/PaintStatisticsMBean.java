@@ -0,0 +1,61 @@
+/*
+ * @(#)PaintStatisticsMBean.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+/**
+ * Management interface of {@link PaintStatistics}.
+ * <p>
+ * All durations are in milliseconds. Means and percentiles are computed over
+ * the most recent paints, see {@link PaintStatistics#PaintStatistics(int)}.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public interface PaintStatisticsMBean {
+
+    public long getPaintCount();
+
+    public double getLastPaintMillis();
+
+    public double getMeanPaintMillis();
+
+    public double getMaxPaintMillis();
+
+    public double getMedianPaintMillis();
+
+    public double get90thPercentilePaintMillis();
+
+    public double get99thPercentilePaintMillis();
+
+    public double getMeanBackgroundMillis();
+
+    public double getMeanCanvasMillis();
+
+    public double getMeanConstrainerMillis();
+
+    public double getMeanDrawingMillis();
+
+    public double getMeanHandlesMillis();
+
+    public double getMeanToolMillis();
+
+    public long getFiguresVisited();
+
+    public long getFiguresDrawn();
+
+    public double getMeanDirtyArea();
+
+    public long getBufferRecreations();
+
+    public int getLastHandleCount();
+
+    /**
+     * Discards all collected statistics.
+     */
+    public void reset();
+}
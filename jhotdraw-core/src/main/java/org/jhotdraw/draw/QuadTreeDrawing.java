@@ -38,19 +38,17 @@ public class QuadTreeDrawing extends AbstractDrawing {
     }
 
     @Override
-    public void basicAdd(int index, Figure figure) {
-        super.basicAdd(index, figure);
+    protected void childAdded(Figure figure) {
+        super.childAdded(figure);
         quadTree.add(figure, figure.getDrawingArea());
         needsSorting = true;
     }
 
     @Override
-    public Figure basicRemoveChild(int index) {
-        Figure figure = getChild(index);
+    protected void childRemoved(Figure figure) {
         quadTree.remove(figure);
         needsSorting = true;
-        super.basicRemoveChild(index);
-        return figure;
+        super.childRemoved(figure);
     }
 
     @Override
@@ -71,9 +69,10 @@ public class QuadTreeDrawing extends AbstractDrawing {
     @Override
     public java.util.List<Figure> sort(Collection<? extends Figure> c) {
         ensureSorted();
+        Collection<? extends Figure> unsorted = (c instanceof Set) ? c : new HashSet<>(c);
         ArrayList<Figure> sorted = new ArrayList<>(c.size());
         for (Figure f : children) {
-            if (c.contains(f)) {
+            if (unsorted.contains(f)) {
                 sorted.add(f);
             }
         }
@@ -82,21 +81,35 @@ public class QuadTreeDrawing extends AbstractDrawing {
 
     public void draw(Graphics2D g, Collection<Figure> c) {
         double factor = AttributeKeys.getScaleFactorFromGraphics(g);
-        for (Figure f : c) {
-            if (f.isVisible()) {
-                f.draw(g);
-                if (isDebugMode()) {
-                    Graphics2D g2 = (Graphics2D) g.create();
-                    try {
-                        g2.setStroke(new BasicStroke(0));
-                        g2.setColor(Color.BLUE);
-                        Rectangle2D.Double rect = f.getDrawingArea(factor);
-                        g2.draw(rect);
-                    } finally {
-                        g2.dispose();
+        LevelOfDetailPolicy lod = getLevelOfDetailPolicy();
+        LevelOfDetailPolicy.Pass pass = (lod == null) ? null : lod.begin(g);
+        int drawn = 0;
+        try {
+            for (Figure f : c) {
+                if (f.isVisible()) {
+                    drawFigure(g, f, pass);
+                    drawn++;
+                    if (isDebugMode()) {
+                        Graphics2D g2 = (Graphics2D) g.create();
+                        try {
+                            g2.setStroke(new BasicStroke(0));
+                            g2.setColor(Color.BLUE);
+                            Rectangle2D.Double rect = f.getDrawingArea(factor);
+                            g2.draw(rect);
+                        } finally {
+                            g2.dispose();
+                        }
                     }
                 }
             }
+        } finally {
+            if (pass != null) {
+                pass.end();
+            }
+            PaintMetrics metrics = PaintMetrics.get(g);
+            if (metrics != null) {
+                metrics.addFigures(c.size(), drawn);
+            }
         }
     }
 
@@ -249,21 +262,8 @@ public class QuadTreeDrawing extends AbstractDrawing {
     }
 
     @Override
-    public void bringToFront(Figure figure) {
-        if (children.remove(figure)) {
-            children.add(figure);
-            needsSorting = true;
-            fireAreaInvalidated(figure.getDrawingArea());
-        }
-    }
-
-    @Override
-    public void sendToBack(Figure figure) {
-        if (children.remove(figure)) {
-            children.add(0, figure);
-            needsSorting = true;
-            fireAreaInvalidated(figure.getDrawingArea());
-        }
+    protected void childrenReordered() {
+        needsSorting = true;
     }
 
     @Override
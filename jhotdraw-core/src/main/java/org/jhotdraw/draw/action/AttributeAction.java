@@ -8,10 +8,12 @@
 package org.jhotdraw.draw.action;
 
 import org.jhotdraw.draw.figure.Figure;
+import java.io.Serializable;
 import java.util.*;
 import javax.swing.*;
 import javax.swing.undo.*;
 import org.jhotdraw.draw.*;
+import org.jhotdraw.undo.SpillableEdit;
 import org.jhotdraw.util.ActionUtil;
 import org.jhotdraw.util.ResourceBundleUtil;
 
@@ -100,8 +102,10 @@ public class AttributeAction extends AbstractSelectedAction {
             }
             figure.changed();
         }
-        UndoableEdit edit = new AbstractUndoableEdit() {
+        class AttributeEdit extends AbstractUndoableEdit implements SpillableEdit {
+
             private static final long serialVersionUID = 1L;
+            private ArrayList<Object> restore = restoreData;
 
             @Override
             public String getPresentationName() {
@@ -119,7 +123,7 @@ public class AttributeAction extends AbstractSelectedAction {
             @Override
             public void undo() {
                 super.undo();
-                Iterator<Object> iRestore = restoreData.iterator();
+                Iterator<Object> iRestore = restore.iterator();
                 for (Figure figure : selectedFigures) {
                     figure.willChange();
                     figure.restoreAttributesTo(iRestore.next());
@@ -139,8 +143,32 @@ public class AttributeAction extends AbstractSelectedAction {
                     figure.changed();
                 }
             }
-        };
-        getDrawing().fireUndoableEditHappened(edit);
+
+            @Override
+            public Serializable getSpillData() {
+                return restore;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void setSpillData(Serializable data) {
+                restore = (ArrayList<Object>) data;
+            }
+
+            @Override
+            public long getSpillDataSize() {
+                if (restore == null) {
+                    return 0;
+                }
+                // Rough estimate: 64 bytes per attribute of a figure
+                long size = 0;
+                for (Object o : restore) {
+                    size += (o instanceof Map) ? ((Map<?, ?>) o).size() * 64L : 64L;
+                }
+                return size;
+            }
+        }
+        getDrawing().fireUndoableEditHappened(new AttributeEdit());
     }
 
     @Override
@@ -38,7 +38,8 @@ public class BringToFrontAction extends AbstractSelectedAction {
     @Override
     public void actionPerformed(java.awt.event.ActionEvent e) {
         final DrawingView view = getView();
-        final LinkedList<Figure> figures = new LinkedList<>(view.getSelectedFigures());
+        final ArrayList<Figure> figures = new ArrayList<>(view.getSelectedFigures());
+        final int[] oldIndices = BringToFrontAction.sortByIndex(view.getDrawing(), figures);
         bringToFront(view, figures);
         fireUndoableEditHappened(new AbstractUndoableEdit() {
             private static final long serialVersionUID = 1L;
@@ -59,15 +60,36 @@ public class BringToFrontAction extends AbstractSelectedAction {
             @Override
             public void undo() throws CannotUndoException {
                 super.undo();
-                SendToBackAction.sendToBack(view, figures);
+                view.getDrawing().moveToIndex(figures, oldIndices);
             }
         });
     }
 
     public static void bringToFront(DrawingView view, Collection<Figure> figures) {
-        Drawing drawing = view.getDrawing();
-        for (Figure figure : drawing.sort(figures)) {
-            drawing.bringToFront(figure);
+        view.getDrawing().bringToFront(figures);
+    }
+
+    /**
+     * Sorts the figures in the sequence of the children of the drawing with
+     * a single pass over the children, and returns their indices. Figures
+     * which are not children of the drawing are removed from the list.
+     *
+     * @param drawing The drawing.
+     * @param figures The figures. On return, the figures are sorted.
+     * @return The index of each figure in the drawing.
+     */
+    static int[] sortByIndex(Drawing drawing, List<Figure> figures) {
+        HashSet<Figure> selected = new HashSet<>(figures);
+        figures.clear();
+        int[] indices = new int[selected.size()];
+        int index = 0;
+        for (Figure f : drawing.getChildren()) {
+            if (selected.contains(f)) {
+                indices[figures.size()] = index;
+                figures.add(f);
+            }
+            index++;
         }
+        return figures.size() == indices.length ? indices : Arrays.copyOf(indices, figures.size());
     }
 }
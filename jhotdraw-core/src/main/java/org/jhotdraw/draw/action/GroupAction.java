@@ -146,21 +146,22 @@ public class GroupAction extends AbstractSelectedAction {
 
     public Collection<Figure> ungroupFigures(DrawingView view, CompositeFigure group) {
 // XXX - This code is redundant with UngroupAction
-        LinkedList<Figure> figures = new LinkedList<>(group.getChildren());
+        Drawing drawing = view.getDrawing();
+        ArrayList<Figure> figures = new ArrayList<>(group.getChildren());
         view.clearSelection();
         group.basicRemoveAllChildren();
-        view.getDrawing().basicAddAll(view.getDrawing().indexOf(group), figures);
-        view.getDrawing().remove(group);
+        drawing.basicAddAll(drawing.indexOf(group), figures);
+        drawing.remove(group);
         view.addToSelection(figures);
         return figures;
     }
 
     public void groupFigures(DrawingView view, CompositeFigure group, Collection<Figure> figures) {
-        Collection<Figure> sorted = view.getDrawing().sort(figures);
-        int index = view.getDrawing().indexOf(sorted.iterator().next());
-        view.getDrawing().basicRemoveAll(figures);
+        Drawing drawing = view.getDrawing();
+        List<Figure> sorted = drawing.sort(figures);
         view.clearSelection();
-        view.getDrawing().add(index, group);
+        int index = drawing.basicReplace(sorted, Collections.<Figure>emptyList());
+        drawing.add(index, group);
         group.willChange();
         for (Figure f : sorted) {
             f.willChange();
@@ -13,7 +13,11 @@ import org.jhotdraw.draw.figure.Figure;
 import org.jhotdraw.util.ResourceBundleUtil;
 
 /**
- * SelectSameAction.
+ * SelectSameAction adds all figures to the selection, which are of the same
+ * class as one of the selected figures.
+ * <p>
+ * The figures are looked up with {@link org.jhotdraw.draw.Drawing#findFiguresByClass}
+ * and added to the selection at once.
  *
  * @author Werner Randelshofer
  * @version $Id$
@@ -43,10 +47,10 @@ public class SelectSameAction extends AbstractSelectedAction {
         for (Figure selected : getView().getSelectedFigures()) {
             selectedClasses.add(selected.getClass());
         }
-        for (Figure f : getDrawing().getChildren()) {
-            if (selectedClasses.contains(f.getClass())) {
-                getView().addToSelection(f);
-            }
+        ArrayList<Figure> sameFigures = new ArrayList<>();
+        for (Class<?> c : selectedClasses) {
+            sameFigures.addAll(getDrawing().findFiguresByClass(c));
         }
+        getView().addToSelection(sameFigures);
     }
 }
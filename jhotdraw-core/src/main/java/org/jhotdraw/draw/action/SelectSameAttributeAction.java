@@ -0,0 +1,80 @@
+/*
+ * @(#)SelectSameAttributeAction.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.draw.action;
+
+import java.util.*;
+import org.jhotdraw.draw.AttributeKey;
+import org.jhotdraw.draw.DrawingEditor;
+import static org.jhotdraw.draw.AttributeKeys.FILL_COLOR;
+import static org.jhotdraw.draw.AttributeKeys.STROKE_COLOR;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.util.ResourceBundleUtil;
+
+/**
+ * SelectSameAttributeAction adds all figures to the selection, which have
+ * the same value of an attribute as one of the selected figures.
+ * <p>
+ * The figures are looked up with
+ * {@link org.jhotdraw.draw.Drawing#findFiguresByAttribute} and added to the
+ * selection at once.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class SelectSameAttributeAction extends AbstractSelectedAction {
+
+    private static final long serialVersionUID = 1L;
+    public static final String FILL_ID = "edit.selectSameFill";
+    public static final String STROKE_ID = "edit.selectSameStroke";
+    private final AttributeKey<?> key;
+
+    /**
+     * Creates an action which selects figures with the same fill color
+     * or with the same stroke color.
+     *
+     * @param editor The drawing editor.
+     * @param id {@link #FILL_ID} or {@link #STROKE_ID}.
+     */
+    public SelectSameAttributeAction(DrawingEditor editor, String id) {
+        this(editor, STROKE_ID.equals(id) ? STROKE_COLOR : FILL_COLOR, id);
+    }
+
+    /**
+     * Creates an action which selects figures with the same value of the
+     * specified attribute.
+     *
+     * @param editor The drawing editor.
+     * @param key The attribute key.
+     * @param id The id of the action in the "org.jhotdraw.draw.Labels"
+     * resource bundle.
+     */
+    public SelectSameAttributeAction(DrawingEditor editor, AttributeKey<?> key, String id) {
+        super(editor);
+        this.key = key;
+        ResourceBundleUtil labels = ResourceBundleUtil.getBundle("org.jhotdraw.draw.Labels");
+        labels.configureAction(this, id);
+        updateEnabledState();
+    }
+
+    @Override
+    public void actionPerformed(java.awt.event.ActionEvent e) {
+        selectSame(key);
+    }
+
+    private <T> void selectSame(AttributeKey<T> key) {
+        HashSet<T> selectedValues = new HashSet<>();
+        for (Figure selected : getView().getSelectedFigures()) {
+            selectedValues.add(selected.get(key));
+        }
+        ArrayList<Figure> sameFigures = new ArrayList<>();
+        for (T value : selectedValues) {
+            sameFigures.addAll(getDrawing().findFiguresByAttribute(key, value));
+        }
+        getView().addToSelection(sameFigures);
+    }
+}
@@ -38,7 +38,8 @@ public class SendToBackAction extends AbstractSelectedAction {
     @Override
     public void actionPerformed(java.awt.event.ActionEvent e) {
         final DrawingView view = getView();
-        final LinkedList<Figure> figures = new LinkedList<>(view.getSelectedFigures());
+        final ArrayList<Figure> figures = new ArrayList<>(view.getSelectedFigures());
+        final int[] oldIndices = BringToFrontAction.sortByIndex(view.getDrawing(), figures);
         sendToBack(view, figures);
         fireUndoableEditHappened(new AbstractUndoableEdit() {
             private static final long serialVersionUID = 1L;
@@ -59,15 +60,12 @@ public class SendToBackAction extends AbstractSelectedAction {
             @Override
             public void undo() throws CannotUndoException {
                 super.undo();
-                BringToFrontAction.bringToFront(view, figures);
+                view.getDrawing().moveToIndex(figures, oldIndices);
             }
         });
     }
 
     public static void sendToBack(DrawingView view, Collection<Figure> figures) {
-        Drawing drawing = view.getDrawing();
-        for (Figure figure : figures) { // XXX Shouldn't the figures be sorted here back to front?
-            drawing.sendToBack(figure);
-        }
+        view.getDrawing().sendToBack(figures);
     }
 }
@@ -0,0 +1,42 @@
+/*
+ * @(#)PaintMetricsEvent.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.draw.event;
+
+import java.util.*;
+import org.jhotdraw.draw.*;
+
+/**
+ * An {@code EventObject} sent to {@link PaintMetricsListener}s.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class PaintMetricsEvent extends EventObject {
+
+    private static final long serialVersionUID = 1L;
+    private transient PaintMetrics metrics;
+
+    /**
+     * Creates a new instance.
+     */
+    public PaintMetricsEvent(DrawingView src, PaintMetrics metrics) {
+        super(src);
+        this.metrics = metrics;
+    }
+
+    public DrawingView getView() {
+        return (DrawingView) getSource();
+    }
+
+    /**
+     * Gets the measurements of the paint.
+     */
+    public PaintMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * @(#)PaintMetricsListener.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.draw.event;
+
+import java.util.*;
+
+/**
+ * Interface implemented by observers of the paints of a
+ * {@link org.jhotdraw.draw.DefaultDrawingView}.
+ * <p>
+ * Listeners are notified on the AWT event dispatcher thread after each
+ * paint. A view only measures its paints while it has listeners.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public interface PaintMetricsListener extends EventListener {
+
+    /**
+     * Sent when a paint of the view has been measured.
+     */
+    public void paintMeasured(PaintMetricsEvent e);
+}
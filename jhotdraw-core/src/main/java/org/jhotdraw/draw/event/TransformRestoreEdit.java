@@ -9,7 +9,11 @@ package org.jhotdraw.draw.event;
 
 import org.jhotdraw.draw.figure.Figure;
 import org.jhotdraw.draw.*;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
 import javax.swing.undo.*;
+import org.jhotdraw.undo.SpillableEdit;
 import org.jhotdraw.util.*;
 
 /**
@@ -21,11 +25,15 @@ import org.jhotdraw.util.*;
  * <p>
  * The transform restore data may consume a lot of memory. Undos of lossless
  * transforms, such as translations of a figure, should use {@link TransformEdit}.
+ * <p>
+ * The edit is a {@link SpillableEdit}, so that an undo manager with a memory
+ * budget can move the transform restore data out of memory, if it is
+ * serializable.
  *
  * @author Werner Randelshofer
  * @version $Id$
  */
-public class TransformRestoreEdit extends AbstractUndoableEdit {
+public class TransformRestoreEdit extends AbstractUndoableEdit implements SpillableEdit {
 
     private static final long serialVersionUID = 1L;
     private Figure owner;
@@ -62,4 +70,42 @@ public class TransformRestoreEdit extends AbstractUndoableEdit {
         owner.restoreTransformTo(newTransformRestoreData);
         owner.changed();
     }
+
+    @Override
+    public Serializable getSpillData() {
+        return (oldTransformRestoreData == null && newTransformRestoreData == null)
+                ? null : new Object[]{oldTransformRestoreData, newTransformRestoreData};
+    }
+
+    @Override
+    public void setSpillData(Serializable data) {
+        Object[] restoreData = (Object[]) data;
+        oldTransformRestoreData = (restoreData == null) ? null : restoreData[0];
+        newTransformRestoreData = (restoreData == null) ? null : restoreData[1];
+    }
+
+    @Override
+    public long getSpillDataSize() {
+        return estimateSize(oldTransformRestoreData) + estimateSize(newTransformRestoreData);
+    }
+
+    /**
+     * Returns a rough estimate of the memory used by restore data: 64 bytes
+     * for each element of a collection, such as a node of a bezier path, and
+     * for each entry of a map.
+     */
+    private static long estimateSize(Object data) {
+        if (data == null) {
+            return 0;
+        } else if (data instanceof Collection) {
+            long size = 16;
+            for (Object o : (Collection<?>) data) {
+                size += (o instanceof Collection || o instanceof Map) ? estimateSize(o) : 64;
+            }
+            return size;
+        } else if (data instanceof Map) {
+            return 16 + ((Map<?, ?>) data).size() * 64L;
+        }
+        return 64;
+    }
 }
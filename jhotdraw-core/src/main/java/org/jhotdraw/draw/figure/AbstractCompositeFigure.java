@@ -23,6 +23,7 @@ import org.jhotdraw.draw.event.FigureEvent;
 import org.jhotdraw.draw.handle.BoundsOutlineHandle;
 import org.jhotdraw.draw.handle.Handle;
 import org.jhotdraw.draw.handle.TransformHandleKit;
+import org.jhotdraw.draw.layouter.AbstractLayouter;
 import org.jhotdraw.draw.layouter.Layouter;
 import org.jhotdraw.geom.Dimension2DDouble;
 import org.jhotdraw.util.*;
@@ -66,6 +67,16 @@ public abstract class AbstractCompositeFigure
      * Handles figure changes in the children.
      */
     protected EventHandler eventHandler;
+    /**
+     * True if the children must be laid out again. This is used to skip
+     * composite children which are already laid out, when this figure
+     * is laid out.
+     */
+    private boolean needsLayout = true;
+    /**
+     * True while the layouter lays out the children.
+     */
+    private transient boolean isLayingOut;
 
     protected class EventHandler extends FigureAdapter implements UndoableEditListener, Serializable {
 
@@ -78,6 +89,9 @@ public abstract class AbstractCompositeFigure
 
         @Override
         public void figureChanged(FigureEvent e) {
+            invalidateLayout(e.getFigure());
+            // If we are changing, the layout is deferred until changed() is
+            // called, so that all changes of the children are laid out at once.
             if (!isChanging()) {
                 Rectangle2D.Double invalidatedArea = getDrawingArea();
                 invalidatedArea.add(e.getInvalidatedArea());
@@ -103,6 +117,7 @@ public abstract class AbstractCompositeFigure
 
         @Override
         public void attributeChanged(FigureEvent e) {
+            invalidateLayout(e.getFigure());
             invalidate();
         }
 
@@ -172,8 +187,9 @@ public abstract class AbstractCompositeFigure
     }
 
     public void basicAddAll(int index, Collection<? extends Figure> newFigures) {
+        children.addAll(index, newFigures);
         for (Figure f : newFigures) {
-            basicAdd(index++, f);
+            childAdded(f);
         }
     }
 
@@ -248,20 +264,95 @@ public abstract class AbstractCompositeFigure
      */
     @Override
     public void basicRemoveAllChildren() {
-        for (Figure f : new LinkedList<>(getChildren())) {
-            basicRemove(f);
+        for (int i = children.size() - 1; i >= 0; i--) {
+            basicRemoveChild(i);
         }
     }
 
     /**
-     * Removes all children.
+     * Removes all specified children.
      *
      * @see #add
      */
     public void basicRemoveAll(Collection<? extends Figure> figures) {
-        for (Figure f : figures) {
-            basicRemove(f);
+        basicReplace(figures, Collections.<Figure>emptyList());
+    }
+
+    @Override
+    public int basicReplace(Collection<? extends Figure> oldChildren, java.util.List<? extends Figure> newChildren) {
+        ArrayList<Figure> removed = new ArrayList<>();
+        int index = replace(children, oldChildren, newChildren, removed);
+        for (Figure f : removed) {
+            childRemoved(f);
+        }
+        for (Figure f : newChildren) {
+            childAdded(f);
+        }
+        if (!removed.isEmpty()) {
+            invalidate();
+        }
+        return index;
+    }
+
+    /**
+     * This method is invoked after a figure has been inserted into the
+     * list of children by one of the {@code basicAdd} or
+     * {@code basicReplace} methods.
+     * <p>
+     * This implementation registers the event handler with the figure.
+     */
+    protected void childAdded(Figure figure) {
+        figure.addFigureListener(eventHandler);
+    }
+
+    /**
+     * This method is invoked after a figure has been removed from the list
+     * of children by one of the {@code basicRemove} or {@code basicReplace}
+     * methods.
+     * <p>
+     * This implementation unregisters the event handler from the figure.
+     */
+    protected void childRemoved(Figure figure) {
+        figure.removeFigureListener(eventHandler);
+    }
+
+    /**
+     * Replaces the old children of a list of children by the new children
+     * in a single pass. The new children are inserted at the index of the
+     * back-most old child, or at the end of the list if none of the old
+     * children is contained in the list.
+     *
+     * @param removed The removed children are added to this list in their
+     * sequence.
+     * @return the index of the first new child
+     */
+    static int replace(java.util.List<Figure> children, Collection<? extends Figure> oldChildren,
+            java.util.List<? extends Figure> newChildren, java.util.List<Figure> removed) {
+        int index = -1;
+        if (!oldChildren.isEmpty()) {
+            Collection<? extends Figure> old = (oldChildren.size() == 1 || oldChildren instanceof Set)
+                    ? oldChildren : new HashSet<>(oldChildren);
+            ArrayList<Figure> kept = new ArrayList<>(children.size() + newChildren.size());
+            for (Figure f : children) {
+                if (old.contains(f)) {
+                    if (index == -1) {
+                        index = kept.size();
+                        kept.addAll(newChildren);
+                    }
+                    removed.add(f);
+                } else {
+                    kept.add(f);
+                }
+            }
+            if (index != -1) {
+                children.clear();
+                children.addAll(kept);
+                return index;
+            }
         }
+        index = children.size();
+        children.addAll(newChildren);
+        return index;
     }
 
     /**
@@ -270,10 +361,7 @@ public abstract class AbstractCompositeFigure
      * @param figure that is part of this composite figure
      */
     public void sendToBack(Figure figure) {
-        if (basicRemove(figure) != -1) {
-            basicAdd(0, figure);
-            fireAreaInvalidated(figure.getDrawingArea());
-        }
+        sendToBack(Collections.singletonList(figure));
     }
 
     /**
@@ -282,10 +370,141 @@ public abstract class AbstractCompositeFigure
      * @param figure that is part of the drawing
      */
     public void bringToFront(Figure figure) {
-        if (basicRemove(figure) != -1) {
-            basicAdd(figure);
-            fireAreaInvalidated(figure.getDrawingArea());
+        bringToFront(Collections.singletonList(figure));
+    }
+
+    @Override
+    public void sendToBack(Collection<? extends Figure> figures) {
+        Rectangle2D.Double invalidatedArea = reorder(children, figures, false);
+        if (invalidatedArea != null) {
+            childrenReordered();
+            fireAreaInvalidated(invalidatedArea);
+        }
+    }
+
+    @Override
+    public void bringToFront(Collection<? extends Figure> figures) {
+        Rectangle2D.Double invalidatedArea = reorder(children, figures, true);
+        if (invalidatedArea != null) {
+            childrenReordered();
+            fireAreaInvalidated(invalidatedArea);
+        }
+    }
+
+    @Override
+    public void moveToIndex(java.util.List<? extends Figure> figures, int[] indices) {
+        Rectangle2D.Double invalidatedArea = moveToIndex(children, figures, indices);
+        if (invalidatedArea != null) {
+            childrenReordered();
+            fireAreaInvalidated(invalidatedArea);
+        }
+    }
+
+    /**
+     * This method is invoked after the sequence of the children has been
+     * changed by {@code bringToFront}, {@code sendToBack} or
+     * {@code moveToIndex}.
+     * <p>
+     * This implementation is empty. Subclasses which keep state that
+     * depends on the sequence of the children can override this method.
+     */
+    protected void childrenReordered() {
+    }
+
+    /**
+     * Moves the specified figures in a single pass to the front or to the
+     * back of a list of children. The figures keep their relative order, and
+     * so do the other children.
+     *
+     * @return the union of the drawing areas of the moved figures, or null
+     * if none of the figures is contained in the list
+     */
+    static Rectangle2D.Double reorder(java.util.List<Figure> children, Collection<? extends Figure> figures, boolean toFront) {
+        Set<? extends Figure> moving = (figures.size() == 1 || figures instanceof Set)
+                ? null : new HashSet<>(figures);
+        ArrayList<Figure> moved = new ArrayList<>(figures.size());
+        ArrayList<Figure> others = new ArrayList<>(children.size());
+        for (Figure f : children) {
+            if (moving == null ? figures.contains(f) : moving.contains(f)) {
+                moved.add(f);
+            } else {
+                others.add(f);
+            }
+        }
+        if (moved.isEmpty()) {
+            return null;
+        }
+        children.clear();
+        if (toFront) {
+            children.addAll(others);
+            children.addAll(moved);
+        } else {
+            children.addAll(moved);
+            children.addAll(others);
+        }
+        return getDrawingArea(moved);
+    }
+
+    /**
+     * Moves the specified figures to the specified indices of a list of
+     * children in a single pass. The other children fill the remaining
+     * indices in their current sequence.
+     *
+     * @return the union of the drawing areas of the moved figures, or null
+     * if no figures were specified
+     * @throws IllegalArgumentException if a figure is not contained in the
+     * list, or if the indices are out of range or not distinct
+     */
+    static Rectangle2D.Double moveToIndex(java.util.List<Figure> children, java.util.List<? extends Figure> figures, int[] indices) {
+        if (figures.size() != indices.length) {
+            throw new IllegalArgumentException("figures.size=" + figures.size() + " != indices.length=" + indices.length);
+        }
+        if (figures.isEmpty()) {
+            return null;
+        }
+        int n = children.size();
+        Figure[] result = new Figure[n];
+        for (int i = 0; i < indices.length; i++) {
+            int index = indices[i];
+            if (index < 0 || index >= n || result[index] != null) {
+                throw new IllegalArgumentException("illegal index " + index + " for figure " + i);
+            }
+            result[index] = figures.get(i);
+        }
+        HashSet<Figure> moving = new HashSet<>(figures);
+        int found = 0;
+        int j = 0;
+        for (Figure f : children) {
+            if (moving.contains(f)) {
+                found++;
+            } else {
+                while (j < n && result[j] != null) {
+                    j++;
+                }
+                if (j == n) {
+                    throw new IllegalArgumentException("figures must be distinct children");
+                }
+                result[j++] = f;
+            }
+        }
+        if (found != indices.length) {
+            throw new IllegalArgumentException("figures must be distinct children");
+        }
+        children.clear();
+        children.addAll(Arrays.asList(result));
+        return getDrawingArea(figures);
+    }
+
+    private static Rectangle2D.Double getDrawingArea(Collection<? extends Figure> figures) {
+        Rectangle2D.Double area = null;
+        for (Figure f : figures) {
+            if (area == null) {
+                area = f.getDrawingArea();
+            } else {
+                area.add(f.getDrawingArea());
+            }
         }
+        return area;
     }
 
     /**
@@ -368,6 +587,7 @@ public abstract class AbstractCompositeFigure
         for (Figure child : getChildren()) {
             child.restoreAttributesTo(data.next());
         }
+        invalidateLayout(null);
     }
 
     @Override
@@ -456,20 +676,46 @@ public abstract class AbstractCompositeFigure
         //       why we lay them out.
         changingDepth++;
         for (Figure child : getChildren()) {
-            if (child instanceof CompositeFigure) {
+            if (child instanceof CompositeFigure
+                    && (!(child instanceof AbstractCompositeFigure) || ((AbstractCompositeFigure) child).needsLayout)) {
                 CompositeFigure cf = (CompositeFigure) child;
                 cf.layout();
+                invalidateLayout(cf);
             }
         }
         changingDepth--;
         if (getLayouter() != null) {
-            Rectangle2D.Double bounds = getBounds();
-            Point2D.Double p = new Point2D.Double(bounds.x, bounds.y);
-            Rectangle2D.Double r = getLayouter().layout(
-                    this, p, p);
-            setBounds(new Point2D.Double(r.x, r.y), new Point2D.Double(r.x + r.width, r.y + r.height));
+            isLayingOut = true;
+            try {
+                Rectangle2D.Double bounds = getBounds();
+                Point2D.Double p = new Point2D.Double(bounds.x, bounds.y);
+                Rectangle2D.Double r = getLayouter().layout(
+                        this, p, p);
+                if (!r.equals(bounds)) {
+                    setBounds(new Point2D.Double(r.x, r.y), new Point2D.Double(r.x + r.width, r.y + r.height));
+                }
+            } finally {
+                isLayingOut = false;
+            }
             invalidate();
         }
+        needsLayout = false;
+    }
+
+    /**
+     * Informs the layouter, that the preferred size or the bounds of a
+     * child may have changed. Changes of the children, which are caused by
+     * the layouter while it lays them out, are ignored.
+     *
+     * @param child The child, or null if all children may have changed.
+     */
+    protected void invalidateLayout(Figure child) {
+        if (!isLayingOut) {
+            needsLayout = true;
+            if (getLayouter() instanceof AbstractLayouter) {
+                ((AbstractLayouter) getLayouter()).invalidateLayout(this, child);
+            }
+        }
     }
 
     /**
@@ -551,6 +797,7 @@ public abstract class AbstractCompositeFigure
         for (Figure child : getChildren()) {
             child.restoreTransformTo(i.next());
         }
+        invalidateLayout(null);
         invalidate();
     }
 
@@ -566,13 +813,13 @@ public abstract class AbstractCompositeFigure
     @Override
     public void basicAdd(int index, Figure figure) {
         children.add(index, figure);
-        figure.addFigureListener(eventHandler);
+        childAdded(figure);
     }
 
     @Override
     public Figure basicRemoveChild(int index) {
         Figure figure = children.remove(index);
-        figure.removeFigureListener(eventHandler);
+        childRemoved(figure);
         invalidate();
         return figure;
     }
@@ -615,6 +862,7 @@ public abstract class AbstractCompositeFigure
     protected void invalidate() {
         cachedBounds = null;
         cachedDrawingArea = null;
+        needsLayout = true;
     }
 
     @Override
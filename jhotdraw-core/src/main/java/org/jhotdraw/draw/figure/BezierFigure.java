@@ -16,6 +16,7 @@ import javax.swing.undo.*;
 import org.jhotdraw.draw.AttributeKey;
 import org.jhotdraw.draw.AttributeKeys;
 import org.jhotdraw.draw.DrawingView;
+import org.jhotdraw.draw.LevelOfDetailPolicy;
 import static org.jhotdraw.draw.AttributeKeys.*;
 import org.jhotdraw.draw.connector.ChopBezierConnector;
 import org.jhotdraw.draw.connector.Connector;
@@ -67,6 +68,16 @@ public class BezierFigure extends AbstractAttributedFigure {
      * speed of the figure.
      */
     private transient BezierPath cappedPath;
+    /**
+     * The hitShape is derived from variable path and the stroke attributes. We cache it to
+     * increase the speed of hit tests on filled and closed paths.
+     */
+    private transient Shape hitShape;
+    /**
+     * The hitBounds contain all points for which method contains may return true. We cache them
+     * to quickly reject hit tests.
+     */
+    private transient Rectangle2D.Double hitBounds;
 
     /**
      * Creates an empty <code>BezierFigure</code>, for example without any
@@ -131,7 +142,8 @@ public class BezierFigure extends AbstractAttributedFigure {
 
     protected void drawCaps(Graphics2D g) {
         if (getNodeCount() > 1) {
-            if (get(START_DECORATION) != null) {
+            if (get(START_DECORATION) != null
+                    && LevelOfDetailPolicy.isDetailVisible(g, get(START_DECORATION).getDecorationRadius(this))) {
                 BezierPath cp = getCappedPath();
                 Point2D.Double p1 = path.get(0, 0);
                 Point2D.Double p2 = cp.get(0, 0);
@@ -140,7 +152,8 @@ public class BezierFigure extends AbstractAttributedFigure {
                 }
                 get(START_DECORATION).draw(g, this, p1, p2);
             }
-            if (get(END_DECORATION) != null) {
+            if (get(END_DECORATION) != null
+                    && LevelOfDetailPolicy.isDetailVisible(g, get(END_DECORATION).getDecorationRadius(this))) {
                 BezierPath cp = getCappedPath();
                 Point2D.Double p1 = path.get(path.size() - 1, 0);
                 Point2D.Double p2 = cp.get(path.size() - 1, 0);
@@ -170,15 +183,14 @@ public class BezierFigure extends AbstractAttributedFigure {
     @Override
     public boolean contains(Point2D.Double p) {
         double tolerance = Math.max(2f, AttributeKeys.getStrokeTotalWidth(this, 1.0) / 2d);
-        if (isClosed() || get(FILL_COLOR) != null && get(UNCLOSED_PATH_FILLED)) {
+        if (!getHitBounds(tolerance).contains(p)) {
+            return false;
+        }
+        if (isHitByArea()) {
             if (path.contains(p)) {
                 return true;
             }
-            double grow = AttributeKeys.getPerpendicularHitGrowth(this, 1.0) * 2d;
-            GrowStroke gs = new GrowStroke(grow,
-                    AttributeKeys.getStrokeTotalWidth(this, 1.0)
-                    * get(STROKE_MITER_LIMIT));
-            if (gs.createStrokedShape(path).contains(p)) {
+            if (getHitShape().contains(p)) {
                 return true;
             } else {
                 if (isClosed()) {
@@ -212,6 +224,46 @@ public class BezierFigure extends AbstractAttributedFigure {
         return false;
     }
 
+    /**
+     * Returns true, if the area of the path is used for hit tests, and not just its outline.
+     */
+    private boolean isHitByArea() {
+        return isClosed() || get(FILL_COLOR) != null && get(UNCLOSED_PATH_FILLED);
+    }
+
+    /**
+     * Returns the grown shape which is used for hit tests on filled and closed paths.
+     */
+    private Shape getHitShape() {
+        if (hitShape == null) {
+            double grow = AttributeKeys.getPerpendicularHitGrowth(this, 1.0) * 2d;
+            GrowStroke gs = new GrowStroke(grow,
+                    AttributeKeys.getStrokeTotalWidth(this, 1.0)
+                    * get(STROKE_MITER_LIMIT));
+            hitShape = gs.createStrokedShape(path);
+        }
+        return hitShape;
+    }
+
+    /**
+     * Returns bounds which contain all points for which method contains may return true.
+     *
+     * @param tolerance The tolerance used for hit tests on the outline of the path.
+     */
+    private Rectangle2D.Double getHitBounds(double tolerance) {
+        if (hitBounds == null) {
+            Rectangle2D.Double r = path.getBounds2D();
+            // Geom.lineContainsPoint grows the bounds of a line by this margin
+            double grow = Math.max(2, Math.ceil(tolerance));
+            Geom.grow(r, grow, grow);
+            if (isHitByArea()) {
+                r.add(getHitShape().getBounds2D());
+            }
+            hitBounds = r;
+        }
+        return hitBounds;
+    }
+
     @Override
     public Collection<Handle> createHandles(int detailLevel) {
         LinkedList<Handle> handles = new LinkedList<>();
@@ -262,6 +314,8 @@ public class BezierFigure extends AbstractAttributedFigure {
         super.validate();
         path.invalidatePath();
         cappedPath = null;
+        hitShape = null;
+        hitBounds = null;
     }
 
     /**
@@ -323,6 +377,8 @@ public class BezierFigure extends AbstractAttributedFigure {
         super.invalidate();
         path.invalidatePath();
         cappedPath = null;
+        hitShape = null;
+        hitBounds = null;
     }
 
     /**
@@ -7,6 +7,7 @@
  */
 package org.jhotdraw.draw.figure;
 
+import java.util.Collection;
 import org.jhotdraw.draw.AttributeKey;
 import org.jhotdraw.draw.event.CompositeFigureListener;
 import org.jhotdraw.draw.layouter.Layouter;
@@ -173,6 +174,57 @@ public interface CompositeFigure extends Figure {
      */
     public void basicRemoveAllChildren();
 
+    /**
+     * Replaces the specified children by new children in a single pass over
+     * the children, without firing events.
+     * <p>
+     * The new children are inserted at the index of the back-most of the
+     * replaced children, or at the end if none of the specified figures is a
+     * child of this CompositeFigure. The new children must not be children of
+     * this CompositeFigure yet.
+     * <p>
+     * This method can be used to move many children into a new group figure
+     * and back, without having to remove and add them one by one.
+     *
+     * @param oldChildren The children which are removed.
+     * @param newChildren The children which are inserted.
+     * @return the index of the first new child
+     */
+    public int basicReplace(Collection<? extends Figure> oldChildren, java.util.List<? extends Figure> newChildren);
+
+    /**
+     * Brings the specified children to the front of this composite figure.
+     * <p>
+     * The figures keep their relative order, and so do the other children.
+     * Figures which are not children of this composite figure are ignored.
+     * This method fires a single area invalidation for all moved figures.
+     */
+    public void bringToFront(Collection<? extends Figure> figures);
+
+    /**
+     * Sends the specified children to the back of this composite figure.
+     * <p>
+     * The figures keep their relative order, and so do the other children.
+     * Figures which are not children of this composite figure are ignored.
+     * This method fires a single area invalidation for all moved figures.
+     */
+    public void sendToBack(Collection<? extends Figure> figures);
+
+    /**
+     * Moves the specified children to the specified indices. The other
+     * children fill the remaining indices in their current sequence.
+     * <p>
+     * This method can be used to undo {@code bringToFront} and
+     * {@code sendToBack} with the indices which the figures had before.
+     * This method fires a single area invalidation for all moved figures.
+     *
+     * @param figures Distinct children of this composite figure.
+     * @param indices The new index of each figure.
+     * @throws IllegalArgumentException if a figure is not a child, or if the
+     * indices are out of range or not distinct
+     */
+    public void moveToIndex(java.util.List<? extends Figure> figures, int[] indices);
+
     /**
      * Returns an unchangeable list view on the children.
      */
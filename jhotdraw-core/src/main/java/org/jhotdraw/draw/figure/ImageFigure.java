@@ -209,7 +209,7 @@ public class ImageFigure extends AbstractAttributedDecoratedFigure
             in.openElement("imageData");
             String base64Data = in.getText();
             if (base64Data != null) {
-                setImageData(Base64.decode(base64Data));
+                setImageData(Base64.decode(base64Data, 0, base64Data.length()));
             }
             in.closeElement();
         }
@@ -306,6 +306,44 @@ public class LabeledLineConnectionFigure extends LineConnectionFigure
         }
     }
 
+    @Override
+    public int basicReplace(Collection<? extends Figure> oldChildren, java.util.List<? extends Figure> newChildren) {
+        ArrayList<Figure> removed = new ArrayList<>();
+        int index = AbstractCompositeFigure.replace(children, oldChildren, newChildren, removed);
+        for (Figure figure : removed) {
+            figure.removeFigureListener(childHandler);
+        }
+        for (Figure figure : newChildren) {
+            figure.addFigureListener(childHandler);
+        }
+        invalidate();
+        return index;
+    }
+
+    @Override
+    public void bringToFront(Collection<? extends Figure> figures) {
+        Rectangle2D.Double invalidatedArea = AbstractCompositeFigure.reorder(children, figures, true);
+        if (invalidatedArea != null) {
+            fireAreaInvalidated(invalidatedArea);
+        }
+    }
+
+    @Override
+    public void sendToBack(Collection<? extends Figure> figures) {
+        Rectangle2D.Double invalidatedArea = AbstractCompositeFigure.reorder(children, figures, false);
+        if (invalidatedArea != null) {
+            fireAreaInvalidated(invalidatedArea);
+        }
+    }
+
+    @Override
+    public void moveToIndex(java.util.List<? extends Figure> figures, int[] indices) {
+        Rectangle2D.Double invalidatedArea = AbstractCompositeFigure.moveToIndex(children, figures, indices);
+        if (invalidatedArea != null) {
+            fireAreaInvalidated(invalidatedArea);
+        }
+    }
+
     // LAYOUT
     /**
      * Get a Layouter object which encapsulated a layout
@@ -52,21 +52,17 @@ public abstract class QuadTreeCompositeFigure
     }
 
     @Override
-    public void basicAdd(int index, Figure figure) {
-        children.add(index, figure);
+    protected void childAdded(Figure figure) {
         quadTree.add(figure, figure.getDrawingArea());
         figure.addFigureListener(figureHandler);
         needsSorting = true;
     }
 
     @Override
-    public Figure basicRemoveChild(int index) {
-        Figure figure = children.get(index);
-        children.remove(index);
+    protected void childRemoved(Figure figure) {
         quadTree.remove(figure);
         figure.removeFigureListener(figureHandler);
         needsSorting = true;
-        return figure;
     }
 
     @Override
@@ -243,21 +239,8 @@ public abstract class QuadTreeCompositeFigure
     }
 
     @Override
-    public void bringToFront(Figure figure) {
-        if (children.remove(figure)) {
-            children.add(figure);
-            needsSorting = true;
-            fireAreaInvalidated(figure.getDrawingArea());
-        }
-    }
-
-    @Override
-    public void sendToBack(Figure figure) {
-        if (children.remove(figure)) {
-            children.add(0, figure);
-            needsSorting = true;
-            fireAreaInvalidated(figure.getDrawingArea());
-        }
+    protected void childrenReordered() {
+        needsSorting = true;
     }
 
     @Override
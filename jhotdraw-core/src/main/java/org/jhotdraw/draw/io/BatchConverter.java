@@ -0,0 +1,311 @@
+/*
+ * @(#)BatchConverter.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.draw.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.jhotdraw.draw.Drawing;
+
+/**
+ * Converts many drawing files from one format into another on a pool of
+ * worker threads, without a user interface.
+ * <p>
+ * Each worker thread creates its own input and output formats with the
+ * suppliers which are registered with the converter, and reuses them for
+ * all files which it converts, so that formats do not need to be thread
+ * safe, and can keep buffers between files. Image output formats reuse their
+ * image buffers.
+ * <p>
+ * The number of drawings which are held in memory at the same time is
+ * limited by {@link #setMaxDrawingsInFlight}.
+ * <p>
+ * The converter does not use the AWT event dispatcher thread, and works
+ * with {@code java.awt.headless=true}.
+ * <p>
+ * Usage:
+ * <pre>
+ * BatchConverter c = new BatchConverter(DefaultDrawing::new, ImageOutputFormat::new);
+ * c.addInputFormat("xml", () -&gt; new DOMStorableInputOutputFormat(factory));
+ * BatchConverter.Statistics s = c.convert(files, outputDirectory);
+ * </pre>
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class BatchConverter {
+
+    /**
+     * Statistics of a batch conversion.
+     */
+    public static class Statistics {
+
+        private int convertedCount;
+        private long inputBytes;
+        private long outputBytes;
+        private long elapsedNanos;
+        private final Map<File, IOException> failures = new LinkedHashMap<>();
+
+        public int getConvertedCount() {
+            return convertedCount;
+        }
+
+        public int getFailedCount() {
+            return failures.size();
+        }
+
+        /**
+         * Returns the files which could not be converted, and the reasons.
+         */
+        public Map<File, IOException> getFailures() {
+            return Collections.unmodifiableMap(failures);
+        }
+
+        public long getInputBytes() {
+            return inputBytes;
+        }
+
+        public long getOutputBytes() {
+            return outputBytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns the number of converted files per second.
+         */
+        public double getFilesPerSecond() {
+            return elapsedNanos == 0 ? 0 : convertedCount * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns the number of read megabytes per second.
+         */
+        public double getMegabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : inputBytes * 1e9 / (1 << 20) / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ENGLISH,
+                    "converted %d files (%.1f MB) in %.2f s, %.1f files/s, %.2f MB/s, %d failed",
+                    convertedCount, inputBytes / (double) (1 << 20), elapsedNanos / 1e9,
+                    getFilesPerSecond(), getMegabytesPerSecond(), failures.size());
+        }
+    }
+
+    /**
+     * The formats of a worker thread.
+     */
+    private class Formats {
+
+        private final Map<String, InputFormat> inputFormats = new HashMap<>();
+        private final OutputFormat outputFormat;
+
+        Formats() {
+            outputFormat = outputFormatFactory.get();
+            if (outputFormat instanceof ImageOutputFormat) {
+                ((ImageOutputFormat) outputFormat).setReuseImageBuffers(true);
+            }
+        }
+
+        InputFormat getInputFormat(String extension) {
+            InputFormat f = inputFormats.get(extension);
+            if (f == null) {
+                Supplier<? extends InputFormat> factory = inputFormatFactories.get(extension);
+                if (factory != null) {
+                    f = factory.get();
+                    inputFormats.put(extension, f);
+                }
+            }
+            return f;
+        }
+    }
+    private final Supplier<? extends Drawing> drawingFactory;
+    private final Supplier<? extends OutputFormat> outputFormatFactory;
+    private final Map<String, Supplier<? extends InputFormat>> inputFormatFactories = new HashMap<>();
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private int maxDrawingsInFlight = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a new converter.
+     *
+     * @param drawingFactory Creates an empty drawing for each file.
+     * @param outputFormatFactory Creates the output format of a worker
+     * thread.
+     */
+    public BatchConverter(Supplier<? extends Drawing> drawingFactory,
+            Supplier<? extends OutputFormat> outputFormatFactory) {
+        this.drawingFactory = drawingFactory;
+        this.outputFormatFactory = outputFormatFactory;
+    }
+
+    /**
+     * Registers an input format for files with the specified file name
+     * extension.
+     *
+     * @param extension A file name extension without a leading dot, for
+     * example "svg". Extensions are not case sensitive.
+     * @param factory Creates the input format of a worker thread.
+     */
+    public void addInputFormat(String extension, Supplier<? extends InputFormat> factory) {
+        inputFormatFactories.put(extension.toLowerCase(Locale.ENGLISH), factory);
+    }
+
+    /**
+     * Sets the number of worker threads.
+     */
+    public void setThreadCount(int newValue) {
+        if (newValue < 1) {
+            throw new IllegalArgumentException("threadCount must be positive: " + newValue);
+        }
+        threadCount = newValue;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets the maximal number of drawings which are held in memory at the
+     * same time. If this is less than the number of threads, the remaining
+     * threads wait until a drawing has been written.
+     */
+    public void setMaxDrawingsInFlight(int newValue) {
+        if (newValue < 1) {
+            throw new IllegalArgumentException("maxDrawingsInFlight must be positive: " + newValue);
+        }
+        maxDrawingsInFlight = newValue;
+    }
+
+    public int getMaxDrawingsInFlight() {
+        return maxDrawingsInFlight;
+    }
+
+    /**
+     * Returns the output file for an input file. The output file has the
+     * name of the input file with the extension of the output format.
+     */
+    protected File getOutputFile(File input, File outputDirectory, String outputExtension) {
+        String name = input.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        return new File(outputDirectory, name + "." + outputExtension);
+    }
+
+    private static String getExtension(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot == -1 ? "" : name.substring(dot + 1).toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Converts the specified files, and writes the results into the output
+     * directory. Files which can not be converted are reported in the
+     * statistics.
+     *
+     * @param inputs The files to convert.
+     * @param outputDirectory The directory for the converted files.
+     * @return the statistics of the conversion
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public Statistics convert(List<File> inputs, final File outputDirectory) throws InterruptedException {
+        final Statistics statistics = new Statistics();
+        final Semaphore drawingsInFlight = new Semaphore(maxDrawingsInFlight);
+        final ThreadLocal<Formats> formats = new ThreadLocal<Formats>() {
+            @Override
+            protected Formats initialValue() {
+                return new Formats();
+            }
+        };
+        final AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "BatchConverter-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        long start = System.nanoTime();
+        try {
+            List<Future<long[]>> results = new ArrayList<>(inputs.size());
+            for (final File input : inputs) {
+                results.add(executor.submit(() -> {
+                    drawingsInFlight.acquire();
+                    try {
+                        return convert(input, outputDirectory, formats.get());
+                    } finally {
+                        drawingsInFlight.release();
+                    }
+                }));
+            }
+            for (int i = 0; i < inputs.size(); i++) {
+                try {
+                    long[] bytes = results.get(i).get();
+                    statistics.convertedCount++;
+                    statistics.inputBytes += bytes[0];
+                    statistics.outputBytes += bytes[1];
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    statistics.failures.put(inputs.get(i), cause instanceof IOException
+                            ? (IOException) cause : new IOException(cause));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        statistics.elapsedNanos = System.nanoTime() - start;
+        return statistics;
+    }
+
+    /**
+     * Converts a single file.
+     *
+     * @return the number of read and written bytes
+     */
+    private long[] convert(File input, File outputDirectory, Formats formats) throws IOException {
+        InputFormat inputFormat = formats.getInputFormat(getExtension(input));
+        if (inputFormat == null) {
+            throw new IOException("No input format for " + input);
+        }
+        Drawing drawing = drawingFactory.get();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(input))) {
+            inputFormat.read(in, drawing, true);
+        }
+        File output = getOutputFile(input, outputDirectory, formats.outputFormat.getFileExtension());
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output))) {
+            formats.outputFormat.write(out, drawing);
+        }
+        return new long[]{input.length(), output.length()};
+    }
+}
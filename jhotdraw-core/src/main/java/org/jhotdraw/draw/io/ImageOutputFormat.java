@@ -47,6 +47,19 @@ public class ImageOutputFormat implements OutputFormat {
      * BufferedImage.TYPE_INT_ARGB whereas GIF needs BufferedImage.TYPE_
      */
     private int imageType;
+    /**
+     * Whether the write methods reuse their image buffers.
+     */
+    private boolean isReuseImageBuffers;
+    /**
+     * The reusable image buffers. The first buffer is used for drawing, the
+     * second one for converting the image type.
+     */
+    private final BufferedImage[] imageBuffers = new BufferedImage[2];
+    /**
+     * This is true while a write method renders an image.
+     */
+    private boolean isWriting;
 
     /**
      * Creates a new image output format for Portable Network Graphics PNG.
@@ -72,6 +85,26 @@ public class ImageOutputFormat implements OutputFormat {
         this.imageType = bufferedImageType;
     }
 
+    /**
+     * If this is set to true, the write methods draw into image buffers which
+     * are reused by subsequent write operations. This reduces garbage
+     * collection when many drawings are written with the same format.
+     * Images which are returned by the toImage methods are never reused.
+     * <p>
+     * An output format which reuses its buffers must be used by one thread
+     * at a time.
+     */
+    public void setReuseImageBuffers(boolean newValue) {
+        isReuseImageBuffers = newValue;
+        if (!newValue) {
+            imageBuffers[0] = imageBuffers[1] = null;
+        }
+    }
+
+    public boolean isReuseImageBuffers() {
+        return isReuseImageBuffers;
+    }
+
     @Override
     public javax.swing.filechooser.FileFilter getFileFilter() {
         return new FileNameExtensionFilter(description, fileExtension);
@@ -150,13 +183,46 @@ public class ImageOutputFormat implements OutputFormat {
     public void write(OutputStream out, Drawing drawing, java.util.List<Figure> figures,
             AffineTransform drawingTransform, Dimension imageSize) throws IOException {
         BufferedImage img;
-        if (drawingTransform == null || imageSize == null) {
-            img = toImage(drawing, figures, 1d, false);
-        } else {
-            img = toImage(drawing, figures, drawingTransform, imageSize);
+        isWriting = true;
+        try {
+            if (drawingTransform == null || imageSize == null) {
+                img = toImage(drawing, figures, 1d, false);
+            } else {
+                img = toImage(drawing, figures, drawingTransform, imageSize);
+            }
+        } finally {
+            isWriting = false;
         }
         ImageIO.write(img, formatName, out);
-        img.flush();
+        if (!isReuseImageBuffers) {
+            img.flush();
+        }
+    }
+
+    /**
+     * Creates an image with the specified size and type. While a write
+     * method renders an image, and if image buffers are reused, the image
+     * shares its pixels with a reusable buffer.
+     *
+     * @param slot The index of the reusable buffer.
+     */
+    private BufferedImage createImage(int width, int height, int type, int slot) {
+        if (!isWriting || !isReuseImageBuffers) {
+            return new BufferedImage(width, height, type);
+        }
+        BufferedImage buffer = imageBuffers[slot];
+        if (buffer == null || buffer.getType() != type
+                || buffer.getWidth() < width || buffer.getHeight() < height) {
+            if (buffer != null && buffer.getType() == type) {
+                // Grow the buffer in both directions at once
+                width = Math.max(width, buffer.getWidth());
+                height = Math.max(height, buffer.getHeight());
+            }
+            buffer = new BufferedImage(width, height, type);
+            imageBuffers[slot] = buffer;
+        }
+        return buffer.getWidth() == width && buffer.getHeight() == height
+                ? buffer : buffer.getSubimage(0, 0, width, height);
     }
 
     /**
@@ -236,9 +302,9 @@ public class ImageOutputFormat implements OutputFormat {
         } else {
             background = new Color(background.getRed(), background.getGreen(), background.getBlue(), (int) (background.getAlpha() * opacity));
         }
-        BufferedImage buf = new BufferedImage(
+        BufferedImage buf = createImage(
                 Math.max(1, imageSize.width), Math.max(1, imageSize.height),
-                (background.getAlpha() == 255) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+                (background.getAlpha() == 255) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB, 0);
         Graphics2D g = buf.createGraphics();
         // Clear the buffered image with the background color
         Composite savedComposite = g.getComposite();
@@ -255,15 +321,17 @@ public class ImageOutputFormat implements OutputFormat {
         g.dispose();
         // Convert the image, if it does not have the specified image type
         if (imageType != BufferedImage.TYPE_INT_ARGB) {
-            BufferedImage buf2 = new BufferedImage(
+            BufferedImage buf2 = createImage(
                     buf.getWidth(), buf.getHeight(),
-                    imageType);
+                    imageType, 1);
             g = buf2.createGraphics();
             setRenderingHints(g);
             g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC));
             g.drawImage(buf, 0, 0, null);
             g.dispose();
-            buf.flush();
+            if (!isWriting || !isReuseImageBuffers) {
+                buf.flush();
+            }
             buf = buf2;
         }
         return buf;
@@ -9,20 +9,245 @@ package org.jhotdraw.draw.layouter;
 
 import org.jhotdraw.draw.figure.Figure;
 import org.jhotdraw.draw.figure.CompositeFigure;
+import java.awt.geom.*;
+import java.util.*;
 import org.jhotdraw.draw.*;
+import org.jhotdraw.geom.Dimension2DDouble;
 import org.jhotdraw.geom.Insets2D;
 
 /**
  * This abstract class can be extended to implement a {@link Layouter}
  * which has its own attribute set.
+ * <p>
+ * The layouter caches the preferred sizes of the children of the composite
+ * figures which it lays out. A child is only measured again, after it has
+ * been invalidated with {@link #invalidateLayout}, or after it has been
+ * added to the composite figure or moved within it.
  *
  * @author Werner Randelshofer
  * @version $Id$
  */
 public abstract class AbstractLayouter implements Layouter {
 
+    /**
+     * Caches the measurements of the children of the composite figures,
+     * which are laid out by this layouter.
+     */
+    private transient WeakHashMap<CompositeFigure, Measurements> measurements;
+
+    /**
+     * The measured size of a child, and the bounds which have been assigned
+     * to it by the last layout.
+     */
+    protected static class Entry {
+
+        protected final Figure figure;
+        /**
+         * The index of the child in the composite figure.
+         */
+        private int index;
+        protected boolean isVisible;
+        protected double width;
+        protected double height;
+        protected Insets2D.Double insets;
+        /**
+         * True if the child must be measured again.
+         */
+        private boolean isInvalid = true;
+        /**
+         * True if the child has bounds assigned, which are still valid.
+         */
+        private boolean isPlaced;
+        private double x0, y0, x1, y1;
+
+        private Entry(Figure figure) {
+            this.figure = figure;
+        }
+
+        /**
+         * Sets the bounds of the child, unless the child still has the
+         * same bounds from the last layout.
+         */
+        protected void setBounds(Point2D.Double anchor, Point2D.Double lead) {
+            if (!isPlaced || x0 != anchor.x || y0 != anchor.y || x1 != lead.x || y1 != lead.y) {
+                figure.setBounds(anchor, lead);
+                x0 = anchor.x;
+                y0 = anchor.y;
+                x1 = lead.x;
+                y1 = lead.y;
+                isPlaced = true;
+            }
+        }
+    }
+
+    /**
+     * The measurements of the children of a composite figure.
+     * <p>
+     * The arrays hold the sums and the maxima of the sizes of the visible
+     * children, including their insets. The value at index i covers all
+     * children before child i.
+     */
+    protected static class Measurements {
+
+        protected final ArrayList<Entry> entries = new ArrayList<>();
+        /**
+         * Maps the children to their entries.
+         */
+        private final IdentityHashMap<Figure, Entry> entriesByFigure = new IdentityHashMap<>();
+        protected double[] widthSums = new double[1];
+        protected double[] heightSums = new double[1];
+        protected double[] maxWidths = new double[1];
+        protected double[] maxHeights = new double[1];
+        /**
+         * Entries from this index on must be checked for invalid children,
+         * and their sums and maxima must be computed again.
+         */
+        private int firstInvalid;
+        /**
+         * The index of the first child, which has been measured again since
+         * the last layout.
+         */
+        private int firstChanged;
+        /**
+         * The parameters of the last layout.
+         */
+        private Rectangle2D.Double layoutBounds;
+        private Insets2D.Double layoutInsets;
+        private Object alignment;
+
+        /**
+         * Returns the index of the first child which must be placed again,
+         * and remembers the parameters of the layout.
+         *
+         * @param layoutBounds The bounds of the layout.
+         * @param layoutInsets The insets of the layout.
+         * @param alignment The alignment of the layout.
+         */
+        protected int beginLayout(Rectangle2D.Double layoutBounds, Insets2D.Double layoutInsets, Object alignment) {
+            int first = firstChanged;
+            if (!layoutBounds.equals(this.layoutBounds)
+                    || !layoutInsets.equals(this.layoutInsets)
+                    || alignment != this.alignment) {
+                first = 0;
+                this.layoutBounds = (Rectangle2D.Double) layoutBounds.clone();
+                this.layoutInsets = (Insets2D.Double) layoutInsets.clone();
+                this.alignment = alignment;
+            }
+            firstChanged = entries.size();
+            return first;
+        }
+    }
+
     public Insets2D.Double getInsets(Figure child) {
         Insets2D.Double value = child.get(CompositeFigure.LAYOUT_INSETS);
         return (value == null) ? new Insets2D.Double() : (Insets2D.Double) value.clone();
     }
+
+    /**
+     * Informs the layouter, that the preferred size or the bounds of a child
+     * of the composite figure may have changed.
+     *
+     * @param compositeFigure The composite figure.
+     * @param child The child, or null if all children may have changed.
+     */
+    public void invalidateLayout(CompositeFigure compositeFigure, Figure child) {
+        Measurements m = (measurements == null) ? null : measurements.get(compositeFigure);
+        if (m != null) {
+            if (child == null) {
+                measurements.remove(compositeFigure);
+            } else {
+                Entry e = m.entriesByFigure.get(child);
+                if (e != null) {
+                    e.isInvalid = true;
+                    e.isPlaced = false;
+                    m.firstInvalid = Math.min(m.firstInvalid, e.index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the measurements of the children of the composite figure.
+     * Only children which have been invalidated, added or moved are
+     * measured.
+     */
+    protected Measurements measure(CompositeFigure compositeFigure) {
+        if (measurements == null) {
+            measurements = new WeakHashMap<>();
+        }
+        Measurements m = measurements.get(compositeFigure);
+        if (m == null) {
+            m = new Measurements();
+            measurements.put(compositeFigure, m);
+        }
+        // Replace the entries between the unchanged head and tail of the list
+        // of children
+        java.util.List<Figure> children = compositeFigure.getChildren();
+        ArrayList<Entry> entries = m.entries;
+        int n = children.size();
+        int count = entries.size();
+        int head = 0;
+        while (head < n && head < count && entries.get(head).figure == children.get(head)) {
+            head++;
+        }
+        if (head < n || head < count) {
+            int tail = 0;
+            while (tail < n - head && tail < count - head
+                    && entries.get(count - 1 - tail).figure == children.get(n - 1 - tail)) {
+                tail++;
+            }
+            java.util.List<Entry> removed = entries.subList(head, count - tail);
+            for (Entry e : removed) {
+                m.entriesByFigure.remove(e.figure);
+            }
+            removed.clear();
+            ArrayList<Entry> added = new ArrayList<>(n - tail - head);
+            for (Figure child : children.subList(head, n - tail)) {
+                Entry e = new Entry(child);
+                added.add(e);
+                m.entriesByFigure.put(child, e);
+            }
+            entries.addAll(head, added);
+            for (int i = head; i < n; i++) {
+                entries.get(i).index = i;
+            }
+            // The children in the tail may have been moved
+            for (Entry e : entries.subList(n - tail, n)) {
+                e.isPlaced = false;
+            }
+            m.firstInvalid = Math.min(m.firstInvalid, head);
+        }
+        if (m.widthSums.length < n + 1) {
+            int capacity = Math.max(n + 1, m.widthSums.length * 2);
+            m.widthSums = Arrays.copyOf(m.widthSums, capacity);
+            m.heightSums = Arrays.copyOf(m.heightSums, capacity);
+            m.maxWidths = Arrays.copyOf(m.maxWidths, capacity);
+            m.maxHeights = Arrays.copyOf(m.maxHeights, capacity);
+        }
+        for (int i = m.firstInvalid; i < n; i++) {
+            Entry e = entries.get(i);
+            if (e.isInvalid) {
+                e.isVisible = e.figure.isVisible();
+                if (e.isVisible) {
+                    Dimension2DDouble preferredSize = e.figure.getPreferredSize();
+                    e.width = preferredSize.width;
+                    e.height = preferredSize.height;
+                    e.insets = getInsets(e.figure);
+                }
+                e.isInvalid = false;
+            }
+            double width = 0, height = 0;
+            if (e.isVisible) {
+                width = e.width + e.insets.left + e.insets.right;
+                height = e.height + e.insets.top + e.insets.bottom;
+            }
+            m.widthSums[i + 1] = m.widthSums[i] + width;
+            m.heightSums[i + 1] = m.heightSums[i] + height;
+            m.maxWidths[i + 1] = Math.max(m.maxWidths[i], width);
+            m.maxHeights[i + 1] = Math.max(m.maxHeights[i], height);
+        }
+        m.firstChanged = Math.min(m.firstChanged, m.firstInvalid);
+        m.firstInvalid = n;
+        return m;
+    }
 }
@@ -13,7 +13,6 @@ import java.awt.geom.*;
 import org.jhotdraw.draw.*;
 import static org.jhotdraw.draw.AttributeKeys.*;
 import org.jhotdraw.draw.AttributeKeys.Alignment;
-import org.jhotdraw.geom.Dimension2DDouble;
 import org.jhotdraw.geom.Insets2D;
 
 /**
@@ -38,31 +37,35 @@ public class HorizontalLayouter extends AbstractLayouter {
     @Override
     public Rectangle2D.Double calculateLayout(CompositeFigure compositeFigure, Point2D.Double anchor, Point2D.Double lead) {
         Insets2D.Double layoutInsets = compositeFigure.get(LAYOUT_INSETS);
-        Rectangle2D.Double layoutBounds = new Rectangle2D.Double(anchor.x, anchor.y, 0, 0);
-        for (Figure child : compositeFigure.getChildren()) {
-            if (child.isVisible()) {
-                Dimension2DDouble preferredSize = child.getPreferredSize();
-                Insets2D.Double ins = getInsets(child);
-                layoutBounds.height = Math.max(layoutBounds.height, preferredSize.height + ins.top + ins.bottom);
-                layoutBounds.width += preferredSize.width + ins.left + ins.right;
-            }
-        }
+        return calculateLayout(measure(compositeFigure), layoutInsets, anchor);
+    }
+
+    private Rectangle2D.Double calculateLayout(Measurements m, Insets2D.Double layoutInsets, Point2D.Double anchor) {
+        int n = m.entries.size();
+        Rectangle2D.Double layoutBounds = new Rectangle2D.Double(anchor.x, anchor.y, m.widthSums[n], m.maxHeights[n]);
         layoutBounds.width += layoutInsets.left + layoutInsets.right;
         layoutBounds.height += layoutInsets.top + layoutInsets.bottom;
         return layoutBounds;
     }
 
+    /**
+     * Lays out the children. Only the children from the first child
+     * which has changed since the last layout are placed again, unless the
+     * bounds, the insets or the alignment of the layout have changed.
+     */
     @Override
     public Rectangle2D.Double layout(CompositeFigure compositeFigure, Point2D.Double anchor, Point2D.Double lead) {
         Insets2D.Double layoutInsets = compositeFigure.get(LAYOUT_INSETS);
         Alignment compositeAlignment = compositeFigure.get(COMPOSITE_ALIGNMENT);
-        Rectangle2D.Double layoutBounds = calculateLayout(compositeFigure, anchor, lead);
-        double x = layoutBounds.x + layoutInsets.left;
-        for (Figure child : compositeFigure.getChildren()) {
-            if (child.isVisible()) {
-                Insets2D.Double insets = getInsets(child);
-                double width = child.getPreferredSize().width;
-                double height = child.getPreferredSize().height;
+        Measurements m = measure(compositeFigure);
+        Rectangle2D.Double layoutBounds = calculateLayout(m, layoutInsets, anchor);
+        for (int i = m.beginLayout(layoutBounds, layoutInsets, compositeAlignment), n = m.entries.size(); i < n; i++) {
+            Entry child = m.entries.get(i);
+            if (child.isVisible) {
+                Insets2D.Double insets = child.insets;
+                double x = layoutBounds.x + layoutInsets.left + m.widthSums[i];
+                double width = child.width;
+                double height = child.height;
                 //--
                 switch (compositeAlignment) {
                     case LEADING:
@@ -104,7 +107,6 @@ public class HorizontalLayouter extends AbstractLayouter {
                         break;
                 }
                 //---
-                x += width + insets.left + insets.right;
             }
         }
         return layoutBounds;
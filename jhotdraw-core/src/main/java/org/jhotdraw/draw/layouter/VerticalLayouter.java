@@ -13,7 +13,6 @@ import java.awt.geom.*;
 import org.jhotdraw.draw.*;
 import static org.jhotdraw.draw.AttributeKeys.*;
 import org.jhotdraw.draw.AttributeKeys.Alignment;
-import org.jhotdraw.geom.Dimension2DDouble;
 import org.jhotdraw.geom.Insets2D;
 
 /**
@@ -46,20 +45,22 @@ public class VerticalLayouter extends AbstractLayouter {
         if (layoutInsets == null) {
             layoutInsets = new Insets2D.Double(0, 0, 0, 0);
         }
-        Rectangle2D.Double layoutBounds = new Rectangle2D.Double(anchor.x, anchor.y, 0, 0);
-        for (Figure child : layoutable.getChildren()) {
-            if (child.isVisible()) {
-                Dimension2DDouble preferredSize = child.getPreferredSize();
-                Insets2D.Double ins = getInsets(child);
-                layoutBounds.width = Math.max(layoutBounds.width, preferredSize.width + ins.left + ins.right);
-                layoutBounds.height += preferredSize.height + ins.top + ins.bottom;
-            }
-        }
+        return calculateLayout(measure(layoutable), layoutInsets, anchor);
+    }
+
+    private Rectangle2D.Double calculateLayout(Measurements m, Insets2D.Double layoutInsets, Point2D.Double anchor) {
+        int n = m.entries.size();
+        Rectangle2D.Double layoutBounds = new Rectangle2D.Double(anchor.x, anchor.y, m.maxWidths[n], m.heightSums[n]);
         layoutBounds.width += layoutInsets.left + layoutInsets.right;
         layoutBounds.height += layoutInsets.top + layoutInsets.bottom;
         return layoutBounds;
     }
 
+    /**
+     * Lays out the children. Only the children from the first child
+     * which has changed since the last layout are placed again, unless the
+     * bounds, the insets or the alignment of the layout have changed.
+     */
     @Override
     public Rectangle2D.Double layout(CompositeFigure layoutable, Point2D.Double anchor, Point2D.Double lead) {
         Insets2D.Double layoutInsets = layoutable.get(LAYOUT_INSETS);
@@ -67,13 +68,15 @@ public class VerticalLayouter extends AbstractLayouter {
         if (layoutInsets == null) {
             layoutInsets = new Insets2D.Double();
         }
-        Rectangle2D.Double layoutBounds = calculateLayout(layoutable, anchor, lead);
-        double y = layoutBounds.y + layoutInsets.top;
-        for (Figure child : layoutable.getChildren()) {
-            if (child.isVisible()) {
-                Insets2D.Double insets = getInsets(child);
-                double height = child.getPreferredSize().height;
-                double width = child.getPreferredSize().width;
+        Measurements m = measure(layoutable);
+        Rectangle2D.Double layoutBounds = calculateLayout(m, layoutInsets, anchor);
+        for (int i = m.beginLayout(layoutBounds, layoutInsets, compositeAlignment), n = m.entries.size(); i < n; i++) {
+            Entry child = m.entries.get(i);
+            if (child.isVisible) {
+                Insets2D.Double insets = child.insets;
+                double y = layoutBounds.y + layoutInsets.top + m.heightSums[i];
+                double height = child.height;
+                double width = child.width;
                 switch (compositeAlignment) {
                     case LEADING:
                         child.setBounds(
@@ -113,7 +116,6 @@ public class VerticalLayouter extends AbstractLayouter {
                                         y + insets.top + height));
                         break;
                 }
-                y += height + insets.top + insets.bottom;
             }
         }
         return layoutBounds;
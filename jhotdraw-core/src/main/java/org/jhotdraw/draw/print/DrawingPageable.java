@@ -11,12 +11,31 @@ import org.jhotdraw.draw.figure.Figure;
 import java.awt.*;
 import java.awt.geom.*;
 import java.awt.print.*;
+import java.util.HashMap;
 import org.jhotdraw.draw.*;
+import org.jhotdraw.util.ReversedList;
 
 /**
  * {@code DrawingPageable} can be used to print a {@link Drawing} using the
  * java.awt.print API.
  * <p>
+ * By default, the drawing is scaled to fit on a single page. If a scale is
+ * set with {@link #setScale}, the drawing is printed with that scale, and is
+ * tiled onto as many pages as needed. Adjacent pages overlap by
+ * {@link #setOverlap} points, so that the printed pages can be glued
+ * together. Pages are numbered row by row.
+ * <p>
+ * Each page only draws the figures which intersect the page. The figures
+ * of a {@link QuadTreeDrawing} are looked up with its spatial index. Only the figures which intersect the
+ * clip of the graphics are drawn. Printer jobs which render a page in bands
+ * call the printable once per band with a clip, so each call only draws the
+ * figures of its band. The memory which is needed for a band is owned by
+ * the printer job.
+ * <p>
+ * The pages are laid out for the imageable area of the page format. If a
+ * page is printed with a different page format, the pages are laid out
+ * again for that page format.
+ * <p>
  * Usage:
  * <pre>
  * Pageable pageable = new DrawingPageable(aDrawing);
@@ -37,9 +56,46 @@ import org.jhotdraw.draw.*;
  */
 public class DrawingPageable implements Pageable {
 
+    /**
+     * The drawing area of a figure may grow when it is printed with a scale
+     * factor, for example if its stroke is not scaled. The bounds which are
+     * used to look up the figures of a page in a spatial index are grown by
+     * this margin.
+     */
+    private static final double FIGURE_MARGIN = 16d;
     private Drawing drawing;
     private PageFormat pageFormat;
     private boolean isAutorotate = false;
+    /**
+     * The scale from drawing units to points. Zero means that the drawing is
+     * scaled to fit on one page.
+     */
+    private double scale = 0d;
+    /**
+     * The overlap of adjacent pages in points.
+     */
+    private double overlap = 0d;
+    /**
+     * The page layouts by the imageable area of the page format, for which
+     * they have been laid out.
+     */
+    private final HashMap<Rectangle2D.Double, PageLayout> layouts = new HashMap<>();
+
+    /**
+     * The layout of the pages for the imageable area of a page format.
+     */
+    private static class PageLayout {
+
+        /**
+         * The transforms from drawing coordinates to page coordinates of all
+         * pages.
+         */
+        private AffineTransform[] pageTransforms;
+        /**
+         * The bounds of all pages in drawing coordinates.
+         */
+        private Rectangle2D.Double[] pageBounds;
+    }
 
     /**
      * Creates a new instance.
@@ -51,13 +107,75 @@ public class DrawingPageable implements Pageable {
         pageFormat.setPaper(paper);
     }
 
+    public void setPageFormat(PageFormat newValue) {
+        pageFormat = newValue;
+        invalidate();
+    }
+
+    /**
+     * Sets the scale from drawing units to points. A drawing unit is printed
+     * with the size of 1/72 inch, if the scale is 1. If the scale is 0, the
+     * drawing is scaled to fit on a single page.
+     */
+    public void setScale(double newValue) {
+        if (newValue < 0 || Double.isNaN(newValue)) {
+            throw new IllegalArgumentException("Illegal scale:" + newValue);
+        }
+        scale = newValue;
+        invalidate();
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Sets by how many points adjacent pages overlap, if the drawing is
+     * tiled onto multiple pages.
+     */
+    public void setOverlap(double newValue) {
+        if (newValue < 0 || Double.isNaN(newValue)) {
+            throw new IllegalArgumentException("Illegal overlap:" + newValue);
+        }
+        overlap = newValue;
+        invalidate();
+    }
+
+    public double getOverlap() {
+        return overlap;
+    }
+
+    /**
+     * Rotates the drawing by 90 degrees, if it is scaled to fit on one page,
+     * and if it is wider than high, and the page is higher than wide.
+     */
+    public void setAutorotate(boolean newValue) {
+        isAutorotate = newValue;
+        invalidate();
+    }
+
+    public boolean isAutorotate() {
+        return isAutorotate;
+    }
+
+    /**
+     * Discards the page layout. The pages are laid out again, when they are
+     * needed the next time. Call this method if the drawing has been changed.
+     */
+    public void invalidate() {
+        layouts.clear();
+    }
+
     @Override
     public int getNumberOfPages() {
-        return 1;
+        return validate(pageFormat).pageTransforms.length;
     }
 
     @Override
     public PageFormat getPageFormat(int pageIndex) throws IndexOutOfBoundsException {
+        if (pageIndex < 0 || pageIndex >= getNumberOfPages()) {
+            throw new IndexOutOfBoundsException("Invalid page index:" + pageIndex);
+        }
         return pageFormat;
     }
 
@@ -74,53 +192,168 @@ public class DrawingPageable implements Pageable {
         };
     }
 
-    public int printPage(Graphics graphics, PageFormat pageFormat, int pageIndex) throws PrinterException {
+    /**
+     * Returns the bounds of a page in drawing coordinates.
+     */
+    public Rectangle2D.Double getPageBounds(int pageIndex) {
         if (pageIndex < 0 || pageIndex >= getNumberOfPages()) {
-            return Printable.NO_SUCH_PAGE;
+            throw new IndexOutOfBoundsException("Invalid page index:" + pageIndex);
         }
-        if (drawing.getChildCount() > 0) {
-            Graphics2D g = (Graphics2D) graphics;
-            setRenderingHints(g);
-            // Determine the draw bounds of the drawing
-            Rectangle2D.Double drawBounds = null;
-            double scale = AttributeKeys.getScaleFactorFromGraphics(g);
-            for (Figure f : drawing.getChildren()) {
-                if (drawBounds == null) {
-                    drawBounds = f.getDrawingArea(scale);
-                } else {
-                    drawBounds.add(f.getDrawingArea(scale));
-                }
+        return (Rectangle2D.Double) validate(pageFormat).pageBounds[pageIndex].clone();
+    }
+
+    /**
+     * Returns the layout of the pages for the imageable area of the specified
+     * page format. Lays out the pages, if this has not been done yet.
+     */
+    private PageLayout validate(PageFormat pageFormat) {
+        Rectangle2D.Double imageable = getImageable(pageFormat);
+        PageLayout layout = layouts.get(imageable);
+        if (layout != null) {
+            return layout;
+        }
+        layout = new PageLayout();
+        layouts.put(imageable, layout);
+        AffineTransform[] pageTransforms;
+        Rectangle2D.Double[] pageBounds;
+        // Determine the draw bounds of the drawing
+        Rectangle2D.Double drawBounds = null;
+        for (Figure f : drawing.getChildren()) {
+            if (drawBounds == null) {
+                drawBounds = f.getDrawingArea();
+            } else {
+                drawBounds.add(f.getDrawingArea());
             }
-            // Setup a transformation for the drawing
+        }
+        double ix = imageable.x;
+        double iy = imageable.y;
+        double iw = imageable.width;
+        double ih = imageable.height;
+        if (drawBounds == null) {
+            // An empty drawing is printed on one empty page
+            pageTransforms = new AffineTransform[]{AffineTransform.getTranslateInstance(ix, iy)};
+            pageBounds = new Rectangle2D.Double[]{new Rectangle2D.Double(0, 0, 0, 0)};
+        } else if (scale == 0d) {
             AffineTransform tx = new AffineTransform();
-            tx.translate(
-                    pageFormat.getImageableX(),
-                    pageFormat.getImageableY());
+            tx.translate(ix, iy);
             // Maybe rotate drawing
             if (isAutorotate
                     && drawBounds.width > drawBounds.height
-                    && pageFormat.getImageableWidth() < pageFormat.getImageableHeight()) {
+                    && iw < ih) {
                 double scaleFactor = Math.min(
-                        pageFormat.getImageableWidth() / drawBounds.height,
-                        pageFormat.getImageableHeight() / drawBounds.width);
+                        iw / drawBounds.height,
+                        ih / drawBounds.width);
                 tx.scale(scaleFactor, scaleFactor);
                 tx.translate(drawBounds.height, 0d);
                 tx.rotate(Math.PI / 2d, 0, 0);
                 tx.translate(-drawBounds.x, -drawBounds.y);
             } else {
                 double scaleFactor = Math.min(
-                        pageFormat.getImageableWidth() / drawBounds.width,
-                        pageFormat.getImageableHeight() / drawBounds.height);
+                        iw / drawBounds.width,
+                        ih / drawBounds.height);
                 tx.scale(scaleFactor, scaleFactor);
                 tx.translate(-drawBounds.x, -drawBounds.y);
             }
-            g.transform(tx);
-            // Draw the drawing
-            drawing.draw(g);
+            pageTransforms = new AffineTransform[]{tx};
+            pageBounds = new Rectangle2D.Double[]{drawBounds};
+        } else {
+            // Tile the drawing onto pages of the imageable size
+            double w = iw / scale;
+            double h = ih / scale;
+            double stepX = Math.max(w - overlap / scale, w / 2);
+            double stepY = Math.max(h - overlap / scale, h / 2);
+            int columns = 1 + (int) Math.max(0, Math.ceil((drawBounds.width - w) / stepX));
+            int rows = 1 + (int) Math.max(0, Math.ceil((drawBounds.height - h) / stepY));
+            pageTransforms = new AffineTransform[rows * columns];
+            pageBounds = new Rectangle2D.Double[rows * columns];
+            for (int row = 0, i = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++, i++) {
+                    double x = drawBounds.x + column * stepX;
+                    double y = drawBounds.y + row * stepY;
+                    AffineTransform tx = new AffineTransform();
+                    tx.translate(ix, iy);
+                    tx.scale(scale, scale);
+                    tx.translate(-x, -y);
+                    pageTransforms[i] = tx;
+                    pageBounds[i] = new Rectangle2D.Double(x, y, w, h);
+                }
+            }
+        }
+        layout.pageTransforms = pageTransforms;
+        layout.pageBounds = pageBounds;
+        return layout;
+    }
+
+    private static Rectangle2D.Double getImageable(PageFormat pageFormat) {
+        return new Rectangle2D.Double(
+                pageFormat.getImageableX(), pageFormat.getImageableY(),
+                pageFormat.getImageableWidth(), pageFormat.getImageableHeight());
+    }
+
+    public int printPage(Graphics graphics, PageFormat pageFormat, int pageIndex) throws PrinterException {
+        PageLayout layout = validate(pageFormat);
+        if (pageIndex < 0 || pageIndex >= layout.pageTransforms.length) {
+            return Printable.NO_SUCH_PAGE;
+        }
+        AffineTransform tx = layout.pageTransforms[pageIndex];
+        if (layout.pageBounds[pageIndex].isEmpty()) {
+            return Printable.PAGE_EXISTS;
+        }
+        // Only the part of the imageable area within the clip is printed
+        Graphics2D g = (Graphics2D) graphics;
+        Rectangle2D.Double imageable = getImageable(pageFormat);
+        Rectangle2D clip = g.getClipBounds();
+        if (clip != null) {
+            Rectangle2D.intersect(imageable, clip, imageable);
+        }
+        if (imageable.isEmpty()) {
+            return Printable.PAGE_EXISTS;
+        }
+        Rectangle2D clipBounds;
+        try {
+            clipBounds = tx.createInverse().createTransformedShape(imageable).getBounds2D();
+        } catch (NoninvertibleTransformException ex) {
+            PrinterException pe = new PrinterException(ex.getMessage());
+            pe.initCause(ex);
+            throw pe;
+        }
+        Graphics2D gp = (Graphics2D) g.create();
+        try {
+            setRenderingHints(gp);
+            gp.clip(imageable);
+            gp.transform(tx);
+            double factor = AttributeKeys.getScaleFactorFromGraphics(gp);
+            for (Figure f : getCandidates(clipBounds)) {
+                if (f.isVisible() && f.getDrawingArea(factor).intersects(clipBounds)) {
+                    f.draw(gp);
+                }
+            }
+        } finally {
+            gp.dispose();
         }
         return Printable.PAGE_EXISTS;
     }
 
+    /**
+     * Returns the figures which may draw into the specified bounds, from back
+     * to front.
+     * <p>
+     * A QuadTreeDrawing looks up the figures by their drawing areas with its
+     * spatial index. The drawing areas have been computed for a scale factor
+     * of 1, so the bounds are grown by a margin. Other drawings look up the
+     * figures by their bounds, which do not include strokes, decorations and
+     * shadows. For them all figures are returned.
+     */
+    private Iterable<Figure> getCandidates(Rectangle2D bounds) {
+        if (drawing instanceof QuadTreeDrawing) {
+            Rectangle2D.Double query = new Rectangle2D.Double(
+                    bounds.getX() - FIGURE_MARGIN, bounds.getY() - FIGURE_MARGIN,
+                    bounds.getWidth() + 2 * FIGURE_MARGIN, bounds.getHeight() + 2 * FIGURE_MARGIN);
+            return drawing.findFigures(query);
+        }
+        return new ReversedList<>(drawing.getFiguresFrontToBack());
+    }
+
     protected void setRenderingHints(Graphics2D g) {
         g.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION,
                 RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
@@ -15,7 +15,7 @@ import java.awt.geom.*;
 import java.util.*;
 import javax.swing.undo.*;
 import org.jhotdraw.draw.*;
-import org.jhotdraw.geom.Bezier;
+import org.jhotdraw.geom.BezierFitter;
 import org.jhotdraw.geom.BezierPath;
 import org.jhotdraw.geom.Geom;
 import org.jhotdraw.util.*;
@@ -59,6 +59,15 @@ public class BezierTool extends AbstractTool {
      */
     protected BezierFigure createdFigure;
     private int nodeCountBeforeDrag;
+    /**
+     * Fits the nodes which are added while dragging, or null if curve
+     * fitting is disabled.
+     */
+    private BezierFitter fitter;
+    /**
+     * The index of the next node, which is added to the fitter.
+     */
+    private int fitterNodeIndex;
 
     /**
      * A localized name for this tool. The presentationName is displayed by the UndoableEdit.
@@ -267,6 +276,8 @@ public class BezierTool extends AbstractTool {
         }
 
         nodeCountBeforeDrag = createdFigure.getNodeCount();
+        fitter = calculateFittedCurveAfterCreation ? new BezierFitter(1.5d / getView().getScaleFactor()) : null;
+        fitterNodeIndex = nodeCountBeforeDrag - 1;
     }
 
     /**
@@ -481,11 +492,10 @@ public class BezierTool extends AbstractTool {
         if (createdFigure.getNodeCount() > nodeCountBeforeDrag + 1) {
             createdFigure.willChange();
             BezierPath figurePath = createdFigure.getBezierPath();
+            java.util.List<BezierPath.Node> draggedNodes = figurePath.subList(nodeCountBeforeDrag - 1, figurePath.size());
             BezierPath digitizedPath = new BezierPath();
-            for (int i = nodeCountBeforeDrag - 1, n = figurePath.size(); i < n; i++) {
-                digitizedPath.add(figurePath.get(nodeCountBeforeDrag - 1));
-                figurePath.remove(nodeCountBeforeDrag - 1);
-            }
+            digitizedPath.addAll(draggedNodes);
+            draggedNodes.clear();
             BezierPath fittedPath = calculateFittedCurve(digitizedPath);
             figurePath.addAll(fittedPath);
             createdFigure.setBezierPath(figurePath);
@@ -552,6 +562,22 @@ public class BezierTool extends AbstractTool {
         int x = evt.getX();
         int y = evt.getY();
         addPointToFigure(getView().viewToDrawing(new Point(x, y)));
+        addFinalNodesToFitter();
+    }
+
+    /**
+     * Adds the nodes which have been added while dragging to the fitter,
+     * except for the last node, which may still be moved by
+     * {@link #addPointToFigure}. This way, the curve is fitted while the
+     * user draws, and only the last segment is left for mouse release.
+     */
+    private void addFinalNodesToFitter() {
+        if (fitter != null) {
+            for (int n = createdFigure.getNodeCount() - 1; fitterNodeIndex < n; fitterNodeIndex++) {
+                Point2D.Double p = createdFigure.getPoint(fitterNodeIndex, 0);
+                fitter.add(p.x, p.y);
+            }
+        }
     }
 
     @Override
@@ -587,9 +613,24 @@ public class BezierTool extends AbstractTool {
         }
     }
 
+    /**
+     * Fits a bezier path to the nodes which have been added since the
+     * mouse was pressed.
+     * <p>
+     * The nodes, which have already been added to the fitter while dragging,
+     * are not fitted again.
+     *
+     * @param path The digitized path.
+     * @return The fitted path.
+     */
     protected BezierPath calculateFittedCurve(BezierPath path) {
         if (calculateFittedCurveAfterCreation) {
-            return Bezier.fitBezierPath(path, 1.5d / getView().getScaleFactor());
+            BezierFitter f = (fitter == null) ? new BezierFitter(1.5d / getView().getScaleFactor()) : fitter;
+            fitter = null;
+            for (int i = f.size(), n = path.size(); i < n; i++) {
+                f.add(path.get(i).x[0], path.get(i).y[0]);
+            }
+            return f.finish();
         } else {
             return path;
         }
@@ -0,0 +1,121 @@
+package org.jhotdraw.draw;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.draw.figure.RectangleFigure;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for DefaultLevelOfDetailPolicy.
+ *
+ * These tests verify that tiny figures are drawn in their simplified
+ * representation and that large figures are drawn with full detail.
+ */
+@DisplayName("DefaultLevelOfDetailPolicy")
+class DefaultLevelOfDetailPolicyTest {
+
+    private static class CountingRectangleFigure extends RectangleFigure {
+
+        private static final long serialVersionUID = 1L;
+        private int drawCount;
+
+        CountingRectangleFigure(double x, double y, double w, double h) {
+            super(x, y, w, h);
+            set(AttributeKeys.FILL_COLOR, Color.RED);
+        }
+
+        @Override
+        public void draw(Graphics2D g) {
+            drawCount++;
+            super.draw(g);
+        }
+    }
+
+    private static BufferedImage drawScaled(Drawing drawing, double scale) {
+        BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setClip(0, 0, 100, 100);
+            g.scale(scale, scale);
+            drawing.draw(g);
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    @Test
+    @DisplayName("should draw tiny figures as bounds")
+    void shouldDrawTinyFiguresAsBounds() {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        CountingRectangleFigure tiny = new CountingRectangleFigure(100, 100, 5, 5);
+        CountingRectangleFigure large = new CountingRectangleFigure(500, 500, 300, 300);
+        drawing.add(tiny);
+        drawing.add(large);
+        drawing.setLevelOfDetailPolicy(new DefaultLevelOfDetailPolicy());
+
+        BufferedImage img = drawScaled(drawing, 0.1);
+
+        assertThat(tiny.drawCount).isZero();
+        assertThat(large.drawCount).isEqualTo(1);
+        assertThat(img.getRGB(10, 10)).isEqualTo(Color.RED.getRGB());
+    }
+
+    @Test
+    @DisplayName("should honour per type thresholds")
+    void shouldHonourPerTypeThresholds() {
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        CountingRectangleFigure tiny = new CountingRectangleFigure(100, 100, 5, 5);
+        drawing.add(tiny);
+        DefaultLevelOfDetailPolicy policy = new DefaultLevelOfDetailPolicy();
+        policy.setThreshold(RectangleFigure.class, 2, DefaultLevelOfDetailPolicy.Representation.FULL);
+        drawing.setLevelOfDetailPolicy(policy);
+
+        drawScaled(drawing, 0.1);
+        assertThat(tiny.drawCount).isEqualTo(1);
+
+        policy.setThreshold(RectangleFigure.class, 2, DefaultLevelOfDetailPolicy.Representation.NONE);
+        BufferedImage img = drawScaled(drawing, 0.1);
+        assertThat(tiny.drawCount).isEqualTo(1);
+        assertThat(img.getRGB(10, 10)).isZero();
+    }
+
+    @Test
+    @DisplayName("should accumulate tiny figures into a density raster")
+    void shouldAccumulateDensities() {
+        DefaultDrawing drawing = new DefaultDrawing();
+        for (int i = 0; i < 10; i++) {
+            drawing.add(new CountingRectangleFigure(400 + i, 400, 1, 1));
+        }
+        DefaultLevelOfDetailPolicy policy = new DefaultLevelOfDetailPolicy();
+        policy.setThreshold(Figure.class, 2, DefaultLevelOfDetailPolicy.Representation.DENSITY);
+        drawing.setLevelOfDetailPolicy(policy);
+
+        BufferedImage img = drawScaled(drawing, 0.1);
+
+        assertThat(img.getRGB(41, 41) >>> 24).isEqualTo(255);
+        assertThat(img.getRGB(90, 90)).isZero();
+    }
+
+    @Test
+    @DisplayName("should skip details below the minimal detail size")
+    void shouldSkipSmallDetails() {
+        BufferedImage img = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            assertThat(LevelOfDetailPolicy.isDetailVisible(g, 1)).isTrue();
+            LevelOfDetailPolicy.Pass pass = new DefaultLevelOfDetailPolicy().begin(g);
+            assertThat(LevelOfDetailPolicy.isDetailVisible(g, 1)).isFalse();
+            assertThat(LevelOfDetailPolicy.isDetailVisible(g, 5)).isTrue();
+            pass.end();
+            assertThat(LevelOfDetailPolicy.isDetailVisible(g, 1)).isTrue();
+        } finally {
+            g.dispose();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.jhotdraw.draw;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.draw.figure.RectangleFigure;
+import org.junit.jupiter.api.Named;
+
+/**
+ * Fixtures for tests which run against every implementation of
+ * {@link Drawing}.
+ * <p>
+ * Usage:
+ * <pre>
+ * &#64;ParameterizedTest(name = "{0}")
+ * &#64;MethodSource(DrawingFixtures.DRAWINGS)
+ * void shouldDoSomething(Drawing drawing) { ... }
+ * </pre>
+ */
+public final class DrawingFixtures {
+
+    /**
+     * The method source which provides a new instance of every drawing
+     * implementation.
+     */
+    public static final String DRAWINGS = "org.jhotdraw.draw.DrawingFixtures#drawings";
+
+    private DrawingFixtures() {
+    }
+
+    static Stream<Named<Drawing>> drawings() {
+        return Stream.of(
+                Named.<Drawing>of("DefaultDrawing", new DefaultDrawing()),
+                Named.<Drawing>of("QuadTreeDrawing", new QuadTreeDrawing()));
+    }
+
+    /**
+     * Adds 5x5 rectangles in a row, 10 units apart.
+     */
+    public static List<Figure> fill(Drawing drawing, int count) {
+        return fill(drawing, count, i -> new RectangleFigure(i * 10, 0, 5, 5));
+    }
+
+    /**
+     * Adds the figures created by the factory for the indices 0 to count - 1.
+     */
+    public static List<Figure> fill(Drawing drawing, int count, IntFunction<Figure> factory) {
+        List<Figure> figures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Figure f = factory.apply(i);
+            figures.add(f);
+            drawing.add(f);
+        }
+        return figures;
+    }
+
+    /**
+     * Creates a view for the drawing, which is the active view of a new
+     * editor.
+     */
+    public static DefaultDrawingView createView(Drawing drawing) {
+        DefaultDrawingEditor editor = new DefaultDrawingEditor();
+        DefaultDrawingView view = new DefaultDrawingView();
+        view.setDrawing(drawing);
+        editor.add(view);
+        editor.setActiveView(view);
+        return view;
+    }
+}
@@ -0,0 +1,85 @@
+package org.jhotdraw.draw;
+
+import java.util.Arrays;
+import java.util.List;
+import org.jhotdraw.draw.event.FigureAdapter;
+import org.jhotdraw.draw.event.FigureEvent;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.draw.figure.RectangleFigure;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the bulk z-order operations of drawings.
+ */
+@DisplayName("Drawing z-order")
+class DrawingZOrderTest {
+
+    private static int[] countInvalidations(Drawing drawing) {
+        final int[] count = new int[1];
+        drawing.addFigureListener(new FigureAdapter() {
+            @Override
+            public void areaInvalidated(FigureEvent e) {
+                count[0]++;
+            }
+        });
+        return count;
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource(DrawingFixtures.DRAWINGS)
+    @DisplayName("should bring figures to front and send them to back in their relative order")
+    void shouldPreserveRelativeOrder(Drawing drawing) {
+        List<Figure> f = DrawingFixtures.fill(drawing, 6);
+        int[] invalidations = countInvalidations(drawing);
+
+        drawing.bringToFront(Arrays.asList(f.get(3), f.get(0), f.get(4)));
+        assertThat(drawing.getChildren()).containsExactly(f.get(1), f.get(2), f.get(5), f.get(0), f.get(3), f.get(4));
+        assertThat(invalidations[0]).isEqualTo(1);
+
+        drawing.sendToBack(Arrays.asList(f.get(5), f.get(2)));
+        assertThat(drawing.getChildren()).containsExactly(f.get(2), f.get(5), f.get(1), f.get(0), f.get(3), f.get(4));
+        assertThat(invalidations[0]).isEqualTo(2);
+
+        drawing.bringToFront(Arrays.asList(new RectangleFigure()));
+        assertThat(invalidations[0]).isEqualTo(2);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource(DrawingFixtures.DRAWINGS)
+    @DisplayName("should restore the original order with moveToIndex")
+    void shouldRestoreOrderWithMoveToIndex(Drawing drawing) {
+        List<Figure> f = DrawingFixtures.fill(drawing, 8);
+        List<Figure> moved = Arrays.asList(f.get(1), f.get(4), f.get(7));
+        int[] oldIndices = {1, 4, 7};
+
+        drawing.sendToBack(moved);
+        assertThat(drawing.getChildren()).startsWith(f.get(1), f.get(4), f.get(7));
+        drawing.moveToIndex(moved, oldIndices);
+        assertThat(drawing.getChildren()).containsExactlyElementsOf(f);
+
+        drawing.bringToFront(moved);
+        drawing.moveToIndex(moved, oldIndices);
+        assertThat(drawing.getChildren()).containsExactlyElementsOf(f);
+        assertThat(drawing.findFigure(new java.awt.geom.Point2D.Double(41, 1))).isSameAs(f.get(4));
+    }
+
+    @Test
+    @DisplayName("should reject illegal indices")
+    void shouldRejectIllegalIndices() {
+        Drawing drawing = new DefaultDrawing();
+        List<Figure> f = DrawingFixtures.fill(drawing, 3);
+        assertThatThrownBy(() -> drawing.moveToIndex(Arrays.asList(f.get(0), f.get(1)), new int[]{2, 2}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> drawing.moveToIndex(Arrays.asList(f.get(0)), new int[]{3}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> drawing.moveToIndex(Arrays.asList(new RectangleFigure()), new int[]{0}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(drawing.getChildren()).containsExactlyElementsOf(f);
+    }
+}
@@ -0,0 +1,83 @@
+package org.jhotdraw.draw;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the grid rendering of GridConstrainer.
+ *
+ * These tests verify that the grid drawn with a cached tile has the same
+ * pixels as the grid drawn line by line.
+ */
+@DisplayName("GridConstrainer.draw")
+class GridConstrainerTest {
+
+    private static BufferedImage render(GridConstrainer c, DrawingView view, boolean tiled, int deviceScale) {
+        BufferedImage img = new BufferedImage(300 * deviceScale, 200 * deviceScale, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.scale(deviceScale, deviceScale);
+            g.setClip(0, 0, 300, 200);
+            if (tiled) {
+                c.draw(g, view);
+            } else {
+                c.drawGridLines(g, view);
+            }
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    @ParameterizedTest(name = "grid {0}x{1} at scale {2} on a device with scale {3}")
+    @CsvSource({"8, 8, 1, 1", "8, 10, 2, 1", "10, 10, 0.5, 1", "8, 8, 0.25, 1", "5, 7, 1.5, 1", "8, 8, 0.3, 1",
+        "8, 8, 1, 2", "8, 10, 2, 2", "10, 10, 0.5, 2", "5, 7, 1.5, 3"})
+    @DisplayName("should draw the same grid with a tile as with lines")
+    void shouldDrawSameGridAsLines(double width, double height, double scale, int deviceScale) {
+        GridConstrainer c = new GridConstrainer(width, height);
+        DefaultDrawingView view = new DefaultDrawingView();
+        view.setDrawing(new DefaultDrawing());
+        view.setScaleFactor(scale);
+
+        BufferedImage expected = render(c, view, false, deviceScale);
+        // Draw twice to exercise the cached tile
+        render(c, view, true, deviceScale);
+        BufferedImage actual = render(c, view, true, deviceScale);
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertThat(actual.getRGB(x, y)).as("pixel %d,%d", x, y).isEqualTo(expected.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("should only use a tile if a major grid cell covers whole device pixels")
+    void shouldUseTileForWholePixels() {
+        GridConstrainer c = new GridConstrainer(8, 8);
+        DefaultDrawingView view = new DefaultDrawingView();
+        view.setDrawing(new DefaultDrawing());
+        BufferedImage img = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            assertThat(c.getGridPaint(g, view)).isNotNull();
+            assertThat(c.getGridPaint(g, view).getImage().getWidth()).isEqualTo(40);
+            view.setScaleFactor(1.01);
+            assertThat(c.getGridPaint(g, view)).isNull();
+            view.setScaleFactor(1);
+            g.scale(2, 2);
+            assertThat(c.getGridPaint(g, view)).isNotNull();
+            assertThat(c.getGridPaint(g, view).getImage().getWidth()).isEqualTo(80);
+            g.scale(0.75, 0.75);
+            assertThat(c.getGridPaint(g, view)).isNull();
+        } finally {
+            g.dispose();
+        }
+    }
+}
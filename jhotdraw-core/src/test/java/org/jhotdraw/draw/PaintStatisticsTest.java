@@ -0,0 +1,122 @@
+package org.jhotdraw.draw;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import org.jhotdraw.draw.figure.RectangleFigure;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PaintMetrics and PaintStatistics.
+ *
+ * These tests verify that drawing views and drawings report their paints,
+ * and that the statistics compute means and percentiles over a window.
+ */
+@DisplayName("PaintStatistics")
+class PaintStatisticsTest {
+
+    private static PaintMetrics createMetrics(long drawingMillis) {
+        PaintMetrics m = new PaintMetrics();
+        m.addPhaseNanos(PaintMetrics.Phase.DRAWING, drawingMillis * 1000000L);
+        m.addFigures(10, 5);
+        m.addDirtyArea(100);
+        return m;
+    }
+
+    @Test
+    @DisplayName("should compute percentiles over the window")
+    void shouldComputePercentiles() {
+        PaintStatistics stats = new PaintStatistics(100);
+        for (int i = 1; i <= 100; i++) {
+            stats.add(createMetrics(i));
+        }
+
+        assertThat(stats.getPaintCount()).isEqualTo(100);
+        assertThat(stats.getMedianPaintMillis()).isEqualTo(50.0);
+        assertThat(stats.get90thPercentilePaintMillis()).isEqualTo(90.0);
+        assertThat(stats.get99thPercentilePaintMillis()).isEqualTo(99.0);
+        assertThat(stats.getMaxPaintMillis()).isEqualTo(100.0);
+        assertThat(stats.getMeanDrawingMillis()).isEqualTo(50.5);
+        assertThat(stats.getFiguresVisited()).isEqualTo(1000);
+        assertThat(stats.getFiguresDrawn()).isEqualTo(500);
+        assertThat(stats.getMeanDirtyArea()).isEqualTo(100.0);
+    }
+
+    @Test
+    @DisplayName("should only keep the most recent paints in the window")
+    void shouldSlideWindow() {
+        PaintStatistics stats = new PaintStatistics(4);
+        for (int i = 1; i <= 10; i++) {
+            stats.add(createMetrics(i));
+        }
+
+        assertThat(stats.getPaintCount()).isEqualTo(10);
+        assertThat(stats.getLastPaintMillis()).isEqualTo(10.0);
+        assertThat(stats.getMeanPaintMillis()).isEqualTo(8.5);
+        assertThat(stats.getPercentilePaintMillis(0)).isEqualTo(7.0);
+
+        stats.reset();
+        assertThat(stats.getPaintCount()).isZero();
+        assertThat(stats.getMeanPaintMillis()).isZero();
+    }
+
+    @Test
+    @DisplayName("should count visited and drawn figures of a drawing")
+    void shouldCountFigures() {
+        DefaultDrawing drawing = new DefaultDrawing();
+        drawing.add(new RectangleFigure(10, 10, 10, 10));
+        drawing.add(new RectangleFigure(500, 500, 10, 10));
+        BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        PaintMetrics metrics = new PaintMetrics();
+        try {
+            g.setClip(0, 0, 100, 100);
+            g.setRenderingHint(PaintMetrics.KEY_PAINT_METRICS, metrics);
+            drawing.draw(g);
+        } finally {
+            g.dispose();
+        }
+
+        assertThat(metrics.getFiguresVisited()).isEqualTo(2);
+        assertThat(metrics.getFiguresDrawn()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should measure paints of a drawing view only while it has listeners")
+    void shouldMeasureViewPaints() {
+        DefaultDrawingView view = new DefaultDrawingView();
+        view.setDrawingDoubleBuffered(false);
+        view.setSize(100, 100);
+        QuadTreeDrawing drawing = new QuadTreeDrawing();
+        drawing.add(new RectangleFigure(10, 10, 10, 10));
+        view.setDrawing(drawing);
+        List<PaintMetrics> measured = new ArrayList<>();
+        BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+
+        paint(view, img);
+        assertThat(measured).isEmpty();
+
+        view.addPaintMetricsListener(e -> measured.add(e.getMetrics()));
+        paint(view, img);
+
+        assertThat(measured).hasSize(1);
+        PaintMetrics m = measured.get(0);
+        assertThat(m.getFiguresDrawn()).isEqualTo(1);
+        assertThat(m.getDirtyArea()).isEqualTo(100 * 100);
+        assertThat(m.getTotalNanos()).isPositive();
+    }
+
+    private static void paint(DefaultDrawingView view, BufferedImage img) {
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setClip(0, 0, 100, 100);
+            view.paintComponent(g);
+        } finally {
+            g.dispose();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.jhotdraw.draw.action;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.util.Collections;
+import org.jhotdraw.draw.AttributeKeys;
+import org.jhotdraw.draw.DefaultDrawing;
+import org.jhotdraw.draw.DefaultDrawingEditor;
+import org.jhotdraw.draw.DefaultDrawingView;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.event.TransformRestoreEdit;
+import org.jhotdraw.draw.figure.BezierFigure;
+import org.jhotdraw.geom.BezierPath;
+import org.jhotdraw.undo.UndoRedoManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for undoing the edits of AttributeAction, after their restore
+ * data has been spilled to disk by an UndoRedoManager.
+ */
+@DisplayName("AttributeAction")
+class AttributeActionTest {
+
+    private UndoRedoManager manager;
+    private Drawing drawing;
+    private DefaultDrawingView view;
+    private BezierFigure figure;
+
+    @BeforeEach
+    void setUp() {
+        manager = new UndoRedoManager();
+        manager.setMemoryBudget(1);
+        drawing = new DefaultDrawing();
+        drawing.addUndoableEditListener(manager);
+        figure = new BezierFigure();
+        figure.addNode(new BezierPath.Node(0, 0));
+        figure.addNode(new BezierPath.Node(100, 0));
+        figure.addNode(new BezierPath.Node(100, 100));
+        drawing.add(figure);
+        DefaultDrawingEditor editor = new DefaultDrawingEditor();
+        view = new DefaultDrawingView();
+        view.setDrawing(drawing);
+        editor.add(view);
+        editor.setActiveView(view);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.discardAllEdits();
+    }
+
+    @Test
+    @DisplayName("should restore attributes which are handled by the figure after spilling")
+    void shouldRestoreSpilledAttributes() {
+        AttributeAction action = new AttributeAction(view.getEditor(), AttributeKeys.PATH_CLOSED, true);
+        action.applyAttributesTo(Collections.singletonMap(AttributeKeys.PATH_CLOSED, (Object) true),
+                Collections.singleton(figure));
+        assertThat(figure.getBezierPath().isClosed()).isTrue();
+        assertThat(manager.getMemoryFootprint()).isZero();
+        assertThat(manager.getDiskFootprint()).isPositive();
+
+        manager.undo();
+        assertThat(figure.isClosed()).isFalse();
+        // BezierFigure only updates its path for the PATH_CLOSED instance
+        assertThat(figure.getBezierPath().isClosed()).isFalse();
+
+        manager.redo();
+        assertThat(figure.getBezierPath().isClosed()).isTrue();
+        manager.undo();
+        assertThat(figure.getBezierPath().isClosed()).isFalse();
+    }
+
+    @Test
+    @DisplayName("should restore a transformed path after spilling")
+    void shouldRestoreSpilledTransform() {
+        Object oldPath = figure.getTransformRestoreData();
+        figure.willChange();
+        figure.transform(AffineTransform.getScaleInstance(2, 2));
+        figure.changed();
+        drawing.fireUndoableEditHappened(new TransformRestoreEdit(figure, oldPath, figure.getTransformRestoreData()));
+        assertThat(manager.getMemoryFootprint()).isZero();
+        assertThat(manager.getDiskFootprint()).isPositive();
+
+        manager.undo();
+        assertThat(figure.getPoint(2)).isEqualTo(new Point2D.Double(100, 100));
+        manager.redo();
+        assertThat(figure.getPoint(2)).isEqualTo(new Point2D.Double(200, 200));
+    }
+}
@@ -0,0 +1,87 @@
+package org.jhotdraw.draw.action;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.jhotdraw.draw.DefaultDrawingView;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.DrawingFixtures;
+import org.jhotdraw.draw.event.CompositeFigureEvent;
+import org.jhotdraw.draw.event.CompositeFigureListener;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.draw.figure.GroupFigure;
+import org.jhotdraw.draw.figure.RectangleFigure;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for grouping and ungrouping figures with GroupAction.
+ */
+@DisplayName("GroupAction")
+class GroupActionTest {
+
+    private static int[] countEvents(Drawing drawing) {
+        final int[] count = new int[2];
+        drawing.addCompositeFigureListener(new CompositeFigureListener() {
+            @Override
+            public void figureAdded(CompositeFigureEvent e) {
+                count[0]++;
+            }
+
+            @Override
+            public void figureRemoved(CompositeFigureEvent e) {
+                count[1]++;
+            }
+        });
+        return count;
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource(DrawingFixtures.DRAWINGS)
+    @DisplayName("should group and ungroup figures with a single event")
+    void shouldGroupAndUngroup(Drawing drawing) {
+        List<Figure> f = DrawingFixtures.fill(drawing, 7);
+        DefaultDrawingView view = DrawingFixtures.createView(drawing);
+        GroupAction action = new GroupAction(view.getEditor());
+        int[] events = countEvents(drawing);
+
+        GroupFigure group = new GroupFigure();
+        action.groupFigures(view, group, Arrays.asList(f.get(5), f.get(2), f.get(3)));
+        assertThat(drawing.getChildren()).containsExactly(f.get(0), f.get(1), group, f.get(4), f.get(6));
+        assertThat(group.getChildren()).containsExactly(f.get(2), f.get(3), f.get(5));
+        assertThat(view.getSelectedFigures()).containsExactly(group);
+        assertThat(drawing.findFigure(new java.awt.geom.Point2D.Double(51, 1))).isSameAs(group);
+        assertThat(events).containsExactly(1, 0);
+
+        Collection<Figure> ungrouped = action.ungroupFigures(view, group);
+        assertThat(ungrouped).containsExactly(f.get(2), f.get(3), f.get(5));
+        assertThat(drawing.getChildren()).containsExactly(f.get(0), f.get(1), f.get(2), f.get(3), f.get(5), f.get(4), f.get(6));
+        assertThat(group.getChildCount()).isZero();
+        assertThat(view.getSelectedFigures()).containsExactlyInAnyOrderElementsOf(ungrouped);
+        assertThat(drawing.findFigure(new java.awt.geom.Point2D.Double(51, 1))).isSameAs(f.get(5));
+        assertThat(events).containsExactly(1, 1);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource(DrawingFixtures.DRAWINGS)
+    @DisplayName("should replace children in a single pass")
+    void shouldReplaceChildren(Drawing drawing) {
+        List<Figure> f = DrawingFixtures.fill(drawing, 5);
+        RectangleFigure a = new RectangleFigure(100, 0, 5, 5);
+        RectangleFigure b = new RectangleFigure(110, 0, 5, 5);
+
+        assertThat(drawing.basicReplace(Arrays.asList(f.get(3), f.get(1)), Arrays.asList(a, b))).isEqualTo(1);
+        assertThat(drawing.getChildren()).containsExactly(f.get(0), a, b, f.get(2), f.get(4));
+        assertThat(drawing.findFigure(new java.awt.geom.Point2D.Double(111, 1))).isSameAs(b);
+        assertThat(drawing.findFigure(new java.awt.geom.Point2D.Double(31, 1))).isNull();
+
+        drawing.basicRemoveAll(Arrays.asList(a, f.get(4)));
+        assertThat(drawing.getChildren()).containsExactly(f.get(0), b, f.get(2));
+        drawing.basicAddAll(1, Arrays.asList(f.get(1), f.get(3)));
+        assertThat(drawing.getChildren()).containsExactly(f.get(0), f.get(1), f.get(3), b, f.get(2));
+        assertThat(drawing.findFigure(new java.awt.geom.Point2D.Double(31, 1))).isSameAs(f.get(3));
+    }
+}
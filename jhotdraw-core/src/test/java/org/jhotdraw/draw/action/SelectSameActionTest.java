@@ -0,0 +1,113 @@
+package org.jhotdraw.draw.action;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import org.jhotdraw.draw.DefaultDrawingView;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.DrawingFixtures;
+import org.jhotdraw.draw.QuadTreeDrawing;
+import org.jhotdraw.draw.figure.EllipseFigure;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.draw.figure.RectangleFigure;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jhotdraw.draw.AttributeKeys.FILL_COLOR;
+import static org.jhotdraw.draw.AttributeKeys.STROKE_COLOR;
+
+/**
+ * Unit tests for selecting figures of the same class or with the same
+ * attributes.
+ */
+@DisplayName("SelectSameAction")
+class SelectSameActionTest {
+
+    /**
+     * Adds rectangles and ellipses in alternating order. Every third figure
+     * is filled red.
+     */
+    private static List<Figure> fill(Drawing drawing, int count) {
+        return DrawingFixtures.fill(drawing, count, i -> {
+            Figure f = (i % 2 == 0) ? new RectangleFigure(i * 10, 0, 5, 5) : new EllipseFigure(i * 10, 0, 5, 5);
+            if (i % 3 == 0) {
+                f.set(FILL_COLOR, Color.red);
+            }
+            return f;
+        });
+    }
+
+    private static List<Figure> every(List<Figure> figures, int step, int offset) {
+        List<Figure> result = new ArrayList<>();
+        for (int i = offset; i < figures.size(); i += step) {
+            result.add(figures.get(i));
+        }
+        return result;
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource(DrawingFixtures.DRAWINGS)
+    @DisplayName("should select figures of the same class with a single event")
+    void shouldSelectSameClass(Drawing drawing) {
+        List<Figure> f = fill(drawing, 20);
+        DefaultDrawingView view = DrawingFixtures.createView(drawing);
+        view.addToSelection(f.get(3));
+        final int[] events = new int[1];
+        view.addFigureSelectionListener(evt -> events[0]++);
+
+        new SelectSameAction(view.getEditor()).selectSame();
+        assertThat(view.getSelectedFigures()).containsExactlyInAnyOrderElementsOf(every(f, 2, 1));
+        assertThat(events[0]).isEqualTo(1);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource(DrawingFixtures.DRAWINGS)
+    @DisplayName("should select figures with the same fill after edits")
+    void shouldSelectSameFill(Drawing drawing) {
+        List<Figure> f = fill(drawing, 20);
+        DefaultDrawingView view = DrawingFixtures.createView(drawing);
+        SelectSameAttributeAction action = new SelectSameAttributeAction(view.getEditor(), SelectSameAttributeAction.FILL_ID);
+
+        view.addToSelection(f.get(0));
+        action.actionPerformed(null);
+        assertThat(view.getSelectedFigures()).containsExactlyInAnyOrderElementsOf(every(f, 3, 0));
+
+        // Change the fill, restore attributes and remove a figure
+        f.get(1).willChange();
+        f.get(1).set(FILL_COLOR, Color.red);
+        f.get(1).changed();
+        Object restoreData = f.get(3).getAttributesRestoreData();
+        f.get(3).willChange();
+        f.get(3).set(FILL_COLOR, Color.blue);
+        f.get(3).changed();
+        f.get(3).willChange();
+        f.get(3).restoreAttributesTo(restoreData);
+        f.get(3).changed();
+        drawing.remove(f.get(6));
+
+        view.clearSelection();
+        view.addToSelection(f.get(0));
+        action.actionPerformed(null);
+        List<Figure> expected = every(f, 3, 0);
+        expected.remove(f.get(6));
+        expected.add(f.get(1));
+        assertThat(view.getSelectedFigures()).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(drawing.findFiguresByAttribute(FILL_COLOR, Color.blue)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should select figures with the same stroke")
+    void shouldSelectSameStroke() {
+        Drawing drawing = new QuadTreeDrawing();
+        List<Figure> f = fill(drawing, 10);
+        f.get(4).set(STROKE_COLOR, Color.green);
+        f.get(7).set(STROKE_COLOR, Color.green);
+        DefaultDrawingView view = DrawingFixtures.createView(drawing);
+        view.addToSelection(f.get(4));
+        new SelectSameAttributeAction(view.getEditor(), SelectSameAttributeAction.STROKE_ID).actionPerformed(null);
+        assertThat(view.getSelectedFigures()).containsExactlyInAnyOrder(f.get(4), f.get(7));
+    }
+}
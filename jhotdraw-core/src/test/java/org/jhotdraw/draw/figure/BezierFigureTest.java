@@ -0,0 +1,77 @@
+package org.jhotdraw.draw.figure;
+
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import org.jhotdraw.draw.AttributeKeys;
+import org.jhotdraw.geom.BezierPath;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the hit test of BezierFigure.
+ *
+ * These tests verify that the cached hit geometry follows changes of the
+ * path and of the stroke attributes.
+ */
+@DisplayName("BezierFigure.contains")
+class BezierFigureTest {
+
+    private static BezierFigure createLine() {
+        BezierFigure figure = new BezierFigure();
+        BezierPath path = new BezierPath();
+        path.add(new Point2D.Double(10, 10));
+        path.add(new Point2D.Double(110, 10));
+        figure.setBezierPath(path);
+        return figure;
+    }
+
+    @Test
+    @DisplayName("should hit the outline of an open path")
+    void shouldHitOutlineOfOpenPath() {
+        BezierFigure figure = createLine();
+
+        assertThat(figure.contains(new Point2D.Double(60, 11))).isTrue();
+        assertThat(figure.contains(new Point2D.Double(60, 40))).isFalse();
+        assertThat(figure.contains(new Point2D.Double(500, 10))).isFalse();
+    }
+
+    @Test
+    @DisplayName("should follow transforms of the path")
+    void shouldFollowTransform() {
+        BezierFigure figure = createLine();
+        assertThat(figure.contains(new Point2D.Double(60, 10))).isTrue();
+
+        figure.willChange();
+        figure.transform(AffineTransform.getTranslateInstance(0, 100));
+        figure.changed();
+
+        assertThat(figure.contains(new Point2D.Double(60, 10))).isFalse();
+        assertThat(figure.contains(new Point2D.Double(60, 110))).isTrue();
+    }
+
+    @Test
+    @DisplayName("should follow changes of the stroke width")
+    void shouldFollowStrokeWidth() {
+        BezierFigure figure = createLine();
+        assertThat(figure.contains(new Point2D.Double(60, 18))).isFalse();
+
+        figure.set(AttributeKeys.STROKE_WIDTH, 20d);
+
+        assertThat(figure.contains(new Point2D.Double(60, 18))).isTrue();
+    }
+
+    @Test
+    @DisplayName("should hit the interior of a closed path")
+    void shouldHitInteriorOfClosedPath() {
+        BezierFigure figure = createLine();
+        figure.addNode(new BezierPath.Node(110, 110));
+        figure.setClosed(true);
+        figure.set(AttributeKeys.FILL_COLOR, Color.RED);
+
+        assertThat(figure.contains(new Point2D.Double(100, 50))).isTrue();
+        assertThat(figure.contains(new Point2D.Double(20, 100))).isFalse();
+    }
+}
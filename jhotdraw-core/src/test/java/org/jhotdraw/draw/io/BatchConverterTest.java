@@ -0,0 +1,114 @@
+package org.jhotdraw.draw.io;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.jhotdraw.draw.DefaultDrawing;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.figure.EllipseFigure;
+import org.jhotdraw.draw.figure.ImageFigure;
+import org.jhotdraw.draw.figure.RectangleFigure;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for BatchConverter and for the reuse of image buffers in
+ * ImageOutputFormat.
+ */
+@DisplayName("BatchConverter")
+class BatchConverterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static File writeImage(File dir, String name, int width, int height) throws IOException {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width / 2, height / 2);
+        g.dispose();
+        File file = new File(dir, name);
+        ImageIO.write(img, "png", file);
+        return file;
+    }
+
+    private static byte[] write(ImageOutputFormat format, Drawing drawing) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        format.write(out, drawing);
+        return out.toByteArray();
+    }
+
+    private static Drawing createDrawing(int size) {
+        Drawing drawing = new DefaultDrawing();
+        drawing.add(new RectangleFigure(0, 0, size, size / 2));
+        drawing.add(new EllipseFigure(size / 4, size / 4, size / 2, size / 3));
+        return drawing;
+    }
+
+    @Test
+    @DisplayName("should convert all files and report statistics")
+    void shouldConvertFiles() throws Exception {
+        File in = Files.createDirectory(tempDir.resolve("in")).toFile();
+        File out = Files.createDirectory(tempDir.resolve("out")).toFile();
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            files.add(writeImage(in, "image" + i + ".png", 10 + i * 7, 20 + i));
+        }
+        files.add(new File(in, "unknown.xyz"));
+
+        BatchConverter converter = new BatchConverter(DefaultDrawing::new, ImageOutputFormat::new);
+        converter.addInputFormat("PNG", () -> new ImageInputFormat(new ImageFigure()));
+        converter.setThreadCount(3);
+        converter.setMaxDrawingsInFlight(2);
+        BatchConverter.Statistics statistics = converter.convert(files, out);
+
+        assertThat(statistics.getConvertedCount()).isEqualTo(12);
+        assertThat(statistics.getFailures()).containsOnlyKeys(new File(in, "unknown.xyz"));
+        assertThat(statistics.getInputBytes()).isPositive();
+        assertThat(statistics.getOutputBytes()).isPositive();
+        assertThat(statistics.toString()).contains("converted 12 files");
+        for (int i = 0; i < 12; i++) {
+            // The image includes the drawing area of the image figure
+            BufferedImage img = ImageIO.read(new File(out, "image" + i + ".png"));
+            assertThat(img.getWidth()).isBetween(10 + i * 7, 12 + i * 7);
+            assertThat(img.getHeight()).isBetween(20 + i, 22 + i);
+        }
+    }
+
+    @Test
+    @DisplayName("should write the same images with reused image buffers")
+    void shouldWriteSameImagesWithReusedBuffers() throws IOException {
+        ImageOutputFormat reusing = new ImageOutputFormat();
+        reusing.setReuseImageBuffers(true);
+        ImageOutputFormat plain = new ImageOutputFormat();
+        ImageOutputFormat jpeg = new ImageOutputFormat("JPEG", "JPEG", "jpg", BufferedImage.TYPE_INT_RGB);
+        jpeg.setReuseImageBuffers(true);
+        for (int size : new int[]{80, 40, 120, 30, 120}) {
+            Drawing drawing = createDrawing(size);
+            BufferedImage expected = ImageIO.read(new ByteArrayInputStream(write(plain, drawing)));
+            BufferedImage actual = ImageIO.read(new ByteArrayInputStream(write(reusing, drawing)));
+            assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+            assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    assertThat(actual.getRGB(x, y)).as("pixel %d,%d of size %d", x, y, size)
+                            .isEqualTo(expected.getRGB(x, y));
+                }
+            }
+            BufferedImage converted = ImageIO.read(new ByteArrayInputStream(write(jpeg, drawing)));
+            assertThat(converted.getWidth()).isEqualTo(expected.getWidth());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.jhotdraw.draw.layouter;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import org.jhotdraw.draw.figure.CompositeFigure;
+import org.jhotdraw.draw.figure.ListFigure;
+import org.jhotdraw.draw.figure.RectangleFigure;
+import org.jhotdraw.geom.Dimension2DDouble;
+import org.jhotdraw.geom.Insets2D;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the incremental layout of a ListFigure with a
+ * HorizontalLayouter.
+ */
+@DisplayName("HorizontalLayouter")
+class HorizontalLayouterTest {
+
+    /**
+     * A column with a settable preferred size, which counts how often it is
+     * measured and placed.
+     */
+    private static class Column extends RectangleFigure {
+
+        private static final long serialVersionUID = 1L;
+        double preferredWidth;
+        double preferredHeight = 20;
+        int measureCount;
+        int placeCount;
+
+        Column(double preferredWidth) {
+            this.preferredWidth = preferredWidth;
+        }
+
+        @Override
+        public Dimension2DDouble getPreferredSize() {
+            measureCount++;
+            return new Dimension2DDouble(preferredWidth, preferredHeight);
+        }
+
+        @Override
+        public void setBounds(Point2D.Double anchor, Point2D.Double lead) {
+            placeCount++;
+            super.setBounds(anchor, lead);
+        }
+
+        void setPreferredSize(double width, double height) {
+            willChange();
+            preferredWidth = width;
+            preferredHeight = height;
+            changed();
+        }
+    }
+
+    private static ListFigure createList() {
+        ListFigure list = new ListFigure();
+        list.setLayouter(new HorizontalLayouter());
+        return list;
+    }
+
+    private static List<Column> fill(ListFigure list, int count) {
+        List<Column> columns = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Column column = new Column(10 + i % 7);
+            columns.add(column);
+            list.add(column);
+        }
+        list.layout();
+        for (Column column : columns) {
+            column.measureCount = column.placeCount = 0;
+        }
+        return columns;
+    }
+
+    /**
+     * Asserts that the columns have the same bounds as after laying out a
+     * new list with columns of the same sizes.
+     */
+    private static void assertLaidOutFromScratch(ListFigure list) {
+        ListFigure expected = createList();
+        for (int i = 0; i < list.getChildCount(); i++) {
+            Column column = (Column) list.getChild(i);
+            Column copy = new Column(column.preferredWidth);
+            copy.preferredHeight = column.preferredHeight;
+            expected.add(copy);
+        }
+        expected.layout();
+        for (int i = 0; i < list.getChildCount(); i++) {
+            assertThat(list.getChild(i).getBounds()).isEqualTo(expected.getChild(i).getBounds());
+        }
+        assertThat(list.getBounds()).isEqualTo(expected.getBounds());
+    }
+
+    @Test
+    @DisplayName("should measure only the changed column and place the columns right of it")
+    void shouldRelayoutFromChangedColumn() {
+        ListFigure list = createList();
+        List<Column> columns = fill(list, 200);
+
+        columns.get(80).setPreferredSize(40, 20);
+        for (int i = 0; i < columns.size(); i++) {
+            assertThat(columns.get(i).measureCount).isEqualTo(i == 80 ? 1 : 0);
+            assertThat(columns.get(i).placeCount).isEqualTo(i < 80 ? 0 : 1);
+        }
+        assertLaidOutFromScratch(list);
+    }
+
+    @Test
+    @DisplayName("should place all columns but measure only the changed one if the height changes")
+    void shouldPlaceAllColumnsIfHeightChanges() {
+        ListFigure list = createList();
+        List<Column> columns = fill(list, 200);
+
+        columns.get(120).setPreferredSize(columns.get(120).preferredWidth, 35);
+        for (int i = 0; i < columns.size(); i++) {
+            assertThat(columns.get(i).measureCount).isEqualTo(i == 120 ? 1 : 0);
+            assertThat(columns.get(i).placeCount).isEqualTo(1);
+        }
+        assertLaidOutFromScratch(list);
+    }
+
+    @Test
+    @DisplayName("should measure each column once at the end of a change of the list")
+    void shouldCoalesceLayoutUntilChanged() {
+        ListFigure list = createList();
+        List<Column> columns = fill(list, 200);
+
+        list.willChange();
+        columns.get(30).setPreferredSize(5, 20);
+        columns.get(170).setPreferredSize(25, 20);
+        assertThat(columns.get(199).placeCount).isZero();
+        list.changed();
+        // Every column fires a figureChanged event at the end of the change
+        // of the list, but no column is measured or placed more than once
+        for (int i = 0; i < columns.size(); i++) {
+            assertThat(columns.get(i).measureCount).isEqualTo(1);
+            assertThat(columns.get(i).placeCount).isEqualTo(1);
+        }
+        assertLaidOutFromScratch(list);
+    }
+
+    @Test
+    @DisplayName("should measure a column again which is changed directly during a change of the list")
+    void shouldRelayoutColumnChangedWithoutEvents() {
+        ListFigure list = createList();
+        list.set(CompositeFigure.LAYOUT_INSETS, new Insets2D.Double());
+        RectangleFigure c1 = new RectangleFigure(0, 0, 10, 10);
+        RectangleFigure c2 = new RectangleFigure(10, 0, 10, 10);
+        list.add(c1);
+        list.add(c2);
+        list.layout();
+
+        list.willChange();
+        c1.setBounds(new Point2D.Double(0, 0), new Point2D.Double(50, 50));
+        list.changed();
+        assertThat(c2.getBounds().x).isEqualTo(50);
+        assertThat(list.getBounds().width).isEqualTo(60);
+        assertThat(list.getBounds().height).isEqualTo(50);
+    }
+}
@@ -0,0 +1,169 @@
+package org.jhotdraw.draw.layouter;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import org.jhotdraw.draw.figure.CompositeFigure;
+import org.jhotdraw.draw.figure.ListFigure;
+import org.jhotdraw.draw.figure.RectangleFigure;
+import org.jhotdraw.geom.Dimension2DDouble;
+import org.jhotdraw.geom.Insets2D;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the incremental layout of a ListFigure with a
+ * VerticalLayouter.
+ */
+@DisplayName("VerticalLayouter")
+class VerticalLayouterTest {
+
+    /**
+     * A row with a settable preferred height, which counts how often it is
+     * measured and placed.
+     */
+    private static class Row extends RectangleFigure {
+
+        private static final long serialVersionUID = 1L;
+        double preferredHeight;
+        int measureCount;
+        int placeCount;
+
+        Row(double preferredHeight) {
+            this.preferredHeight = preferredHeight;
+        }
+
+        @Override
+        public Dimension2DDouble getPreferredSize() {
+            measureCount++;
+            return new Dimension2DDouble(20, preferredHeight);
+        }
+
+        @Override
+        public void setBounds(Point2D.Double anchor, Point2D.Double lead) {
+            placeCount++;
+            super.setBounds(anchor, lead);
+        }
+
+        void setPreferredHeight(double newValue) {
+            willChange();
+            preferredHeight = newValue;
+            changed();
+        }
+    }
+
+    private static List<Row> fill(ListFigure list, int count) {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Row row = new Row(10 + i % 7);
+            rows.add(row);
+            list.add(row);
+        }
+        list.layout();
+        for (Row row : rows) {
+            row.measureCount = row.placeCount = 0;
+        }
+        return rows;
+    }
+
+    /**
+     * Asserts that the rows have the same bounds as after laying out a new
+     * list with rows of the same heights.
+     */
+    private static void assertLaidOutFromScratch(ListFigure list) {
+        ListFigure expected = new ListFigure();
+        for (int i = 0; i < list.getChildCount(); i++) {
+            expected.add(new Row(((Row) list.getChild(i)).preferredHeight));
+        }
+        expected.layout();
+        for (int i = 0; i < list.getChildCount(); i++) {
+            assertThat(list.getChild(i).getBounds()).isEqualTo(expected.getChild(i).getBounds());
+        }
+        assertThat(list.getBounds()).isEqualTo(expected.getBounds());
+    }
+
+    @Test
+    @DisplayName("should measure only the changed row and place the rows below it")
+    void shouldRelayoutFromChangedRow() {
+        ListFigure list = new ListFigure();
+        List<Row> rows = fill(list, 200);
+
+        rows.get(50).setPreferredHeight(40);
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(rows.get(i).measureCount).isEqualTo(i == 50 ? 1 : 0);
+            assertThat(rows.get(i).placeCount).isEqualTo(i < 50 ? 0 : 1);
+        }
+        assertLaidOutFromScratch(list);
+    }
+
+    @Test
+    @DisplayName("should not move rows if the height of a row is unchanged")
+    void shouldPlaceOnlyChangedRow() {
+        ListFigure list = new ListFigure();
+        List<Row> rows = fill(list, 200);
+
+        rows.get(10).setPreferredHeight(rows.get(10).preferredHeight);
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(rows.get(i).placeCount).isEqualTo(i == 10 ? 1 : 0);
+        }
+        assertLaidOutFromScratch(list);
+    }
+
+    @Test
+    @DisplayName("should lay out changes at the end of a change of the list")
+    void shouldCoalesceLayoutUntilChanged() {
+        ListFigure list = new ListFigure();
+        List<Row> rows = fill(list, 200);
+
+        list.willChange();
+        rows.get(5).setPreferredHeight(30);
+        rows.get(150).setPreferredHeight(5);
+        assertThat(rows.get(199).placeCount).isZero();
+        list.changed();
+        // Every row fires a figureChanged event at the end of the change of
+        // the list, but no row is measured or placed more than once
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(rows.get(i).measureCount).isEqualTo(1);
+            assertThat(rows.get(i).placeCount).isEqualTo(1);
+        }
+        assertLaidOutFromScratch(list);
+    }
+
+    @Test
+    @DisplayName("should measure a row again which is changed directly during a change of the list")
+    void shouldRelayoutRowChangedWithoutEvents() {
+        ListFigure list = new ListFigure();
+        list.set(CompositeFigure.LAYOUT_INSETS, new Insets2D.Double());
+        RectangleFigure r1 = new RectangleFigure(0, 0, 10, 10);
+        RectangleFigure r2 = new RectangleFigure(0, 10, 10, 10);
+        list.add(r1);
+        list.add(r2);
+        list.layout();
+
+        list.willChange();
+        r1.setBounds(new Point2D.Double(0, 0), new Point2D.Double(50, 50));
+        list.changed();
+        assertThat(r2.getBounds().y).isEqualTo(50);
+        assertThat(list.getBounds().width).isEqualTo(50);
+        assertThat(list.getBounds().height).isEqualTo(60);
+    }
+
+    @Test
+    @DisplayName("should lay out rows after inserting and removing rows")
+    void shouldRelayoutAfterStructuralChanges() {
+        ListFigure list = new ListFigure();
+        List<Row> rows = fill(list, 100);
+
+        list.remove(rows.get(20));
+        list.add(60, new Row(25));
+        list.willChange();
+        list.changed();
+        assertLaidOutFromScratch(list);
+
+        list.removeAllChildren();
+        list.layout();
+        assertThat(list.getChildCount()).isZero();
+    }
+}
@@ -0,0 +1,210 @@
+package org.jhotdraw.draw.print;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+import java.awt.print.Printable;
+import org.jhotdraw.draw.AttributeKeys;
+import org.jhotdraw.draw.DefaultDrawing;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.QuadTreeDrawing;
+import org.jhotdraw.draw.figure.RectangleFigure;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the page layout and the clipped rendering of
+ * DrawingPageable.
+ */
+@DisplayName("DrawingPageable")
+class DrawingPageableTest {
+
+    /**
+     * Counts how often it is drawn.
+     */
+    private static class CountingFigure extends RectangleFigure {
+
+        private static final long serialVersionUID = 1L;
+        int drawCount;
+
+        CountingFigure(double x, double y, double width, double height) {
+            super(x, y, width, height);
+        }
+
+        @Override
+        public void draw(Graphics2D g) {
+            drawCount++;
+            super.draw(g);
+        }
+    }
+
+    private static PageFormat createPageFormat(double size) {
+        Paper paper = new Paper();
+        paper.setSize(size, size);
+        paper.setImageableArea(0, 0, size, size);
+        PageFormat pf = new PageFormat();
+        pf.setPaper(paper);
+        return pf;
+    }
+
+    private static void print(DrawingPageable pageable, int pageIndex) throws Exception {
+        print(pageable, pageIndex, null);
+    }
+
+    /**
+     * Prints a page with the specified clip, like a printer job which
+     * renders the page in bands.
+     */
+    private static void print(DrawingPageable pageable, int pageIndex, Rectangle clip) throws Exception {
+        BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            if (clip != null) {
+                g.setClip(clip);
+            }
+            assertThat(pageable.getPrintable(pageIndex).print(g, pageable.getPageFormat(pageIndex), pageIndex))
+                    .isEqualTo(Printable.PAGE_EXISTS);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    @Test
+    @DisplayName("should print the drawing on one page by default")
+    void shouldFitOnOnePageByDefault() {
+        Drawing drawing = new DefaultDrawing();
+        drawing.add(new RectangleFigure(0, 0, 2000, 1000));
+        DrawingPageable pageable = new DrawingPageable(drawing);
+        assertThat(pageable.getNumberOfPages()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should tile the drawing onto pages with overlap")
+    void shouldTilePages() {
+        Drawing drawing = new DefaultDrawing();
+        drawing.add(new RectangleFigure(0, 0, 250, 150));
+        DrawingPageable pageable = new DrawingPageable(drawing);
+        pageable.setPageFormat(createPageFormat(100));
+        pageable.setScale(1);
+        assertThat(pageable.getNumberOfPages()).isEqualTo(6);
+        assertThat(pageable.getPageBounds(1).x - pageable.getPageBounds(0).x).isEqualTo(100);
+
+        pageable.setOverlap(50);
+        assertThat(pageable.getNumberOfPages()).isEqualTo(15);
+        assertThat(pageable.getPageBounds(1).x - pageable.getPageBounds(0).x).isEqualTo(50);
+
+        pageable.setOverlap(0);
+        pageable.setScale(2);
+        assertThat(pageable.getNumberOfPages()).isEqualTo(24);
+    }
+
+    @Test
+    @DisplayName("should only draw the figures of a page")
+    void shouldOnlyDrawFiguresOfPage() throws Exception {
+        for (Drawing drawing : new Drawing[]{new DefaultDrawing(), new QuadTreeDrawing()}) {
+            CountingFigure left = new CountingFigure(20, 20, 10, 10);
+            CountingFigure right = new CountingFigure(220, 20, 10, 10);
+            CountingFigure wide = new CountingFigure(20, 50, 210, 10);
+            drawing.add(left);
+            drawing.add(right);
+            drawing.add(wide);
+            DrawingPageable pageable = new DrawingPageable(drawing);
+            pageable.setPageFormat(createPageFormat(100));
+            pageable.setScale(1);
+            assertThat(pageable.getNumberOfPages()).isEqualTo(3);
+
+            print(pageable, 0);
+            assertThat(left.drawCount).isEqualTo(1);
+            assertThat(right.drawCount).isEqualTo(0);
+            assertThat(wide.drawCount).isEqualTo(1);
+
+            print(pageable, 2);
+            assertThat(left.drawCount).isEqualTo(1);
+            assertThat(right.drawCount).isEqualTo(1);
+            assertThat(wide.drawCount).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("should draw figures whose stroke extends into a page")
+    void shouldDrawFiguresWithWideStroke() throws Exception {
+        for (Drawing drawing : new Drawing[]{new DefaultDrawing(), new QuadTreeDrawing()}) {
+            CountingFigure left = new CountingFigure(0, 0, 10, 10);
+            CountingFigure wide = new CountingFigure(130, 20, 10, 10);
+            wide.set(AttributeKeys.STROKE_WIDTH, 80d);
+            drawing.add(left);
+            drawing.add(wide);
+            DrawingPageable pageable = new DrawingPageable(drawing);
+            pageable.setPageFormat(createPageFormat(100));
+            pageable.setScale(1);
+
+            print(pageable, 0);
+            assertThat(left.drawCount).isEqualTo(1);
+            assertThat(wide.drawCount).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("should draw each figure once per page")
+    void shouldDrawFiguresOncePerPage() throws Exception {
+        Drawing drawing = new QuadTreeDrawing();
+        CountingFigure tall = new CountingFigure(50, 0, 10, 100);
+        drawing.add(tall);
+        DrawingPageable pageable = new DrawingPageable(drawing);
+        pageable.setPageFormat(createPageFormat(101));
+        pageable.setScale(1);
+
+        print(pageable, 0);
+        assertThat(tall.drawCount).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should only draw the figures within the clip")
+    void shouldOnlyDrawFiguresOfClip() throws Exception {
+        Drawing drawing = new QuadTreeDrawing();
+        CountingFigure small = new CountingFigure(10, 10, 10, 10);
+        CountingFigure tall = new CountingFigure(50, 0, 10, 100);
+        drawing.add(small);
+        drawing.add(tall);
+        DrawingPageable pageable = new DrawingPageable(drawing);
+        pageable.setPageFormat(createPageFormat(101));
+        pageable.setScale(1);
+
+        for (int y = 0; y < 101; y += 25) {
+            print(pageable, 0, new Rectangle(0, y, 101, 25));
+        }
+        assertThat(small.drawCount).isEqualTo(1);
+        assertThat(tall.drawCount).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("should lay out the pages for the page format of the printer job")
+    void shouldUsePageFormatOfPrinterJob() throws Exception {
+        Drawing drawing = new DefaultDrawing();
+        CountingFigure left = new CountingFigure(0, 0, 10, 10);
+        CountingFigure right = new CountingFigure(150, 0, 10, 10);
+        drawing.add(left);
+        drawing.add(right);
+        DrawingPageable pageable = new DrawingPageable(drawing);
+        pageable.setPageFormat(createPageFormat(100));
+        pageable.setScale(1);
+        assertThat(pageable.getNumberOfPages()).isEqualTo(2);
+
+        BufferedImage img = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            Printable printable = pageable.getPrintable(0);
+            assertThat(printable.print(g, createPageFormat(200), 0)).isEqualTo(Printable.PAGE_EXISTS);
+            assertThat(printable.print(g, createPageFormat(200), 1)).isEqualTo(Printable.NO_SUCH_PAGE);
+        } finally {
+            g.dispose();
+        }
+        assertThat(left.drawCount).isEqualTo(1);
+        assertThat(right.drawCount).isEqualTo(1);
+        assertThat(pageable.getNumberOfPages()).isEqualTo(2);
+    }
+}
@@ -14,15 +14,40 @@ import java.awt.color.ColorSpace;
 import java.awt.geom.Point2D;
 import java.awt.image.ColorModel;
 import java.awt.image.MemoryImageSource;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * AbstractColorWheelImageProducer.
+ * <p>
+ * Subclasses compute the color components of each pixel once in lookup
+ * tables, and then convert them into RGB with {@link #generatePixels}
+ * whenever the vertical value changes. The conversion is performed in
+ * parallel in bands of rows. Color spaces whose conversion is expensive are
+ * converted with a cached {@code RGBLookupTable}. Recently generated wheels
+ * are kept in a least recently used cache, which is shared by all
+ * producers, and is keyed by {@link #getCacheKey}.
  *
  * @author Werner Randelshofer
  * @version $Id$
  */
 public abstract class AbstractColorWheelImageProducer extends MemoryImageSource {
 
+    /**
+     * The number of pixel rows which are converted by one task.
+     */
+    private static final int BAND_HEIGHT = 16;
+    /**
+     * The maximal number of pixels of all wheels in the cache.
+     */
+    private static final int MAX_CACHED_PIXELS = 1 << 21;
+    private static final LinkedHashMap<List<Object>, int[]> wheelCache = new LinkedHashMap<List<Object>, int[]>(16, 0.75f, true);
+    private static int cachedPixels;
+
     protected int[] pixels;
     protected int w, h;
     protected ColorSpace colorSpace;
@@ -83,6 +108,85 @@ public abstract class AbstractColorWheelImageProducer extends MemoryImageSource
 
     protected abstract void generateColorWheel();
 
+    /**
+     * Returns the key under which the pixels of this producer are cached.
+     * The key must contain all values which affect the pixels. Subclasses
+     * with additional state must add it to the key, or return null if
+     * their pixels must not be cached.
+     */
+    protected List<Object> getCacheKey() {
+        return Arrays.<Object>asList(getClass(), colorSpace, w, h,
+                angularIndex, radialIndex, verticalIndex, verticalValue);
+    }
+
+    /**
+     * Converts the components of all pixels into RGB values, and stores them
+     * in {@code pixels}. The pixels are taken from the cache, if possible.
+     *
+     * @param angulars The angular component values of the pixels.
+     * @param radials The radial component values of the pixels.
+     * @param alphas The alpha values of the pixels. Pixels with alpha 0 are
+     * not converted.
+     * @param isOutOfGamutTransparent Whether colors which can not be
+     * displayed in RGB are transparent, or opaque black.
+     */
+    protected void generatePixels(final float[] angulars, final float[] radials, final int[] alphas,
+            final boolean isOutOfGamutTransparent) {
+        List<Object> key = getCacheKey();
+        if (key != null) {
+            synchronized (wheelCache) {
+                int[] cached = wheelCache.get(key);
+                if (cached != null && cached.length == pixels.length) {
+                    System.arraycopy(cached, 0, pixels, 0, pixels.length);
+                    return;
+                }
+            }
+        }
+        final RGBLookupTable lookupTable = (RGBLookupTable.isExpensive(colorSpace)
+                && angularIndex + radialIndex + verticalIndex == 3
+                && angularIndex * radialIndex * verticalIndex == 0
+                && Math.max(angularIndex, Math.max(radialIndex, verticalIndex)) == 2)
+                ? RGBLookupTable.getInstance(colorSpace) : null;
+        // Only named color spaces are known to be stateless, conversions
+        // with other color spaces are synchronized on the color space
+        final boolean isSynchronized = !(colorSpace instanceof NamedColorSpace) && !colorSpace.isCS_sRGB();
+        IntStream.range(0, (h + BAND_HEIGHT - 1) / BAND_HEIGHT).parallel().forEach(band -> {
+            float[] components = new float[colorSpace.getNumComponents()];
+            float[] rgb = new float[3];
+            for (int index = band * BAND_HEIGHT * w, end = Math.min(h, (band + 1) * BAND_HEIGHT) * w; index < end; index++) {
+                if (alphas[index] != 0) {
+                    components[angularIndex] = angulars[index];
+                    components[radialIndex] = radials[index];
+                    components[verticalIndex] = verticalValue;
+                    int rgb24;
+                    if (lookupTable != null && lookupTable.isInterpolable(components[0], components[1], components[2])) {
+                        rgb24 = lookupTable.toRGB24(components[0], components[1], components[2]);
+                    } else if (isSynchronized) {
+                        synchronized (colorSpace) {
+                            rgb24 = ColorUtil.CStoRGB24(colorSpace, components, rgb);
+                        }
+                    } else {
+                        rgb24 = ColorUtil.CStoRGB24(colorSpace, components, rgb);
+                    }
+                    pixels[index] = isOutOfGamutTransparent
+                            ? (alphas[index] | 0xffffff) & rgb24
+                            : alphas[index] | 0xffffff & rgb24;
+                }
+            }
+        });
+        if (key != null && pixels.length <= MAX_CACHED_PIXELS / 4) {
+            synchronized (wheelCache) {
+                int[] old = wheelCache.put(key, pixels.clone());
+                cachedPixels += pixels.length - (old == null ? 0 : old.length);
+                for (Iterator<Map.Entry<List<Object>, int[]>> i = wheelCache.entrySet().iterator();
+                        cachedPixels > MAX_CACHED_PIXELS && i.hasNext();) {
+                    cachedPixels -= i.next().getValue().length;
+                    i.remove();
+                }
+            }
+        }
+    }
+
     public Point getColorLocation(Color c) {
         float[] components = ColorUtil.fromColor(colorSpace, c);
         return getColorLocation(components);
@@ -9,6 +9,7 @@ package org.jhotdraw.color;
 
 import java.awt.color.ColorSpace;
 import java.awt.image.*;
+import java.util.Arrays;
 
 /**
  * ColorTrackImageProducer creates the image for the track of a
@@ -118,10 +119,9 @@ public class ColorTrackImageProducer extends MemoryImageSource {
             pixels[y * w] = pixels[offset * w];
             pixels[(h - y - 1) * w] = pixels[(h - offset - 1) * w];
         }
-        for (int x = 1; x < w; x++) {
-            for (int y = 0, n = w * h; y < n; y += w) {
-                pixels[x + y] = pixels[x - 1 + y];
-            }
+        // Fill the rows with the color of their first pixel
+        for (int y = 0, n = w * h; y < n; y += w) {
+            Arrays.fill(pixels, y + 1, y + w, pixels[y]);
         }
     }
 
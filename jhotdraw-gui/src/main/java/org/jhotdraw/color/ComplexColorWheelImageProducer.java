@@ -10,6 +10,8 @@ package org.jhotdraw.color;
 import java.awt.*;
 import java.awt.color.ColorSpace;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
 import static java.lang.Math.*;
 
 /**
@@ -124,21 +126,20 @@ public class ComplexColorWheelImageProducer extends AbstractColorWheelImageProdu
         }
     }
 
+    @Override
+    protected List<Object> getCacheKey() {
+        List<Object> key = new ArrayList<Object>(super.getCacheKey());
+        key.add(flipX);
+        key.add(flipY);
+        return key;
+    }
+
     @Override
     public void generateColorWheel() {
         if (!isLookupValid) {
             generateLookupTables();
         }
-        float[] components = new float[colorSpace.getNumComponents()];
-        float[] rgb = new float[3];
-        for (int index = 0; index < pixels.length; index++) {
-            if (alphas[index] != 0) {
-                components[angularIndex] = angulars[index];
-                components[radialIndex] = radials[index];
-                components[verticalIndex] = verticalValue;
-                pixels[index] = alphas[index] | 0xffffff & ColorUtil.CStoRGB24(colorSpace, components, rgb);
-            }
-        }
+        generatePixels(angulars, radials, alphas, false);
         newPixels();
         isPixelsValid = true;
     }
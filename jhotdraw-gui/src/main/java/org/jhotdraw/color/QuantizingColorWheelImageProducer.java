@@ -9,6 +9,8 @@ package org.jhotdraw.color;
 
 import java.awt.*;
 import java.awt.color.ColorSpace;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Produces the image of a ColorWheel.
@@ -96,21 +98,20 @@ public class QuantizingColorWheelImageProducer extends AbstractColorWheelImagePr
         }
     }
 
+    @Override
+    protected List<Object> getCacheKey() {
+        List<Object> key = new ArrayList<Object>(super.getCacheKey());
+        key.add(angularQuantization);
+        key.add(radialQuantization);
+        return key;
+    }
+
     @Override
     public void generateColorWheel() {
         if (!isLookupValid) {
             generateLookupTables();
         }
-        float[] components = new float[colorSpace.getNumComponents()];
-        float[] rgb = new float[3];
-        for (int index = 0; index < pixels.length; index++) {
-            if (alphas[index] != 0) {
-                components[angularIndex] = angulars[index];
-                components[radialIndex] = radials[index];
-                components[verticalIndex] = verticalValue;
-                pixels[index] = alphas[index] | 0xffffff & ColorUtil.CStoRGB24(colorSpace, components, rgb);
-            }
-        }
+        generatePixels(angulars, radials, alphas, false);
         newPixels();
         isPixelsValid = true;
     }
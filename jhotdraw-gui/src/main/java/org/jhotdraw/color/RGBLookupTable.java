@@ -0,0 +1,172 @@
+/*
+ * @(#)RGBLookupTable.java
+ *
+ * Copyright (c) 2010 The authors and contributors of JHotDraw.
+ *
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.color;
+
+import java.awt.color.ColorSpace;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Converts the first three components of a {@code ColorSpace} into 24-bit RGB
+ * values by trilinear interpolation in a table of sampled conversions.
+ * <p>
+ * This is used for color spaces whose conversion into RGB is expensive, such
+ * as ICC color spaces. The remaining components of color spaces
+ * with more than three components are zero. Components outside of the range
+ * of the color space, and colors near the border of the RGB gamut must be
+ * converted by the color space, see {@link #isInterpolable}. A table is
+ * created once for a color space, and can be used by multiple threads.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+final class RGBLookupTable {
+
+    /**
+     * The number of samples per component.
+     */
+    private static final int SAMPLES = 33;
+    private static final Map<ColorSpace, RGBLookupTable> tables = new WeakHashMap<ColorSpace, RGBLookupTable>();
+    /**
+     * The sampled RGB values. The components of a sample are stored at
+     * {@code ((i * SAMPLES + j) * SAMPLES + k) * 3}.
+     */
+    private final float[] table;
+    /**
+     * Whether the RGB values at all corners of a cell are strictly inside of
+     * the RGB gamut. Cells at the border of the gamut contain values which
+     * were clamped by the color space, and are not interpolated, because
+     * clamping does not change linearly.
+     */
+    private final boolean[] isSmoothCell;
+    private final float[] min = new float[3];
+    private final float[] scale = new float[3];
+
+    private RGBLookupTable(ColorSpace cs) {
+        table = new float[SAMPLES * SAMPLES * SAMPLES * 3];
+        for (int c = 0; c < 3; c++) {
+            min[c] = cs.getMinValue(c);
+            scale[c] = (SAMPLES - 1) / (cs.getMaxValue(c) - min[c]);
+        }
+        float[] components = new float[cs.getNumComponents()];
+        float[] rgb = new float[3];
+        for (int i = 0, index = 0; i < SAMPLES; i++) {
+            components[0] = min[0] + i / scale[0];
+            for (int j = 0; j < SAMPLES; j++) {
+                components[1] = min[1] + j / scale[1];
+                for (int k = 0; k < SAMPLES; k++, index += 3) {
+                    components[2] = min[2] + k / scale[2];
+                    ColorUtil.CStoRGB(cs, components, rgb);
+                    table[index] = rgb[0];
+                    table[index + 1] = rgb[1];
+                    table[index + 2] = rgb[2];
+                }
+            }
+        }
+        int cells = SAMPLES - 1;
+        isSmoothCell = new boolean[cells * cells * cells];
+        for (int i = 0, cell = 0; i < cells; i++) {
+            for (int j = 0; j < cells; j++) {
+                for (int k = 0; k < cells; k++, cell++) {
+                    boolean isSmooth = true;
+                    for (int corner = 0; corner < 8 && isSmooth; corner++) {
+                        int index = (((i + (corner >> 2)) * SAMPLES + j + ((corner >> 1) & 1)) * SAMPLES + k + (corner & 1)) * 3;
+                        for (int c = 0; c < 3; c++) {
+                            float v = table[index + c];
+                            isSmooth &= v > 0f && v < 1f;
+                        }
+                    }
+                    isSmoothCell[cell] = isSmooth;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true, if the conversion of the color space into RGB is
+     * expensive enough to use a lookup table.
+     */
+    static boolean isExpensive(ColorSpace cs) {
+        if (cs.isCS_sRGB() || cs.getNumComponents() < 3) {
+            return false;
+        }
+        // Named color spaces convert with a few arithmetic operations. Most
+        // of the CIELAB space is outside of the RGB gamut, so a table would
+        // not help with it either.
+        return !(cs instanceof NamedColorSpace);
+    }
+
+    /**
+     * Returns the lookup table for the specified color space.
+     */
+    static RGBLookupTable getInstance(ColorSpace cs) {
+        synchronized (tables) {
+            RGBLookupTable t = tables.get(cs);
+            if (t == null) {
+                t = new RGBLookupTable(cs);
+                tables.put(cs, t);
+            }
+            return t;
+        }
+    }
+
+    /**
+     * Returns true, if the specified components can be converted with the
+     * table. This is the case, if they are inside of the range of the table,
+     * and inside of the RGB gamut.
+     */
+    boolean isInterpolable(float c0, float c1, float c2) {
+        float x = (c0 - min[0]) * scale[0];
+        float y = (c1 - min[1]) * scale[1];
+        float z = (c2 - min[2]) * scale[2];
+        if (!inRange(x) || !inRange(y) || !inRange(z)) {
+            return false;
+        }
+        int cells = SAMPLES - 1;
+        int i = Math.min((int) x, cells - 1);
+        int j = Math.min((int) y, cells - 1);
+        int k = Math.min((int) z, cells - 1);
+        return isSmoothCell[(i * cells + j) * cells + k];
+    }
+
+    /**
+     * Converts the specified components into a 24-bit RGB value with the
+     * same rules as {@link ColorUtil#CStoRGB24}. The components must be
+     * interpolable.
+     */
+    int toRGB24(float c0, float c1, float c2) {
+        float x = (c0 - min[0]) * scale[0];
+        float y = (c1 - min[1]) * scale[1];
+        float z = (c2 - min[2]) * scale[2];
+        int i = Math.min((int) x, SAMPLES - 2);
+        int j = Math.min((int) y, SAMPLES - 2);
+        int k = Math.min((int) z, SAMPLES - 2);
+        float fx = x - i, fy = y - j, fz = z - k;
+        int i00 = ((i * SAMPLES + j) * SAMPLES + k) * 3;
+        int i01 = i00 + SAMPLES * 3;
+        int i10 = i00 + SAMPLES * SAMPLES * 3;
+        int i11 = i10 + SAMPLES * 3;
+        int rgb = 0xff000000;
+        for (int c = 0; c < 3; c++) {
+            float v00 = table[i00 + c] + (table[i00 + 3 + c] - table[i00 + c]) * fz;
+            float v01 = table[i01 + c] + (table[i01 + 3 + c] - table[i01 + c]) * fz;
+            float v10 = table[i10 + c] + (table[i10 + 3 + c] - table[i10 + c]) * fz;
+            float v11 = table[i11 + c] + (table[i11 + 3 + c] - table[i11 + c]) * fz;
+            float v0 = v00 + (v01 - v00) * fy;
+            float v1 = v10 + (v11 - v10) * fy;
+            float v = v0 + (v1 - v0) * fx;
+            rgb |= (int) (v * 255f) << (16 - 8 * c);
+        }
+        return rgb;
+    }
+
+    private static boolean inRange(float v) {
+        return v >= 0f && v <= SAMPLES - 1;
+    }
+}
@@ -85,6 +85,7 @@ import org.jhotdraw.draw.action.LineDecorationIcon;
 import org.jhotdraw.draw.action.MoveAction;
 import org.jhotdraw.draw.action.PickAttributesAction;
 import org.jhotdraw.draw.action.SelectSameAction;
+import org.jhotdraw.draw.action.SelectSameAttributeAction;
 import org.jhotdraw.draw.action.SelectionColorChooserAction;
 import org.jhotdraw.draw.action.SelectionColorChooserHandler;
 import org.jhotdraw.draw.action.SelectionColorIcon;
@@ -341,6 +342,10 @@ public class ButtonFactory {
         list.add(new PasteAction());
         list.add(a = new SelectSameAction(editor));
         dsp.add(a);
+        list.add(a = new SelectSameAttributeAction(editor, SelectSameAttributeAction.FILL_ID));
+        dsp.add(a);
+        list.add(a = new SelectSameAttributeAction(editor, SelectSameAttributeAction.STROKE_ID));
+        dsp.add(a);
         return list;
     }
 
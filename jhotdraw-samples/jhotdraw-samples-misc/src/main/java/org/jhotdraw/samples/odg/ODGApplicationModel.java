@@ -33,9 +33,11 @@ import org.jhotdraw.draw.action.*;
 import org.jhotdraw.draw.io.InputFormat;
 import org.jhotdraw.draw.io.OutputFormat;
 import org.jhotdraw.draw.tool.CreationTool;
+import org.jhotdraw.geom.PolygonClipper;
 import org.jhotdraw.gui.JFileURIChooser;
 import org.jhotdraw.gui.action.ButtonFactory;
 import static org.jhotdraw.samples.odg.ODGAttributeKeys.*;
+import org.jhotdraw.samples.odg.action.BooleanOperationAction;
 import org.jhotdraw.samples.odg.figures.ODGGroupFigure;
 import org.jhotdraw.samples.odg.figures.ODGPathFigure;
 import org.jhotdraw.samples.odg.figures.ODGRectFigure;
@@ -92,6 +94,10 @@ public class ODGApplicationModel extends DefaultApplicationModel {
         a.add(new UngroupAction(editor, new ODGGroupFigure()));
         a.add(new CombineAction(editor));
         a.add(new SplitAction(editor));
+        a.add(new BooleanOperationAction(editor, PolygonClipper.Operation.UNION));
+        a.add(new BooleanOperationAction(editor, PolygonClipper.Operation.INTERSECTION));
+        a.add(new BooleanOperationAction(editor, PolygonClipper.Operation.DIFFERENCE));
+        a.add(new BooleanOperationAction(editor, PolygonClipper.Operation.XOR));
         a.add(null); // separator
         a.add(new BringToFrontAction(editor));
         a.add(new SendToBackAction(editor));
@@ -25,8 +25,10 @@ import org.jhotdraw.draw.DrawingView;
 import org.jhotdraw.draw.action.*;
 import org.jhotdraw.draw.tool.CreationTool;
 import org.jhotdraw.draw.tool.TextAreaCreationTool;
+import org.jhotdraw.geom.PolygonClipper;
 import org.jhotdraw.gui.JPopupButton;
 import org.jhotdraw.gui.action.ButtonFactory;
+import org.jhotdraw.samples.svg.action.BooleanOperationAction;
 import org.jhotdraw.samples.svg.action.CombineAction;
 import org.jhotdraw.samples.svg.action.SplitAction;
 import org.jhotdraw.samples.svg.figures.SVGBezierFigure;
@@ -146,6 +148,10 @@ public class ODGDrawingPanel extends JPanel {
         a.add(new UngroupAction(editor, new SVGGroupFigure()));
         a.add(new CombineAction(editor));
         a.add(new SplitAction(editor));
+        a.add(new BooleanOperationAction(editor, PolygonClipper.Operation.UNION));
+        a.add(new BooleanOperationAction(editor, PolygonClipper.Operation.INTERSECTION));
+        a.add(new BooleanOperationAction(editor, PolygonClipper.Operation.DIFFERENCE));
+        a.add(new BooleanOperationAction(editor, PolygonClipper.Operation.XOR));
         a.add(null); // separator
         a.add(new BringToFrontAction(editor));
         a.add(new SendToBackAction(editor));
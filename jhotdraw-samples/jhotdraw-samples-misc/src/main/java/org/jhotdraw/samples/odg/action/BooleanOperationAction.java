@@ -0,0 +1,53 @@
+/*
+ * @(#)BooleanOperationAction.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.samples.odg.action;
+
+import org.jhotdraw.draw.*;
+import org.jhotdraw.draw.figure.BezierFigure;
+import org.jhotdraw.draw.figure.CompositeFigure;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.geom.PolygonClipper;
+import org.jhotdraw.samples.odg.figures.ODGBezierFigure;
+import org.jhotdraw.samples.odg.figures.ODGPathFigure;
+
+/**
+ * Replaces the selected ODG paths by their union, intersection, difference
+ * or exclusive or.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class BooleanOperationAction extends org.jhotdraw.samples.svg.action.BooleanOperationAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new instance.
+     */
+    public BooleanOperationAction(DrawingEditor editor, PolygonClipper.Operation operation) {
+        super(editor, operation, "org.jhotdraw.samples.odg.Labels");
+    }
+
+    @Override
+    protected boolean isPathFigure(Figure f) {
+        return f instanceof ODGPathFigure;
+    }
+
+    @Override
+    protected CompositeFigure createPathFigure(Figure subject) {
+        ODGPathFigure path = ((ODGPathFigure) subject).clone();
+        path.flattenTransform();
+        path.basicRemoveAllChildren();
+        return path;
+    }
+
+    @Override
+    protected BezierFigure createBezierFigure() {
+        return new ODGBezierFigure(true);
+    }
+}
@@ -47,10 +47,11 @@ public class SplitAction extends UngroupAction {
     @SuppressWarnings("unchecked")
     @Override
     public Collection<Figure> ungroupFigures(DrawingView view, CompositeFigure group) {
-        LinkedList<Figure> figures = new LinkedList<Figure>(group.getChildren());
+        Drawing drawing = view.getDrawing();
+        ArrayList<Figure> figures = new ArrayList<Figure>(group.getChildren());
         view.clearSelection();
         group.basicRemoveAllChildren();
-        LinkedList<Figure> paths = new LinkedList<Figure>();
+        ArrayList<Figure> paths = new ArrayList<Figure>(figures.size());
         for (Figure f : figures) {
             ODGPathFigure path = new ODGPathFigure();
             path.removeAllChildren();
@@ -58,10 +59,10 @@ public class SplitAction extends UngroupAction {
                 path.set((AttributeKey<Object>) entry.getKey(), entry.getValue());
             }
             path.add(f);
-            view.getDrawing().basicAdd(path);
             paths.add(path);
         }
-        view.getDrawing().remove(group);
+        drawing.basicAddAll(drawing.indexOf(group), paths);
+        drawing.remove(group);
         view.addToSelection(paths);
         return figures;
     }
@@ -69,10 +70,11 @@ public class SplitAction extends UngroupAction {
     @SuppressWarnings("unchecked")
     @Override
     public void groupFigures(DrawingView view, CompositeFigure group, Collection<Figure> figures) {
-        Collection<Figure> sorted = view.getDrawing().sort(figures);
-        view.getDrawing().basicRemoveAll(figures);
+        Drawing drawing = view.getDrawing();
+        List<Figure> sorted = drawing.sort(figures);
         view.clearSelection();
-        view.getDrawing().add(group);
+        int index = drawing.basicReplace(sorted, Collections.<Figure>emptyList());
+        drawing.add(index, group);
         group.willChange();
         ((ODGPathFigure) group).removeAllChildren();
         for (Map.Entry<AttributeKey<?>, Object> entry : figures.iterator().next().getAttributes().entrySet()) {
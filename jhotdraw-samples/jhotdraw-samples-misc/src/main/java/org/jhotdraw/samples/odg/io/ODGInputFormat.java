@@ -17,9 +17,6 @@ import java.util.*;
 import java.util.zip.*;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import org.jhotdraw.draw.*;
 import org.jhotdraw.draw.io.InputFormat;
 import org.jhotdraw.geom.BezierPath;
@@ -33,11 +30,11 @@ import org.jhotdraw.samples.odg.figures.ODGGroupFigure;
 import org.jhotdraw.samples.odg.figures.ODGPathFigure;
 import org.jhotdraw.samples.odg.figures.ODGRectFigure;
 import org.jhotdraw.samples.odg.geom.EnhancedPath;
+import org.jhotdraw.xml.DocumentBuilderPool;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 /**
  * ODGInputFormat.
@@ -94,12 +91,49 @@ public class ODGInputFormat implements InputFormat {
         read(file, drawing, true);
     }
 
+    /**
+     * Reads a drawing from a file. If the file is an ODG package, only the
+     * styles.xml and content.xml entries are read from it.
+     */
     public void read(File file, Drawing drawing, boolean replace) throws IOException {
-        BufferedInputStream in = new BufferedInputStream(new FileInputStream(file));
+        ZipFile zipFile;
         try {
-            read(in, drawing, replace);
-        } finally {
-            in.close();
+            zipFile = new ZipFile(file);
+        } catch (ZipException e) {
+            zipFile = null;
+        }
+        if (zipFile == null) {
+            BufferedInputStream in = new BufferedInputStream(new FileInputStream(file));
+            try {
+                read(in, drawing, replace);
+            } finally {
+                in.close();
+            }
+        } else {
+            try {
+                styles = new ODGStylesReader();
+                ZipEntry stylesEntry = zipFile.getEntry("styles.xml");
+                if (stylesEntry != null) {
+                    InputStream in = zipFile.getInputStream(stylesEntry);
+                    try {
+                        styles.read(in);
+                    } finally {
+                        in.close();
+                    }
+                }
+                ZipEntry contentEntry = zipFile.getEntry("content.xml");
+                if (contentEntry == null) {
+                    throw new IOException("content.xml missing in " + file);
+                }
+                InputStream in = zipFile.getInputStream(contentEntry);
+                try {
+                    readFiguresFromDocumentContent(in, drawing, replace);
+                } finally {
+                    in.close();
+                }
+            } finally {
+                zipFile.close();
+            }
         }
     }
 
@@ -120,57 +154,45 @@ public class ODGInputFormat implements InputFormat {
     }
 
     /**
-     * Reads all bytes from the InputStreams until EOF is reached.
+     * Reads a drawing from an ODG package or from a content.xml file.
+     * <p>
+     * A package is read in a single pass. The styles.xml and content.xml
+     * entries are parsed directly from the package stream, all other entries
+     * are skipped.
      */
-    private byte[] readAllBytes(InputStream in) throws IOException {
-        ByteArrayOutputStream tmp = new ByteArrayOutputStream();
-        byte[] buf = new byte[512];
-        for (int len; -1 != (len = in.read(buf));) {
-            tmp.write(buf, 0, len);
-        }
-        tmp.close();
-        return tmp.toByteArray();
-    }
-
     @Override
     public void read(InputStream in, Drawing drawing, boolean replace) throws IOException {
-        // Read the file into a byte array.
-        byte[] tmp = readAllBytes(in);
-
-        // Input stream of the content.xml file
-        InputStream contentIn = null;
+        BufferedInputStream bin = new BufferedInputStream(in);
+        bin.mark(4);
+        boolean isZipped = bin.read() == 'P' && bin.read() == 'K'
+                && bin.read() == 3 && bin.read() == 4;
+        bin.reset();
 
-        // Input stream of the styles.xml file
-        InputStream stylesIn = null;
-
-        // Try to read "tmp" as a ZIP-File.
-        boolean isZipped = true;
-        try {
-            ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(tmp));
+        styles = new ODGStylesReader();
+        Document content = null;
+        if (isZipped) {
+            ZipInputStream zin = new ZipInputStream(bin);
+            // The XML parser closes the stream when it reaches the end of
+            // the entry
+            InputStream entryIn = new FilterInputStream(zin) {
+                @Override
+                public void close() {
+                }
+            };
             for (ZipEntry entry; null != (entry = zin.getNextEntry());) {
                 if ("content.xml".equals(entry.getName())) {
-                    contentIn = new ByteArrayInputStream(
-                            readAllBytes(zin));
+                    content = DocumentBuilderPool.parse(entryIn);
                 } else if ("styles.xml".equals(entry.getName())) {
-                    stylesIn = new ByteArrayInputStream(
-                            readAllBytes(zin));
+                    styles.read(entryIn);
                 }
             }
-
-        } catch (ZipException e) {
-            isZipped = false;
-        }
-        if (contentIn == null) {
-            contentIn = new ByteArrayInputStream(tmp);
-        }
-        if (stylesIn == null) {
-            stylesIn = new ByteArrayInputStream(tmp);
+            if (content == null) {
+                throw new IOException("content.xml missing in ODG package");
+            }
+        } else {
+            content = DocumentBuilderPool.parse(bin);
         }
-
-        styles = new ODGStylesReader();
-        styles.read(stylesIn);
-
-        readFiguresFromDocumentContent(contentIn, drawing, replace);
+        readFiguresFromDocumentContent(content, drawing, replace);
     }
 
     /**
@@ -179,17 +201,12 @@ public class ODGInputFormat implements InputFormat {
      */
     @SuppressWarnings("unchecked")
     public void readFiguresFromDocumentContent(InputStream in, Drawing drawing, boolean replace) throws IOException {
-        this.figures = new LinkedList<Figure>();
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+        readFiguresFromDocumentContent(DocumentBuilderPool.parse(in), drawing, replace);
+    }
 
-        try {
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(in);
-        } catch (ParserConfigurationException | SAXException ex) {
-            IOException e = new IOException(ex.getMessage());
-            e.initCause(ex);
-            throw e;
-        }
+    private void readFiguresFromDocumentContent(Document content, Drawing drawing, boolean replace) throws IOException {
+        this.figures = new LinkedList<Figure>();
+        document = content;
 
         if (styles == null) {
             styles = new ODGStylesReader();
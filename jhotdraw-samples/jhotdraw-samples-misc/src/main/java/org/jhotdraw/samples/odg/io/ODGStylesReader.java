@@ -10,16 +10,12 @@ package org.jhotdraw.samples.odg.io;
 import java.awt.Color;
 import java.io.*;
 import java.util.*;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import org.jhotdraw.draw.*;
+import org.jhotdraw.xml.DocumentBuilderPool;
 import static org.jhotdraw.samples.odg.ODGAttributeKeys.*;
 import static org.jhotdraw.samples.odg.ODGConstants.*;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 /**
  * ODGStylesReader reads an ODG &lt;document-styles&gt; element,
@@ -71,6 +67,11 @@ public class ODGStylesReader {
      * way, a separation of content and layout is achieved.
      */
     private HashMap<String, Style> automaticStyles;
+    /**
+     * The attributes of styles merged with the attributes of their parent
+     * styles. The keys are family names and style names.
+     */
+    private HashMap<String, HashMap<String, Map<AttributeKey<?>, Object>>> resolvedStyles;
 
     /**
      * Creates a new instance.
@@ -79,7 +80,23 @@ public class ODGStylesReader {
         reset();
     }
 
+    /**
+     * Returns the attributes of the specified style, merged with the
+     * attributes of the styles it inherits from.
+     * <p>
+     * The merged attributes are computed once per style and family. The
+     * returned map is shared and can not be modified.
+     */
     public Map<AttributeKey<?>, Object> getAttributes(String styleName, String familyName) {
+        HashMap<String, Map<AttributeKey<?>, Object>> family = resolvedStyles.get(familyName);
+        if (family == null) {
+            family = new HashMap<String, Map<AttributeKey<?>, Object>>();
+            resolvedStyles.put(familyName, family);
+        }
+        return resolveAttributes(styleName, family, new HashSet<String>());
+    }
+
+    private Style getStyle(String styleName) {
         //String key = familyName+"-"+styleName;
         String key = styleName;
         Style style;
@@ -92,15 +109,41 @@ public class ODGStylesReader {
         } else {
             style = new Style();
         }
-        if (style.parentName == null) {
-            return style;
-        } else {
-            HashMap<AttributeKey<?>, Object> a = new HashMap<AttributeKey<?>, Object>();
-            Map<AttributeKey<?>, Object> parentAttributes = getAttributes(style.parentName, familyName);
-            a.putAll(parentAttributes);
-            a.putAll(style);
-            return a;
+        return style;
+    }
+
+    /**
+     * Merges the attributes of the specified style with the attributes of
+     * the styles it inherits from, and stores the result for all styles in
+     * the inheritance chain. If the chain contains a cycle, it is cut off at
+     * the first style which is visited twice.
+     *
+     * @param family The resolved styles of the family.
+     * @param visited The names of the styles in the chain so far.
+     */
+    private Map<AttributeKey<?>, Object> resolveAttributes(String styleName,
+            HashMap<String, Map<AttributeKey<?>, Object>> family, Set<String> visited) {
+        Map<AttributeKey<?>, Object> a = family.get(styleName);
+        if (a == null) {
+            Style style = getStyle(styleName);
+            visited.add(styleName);
+            if (style.parentName == null) {
+                a = style;
+            } else if (visited.contains(style.parentName)) {
+                if (DEBUG) {
+                    System.out.println("ODGStylesReader cyclic parent-style-name " + style.parentName);
+                }
+                a = style;
+            } else {
+                HashMap<AttributeKey<?>, Object> merged = new HashMap<AttributeKey<?>, Object>(
+                        resolveAttributes(style.parentName, family, visited));
+                merged.putAll(style);
+                a = merged;
+            }
+            a = Collections.unmodifiableMap(a);
+            family.put(styleName, a);
         }
+        return a;
     }
 
     /**
@@ -128,24 +171,14 @@ public class ODGStylesReader {
      * or with a &lt;document-styles&gt; root element.
      */
     public void read(InputStream in) throws IOException {
-        Element document;
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        try {
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(in);
-            document = doc.getDocumentElement();
-        } catch (ParserConfigurationException | SAXException ex) {
-            IOException e = new IOException(ex.getMessage());
-            e.initCause(ex);
-            throw e;
-        }
-        read(document);
+        read(DocumentBuilderPool.parse(in).getDocumentElement());
     }
 
     private void reset() {
         commonStyles = new HashMap<String, Style>();
         automaticStyles = new HashMap<String, Style>();
         masterStyles = new HashMap<String, Style>();
+        resolvedStyles = new HashMap<String, HashMap<String, Map<AttributeKey<?>, Object>>>();
     }
 
     /**
@@ -157,6 +190,7 @@ public class ODGStylesReader {
      * &lt;document-styles&gt; element.
      */
     public void read(Element root) throws IOException {
+        resolvedStyles.clear();
         String name = root.getLocalName();
         String ns = root.getPrefix();
         if ("document-content".equals(name) && (ns == null || ns.equals(OFFICE_NAMESPACE))) {
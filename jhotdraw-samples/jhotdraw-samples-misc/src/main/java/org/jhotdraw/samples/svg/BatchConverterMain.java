@@ -0,0 +1,150 @@
+/*
+ * @(#)BatchConverterMain.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.samples.svg;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.jhotdraw.draw.DefaultDrawing;
+import org.jhotdraw.draw.io.BatchConverter;
+import org.jhotdraw.draw.io.DOMStorableInputOutputFormat;
+import org.jhotdraw.draw.io.ImageOutputFormat;
+import org.jhotdraw.draw.io.OutputFormat;
+import org.jhotdraw.samples.draw.DrawFigureFactory;
+import org.jhotdraw.samples.odg.io.ODGInputFormat;
+import org.jhotdraw.samples.svg.io.ImageMapOutputFormat;
+import org.jhotdraw.samples.svg.io.SVGInputFormat;
+import org.jhotdraw.samples.svg.io.SVGOutputFormat;
+import org.jhotdraw.samples.svg.io.SVGZInputFormat;
+import org.jhotdraw.samples.svg.io.SVGZOutputFormat;
+
+/**
+ * Command line entry point for converting SVG, SVGZ, ODG and JHotDraw XML
+ * drawings into PNG images, SVG, SVGZ, HTML image maps or JHotDraw XML
+ * with a {@link BatchConverter}.
+ * <p>
+ * Usage:
+ * <pre>
+ * java org.jhotdraw.samples.svg.BatchConverterMain [-threads n] [-drawings n]
+ *      -format png|svg|svgz|map|xml -out directory file|directory...
+ * </pre>
+ * Directories are searched for files with a supported extension. The
+ * converter runs headless.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class BatchConverterMain {
+
+    private static final String[] INPUT_EXTENSIONS = {"svg", "svgz", "odg", "xml"};
+
+    private static void usage() {
+        System.err.println("Usage: BatchConverterMain [-threads n] [-drawings n]"
+                + " -format png|svg|svgz|map|xml -out directory file|directory...");
+        System.exit(2);
+    }
+
+    private static Supplier<? extends OutputFormat> getOutputFormat(String format) {
+        switch (format) {
+            case "png":
+                return ImageOutputFormat::new;
+            case "svg":
+                return SVGOutputFormat::new;
+            case "svgz":
+                return SVGZOutputFormat::new;
+            case "map":
+                return ImageMapOutputFormat::new;
+            case "xml":
+                return () -> new DOMStorableInputOutputFormat(new DrawFigureFactory());
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isSupported(File file) {
+        String name = file.getName().toLowerCase();
+        for (String ext : INPUT_EXTENSIONS) {
+            if (name.endsWith("." + ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addFiles(File file, List<File> files) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    addFiles(child, files);
+                }
+            }
+        } else if (isSupported(file)) {
+            files.add(file);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        Supplier<? extends OutputFormat> outputFormat = null;
+        File outputDirectory = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int drawings = threads;
+        List<File> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-drawings":
+                        drawings = Integer.parseInt(args[++i]);
+                        break;
+                    case "-format":
+                        outputFormat = getOutputFormat(args[++i]);
+                        break;
+                    case "-out":
+                        outputDirectory = new File(args[++i]);
+                        break;
+                    default:
+                        addFiles(new File(args[i]), files);
+                        break;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            usage();
+        }
+        if (outputFormat == null || outputDirectory == null || threads < 1 || drawings < 1) {
+            usage();
+            return;
+        }
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            System.err.println("Can not create directory " + outputDirectory);
+            System.exit(1);
+        }
+
+        BatchConverter converter = new BatchConverter(DefaultDrawing::new, outputFormat);
+        converter.addInputFormat("svg", SVGInputFormat::new);
+        converter.addInputFormat("svgz", SVGZInputFormat::new);
+        converter.addInputFormat("odg", ODGInputFormat::new);
+        converter.addInputFormat("xml", () -> new DOMStorableInputOutputFormat(new DrawFigureFactory()));
+        converter.setThreadCount(threads);
+        converter.setMaxDrawingsInFlight(drawings);
+        BatchConverter.Statistics statistics = converter.convert(files, outputDirectory);
+        for (Map.Entry<File, IOException> failure : statistics.getFailures().entrySet()) {
+            System.err.println(failure.getKey() + ": " + failure.getValue().getMessage());
+        }
+        System.out.println(statistics);
+        System.exit(statistics.getFailedCount() == 0 ? 0 : 1);
+    }
+}
@@ -30,7 +30,9 @@ import org.jhotdraw.draw.GridConstrainer;
 import org.jhotdraw.draw.action.*;
 import org.jhotdraw.draw.io.InputFormat;
 import org.jhotdraw.draw.io.OutputFormat;
+import org.jhotdraw.geom.PolygonClipper;
 import org.jhotdraw.gui.JFileURIChooser;
+import org.jhotdraw.samples.svg.action.BooleanOperationAction;
 import org.jhotdraw.samples.svg.action.CombineAction;
 import org.jhotdraw.samples.svg.action.SplitAction;
 import org.jhotdraw.samples.svg.action.ViewSourceAction;
@@ -88,10 +90,16 @@ public class SVGApplicationModel extends DefaultApplicationModel {
         AbstractSelectedAction action;
         ActionMap m = view.getActionMap();
         m.put(SelectSameAction.ID, new SelectSameAction(editor));
+        m.put(SelectSameAttributeAction.FILL_ID, new SelectSameAttributeAction(editor, SelectSameAttributeAction.FILL_ID));
+        m.put(SelectSameAttributeAction.STROKE_ID, new SelectSameAttributeAction(editor, SelectSameAttributeAction.STROKE_ID));
         m.put(GroupAction.ID, new GroupAction(editor, new SVGGroupFigure()));
         m.put(UngroupAction.ID, new UngroupAction(editor, new SVGGroupFigure()));
         m.put(CombineAction.ID, new CombineAction(editor));
         m.put(SplitAction.ID, new SplitAction(editor));
+        m.put(BooleanOperationAction.getID(PolygonClipper.Operation.UNION), new BooleanOperationAction(editor, PolygonClipper.Operation.UNION));
+        m.put(BooleanOperationAction.getID(PolygonClipper.Operation.INTERSECTION), new BooleanOperationAction(editor, PolygonClipper.Operation.INTERSECTION));
+        m.put(BooleanOperationAction.getID(PolygonClipper.Operation.DIFFERENCE), new BooleanOperationAction(editor, PolygonClipper.Operation.DIFFERENCE));
+        m.put(BooleanOperationAction.getID(PolygonClipper.Operation.XOR), new BooleanOperationAction(editor, PolygonClipper.Operation.XOR));
         m.put(BringToFrontAction.ID, new BringToFrontAction(editor));
         m.put(SendToBackAction.ID, new SendToBackAction(editor));
         //view.addDisposable(action);
@@ -117,10 +125,16 @@ public class SVGApplicationModel extends DefaultApplicationModel {
             editor = (v == null) ? null : v.getEditor();
         }
         m.put(SelectSameAction.ID, new SelectSameAction(editor));
+        m.put(SelectSameAttributeAction.FILL_ID, new SelectSameAttributeAction(editor, SelectSameAttributeAction.FILL_ID));
+        m.put(SelectSameAttributeAction.STROKE_ID, new SelectSameAttributeAction(editor, SelectSameAttributeAction.STROKE_ID));
         m.put(GroupAction.ID, new GroupAction(editor, new SVGGroupFigure()));
         m.put(UngroupAction.ID, new UngroupAction(editor, new SVGGroupFigure()));
         m.put(CombineAction.ID, new CombineAction(editor));
         m.put(SplitAction.ID, new SplitAction(editor));
+        m.put(BooleanOperationAction.getID(PolygonClipper.Operation.UNION), new BooleanOperationAction(editor, PolygonClipper.Operation.UNION));
+        m.put(BooleanOperationAction.getID(PolygonClipper.Operation.INTERSECTION), new BooleanOperationAction(editor, PolygonClipper.Operation.INTERSECTION));
+        m.put(BooleanOperationAction.getID(PolygonClipper.Operation.DIFFERENCE), new BooleanOperationAction(editor, PolygonClipper.Operation.DIFFERENCE));
+        m.put(BooleanOperationAction.getID(PolygonClipper.Operation.XOR), new BooleanOperationAction(editor, PolygonClipper.Operation.XOR));
         m.put(BringToFrontAction.ID, new BringToFrontAction(editor));
         m.put(SendToBackAction.ID, new SendToBackAction(editor));
         return m;
@@ -137,6 +151,8 @@ public class SVGApplicationModel extends DefaultApplicationModel {
                 ActionMap am = app.getActionMap(v);
                 super.addSelectionItems(m, app, v);
                 m.add(am.get(SelectSameAction.ID));
+                m.add(am.get(SelectSameAttributeAction.FILL_ID));
+                m.add(am.get(SelectSameAttributeAction.STROKE_ID));
             }
 
             @Override
@@ -146,6 +162,10 @@ public class SVGApplicationModel extends DefaultApplicationModel {
                 m.add(am.get(UngroupAction.ID));
                 m.add(am.get(CombineAction.ID));
                 m.add(am.get(SplitAction.ID));
+                m.add(am.get(BooleanOperationAction.getID(PolygonClipper.Operation.UNION)));
+                m.add(am.get(BooleanOperationAction.getID(PolygonClipper.Operation.INTERSECTION)));
+                m.add(am.get(BooleanOperationAction.getID(PolygonClipper.Operation.DIFFERENCE)));
+                m.add(am.get(BooleanOperationAction.getID(PolygonClipper.Operation.XOR)));
                 m.addSeparator();
                 m.add(am.get(BringToFrontAction.ID));
                 m.add(am.get(SendToBackAction.ID));
@@ -0,0 +1,298 @@
+/*
+ * @(#)BooleanOperationAction.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.samples.svg.action;
+
+import java.awt.Shape;
+import java.awt.Toolkit;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.undo.*;
+import org.jhotdraw.draw.*;
+import static org.jhotdraw.draw.AttributeKeys.TRANSFORM;
+import static org.jhotdraw.draw.AttributeKeys.WINDING_RULE;
+import org.jhotdraw.draw.action.*;
+import org.jhotdraw.draw.figure.BezierFigure;
+import org.jhotdraw.draw.figure.CompositeFigure;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.geom.BezierPath;
+import org.jhotdraw.geom.PolygonClipper;
+import org.jhotdraw.samples.svg.figures.SVGBezierFigure;
+import org.jhotdraw.samples.svg.figures.SVGPathFigure;
+import org.jhotdraw.util.*;
+
+/**
+ * Replaces the selected paths by their union, intersection, difference or
+ * exclusive or.
+ * <p>
+ * The back-most selected path is the subject of the operation, all other
+ * paths are applied to it in their z-order. The result is a new path with
+ * the attributes of the subject. Its outline is computed with
+ * {@link PolygonClipper}. The outline consists of polygons, unless a curve
+ * fitting error is set with {@link #setCurveFittingError}. If the result is
+ * empty, for example the intersection of disjoint paths, the action beeps
+ * and leaves the drawing unchanged.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class BooleanOperationAction extends AbstractSelectedAction {
+
+    private static final long serialVersionUID = 1L;
+    public static final String UNION_ID = "edit.unionPaths";
+    public static final String INTERSECTION_ID = "edit.intersectPaths";
+    public static final String DIFFERENCE_ID = "edit.subtractPaths";
+    public static final String XOR_ID = "edit.xorPaths";
+    /**
+     * The flatness used for flattening the paths.
+     */
+    private static final double FLATNESS = 0.1;
+    private final PolygonClipper.Operation operation;
+    private final String id;
+    private double curveFittingError;
+    private ResourceBundleUtil labels;
+
+    /**
+     * Creates a new instance.
+     */
+    public BooleanOperationAction(DrawingEditor editor, PolygonClipper.Operation operation) {
+        this(editor, operation, "org.jhotdraw.samples.svg.Labels");
+    }
+
+    protected BooleanOperationAction(DrawingEditor editor, PolygonClipper.Operation operation, String labelsBaseName) {
+        super(editor);
+        this.operation = operation;
+        this.id = getID(operation);
+        labels = ResourceBundleUtil.getBundle(labelsBaseName);
+        labels.configureAction(this, id);
+        updateEnabledState();
+    }
+
+    /**
+     * Returns the action ID for the specified operation.
+     */
+    public static String getID(PolygonClipper.Operation operation) {
+        switch (operation) {
+            case UNION:
+                return UNION_ID;
+            case INTERSECTION:
+                return INTERSECTION_ID;
+            case DIFFERENCE:
+                return DIFFERENCE_ID;
+            case XOR:
+            default:
+                return XOR_ID;
+        }
+    }
+
+    public PolygonClipper.Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Sets the maximal error for fitting bezier curves to the resulting
+     * polygons. If the value is 0, no curves are fitted.
+     */
+    public void setCurveFittingError(double newValue) {
+        curveFittingError = newValue;
+    }
+
+    public double getCurveFittingError() {
+        return curveFittingError;
+    }
+
+    @Override
+    protected void updateEnabledState() {
+        if (getView() != null) {
+            setEnabled(canPerform());
+        } else {
+            setEnabled(false);
+        }
+    }
+
+    protected boolean canPerform() {
+        boolean canPerform = getView().getSelectionCount() > 1;
+        if (canPerform) {
+            for (Figure f : getView().getSelectedFigures()) {
+                if (!isPathFigure(f)) {
+                    canPerform = false;
+                    break;
+                }
+            }
+        }
+        return canPerform;
+    }
+
+    /**
+     * Returns true if the figure is a path which can be used as an operand.
+     */
+    protected boolean isPathFigure(Figure f) {
+        return f instanceof SVGPathFigure;
+    }
+
+    /**
+     * Creates an empty path with the attributes of the subject and without
+     * a transform.
+     */
+    protected CompositeFigure createPathFigure(Figure subject) {
+        SVGPathFigure path = ((SVGPathFigure) subject).clone();
+        path.flattenTransform();
+        path.basicRemoveAllChildren();
+        return path;
+    }
+
+    /**
+     * Creates a child of the resulting path.
+     */
+    protected BezierFigure createBezierFigure() {
+        return new SVGBezierFigure(true);
+    }
+
+    /**
+     * Returns the outline of a path in drawing coordinates.
+     */
+    protected Shape getOutline(Figure f) {
+        Path2D.Double outline = new Path2D.Double(f.get(WINDING_RULE) == AttributeKeys.WindingRule.EVEN_ODD
+                ? Path2D.WIND_EVEN_ODD : Path2D.WIND_NON_ZERO);
+        for (Figure child : ((CompositeFigure) f).getChildren()) {
+            outline.append(((BezierFigure) child).getBezierPath(), false);
+        }
+        AffineTransform tx = f.get(TRANSFORM);
+        if (tx != null) {
+            outline.transform(tx);
+        }
+        return outline;
+    }
+
+    /**
+     * Computes the result of the operation.
+     *
+     * @param paths The operands sorted from back to front.
+     * @return The resulting path, or null if the result is empty.
+     */
+    public CompositeFigure computeResult(List<Figure> paths) {
+        Shape result = getOutline(paths.get(0));
+        List<BezierPath> polygons = null;
+        for (int i = 1, n = paths.size(); i < n; i++) {
+            polygons = PolygonClipper.clip(operation, result, getOutline(paths.get(i)), FLATNESS,
+                    i == n - 1 ? curveFittingError : 0);
+            result = PolygonClipper.toPath(polygons);
+        }
+        if (polygons == null || polygons.isEmpty()) {
+            return null;
+        }
+        CompositeFigure path = createPathFigure(paths.get(0));
+        path.willChange();
+        for (BezierPath polygon : polygons) {
+            BezierFigure child = createBezierFigure();
+            child.setBezierPath(polygon);
+            child.willChange();
+            path.basicAdd(child);
+        }
+        path.changed();
+        return path;
+    }
+
+    @Override
+    public void actionPerformed(java.awt.event.ActionEvent e) {
+        final DrawingView view = getView();
+        final Drawing drawing = view.getDrawing();
+        if (canPerform()) {
+            final List<Figure> paths = drawing.sort(view.getSelectedFigures());
+            final CompositeFigure result = computeResult(paths);
+            if (result == null) {
+                Toolkit.getDefaultToolkit().beep();
+                return;
+            }
+            final int[] indices = getIndices(drawing, paths);
+            replacePaths(view, paths, result);
+            UndoableEdit edit = new AbstractUndoableEdit() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public String getPresentationName() {
+                    return labels.getTextProperty(id);
+                }
+
+                @Override
+                public void redo() throws CannotRedoException {
+                    super.redo();
+                    replacePaths(view, paths, result);
+                }
+
+                @Override
+                public void undo() throws CannotUndoException {
+                    super.undo();
+                    restorePaths(view, paths, result, indices);
+                }
+            };
+            fireUndoableEditHappened(edit);
+        }
+    }
+
+    /**
+     * Returns the indices of the paths in the drawing with a single pass over
+     * its children.
+     *
+     * @param paths The paths sorted from back to front.
+     */
+    private static int[] getIndices(Drawing drawing, List<Figure> paths) {
+        int[] indices = new int[paths.size()];
+        int i = 0;
+        int index = 0;
+        for (Figure f : drawing.getChildren()) {
+            if (i < indices.length && f == paths.get(i)) {
+                indices[i++] = index;
+            }
+            index++;
+        }
+        return indices;
+    }
+
+    /**
+     * Replaces the paths by the result in a single pass over the children of
+     * the drawing. The result is placed at the index of the back-most path.
+     */
+    protected void replacePaths(DrawingView view, List<Figure> paths, CompositeFigure result) {
+        Drawing drawing = view.getDrawing();
+        view.clearSelection();
+        // The figures invalidate their drawing areas in willChange(), while
+        // the drawing is still listening to them
+        for (Figure f : paths) {
+            f.willChange();
+        }
+        drawing.basicReplace(paths, Collections.singletonList(result));
+        for (Figure f : paths) {
+            f.removeNotify(drawing);
+            f.changed();
+        }
+        result.addNotify(drawing);
+        result.willChange();
+        result.changed();
+        view.addToSelection(result);
+    }
+
+    /**
+     * Replaces the result by the paths in a single pass over the children of
+     * the drawing, and moves the paths back to their original indices.
+     */
+    protected void restorePaths(DrawingView view, List<Figure> paths, CompositeFigure result, int[] indices) {
+        Drawing drawing = view.getDrawing();
+        view.clearSelection();
+        result.willChange();
+        drawing.basicReplace(Collections.singleton(result), paths);
+        result.removeNotify(drawing);
+        result.changed();
+        for (Figure f : paths) {
+            f.addNotify(drawing);
+        }
+        drawing.moveToIndex(paths, indices);
+        view.addToSelection(paths);
+    }
+}
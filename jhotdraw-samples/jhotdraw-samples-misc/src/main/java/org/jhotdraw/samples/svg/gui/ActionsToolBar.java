@@ -194,6 +194,10 @@ public class ActionsToolBar extends AbstractToolBar {
             pb.add(new SelectAllAction());
             pb.add(d = new SelectSameAction(editor));
             disposables.add(d);
+            pb.add(d = new SelectSameAttributeAction(editor, SelectSameAttributeAction.FILL_ID));
+            disposables.add(d);
+            pb.add(d = new SelectSameAttributeAction(editor, SelectSameAttributeAction.STROKE_ID));
+            disposables.add(d);
             pb.add(new ClearSelectionAction());
             if (!getPopupActions().isEmpty()) {
                 pb.addSeparator();
@@ -23,10 +23,12 @@ import org.jhotdraw.draw.action.*;
 import org.jhotdraw.draw.tool.CreationTool;
 import org.jhotdraw.draw.tool.TextAreaCreationTool;
 import org.jhotdraw.draw.tool.TextCreationTool;
+import org.jhotdraw.geom.PolygonClipper;
 import org.jhotdraw.gui.action.ButtonFactory;
 import org.jhotdraw.gui.plaf.palette.PaletteButtonUI;
 import org.jhotdraw.samples.svg.PathTool;
 import org.jhotdraw.samples.svg.SVGCreateFromFileTool;
+import org.jhotdraw.samples.svg.action.BooleanOperationAction;
 import org.jhotdraw.samples.svg.action.CombineAction;
 import org.jhotdraw.samples.svg.action.SplitAction;
 import org.jhotdraw.samples.svg.figures.SVGBezierFigure;
@@ -194,6 +196,14 @@ public class ToolsToolBar extends AbstractToolBar {
         disposables.add(a);
         list.add(a = new SplitAction(editor));
         disposables.add(a);
+        list.add(a = new BooleanOperationAction(editor, PolygonClipper.Operation.UNION));
+        disposables.add(a);
+        list.add(a = new BooleanOperationAction(editor, PolygonClipper.Operation.INTERSECTION));
+        disposables.add(a);
+        list.add(a = new BooleanOperationAction(editor, PolygonClipper.Operation.DIFFERENCE));
+        disposables.add(a);
+        list.add(a = new BooleanOperationAction(editor, PolygonClipper.Operation.XOR));
+        disposables.add(a);
         list.add(null); // separator
         list.add(a = new BringToFrontAction(editor));
         disposables.add(a);
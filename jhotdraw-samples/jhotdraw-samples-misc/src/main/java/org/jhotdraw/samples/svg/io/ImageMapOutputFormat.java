@@ -18,9 +18,6 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -41,6 +38,7 @@ import org.jhotdraw.samples.svg.figures.SVGRectFigure;
 import org.jhotdraw.samples.svg.figures.SVGTextAreaFigure;
 import org.jhotdraw.samples.svg.figures.SVGTextFigure;
 import org.jhotdraw.util.*;
+import org.jhotdraw.xml.DocumentBuilderPool;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
@@ -135,15 +133,7 @@ public class ImageMapOutputFormat implements OutputFormat {
             AffineTransform drawingTransform, Dimension imageSize) throws IOException {
         this.drawingTransform = (drawingTransform == null) ? new AffineTransform() : drawingTransform;
         this.bounds = (imageSize == null) ? new Rectangle(0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE) : new Rectangle(0, 0, imageSize.width, imageSize.height);
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder dBuilder;
-        try {
-            dBuilder = dbFactory.newDocumentBuilder();
-        } catch (ParserConfigurationException ex) {
-            Logger.getLogger(ImageMapOutputFormat.class.getName()).log(Level.SEVERE, null, ex);
-            throw new IOException(ex);
-        }
-        Element document = dBuilder.newDocument().createElement("map");
+        Element document = DocumentBuilderPool.newDocument().createElement("map");
         // Note: Image map elements need to be written from front to back
         for (Figure f : new ReversedList<Figure>(figures)) {
             writeElement(document, f);
@@ -0,0 +1,649 @@
+/*
+ * @(#)SVGElementWriter.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.samples.svg.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import org.jhotdraw.io.Base64;
+
+/**
+ * Writes XML elements of a SVG document directly into a character buffer,
+ * without building a DOM tree first.
+ * <p>
+ * The output is the same as if the elements had been built with the DOM and
+ * serialized with a {@code javax.xml.transform.Transformer}: the attributes
+ * of an element are sorted by name, namespace declarations come first,
+ * elements without content are written as empty-element tags, and the
+ * same characters are escaped.
+ * <p>
+ * Attribute values are composed in a reusable buffer with
+ * {@link #beginValue}, the {@code append} methods and {@link #endValue}.
+ * Numbers are formatted without creating intermediate strings. Binary data
+ * is not encoded into the buffer, but directly into the output, when the
+ * start tag is written.
+ * <p>
+ * If a writer is specified, the buffer is written to it whenever it is full.
+ * Otherwise the buffer grows, and can be appended to another element writer
+ * with {@link #append(SVGElementWriter)}. This is used for encoding parts of
+ * a document concurrently.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public final class SVGElementWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * The attribute value buffer is discarded after use, if it is larger
+     * than this.
+     */
+    private static final int MAX_RETAINED_VALUE_BUFFER = 1 << 16;
+    /**
+     * Binary data is encoded in chunks of this many bytes. The size is a
+     * multiple of the 57 bytes which are encoded into a line of Base64.
+     */
+    private static final int BASE64_CHUNK_SIZE = 57 * 64;
+    /**
+     * Powers of ten which are used for formatting numbers.
+     */
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+    private final Writer writer;
+    private final boolean isPrettyPrint;
+    private char[] buf;
+    private int len;
+    /**
+     * Stack of the open elements.
+     */
+    private String[] elements = new String[16];
+    /**
+     * Whether the open elements have child elements.
+     */
+    private boolean[] hasChildElements = new boolean[16];
+    private int depth;
+    /**
+     * The depth of the first element which is written by this writer.
+     */
+    private final int baseDepth;
+    private boolean isStartTagOpen;
+    /**
+     * Attributes of the open start tag. The values are stored as ranges
+     * in attrBuf.
+     */
+    private String[] attrNames = new String[16];
+    private int[] attrStart = new int[16];
+    private int[] attrEnd = new int[16];
+    private int attrCount;
+    private char[] attrBuf = new char[1024];
+    private int attrLen;
+    private int valueStart = -1;
+    /**
+     * Binary data in the attribute values. Each binary takes up one
+     * placeholder character in attrBuf, at the position in binaryPos.
+     * The positions are ascending.
+     */
+    private byte[][] binaries = new byte[4][];
+    private int[] binaryPos = new int[4];
+    private int binaryCount;
+    private char[] base64Buf;
+
+    /**
+     * Creates an element writer which writes to the specified writer.
+     */
+    public SVGElementWriter(Writer writer, boolean isPrettyPrint) {
+        this.writer = writer;
+        this.isPrettyPrint = isPrettyPrint;
+        this.baseDepth = 0;
+        this.buf = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Creates an element writer which writes into a growing buffer.
+     *
+     * @param baseDepth The depth of the elements in the document, which
+     * will be written by this writer.
+     */
+    public SVGElementWriter(int baseDepth, boolean isPrettyPrint) {
+        this.writer = null;
+        this.isPrettyPrint = isPrettyPrint;
+        this.baseDepth = baseDepth;
+        this.buf = new char[BUFFER_SIZE];
+    }
+
+    public boolean isPrettyPrint() {
+        return isPrettyPrint;
+    }
+
+    /**
+     * Writes characters without escaping them. This is used for the XML
+     * declaration.
+     */
+    public void writeRaw(String str) throws IOException {
+        closeStartTag();
+        write(str);
+    }
+
+    /**
+     * Writes the start tag of an element. The start tag remains open
+     * until content is written, so that attributes can be added to it.
+     */
+    public void startElement(String name) throws IOException {
+        if (depth > 0) {
+            hasChildElements[depth - 1] = true;
+        }
+        closeStartTag();
+        if (isPrettyPrint && baseDepth + depth > 0) {
+            ensureCapacity(1);
+            buf[len++] = '\n';
+        }
+        if (depth == elements.length) {
+            elements = Arrays.copyOf(elements, depth * 2);
+            hasChildElements = Arrays.copyOf(hasChildElements, depth * 2);
+        }
+        elements[depth] = name;
+        hasChildElements[depth] = false;
+        depth++;
+        isStartTagOpen = true;
+        attrCount = 0;
+        attrLen = 0;
+        clearBinaries(0);
+    }
+
+    /**
+     * Writes the end tag of the current element.
+     */
+    public void endElement() throws IOException {
+        boolean isEmpty = isStartTagOpen;
+        if (isEmpty) {
+            writeStartTag();
+            ensureCapacity(2);
+            buf[len++] = '/';
+            buf[len++] = '>';
+            isStartTagOpen = false;
+        }
+        depth--;
+        String name = elements[depth];
+        elements[depth] = null;
+        if (!isEmpty) {
+            ensureCapacity(name.length() + 4);
+            if (isPrettyPrint && hasChildElements[depth]) {
+                buf[len++] = '\n';
+            }
+            buf[len++] = '<';
+            buf[len++] = '/';
+            name.getChars(0, name.length(), buf, len);
+            len += name.length();
+            buf[len++] = '>';
+        }
+        if (writer != null && len >= BUFFER_SIZE / 2) {
+            writer.write(buf, 0, len);
+            len = 0;
+        }
+    }
+
+    /**
+     * Writes text content into the current element.
+     */
+    public void text(String str) throws IOException {
+        if (str.isEmpty()) {
+            return;
+        }
+        closeStartTag();
+        for (int i = 0, n = str.length(); i < n; i++) {
+            char c = str.charAt(i);
+            switch (c) {
+                case '&':
+                    write("&amp;");
+                    break;
+                case '<':
+                    write("&lt;");
+                    break;
+                case '>':
+                    write("&gt;");
+                    break;
+                case '\n':
+                case '\t':
+                    ensureCapacity(1);
+                    buf[len++] = c;
+                    break;
+                default:
+                    if (c < 0x20 || Character.isSurrogate(c)) {
+                        writeCharRef(c);
+                    } else {
+                        ensureCapacity(1);
+                        buf[len++] = c;
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Adds an attribute to the open start tag. Does nothing if the value is
+     * equal to the default value.
+     */
+    public void attribute(String name, String value, String defaultValue) {
+        if (!value.equals(defaultValue)) {
+            beginValue();
+            append(value);
+            endValue(name, null);
+        }
+    }
+
+    /**
+     * Adds an attribute to the open start tag. Does nothing if the value is
+     * equal to the default value.
+     */
+    public void attribute(String name, double value, double defaultValue) {
+        if (value != defaultValue) {
+            beginValue();
+            appendNumber(value);
+            endValue(name, null);
+        }
+    }
+
+    /**
+     * Begins to compose an attribute value.
+     */
+    public void beginValue() {
+        valueStart = attrLen;
+    }
+
+    /**
+     * Appends a character to the attribute value.
+     */
+    public void append(char c) {
+        ensureValueCapacity(1);
+        attrBuf[attrLen++] = c;
+    }
+
+    /**
+     * Appends a string to the attribute value.
+     */
+    public void append(String str) {
+        ensureValueCapacity(str.length());
+        str.getChars(0, str.length(), attrBuf, attrLen);
+        attrLen += str.length();
+    }
+
+    /**
+     * Appends a number with float precision to the attribute value.
+     */
+    public void appendNumber(double number) {
+        ensureValueCapacity(32);
+        attrLen = formatNumber(number, attrBuf, attrLen);
+    }
+
+    /**
+     * Appends binary data in Base64 notation to the attribute value.
+     * Lines are broken like in {@link Base64#encodeBytes(byte[])}.
+     * <p>
+     * The data is not copied. It is encoded directly into the output when
+     * the start tag is written, and must not be changed until then.
+     */
+    public void appendBase64(byte[] data) {
+        if (binaryCount == binaries.length) {
+            binaries = Arrays.copyOf(binaries, binaryCount * 2);
+            binaryPos = Arrays.copyOf(binaryPos, binaryCount * 2);
+        }
+        binaries[binaryCount] = data;
+        binaryPos[binaryCount] = attrLen;
+        binaryCount++;
+        // placeholder
+        append('\0');
+    }
+
+    /**
+     * Removes the binary data at and after the specified position in the
+     * attribute buffer.
+     */
+    private void clearBinaries(int start) {
+        while (binaryCount > 0 && binaryPos[binaryCount - 1] >= start) {
+            binaries[--binaryCount] = null;
+        }
+    }
+
+    /**
+     * Returns the index of the first binary at or after the specified
+     * position in the attribute buffer.
+     */
+    private int indexOfBinary(int start) {
+        int i = Arrays.binarySearch(binaryPos, 0, binaryCount, start);
+        return (i < 0) ? -i - 1 : i;
+    }
+
+    /**
+     * Returns the attribute value in the specified range of the attribute
+     * buffer, with binary data in Base64 notation.
+     */
+    private String valueToString(int start, int end) {
+        int b = indexOfBinary(start);
+        if (b == binaryCount || binaryPos[b] >= end) {
+            return new String(attrBuf, start, end - start);
+        }
+        StringBuilder str = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            if (b < binaryCount && binaryPos[b] == i) {
+                str.append(Base64.encodeBytes(binaries[b++]));
+            } else {
+                str.append(attrBuf[i]);
+            }
+        }
+        return str.toString();
+    }
+
+    /**
+     * Ends the attribute value and adds it as an attribute to the open start
+     * tag. Does nothing if the value is equal to the default value.
+     */
+    public void endValue(String name, String defaultValue) {
+        int start = valueStart;
+        valueStart = -1;
+        if (defaultValue != null && contentEquals(start, defaultValue)) {
+            attrLen = start;
+            clearBinaries(start);
+            return;
+        }
+        for (int i = 0; i < attrCount; i++) {
+            if (attrNames[i].equals(name)) {
+                attrStart[i] = start;
+                attrEnd[i] = attrLen;
+                return;
+            }
+        }
+        if (attrCount == attrNames.length) {
+            attrNames = Arrays.copyOf(attrNames, attrCount * 2);
+            attrStart = Arrays.copyOf(attrStart, attrCount * 2);
+            attrEnd = Arrays.copyOf(attrEnd, attrCount * 2);
+        }
+        attrNames[attrCount] = name;
+        attrStart[attrCount] = start;
+        attrEnd[attrCount] = attrLen;
+        attrCount++;
+    }
+
+    /**
+     * Ends the attribute value and returns it as a string, instead of adding
+     * it to the open start tag.
+     */
+    public String endValue() {
+        String value = valueToString(valueStart, attrLen);
+        attrLen = valueStart;
+        clearBinaries(valueStart);
+        valueStart = -1;
+        return value;
+    }
+
+    private boolean contentEquals(int start, String str) {
+        int b = indexOfBinary(start);
+        if (b < binaryCount && binaryPos[b] < attrLen) {
+            return valueToString(start, attrLen).equals(str);
+        }
+        if (attrLen - start != str.length()) {
+            return false;
+        }
+        for (int i = 0, n = str.length(); i < n; i++) {
+            if (attrBuf[start + i] != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends the content of an element writer, which has been created with
+     * a base depth, to this writer.
+     */
+    public void append(SVGElementWriter that) throws IOException {
+        if (depth > 0) {
+            hasChildElements[depth - 1] = true;
+        }
+        closeStartTag();
+        if (writer != null && len + that.len > buf.length) {
+            flushBuffer();
+            if (that.len > buf.length) {
+                writer.write(that.buf, 0, that.len);
+                return;
+            }
+        }
+        ensureCapacity(that.len);
+        System.arraycopy(that.buf, 0, buf, len, that.len);
+        len += that.len;
+    }
+
+    /**
+     * Writes the buffered characters to the writer, and flushes the writer.
+     */
+    public void flush() throws IOException {
+        closeStartTag();
+        flushBuffer();
+        writer.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (len > 0) {
+            writer.write(buf, 0, len);
+            len = 0;
+        }
+    }
+
+    private void closeStartTag() throws IOException {
+        if (isStartTagOpen) {
+            writeStartTag();
+            ensureCapacity(1);
+            buf[len++] = '>';
+            isStartTagOpen = false;
+        }
+    }
+
+    /**
+     * Writes the start tag without the closing bracket.
+     */
+    private void writeStartTag() throws IOException {
+        String name = elements[depth - 1];
+        ensureCapacity(name.length() + 1);
+        buf[len++] = '<';
+        name.getChars(0, name.length(), buf, len);
+        len += name.length();
+        sortAttributes();
+        for (int i = 0; i < attrCount; i++) {
+            String attrName = attrNames[i];
+            ensureCapacity(attrName.length() + 4);
+            buf[len++] = ' ';
+            attrName.getChars(0, attrName.length(), buf, len);
+            len += attrName.length();
+            buf[len++] = '=';
+            buf[len++] = '"';
+            int b = indexOfBinary(attrStart[i]);
+            for (int j = attrStart[i], end = attrEnd[i]; j < end; j++) {
+                if (b < binaryCount && binaryPos[b] == j) {
+                    writeBase64(binaries[b++]);
+                    continue;
+                }
+                char c = attrBuf[j];
+                switch (c) {
+                    case '&':
+                        write("&amp;");
+                        break;
+                    case '<':
+                        write("&lt;");
+                        break;
+                    case '>':
+                        write("&gt;");
+                        break;
+                    case '"':
+                        write("&quot;");
+                        break;
+                    default:
+                        if (c < 0x20 || Character.isSurrogate(c)) {
+                            writeCharRef(c);
+                        } else {
+                            ensureCapacity(1);
+                            buf[len++] = c;
+                        }
+                        break;
+                }
+            }
+            ensureCapacity(1);
+            buf[len++] = '"';
+            attrNames[i] = null;
+        }
+        attrCount = 0;
+        attrLen = 0;
+        clearBinaries(0);
+        if (attrBuf.length > MAX_RETAINED_VALUE_BUFFER) {
+            // Don't hold on to the buffer of a large image
+            attrBuf = new char[1024];
+        }
+    }
+
+    /**
+     * Sorts the attributes by name. Namespace declarations come first.
+     * We use an insertion sort, because elements only have a few attributes.
+     */
+    private void sortAttributes() {
+        for (int i = 1; i < attrCount; i++) {
+            String name = attrNames[i];
+            int start = attrStart[i];
+            int end = attrEnd[i];
+            int j = i - 1;
+            while (j >= 0 && compareNames(attrNames[j], name) > 0) {
+                attrNames[j + 1] = attrNames[j];
+                attrStart[j + 1] = attrStart[j];
+                attrEnd[j + 1] = attrEnd[j];
+                j--;
+            }
+            attrNames[j + 1] = name;
+            attrStart[j + 1] = start;
+            attrEnd[j + 1] = end;
+        }
+    }
+
+    private static int compareNames(String a, String b) {
+        boolean isNamespaceA = a.startsWith("xmlns");
+        boolean isNamespaceB = b.startsWith("xmlns");
+        if (isNamespaceA != isNamespaceB) {
+            return isNamespaceA ? -1 : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    /**
+     * Encodes binary data in Base64 notation into the output buffer. Line
+     * breaks are escaped, as in attribute values.
+     */
+    private void writeBase64(byte[] data) throws IOException {
+        if (base64Buf == null) {
+            base64Buf = new char[Base64.getEncodedLength(BASE64_CHUNK_SIZE, Base64.NO_OPTIONS)];
+        }
+        for (int off = 0; off < data.length; off += BASE64_CHUNK_SIZE) {
+            int n = Base64.encode(data, off, Math.min(BASE64_CHUNK_SIZE, data.length - off), base64Buf, 0, Base64.NO_OPTIONS);
+            for (int i = 0; i < n; i++) {
+                char c = base64Buf[i];
+                if (c == '\n') {
+                    writeCharRef(c);
+                } else {
+                    ensureCapacity(1);
+                    buf[len++] = c;
+                }
+            }
+        }
+    }
+
+    private void write(String str) throws IOException {
+        ensureCapacity(str.length());
+        str.getChars(0, str.length(), buf, len);
+        len += str.length();
+    }
+
+    private void writeCharRef(char c) throws IOException {
+        ensureCapacity(8);
+        buf[len++] = '&';
+        buf[len++] = '#';
+        len = formatInt(c, buf, len);
+        buf[len++] = ';';
+    }
+
+    private void ensureCapacity(int n) throws IOException {
+        if (len + n > buf.length) {
+            if (writer != null) {
+                // Large attribute values and texts are written in pieces
+                writer.write(buf, 0, len);
+                len = 0;
+                if (n <= buf.length) {
+                    return;
+                }
+            }
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + n));
+        }
+    }
+
+    private void ensureValueCapacity(int n) {
+        if (attrLen + n > attrBuf.length) {
+            attrBuf = Arrays.copyOf(attrBuf, Math.max(attrBuf.length * 2, attrLen + n));
+        }
+    }
+
+    /**
+     * Formats a number with float precision into the specified buffer.
+     * <p>
+     * The result is the same as of {@code Float.toString((float) number)}
+     * without a trailing ".0". Numbers with a magnitude from 10<sup>-3</sup>
+     * to 10<sup>7</sup> are formatted with the shortest decimal which
+     * rounds to the same float. Other numbers are formatted with
+     * {@code Float.toString}.
+     *
+     * @return the new length of the buffer
+     */
+    static int formatNumber(double number, char[] dest, int off) {
+        float f = (float) number;
+        float abs = Math.abs(f);
+        if (abs >= 1e-3f && abs < 1e7f) {
+            for (int fractionDigits = 0; fractionDigits < POW10.length; fractionDigits++) {
+                double scale = POW10[fractionDigits];
+                long digits = (long) Math.rint(abs * scale);
+                if ((float) (digits / scale) == abs) {
+                    if (f < 0) {
+                        dest[off++] = '-';
+                    }
+                    long pow = (long) scale;
+                    off = formatInt(digits / pow, dest, off);
+                    if (fractionDigits > 0) {
+                        dest[off++] = '.';
+                        long fraction = digits % pow;
+                        int end = off + fractionDigits;
+                        for (int i = end - 1; i >= off; i--) {
+                            dest[i] = (char) ('0' + fraction % 10);
+                            fraction /= 10;
+                        }
+                        off = end;
+                    }
+                    return off;
+                }
+            }
+        }
+        String str = Float.toString(f);
+        int n = str.endsWith(".0") ? str.length() - 2 : str.length();
+        str.getChars(0, n, dest, off);
+        return off + n;
+    }
+
+    private static int formatInt(long value, char[] dest, int off) {
+        int n = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            n++;
+        }
+        for (int i = off + n - 1; i >= off; i--) {
+            dest[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return off + n;
+    }
+}
@@ -19,33 +19,27 @@ import java.io.*;
 import java.net.*;
 import java.text.ParseException;
 import java.util.*;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import javax.imageio.*;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultStyledDocument;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import org.jhotdraw.draw.*;
 import org.jhotdraw.draw.io.InputFormat;
 import org.jhotdraw.formatter.FontFormatter;
 import org.jhotdraw.geom.BezierPath;
 import org.jhotdraw.io.Base64;
-import org.jhotdraw.io.StreamPosTokenizer;
 import org.jhotdraw.samples.svg.Gradient;
 import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
 import org.jhotdraw.samples.svg.SVGAttributeKeys.TextAnchor;
 import static org.jhotdraw.samples.svg.SVGConstants.*;
 import org.jhotdraw.samples.svg.figures.SVGFigure;
 import org.jhotdraw.util.LocaleUtil;
+import org.jhotdraw.xml.DocumentBuilderPool;
 import org.jhotdraw.xml.css.CSSParser;
 import org.jhotdraw.xml.css.StyleManager;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 /**
  * SVGInputFormat.
@@ -87,10 +81,9 @@ public class SVGInputFormat implements InputFormat {
      */
     private HashMap<Element, Object> elementObjects;
     /**
-     * Tokenizer for parsing SVG path expressions.
-     *
+     * Scanner for parsing SVG path expressions, points and numbers.
      */
-    private StreamPosTokenizer toPathTokenizer;
+    private final SVGScanner scanner = new SVGScanner();
     /**
      * FontFormatter for parsing font family names.
      */
@@ -223,23 +216,7 @@ public class SVGInputFormat implements InputFormat {
             start = System.currentTimeMillis();
         }
         this.figures = new LinkedList<Figure>();
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder;
-        try {
-            builder = factory.newDocumentBuilder();
-        } catch (ParserConfigurationException ex) {
-            Logger.getLogger(SVGInputFormat.class.getName()).log(Level.SEVERE, null, ex);
-            throw new IOException(ex);
-        }
-        if (DEBUG) {
-            System.out.println("SVGInputFormat parser created " + (System.currentTimeMillis() - start));
-        }
-        try {
-            document = (Element) builder.parse(in);
-        } catch (SAXException ex) {
-            Logger.getLogger(SVGInputFormat.class.getName()).log(Level.SEVERE, null, ex);
-            throw new IOException(ex);
-        }
+        document = DocumentBuilderPool.parse(in).getDocumentElement();
         if (DEBUG) {
             System.out.println("SVGInputFormat document created " + (System.currentTimeMillis() - start));
         }
@@ -687,7 +664,7 @@ public class SVGInputFormat implements InputFormat {
                 int semicolonPos = href.indexOf(';');
                 if (semicolonPos != -1) {
                     if (href.indexOf(";base64,") == semicolonPos) {
-                        imageData = Base64.decode(href.substring(semicolonPos + 8));
+                        imageData = Base64.decode(href, semicolonPos + 8, href.length());
                     } else {
                         throw new IOException("Unsupported encoding in data href in image element:" + href);
                     }
@@ -1257,34 +1234,54 @@ public class SVGInputFormat implements InputFormat {
         if (str == null || str.length() == 0 || str.equals("none")) {
             return 0d;
         }
+        int end = str.length();
         if (str.endsWith("%")) {
-            str = str.substring(0, str.length() - 1);
+            end -= 1;
             scaleFactor = percentFactor;
         } else if (str.endsWith("px")) {
-            str = str.substring(0, str.length() - 2);
+            end -= 2;
         } else if (str.endsWith("pt")) {
-            str = str.substring(0, str.length() - 2);
+            end -= 2;
             scaleFactor = 1.25;
         } else if (str.endsWith("pc")) {
-            str = str.substring(0, str.length() - 2);
+            end -= 2;
             scaleFactor = 15;
         } else if (str.endsWith("mm")) {
-            str = str.substring(0, str.length() - 2);
+            end -= 2;
             scaleFactor = 3.543307;
         } else if (str.endsWith("cm")) {
-            str = str.substring(0, str.length() - 2);
+            end -= 2;
             scaleFactor = 35.43307;
         } else if (str.endsWith("in")) {
-            str = str.substring(0, str.length() - 2);
+            end -= 2;
             scaleFactor = 90;
         } else if (str.endsWith("em")) {
-            str = str.substring(0, str.length() - 2);
+            end -= 2;
             // XXX - This doesn't work
             scaleFactor = toLength(elem, readAttribute(elem, "font-size", "0"), percentFactor);
         } else {
             scaleFactor = 1d;
         }
-        return Double.parseDouble(str) * scaleFactor;
+        return parseDouble(str, end) * scaleFactor;
+    }
+
+    /**
+     * Parses the number in the specified region of a string.
+     * <p>
+     * Plain numbers are parsed by the scanner. Other numbers, such as
+     * "NaN" or numbers with leading white space, are parsed by
+     * {@code Double.parseDouble}.
+     *
+     * @throws NumberFormatException if the region does not contain a number
+     */
+    private double parseDouble(String str, int end) {
+        if (end > 0 && str.charAt(0) > ' ' && str.charAt(0) != ',') {
+            scanner.reset(str, 0, end);
+            if (scanner.nextNumber() && scanner.getPosition() == end) {
+                return scanner.getNumber();
+            }
+        }
+        return Double.parseDouble(str.substring(0, end));
     }
 
     /**
@@ -1339,6 +1336,21 @@ public class SVGInputFormat implements InputFormat {
      * as specified in http://www.w3.org/TR/SVGMobile12/shapes.html#PointsBNF
      */
     private Point2D.Double[] toPoints(Element elem, String str) throws IOException {
+        SVGScanner s = scanner;
+        s.reset(str);
+        ArrayList<Point2D.Double> list = new ArrayList<Point2D.Double>();
+        while (s.nextNumber()) {
+            double x = s.getNumber();
+            if (!s.nextNumber()) {
+                break;
+            }
+            list.add(new Point2D.Double(x, s.getNumber()));
+        }
+        if (s.isAtEnd()) {
+            return list.toArray(new Point2D.Double[list.size()]);
+        }
+
+        // The points have units, or are malformed
         StringTokenizer tt = new StringTokenizer(str, " ,");
         Point2D.Double[] points = new Point2D.Double[tt.countTokens() / 2];
         for (int i = 0; i < points.length; i++) {
@@ -1357,34 +1369,21 @@ public class SVGInputFormat implements InputFormat {
      * http://www.w3.org/TR/SVG/paths.html#PathDataEllipticalArcCommands
      */
     private BezierPath[] toPath(Element elem, String str) throws IOException {
-        LinkedList<BezierPath> paths = new LinkedList<BezierPath>();
+        ArrayList<BezierPath> paths = new ArrayList<BezierPath>();
         BezierPath path = null;
         Point2D.Double p = new Point2D.Double();
         Point2D.Double c1 = new Point2D.Double();
         Point2D.Double c2 = new Point2D.Double();
-        StreamPosTokenizer tt;
-        if (toPathTokenizer == null) {
-            tt = new StreamPosTokenizer(new StringReader(str));
-            tt.resetSyntax();
-            tt.parseNumbers();
-            tt.parseExponents();
-            tt.parsePlusAsNumber();
-            tt.whitespaceChars(0, ' ');
-            tt.whitespaceChars(',', ',');
-            toPathTokenizer = tt;
-        } else {
-            tt = toPathTokenizer;
-            tt.setReader(new StringReader(str));
-        }
+        SVGScanner tt = scanner;
+        tt.reset(str);
         char nextCommand = 'M';
         char command = 'M';
         Commands:
-        while (tt.nextToken() != StreamPosTokenizer.TT_EOF) {
-            if (tt.ttype > 0) {
-                command = (char) tt.ttype;
-            } else {
+        while (!tt.isAtEnd()) {
+            if (tt.isNumberAhead()) {
                 command = nextCommand;
-                tt.pushBack();
+            } else {
+                command = (char) tt.next();
             }
             BezierPath.Node node;
             switch (command) {
@@ -1394,14 +1393,8 @@ public class SVGInputFormat implements InputFormat {
                         paths.add(path);
                     }
                     path = new BezierPath();
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'M' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'M' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
+                    p.x = nextNumber(tt, "x coordinate missing for 'M'", str);
+                    p.y = nextNumber(tt, "y coordinate missing for 'M'", str);
                     path.moveTo(p.x, p.y);
                     nextCommand = 'L';
                     break;
@@ -1411,14 +1404,8 @@ public class SVGInputFormat implements InputFormat {
                         paths.add(path);
                     }
                     path = new BezierPath();
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'm' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'm' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
+                    p.x += nextNumber(tt, "dx coordinate missing for 'm'", str);
+                    p.y += nextNumber(tt, "dy coordinate missing for 'm'", str);
                     path.moveTo(p.x, p.y);
                     nextCommand = 'l';
                     break;
@@ -1446,121 +1433,61 @@ public class SVGInputFormat implements InputFormat {
                     break;
                 case 'L':
                     // absolute-lineto x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'L' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'L' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
+                    p.x = nextNumber(tt, "x coordinate missing for 'L'", str);
+                    p.y = nextNumber(tt, "y coordinate missing for 'L'", str);
                     path.lineTo(p.x, p.y);
                     nextCommand = 'L';
                     break;
                 case 'l':
                     // relative-lineto dx dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'l' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'l' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
+                    p.x += nextNumber(tt, "dx coordinate missing for 'l'", str);
+                    p.y += nextNumber(tt, "dy coordinate missing for 'l'", str);
                     path.lineTo(p.x, p.y);
                     nextCommand = 'l';
                     break;
                 case 'H':
                     // absolute-horizontal-lineto x
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'H' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
+                    p.x = nextNumber(tt, "x coordinate missing for 'H'", str);
                     path.lineTo(p.x, p.y);
                     nextCommand = 'H';
                     break;
                 case 'h':
                     // relative-horizontal-lineto dx
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'h' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
+                    p.x += nextNumber(tt, "dx coordinate missing for 'h'", str);
                     path.lineTo(p.x, p.y);
                     nextCommand = 'h';
                     break;
                 case 'V':
                     // absolute-vertical-lineto y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'V' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
+                    p.y = nextNumber(tt, "y coordinate missing for 'V'", str);
                     path.lineTo(p.x, p.y);
                     nextCommand = 'V';
                     break;
                 case 'v':
                     // relative-vertical-lineto dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'v' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
+                    p.y += nextNumber(tt, "dy coordinate missing for 'v'", str);
                     path.lineTo(p.x, p.y);
                     nextCommand = 'v';
                     break;
                 case 'C':
                     // absolute-curveto x1 y1 x2 y2 x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x1 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y1 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x2 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y2 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
+                    c1.x = nextNumber(tt, "x1 coordinate missing for 'C'", str);
+                    c1.y = nextNumber(tt, "y1 coordinate missing for 'C'", str);
+                    c2.x = nextNumber(tt, "x2 coordinate missing for 'C'", str);
+                    c2.y = nextNumber(tt, "y2 coordinate missing for 'C'", str);
+                    p.x = nextNumber(tt, "x coordinate missing for 'C'", str);
+                    p.y = nextNumber(tt, "y coordinate missing for 'C'", str);
                     path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
                     nextCommand = 'C';
                     break;
                 case 'c':
                     // relative-curveto dx1 dy1 dx2 dy2 dx dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx1 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy1 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx2 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy2 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
+                    c1.x = p.x + nextNumber(tt, "dx1 coordinate missing for 'c'", str);
+                    c1.y = p.y + nextNumber(tt, "dy1 coordinate missing for 'c'", str);
+                    c2.x = p.x + nextNumber(tt, "dx2 coordinate missing for 'c'", str);
+                    c2.y = p.y + nextNumber(tt, "dy2 coordinate missing for 'c'", str);
+                    p.x += nextNumber(tt, "dx coordinate missing for 'c'", str);
+                    p.y += nextNumber(tt, "dy coordinate missing for 'c'", str);
                     path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
                     nextCommand = 'c';
                     break;
@@ -1569,22 +1496,10 @@ public class SVGInputFormat implements InputFormat {
                     node = path.get(path.size() - 1);
                     c1.x = node.x[0] * 2d - node.x[1];
                     c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x2 coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y2 coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
+                    c2.x = nextNumber(tt, "x2 coordinate missing for 'S'", str);
+                    c2.y = nextNumber(tt, "y2 coordinate missing for 'S'", str);
+                    p.x = nextNumber(tt, "x coordinate missing for 'S'", str);
+                    p.y = nextNumber(tt, "y coordinate missing for 'S'", str);
                     path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
                     nextCommand = 'S';
                     break;
@@ -1593,64 +1508,28 @@ public class SVGInputFormat implements InputFormat {
                     node = path.get(path.size() - 1);
                     c1.x = node.x[0] * 2d - node.x[1];
                     c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx2 coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy2 coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
+                    c2.x = p.x + nextNumber(tt, "dx2 coordinate missing for 's'", str);
+                    c2.y = p.y + nextNumber(tt, "dy2 coordinate missing for 's'", str);
+                    p.x += nextNumber(tt, "dx coordinate missing for 's'", str);
+                    p.y += nextNumber(tt, "dy coordinate missing for 's'", str);
                     path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
                     nextCommand = 's';
                     break;
                 case 'Q':
                     // absolute-quadto x1 y1 x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x1 coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y1 coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
+                    c1.x = nextNumber(tt, "x1 coordinate missing for 'Q'", str);
+                    c1.y = nextNumber(tt, "y1 coordinate missing for 'Q'", str);
+                    p.x = nextNumber(tt, "x coordinate missing for 'Q'", str);
+                    p.y = nextNumber(tt, "y coordinate missing for 'Q'", str);
                     path.quadTo(c1.x, c1.y, p.x, p.y);
                     nextCommand = 'Q';
                     break;
                 case 'q':
                     // relative-quadto dx1 dy1 dx dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx1 coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy1 coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
+                    c1.x = p.x + nextNumber(tt, "dx1 coordinate missing for 'q'", str);
+                    c1.y = p.y + nextNumber(tt, "dy1 coordinate missing for 'q'", str);
+                    p.x += nextNumber(tt, "dx coordinate missing for 'q'", str);
+                    p.y += nextNumber(tt, "dy coordinate missing for 'q'", str);
                     path.quadTo(c1.x, c1.y, p.x, p.y);
                     nextCommand = 'q';
                     break;
@@ -1659,14 +1538,8 @@ public class SVGInputFormat implements InputFormat {
                     node = path.get(path.size() - 1);
                     c1.x = node.x[0] * 2d - node.x[1];
                     c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'T' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'T' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
+                    p.x = nextNumber(tt, "x coordinate missing for 'T'", str);
+                    p.y = nextNumber(tt, "y coordinate missing for 'T'", str);
                     path.quadTo(c1.x, c1.y, p.x, p.y);
                     nextCommand = 'T';
                     break;
@@ -1675,85 +1548,37 @@ public class SVGInputFormat implements InputFormat {
                     node = path.get(path.size() - 1);
                     c1.x = node.x[0] * 2d - node.x[1];
                     c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 't' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 't' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
+                    p.x += nextNumber(tt, "dx coordinate missing for 't'", str);
+                    p.y += nextNumber(tt, "dy coordinate missing for 't'", str);
                     path.quadTo(c1.x, c1.y, p.x, p.y);
                     nextCommand = 's';
                     break;
                 case 'A': 
                     // absolute-elliptical-arc rx ry x-axis-rotation large-arc-flag sweep-flag x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("rx coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
                     // If rX or rY have negative signs, these are dropped;
                     // the absolute value is used instead.
-                    double rx = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("ry coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    double ry = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x-axis-rotation missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    double xAxisRotation = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("large-arc-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    boolean largeArcFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("sweep-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    boolean sweepFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
+                    double rx = nextNumber(tt, "rx coordinate missing for 'A'", str);
+                    double ry = nextNumber(tt, "ry coordinate missing for 'A'", str);
+                    double xAxisRotation = nextNumber(tt, "x-axis-rotation missing for 'A'", str);
+                    boolean largeArcFlag = nextNumber(tt, "large-arc-flag missing for 'A'", str) != 0;
+                    boolean sweepFlag = nextNumber(tt, "sweep-flag missing for 'A'", str) != 0;
+                    p.x = nextNumber(tt, "x coordinate missing for 'A'", str);
+                    p.y = nextNumber(tt, "y coordinate missing for 'A'", str);
                     path.arcTo(rx, ry, xAxisRotation, largeArcFlag, sweepFlag, p.x, p.y);
                     nextCommand = 'A';
                     break;
                 
                 case 'a': 
                     // absolute-elliptical-arc rx ry x-axis-rotation large-arc-flag sweep-flag x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("rx coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
                     // If rX or rY have negative signs, these are dropped;
                     // the absolute value is used instead.
-                    rx = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("ry coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    ry = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x-axis-rotation missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    xAxisRotation = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("large-arc-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    largeArcFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("sweep-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    sweepFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
+                    rx = nextNumber(tt, "rx coordinate missing for 'A'", str);
+                    ry = nextNumber(tt, "ry coordinate missing for 'A'", str);
+                    xAxisRotation = nextNumber(tt, "x-axis-rotation missing for 'A'", str);
+                    largeArcFlag = nextNumber(tt, "large-arc-flag missing for 'A'", str) != 0;
+                    sweepFlag = nextNumber(tt, "sweep-flag missing for 'A'", str) != 0;
+                    p.x += nextNumber(tt, "x coordinate missing for 'A'", str);
+                    p.y += nextNumber(tt, "y coordinate missing for 'A'", str);
                     path.arcTo(rx, ry, xAxisRotation, largeArcFlag, sweepFlag, p.x, p.y);
                     nextCommand = 'a';
                     break;
@@ -1772,6 +1597,18 @@ public class SVGInputFormat implements InputFormat {
         return paths.toArray(new BezierPath[paths.size()]);
     }
 
+    /**
+     * Scans the next number of a path.
+     *
+     * @param what The description of the number for the error message.
+     */
+    private static double nextNumber(SVGScanner tt, String what, String str) throws IOException {
+        if (!tt.nextNumber()) {
+            throw new IOException(what + " at position " + tt.getPosition() + " in " + str);
+        }
+        return tt.getNumber();
+    }
+
     /* Reads core attributes as listed in
      * http://www.w3.org/TR/SVGMobile12/feature.html#CoreAttribute
      */
@@ -3062,7 +2899,7 @@ public class SVGInputFormat implements InputFormat {
      */
     private double toDouble(Element elem, String value, double defaultValue, double min, double max) throws IOException {
         try {
-            double d = Double.valueOf(value);
+            double d = parseDouble(value, value.length());
             return Math.max(Math.min(d, max), min);
         } catch (NumberFormatException e) {
             return defaultValue;
@@ -3094,101 +2931,79 @@ public class SVGInputFormat implements InputFormat {
     public static AffineTransform toTransform(Element elem, String str) throws IOException {
         AffineTransform t = new AffineTransform();
         if (str != null && !str.equals("none")) {
-            StreamPosTokenizer tt = new StreamPosTokenizer(new StringReader(str));
-            tt.resetSyntax();
-            tt.wordChars('a', 'z');
-            tt.wordChars('A', 'Z');
-            tt.wordChars(128 + 32, 255);
-            tt.whitespaceChars(0, ' ');
-            tt.whitespaceChars(',', ',');
-            tt.parseNumbers();
-            tt.parseExponents();
-            while (tt.nextToken() != StreamPosTokenizer.TT_EOF) {
-                if (tt.ttype != StreamPosTokenizer.TT_WORD) {
+            SVGScanner tt = new SVGScanner();
+            tt.reset(str);
+            while (!tt.isAtEnd()) {
+                if (!tt.nextWord()) {
                     throw new IOException("Illegal transform " + str);
                 }
-                String type = tt.sval;
-                if (tt.nextToken() != '(') {
+                if (tt.next() != '(') {
                     throw new IOException("'(' not found in transform " + str);
                 }
-                if ("matrix".equals(type)) {
+                if (tt.isWord("matrix")) {
                     double[] m = new double[6];
                     for (int i = 0; i < 6; i++) {
-                        if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                            throw new IOException("Matrix value " + i + " not found in transform " + str + " token:" + tt.ttype + " " + tt.sval);
+                        if (!tt.nextNumber()) {
+                            throw new IOException("Matrix value " + i + " not found in transform " + str + " at position " + tt.getPosition());
                         }
-                        m[i] = tt.nval;
+                        m[i] = tt.getNumber();
                     }
                     t.concatenate(new AffineTransform(m));
-                } else if ("translate".equals(type)) {
+                } else if (tt.isWord("translate")) {
                     double tx, ty;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
+                    if (!tt.nextNumber()) {
                         throw new IOException("X-translation value not found in transform " + str);
                     }
-                    tx = tt.nval;
-                    if (tt.nextToken() == StreamPosTokenizer.TT_NUMBER) {
-                        ty = tt.nval;
-                    } else {
-                        tt.pushBack();
-                        ty = 0;
-                    }
+                    tx = tt.getNumber();
+                    ty = tt.nextNumber() ? tt.getNumber() : 0;
                     t.translate(tx, ty);
-                } else if ("scale".equals(type)) {
+                } else if (tt.isWord("scale")) {
                     double sx, sy;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
+                    if (!tt.nextNumber()) {
                         throw new IOException("X-scale value not found in transform " + str);
                     }
-                    sx = tt.nval;
-                    if (tt.nextToken() == StreamPosTokenizer.TT_NUMBER) {
-                        sy = tt.nval;
-                    } else {
-                        tt.pushBack();
-                        sy = sx;
-                    }
+                    sx = tt.getNumber();
+                    sy = tt.nextNumber() ? tt.getNumber() : sx;
                     t.scale(sx, sy);
-                } else if ("rotate".equals(type)) {
+                } else if (tt.isWord("rotate")) {
                     double angle, cx, cy;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
+                    if (!tt.nextNumber()) {
                         throw new IOException("Angle value not found in transform " + str);
                     }
-                    angle = tt.nval;
-                    if (tt.nextToken() == StreamPosTokenizer.TT_NUMBER) {
-                        cx = tt.nval;
-                        if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
+                    angle = tt.getNumber();
+                    if (tt.nextNumber()) {
+                        cx = tt.getNumber();
+                        if (!tt.nextNumber()) {
                             throw new IOException("Y-center value not found in transform " + str);
                         }
-                        cy = tt.nval;
+                        cy = tt.getNumber();
                     } else {
-                        tt.pushBack();
                         cx = cy = 0;
                     }
                     t.rotate(angle * Math.PI / 180d, cx, cy);
-                } else if ("skewX".equals(type)) {
-                    double angle;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
+                } else if (tt.isWord("skewX")) {
+                    if (!tt.nextNumber()) {
                         throw new IOException("Skew angle not found in transform " + str);
                     }
-                    angle = tt.nval;
+                    double angle = tt.getNumber();
                     t.concatenate(new AffineTransform(
                             1, 0, Math.tan(angle * Math.PI / 180), 1, 0, 0));
-                } else if ("skewY".equals(type)) {
-                    double angle;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
+                } else if (tt.isWord("skewY")) {
+                    if (!tt.nextNumber()) {
                         throw new IOException("Skew angle not found in transform " + str);
                     }
-                    angle = tt.nval;
+                    double angle = tt.getNumber();
                     t.concatenate(new AffineTransform(
                             1, Math.tan(angle * Math.PI / 180), 0, 1, 0, 0));
-                } else if ("ref".equals(type)) {
+                } else if (tt.isWord("ref")) {
                     System.err.println("SVGInputFormat warning: ignored ref(...) transform attribute in element " + elem);
-                    while (tt.nextToken() != ')' && tt.ttype != StreamPosTokenizer.TT_EOF) {
+                    while (tt.peek() != ')' && tt.next() != -1) {
                         // ignore tokens between brackets
                     }
-                    tt.pushBack();
                 } else {
-                    throw new IOException("Unknown transform " + type + " in " + str + " in element " + elem);
+                    throw new IOException("Unknown transform " + tt.getWord() + " in " + str + " in element " + elem);
                 }
-                if (tt.nextToken() != ')') {
+                if (tt.next() != ')') {
                     throw new IOException("')' not found in transform " + str);
                 }
             }
@@ -14,29 +14,19 @@ import java.awt.datatransfer.*;
 import java.awt.geom.*;
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
-import javax.swing.text.BadLocationException;
-import javax.swing.text.DefaultStyledDocument;
-import javax.swing.text.StyledDocument;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import org.jhotdraw.datatransfer.InputStreamTransferable;
 import org.jhotdraw.draw.*;
 import org.jhotdraw.draw.AttributeKeys.WindingRule;
 import org.jhotdraw.draw.io.OutputFormat;
 import org.jhotdraw.geom.BezierPath;
-import org.jhotdraw.io.Base64;
 import org.jhotdraw.samples.svg.Gradient;
 import org.jhotdraw.samples.svg.LinearGradient;
 import org.jhotdraw.samples.svg.RadialGradient;
@@ -49,12 +39,16 @@ import org.jhotdraw.samples.svg.figures.SVGPathFigure;
 import org.jhotdraw.samples.svg.figures.SVGRectFigure;
 import org.jhotdraw.samples.svg.figures.SVGTextAreaFigure;
 import org.jhotdraw.samples.svg.figures.SVGTextFigure;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 /**
  * An output format for storing drawings as
  * Scalable Vector Graphics SVG Tiny 1.2.
+ * <p>
+ * The elements are written directly with a {@link SVGElementWriter}.
+ * The output is the same as if the elements had been built with the DOM and
+ * serialized with a {@code javax.xml.transform.Transformer}.
+ * Large drawings are encoded concurrently, in batches of figures which are
+ * written in document order.
  *
  * @author Werner Randelshofer
  * @version $Id$
@@ -65,19 +59,6 @@ public class SVGOutputFormat implements OutputFormat {
      * This is a counter used to create the next unique identification.
      */
     private int nextId;
-    /**
-     * In this hash map we store all elements to which we have assigned
-     * an id.
-     */
-    private HashMap<Element, String> identifiedElements;
-    /**
-     * This element holds all definitions of the SVG file.
-     */
-    private Element defs;
-    /**
-     * Holds the document that is currently being written.
-     */
-    private Element document;
     /**
      * Maps gradients to ID's. We use this, so that we need to store
      * the same gradient only once.
@@ -87,6 +68,14 @@ public class SVGOutputFormat implements OutputFormat {
      * Set this to true for pretty printing.
      */
     private boolean isPrettyPrint;
+    /**
+     * Drawings with at least this many figures are encoded concurrently.
+     */
+    private static final int PARALLEL_THRESHOLD = 128;
+    /**
+     * The number of figures which are encoded by a concurrent task.
+     */
+    private static final int BATCH_SIZE = 32;
     private static final HashMap<Integer, String> STROKE_LINEJOIN;
 
     static {
@@ -133,29 +122,28 @@ public class SVGOutputFormat implements OutputFormat {
         return isPrettyPrint;
     }
 
-    protected void writeElement(Element parent, Figure f) throws IOException {
+    protected void writeElement(SVGElementWriter out, Figure f) throws IOException {
         // Write link attribute as encosing "a" element
-        if (f.get(LINK) != null && f.get(LINK).trim().length() > 0) {
-            Element aElement = parent.getOwnerDocument().createElement("a");
-            aElement.setAttribute("xlink:href", f.get(LINK));
+        boolean isLink = f.get(LINK) != null && f.get(LINK).trim().length() > 0;
+        if (isLink) {
+            out.startElement("a");
+            out.attribute("xlink:href", f.get(LINK), null);
             if (f.get(LINK_TARGET) != null && f.get(LINK).trim().length() > 0) {
-                aElement.setAttribute("target", f.get(LINK_TARGET));
+                out.attribute("target", f.get(LINK_TARGET), null);
             }
-            parent.appendChild(aElement);
-            parent = aElement;
         }
         // Write the actual element
         if (f instanceof SVGEllipseFigure) {
             SVGEllipseFigure ellipse = (SVGEllipseFigure) f;
             if (ellipse.getWidth() == ellipse.getHeight()) {
-                writeCircleElement(parent, ellipse);
+                writeCircleElement(out, ellipse);
             } else {
-                writeEllipseElement(parent, ellipse);
+                writeEllipseElement(out, ellipse);
             }
         } else if (f instanceof SVGGroupFigure) {
-            writeGElement(parent, (SVGGroupFigure) f);
+            writeGElement(out, (SVGGroupFigure) f);
         } else if (f instanceof SVGImageFigure) {
-            writeImageElement(parent, (SVGImageFigure) f);
+            writeImageElement(out, (SVGImageFigure) f);
         } else if (f instanceof SVGPathFigure) {
             SVGPathFigure path = (SVGPathFigure) f;
             if (path.getChildCount() == 1) {
@@ -169,410 +157,388 @@ public class SVGOutputFormat implements OutputFormat {
                 }
                 if (isLinear) {
                     if (bezier.isClosed()) {
-                        writePolygonElement(parent, path);
+                        writePolygonElement(out, path);
                     } else {
                         if (bezier.getNodeCount() == 2) {
-                            writeLineElement(parent, path);
+                            writeLineElement(out, path);
                         } else {
-                            writePolylineElement(parent, path);
+                            writePolylineElement(out, path);
                         }
                     }
                 } else {
-                    writePathElement(parent, path);
+                    writePathElement(out, path);
                 }
             } else {
-                writePathElement(parent, path);
+                writePathElement(out, path);
             }
         } else if (f instanceof SVGRectFigure) {
-            writeRectElement(parent, (SVGRectFigure) f);
+            writeRectElement(out, (SVGRectFigure) f);
         } else if (f instanceof SVGTextFigure) {
-            writeTextElement(parent, (SVGTextFigure) f);
+            writeTextElement(out, (SVGTextFigure) f);
         } else if (f instanceof SVGTextAreaFigure) {
-            writeTextAreaElement(parent, (SVGTextAreaFigure) f);
+            writeTextAreaElement(out, (SVGTextAreaFigure) f);
         } else {
             System.out.println("Unable to write: " + f);
         }
+        if (isLink) {
+            out.endElement();
+        }
     }
 
-    protected void writeCircleElement(Element parent, SVGEllipseFigure f) throws IOException {
-        parent.appendChild(
-                createCircle(
-                        document,
-                        f.getX() + f.getWidth() / 2d,
-                        f.getY() + f.getHeight() / 2d,
-                        f.getWidth() / 2d,
-                        f.getAttributes()));
+    protected void writeCircleElement(SVGElementWriter out, SVGEllipseFigure f) throws IOException {
+        writeCircle(
+                out,
+                f.getX() + f.getWidth() / 2d,
+                f.getY() + f.getHeight() / 2d,
+                f.getWidth() / 2d,
+                f.getAttributes());
     }
 
-    protected Element createCircle(Element doc,
+    protected void writeCircle(SVGElementWriter out,
             double cx, double cy, double r,
             Map<AttributeKey<?>, Object> attributes) throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("circle");
-        writeAttribute(elem, "cx", cx, 0d);
-        writeAttribute(elem, "cy", cy, 0d);
-        writeAttribute(elem, "r", r, 0d);
-        writeShapeAttributes(elem, attributes);
-        writeOpacityAttribute(elem, attributes);
-        writeTransformAttribute(elem, attributes);
-        return elem;
+        out.startElement("circle");
+        writeAttribute(out, "cx", cx, 0d);
+        writeAttribute(out, "cy", cy, 0d);
+        writeAttribute(out, "r", r, 0d);
+        writeShapeAttributes(out, attributes);
+        writeOpacityAttribute(out, attributes);
+        writeTransformAttribute(out, attributes);
+        out.endElement();
     }
 
-    protected Element createG(Element doc,
-            Map<AttributeKey<?>, Object> attributes) throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("g");
-        writeOpacityAttribute(elem, attributes);
-        return elem;
-    }
-
-    protected Element createLinearGradient(Element doc,
+    protected void writeLinearGradient(SVGElementWriter out, String id,
             double x1, double y1, double x2, double y2,
             double[] stopOffsets, Color[] stopColors, double[] stopOpacities,
             boolean isRelativeToFigureBounds,
             AffineTransform transform) throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("linearGradient");
-        writeAttribute(elem, "x1", toNumber(x1), "0");
-        writeAttribute(elem, "y1", toNumber(y1), "0");
-        writeAttribute(elem, "x2", toNumber(x2), "1");
-        writeAttribute(elem, "y2", toNumber(y2), "0");
-        writeAttribute(elem, "gradientUnits",
+        out.startElement("linearGradient");
+        writeAttribute(out, "id", id, null);
+        writeAttribute(out, "x1", toNumber(x1), "0");
+        writeAttribute(out, "y1", toNumber(y1), "0");
+        writeAttribute(out, "x2", toNumber(x2), "1");
+        writeAttribute(out, "y2", toNumber(y2), "0");
+        writeAttribute(out, "gradientUnits",
                 (isRelativeToFigureBounds) ? "objectBoundingBox" : "userSpaceOnUse",
                 "objectBoundingBox");
-        writeAttribute(elem, "gradientTransform", toTransform(transform), "none");
-        for (int i = 0; i < stopOffsets.length; i++) {
-            Element stop = doc.getOwnerDocument().createElement("stop");
-            writeAttribute(stop, "offset", toNumber(stopOffsets[i]), null);
-            writeAttribute(stop, "stop-color", toColor(stopColors[i]), null);
-            writeAttribute(stop, "stop-opacity", toNumber(stopOpacities[i]), "1");
-            elem.appendChild(stop);
-        }
-        return elem;
+        writeAttribute(out, "gradientTransform", toTransform(transform), "none");
+        writeStops(out, stopOffsets, stopColors, stopOpacities);
+        out.endElement();
     }
 
-    protected Element createRadialGradient(Element doc,
+    protected void writeRadialGradient(SVGElementWriter out, String id,
             double cx, double cy, double fx, double fy, double r,
             double[] stopOffsets, Color[] stopColors, double[] stopOpacities,
             boolean isRelativeToFigureBounds,
             AffineTransform transform) throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("radialGradient");
-        writeAttribute(elem, "cx", toNumber(cx), "0.5");
-        writeAttribute(elem, "cy", toNumber(cy), "0.5");
-        writeAttribute(elem, "fx", toNumber(fx), toNumber(cx));
-        writeAttribute(elem, "fy", toNumber(fy), toNumber(cy));
-        writeAttribute(elem, "r", toNumber(r), "0.5");
-        writeAttribute(elem, "gradientUnits",
+        out.startElement("radialGradient");
+        writeAttribute(out, "id", id, null);
+        writeAttribute(out, "cx", toNumber(cx), "0.5");
+        writeAttribute(out, "cy", toNumber(cy), "0.5");
+        writeAttribute(out, "fx", toNumber(fx), toNumber(cx));
+        writeAttribute(out, "fy", toNumber(fy), toNumber(cy));
+        writeAttribute(out, "r", toNumber(r), "0.5");
+        writeAttribute(out, "gradientUnits",
                 (isRelativeToFigureBounds) ? "objectBoundingBox" : "userSpaceOnUse",
                 "objectBoundingBox");
-        writeAttribute(elem, "gradientTransform", toTransform(transform), "none");
+        writeAttribute(out, "gradientTransform", toTransform(transform), "none");
+        writeStops(out, stopOffsets, stopColors, stopOpacities);
+        out.endElement();
+    }
+
+    private void writeStops(SVGElementWriter out,
+            double[] stopOffsets, Color[] stopColors, double[] stopOpacities) throws IOException {
         for (int i = 0; i < stopOffsets.length; i++) {
-            Element stop = doc.getOwnerDocument().createElement("stop");
-            writeAttribute(stop, "offset", toNumber(stopOffsets[i]), null);
-            writeAttribute(stop, "stop-color", toColor(stopColors[i]), null);
-            writeAttribute(stop, "stop-opacity", toNumber(stopOpacities[i]), "1");
-            elem.appendChild(stop);
+            out.startElement("stop");
+            writeAttribute(out, "offset", toNumber(stopOffsets[i]), null);
+            writeAttribute(out, "stop-color", toColor(stopColors[i]), null);
+            writeAttribute(out, "stop-opacity", toNumber(stopOpacities[i]), "1");
+            out.endElement();
         }
-        return elem;
     }
 
-    protected void writeEllipseElement(Element parent, SVGEllipseFigure f) throws IOException {
-        parent.appendChild(createEllipse(
-                document,
+    protected void writeEllipseElement(SVGElementWriter out, SVGEllipseFigure f) throws IOException {
+        writeEllipse(
+                out,
                 f.getX() + f.getWidth() / 2d,
                 f.getY() + f.getHeight() / 2d,
                 f.getWidth() / 2d,
                 f.getHeight() / 2d,
-                f.getAttributes()));
+                f.getAttributes());
     }
 
-    protected Element createEllipse(Element doc,
+    protected void writeEllipse(SVGElementWriter out,
             double cx, double cy, double rx, double ry,
             Map<AttributeKey<?>, Object> attributes) throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("ellipse");
-        writeAttribute(elem, "cx", cx, 0d);
-        writeAttribute(elem, "cy", cy, 0d);
-        writeAttribute(elem, "rx", rx, 0d);
-        writeAttribute(elem, "ry", ry, 0d);
-        writeShapeAttributes(elem, attributes);
-        writeOpacityAttribute(elem, attributes);
-        writeTransformAttribute(elem, attributes);
-        return elem;
+        out.startElement("ellipse");
+        writeAttribute(out, "cx", cx, 0d);
+        writeAttribute(out, "cy", cy, 0d);
+        writeAttribute(out, "rx", rx, 0d);
+        writeAttribute(out, "ry", ry, 0d);
+        writeShapeAttributes(out, attributes);
+        writeOpacityAttribute(out, attributes);
+        writeTransformAttribute(out, attributes);
+        out.endElement();
     }
 
-    protected void writeGElement(Element parent, SVGGroupFigure f) throws IOException {
-        Element elem = createG(document, f.getAttributes());
+    protected void writeGElement(SVGElementWriter out, SVGGroupFigure f) throws IOException {
+        out.startElement("g");
+        writeOpacityAttribute(out, f.getAttributes());
         for (Figure child : f.getChildren()) {
-            writeElement(elem, child);
+            writeElement(out, child);
         }
-        parent.appendChild(elem);
+        out.endElement();
     }
 
-    protected void writeImageElement(Element parent, SVGImageFigure f) throws IOException {
-        parent.appendChild(
-                createImage(document,
-                        f.getX(),
-                        f.getY(),
-                        f.getWidth(),
-                        f.getHeight(),
-                        f.getImageData(),
-                        f.getAttributes()));
+    protected void writeImageElement(SVGElementWriter out, SVGImageFigure f) throws IOException {
+        writeImage(out,
+                f.getX(),
+                f.getY(),
+                f.getWidth(),
+                f.getHeight(),
+                f.getImageData(),
+                f.getAttributes());
     }
 
-    protected Element createImage(Element doc,
+    protected void writeImage(SVGElementWriter out,
             double x, double y, double w, double h,
             byte[] imageData,
             Map<AttributeKey<?>, Object> attributes) throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("image");
-        writeAttribute(elem, "x", x, 0d);
-        writeAttribute(elem, "y", y, 0d);
-        writeAttribute(elem, "width", w, 0d);
-        writeAttribute(elem, "height", h, 0d);
-        writeAttribute(elem, "xlink:href", "data:image;base64," + Base64.encodeBytes(imageData), "");
-        writeOpacityAttribute(elem, attributes);
-        writeTransformAttribute(elem, attributes);
-        return elem;
+        out.startElement("image");
+        writeAttribute(out, "x", x, 0d);
+        writeAttribute(out, "y", y, 0d);
+        writeAttribute(out, "width", w, 0d);
+        writeAttribute(out, "height", h, 0d);
+        out.beginValue();
+        out.append("data:image;base64,");
+        out.appendBase64(imageData);
+        out.endValue("xlink:href", null);
+        writeOpacityAttribute(out, attributes);
+        writeTransformAttribute(out, attributes);
+        out.endElement();
     }
 
-    protected void writePathElement(Element parent, SVGPathFigure f) throws IOException {
+    protected void writePathElement(SVGElementWriter out, SVGPathFigure f) throws IOException {
         BezierPath[] beziers = new BezierPath[f.getChildCount()];
         for (int i = 0; i < beziers.length; i++) {
             beziers[i] = ((BezierFigure) f.getChild(i)).getBezierPath();
         }
-        parent.appendChild(createPath(
-                document,
+        writePath(
+                out,
                 beziers,
-                f.getAttributes()));
+                f.getAttributes());
     }
 
-    protected Element createPath(Element doc,
+    protected void writePath(SVGElementWriter out,
             BezierPath[] beziers,
             Map<AttributeKey<?>, Object> attributes) throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("path");
-        writeShapeAttributes(elem, attributes);
-        writeOpacityAttribute(elem, attributes);
-        writeTransformAttribute(elem, attributes);
-        writeAttribute(elem, "d", toPath(beziers), null);
-        return elem;
+        out.startElement("path");
+        writeShapeAttributes(out, attributes);
+        writeOpacityAttribute(out, attributes);
+        writeTransformAttribute(out, attributes);
+        out.beginValue();
+        appendPath(out, beziers);
+        out.endValue("d", null);
+        out.endElement();
     }
 
-    protected void writePolygonElement(Element parent, SVGPathFigure f) throws IOException {
-        LinkedList<Point2D.Double> points = new LinkedList<Point2D.Double>();
-        for (int i = 0, n = f.getChildCount(); i < n; i++) {
-            BezierPath bezier = ((BezierFigure) f.getChild(i)).getBezierPath();
-            for (BezierPath.Node node : bezier) {
-                points.add(new Point2D.Double(node.x[0], node.y[0]));
-            }
-        }
-        parent.appendChild(createPolygon(
-                document,
-                points.toArray(new Point2D.Double[points.size()]),
-                f.getAttributes()));
+    protected void writePolygonElement(SVGElementWriter out, SVGPathFigure f) throws IOException {
+        writePolygon(
+                out,
+                getPoints(f),
+                f.getAttributes());
     }
 
-    protected Element createPolygon(Element doc,
+    protected void writePolygon(SVGElementWriter out,
             Point2D.Double[] points,
             Map<AttributeKey<?>, Object> attributes)
             throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("polygon");
-        writeAttribute(elem, "points", toPoints(points), null);
-        writeShapeAttributes(elem, attributes);
-        writeOpacityAttribute(elem, attributes);
-        writeTransformAttribute(elem, attributes);
-        return elem;
+        out.startElement("polygon");
+        out.beginValue();
+        appendPoints(out, points);
+        out.endValue("points", null);
+        writeShapeAttributes(out, attributes);
+        writeOpacityAttribute(out, attributes);
+        writeTransformAttribute(out, attributes);
+        out.endElement();
     }
 
-    protected void writePolylineElement(Element parent, SVGPathFigure f) throws IOException {
-        LinkedList<Point2D.Double> points = new LinkedList<Point2D.Double>();
-        for (int i = 0, n = f.getChildCount(); i < n; i++) {
-            BezierPath bezier = ((BezierFigure) f.getChild(i)).getBezierPath();
-            for (BezierPath.Node node : bezier) {
-                points.add(new Point2D.Double(node.x[0], node.y[0]));
-            }
-        }
-        parent.appendChild(createPolyline(
-                document,
-                points.toArray(new Point2D.Double[points.size()]),
-                f.getAttributes()));
+    protected void writePolylineElement(SVGElementWriter out, SVGPathFigure f) throws IOException {
+        writePolyline(
+                out,
+                getPoints(f),
+                f.getAttributes());
     }
 
-    protected Element createPolyline(Element doc,
+    protected void writePolyline(SVGElementWriter out,
             Point2D.Double[] points,
             Map<AttributeKey<?>, Object> attributes) throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("polyline");
-        writeAttribute(elem, "points", toPoints(points), null);
-        writeShapeAttributes(elem, attributes);
-        writeOpacityAttribute(elem, attributes);
-        writeTransformAttribute(elem, attributes);
-        return elem;
+        out.startElement("polyline");
+        out.beginValue();
+        appendPoints(out, points);
+        out.endValue("points", null);
+        writeShapeAttributes(out, attributes);
+        writeOpacityAttribute(out, attributes);
+        writeTransformAttribute(out, attributes);
+        out.endElement();
     }
 
-    protected void writeLineElement(Element parent, SVGPathFigure f)
+    /**
+     * Returns the nodes of all bezier paths of the specified figure.
+     */
+    private static Point2D.Double[] getPoints(SVGPathFigure f) {
+        int count = 0;
+        for (int i = 0, n = f.getChildCount(); i < n; i++) {
+            count += ((BezierFigure) f.getChild(i)).getNodeCount();
+        }
+        Point2D.Double[] points = new Point2D.Double[count];
+        count = 0;
+        for (int i = 0, n = f.getChildCount(); i < n; i++) {
+            BezierFigure bezier = (BezierFigure) f.getChild(i);
+            for (int j = 0, m = bezier.getNodeCount(); j < m; j++) {
+                points[count++] = bezier.getPoint(j);
+            }
+        }
+        return points;
+    }
+
+    protected void writeLineElement(SVGElementWriter out, SVGPathFigure f)
             throws IOException {
         BezierFigure bezier = (BezierFigure) f.getChild(0);
-        parent.appendChild(createLine(
-                document,
+        writeLine(
+                out,
                 bezier.getNode(0).x[0],
                 bezier.getNode(0).y[0],
                 bezier.getNode(1).x[0],
                 bezier.getNode(1).y[0],
-                f.getAttributes()));
+                f.getAttributes());
     }
 
-    protected Element createLine(Element doc,
+    protected void writeLine(SVGElementWriter out,
             double x1, double y1, double x2, double y2,
             Map<AttributeKey<?>, Object> attributes) throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("line");
-        writeAttribute(elem, "x1", x1, 0d);
-        writeAttribute(elem, "y1", y1, 0d);
-        writeAttribute(elem, "x2", x2, 0d);
-        writeAttribute(elem, "y2", y2, 0d);
-        writeShapeAttributes(elem, attributes);
-        writeOpacityAttribute(elem, attributes);
-        writeTransformAttribute(elem, attributes);
-        return elem;
+        out.startElement("line");
+        writeAttribute(out, "x1", x1, 0d);
+        writeAttribute(out, "y1", y1, 0d);
+        writeAttribute(out, "x2", x2, 0d);
+        writeAttribute(out, "y2", y2, 0d);
+        writeShapeAttributes(out, attributes);
+        writeOpacityAttribute(out, attributes);
+        writeTransformAttribute(out, attributes);
+        out.endElement();
     }
 
-    protected void writeRectElement(Element parent, SVGRectFigure f) throws IOException {
-        parent.appendChild(
-                createRect(
-                        document,
-                        f.getX(),
-                        f.getY(),
-                        f.getWidth(),
-                        f.getHeight(),
-                        f.getArcWidth(),
-                        f.getArcHeight(),
-                        f.getAttributes()));
+    protected void writeRectElement(SVGElementWriter out, SVGRectFigure f) throws IOException {
+        writeRect(
+                out,
+                f.getX(),
+                f.getY(),
+                f.getWidth(),
+                f.getHeight(),
+                f.getArcWidth(),
+                f.getArcHeight(),
+                f.getAttributes());
     }
 
-    protected Element createRect(Element doc,
+    protected void writeRect(SVGElementWriter out,
             double x, double y, double width, double height,
             double rx, double ry,
             Map<AttributeKey<?>, Object> attributes)
             throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("rect");
-        writeAttribute(elem, "x", x, 0d);
-        writeAttribute(elem, "y", y, 0d);
-        writeAttribute(elem, "width", width, 0d);
-        writeAttribute(elem, "height", height, 0d);
-        writeAttribute(elem, "rx", rx, 0d);
-        writeAttribute(elem, "ry", ry, 0d);
-        writeShapeAttributes(elem, attributes);
-        writeOpacityAttribute(elem, attributes);
-        writeTransformAttribute(elem, attributes);
-        return elem;
+        out.startElement("rect");
+        writeAttribute(out, "x", x, 0d);
+        writeAttribute(out, "y", y, 0d);
+        writeAttribute(out, "width", width, 0d);
+        writeAttribute(out, "height", height, 0d);
+        writeAttribute(out, "rx", rx, 0d);
+        writeAttribute(out, "ry", ry, 0d);
+        writeShapeAttributes(out, attributes);
+        writeOpacityAttribute(out, attributes);
+        writeTransformAttribute(out, attributes);
+        out.endElement();
     }
 
-    protected void writeTextElement(Element parent, SVGTextFigure f) throws IOException {
-        DefaultStyledDocument styledDoc = new DefaultStyledDocument();
-        try {
-            styledDoc.insertString(0, f.getText(), null);
-        } catch (BadLocationException e) {
-            InternalError error = new InternalError(e.getMessage());
-            error.initCause(e);
-            throw error;
-        }
-        parent.appendChild(
-                createText(
-                        document,
-                        f.getCoordinates(),
-                        f.getRotates(),
-                        styledDoc,
-                        f.getAttributes()));
+    protected void writeTextElement(SVGElementWriter out, SVGTextFigure f) throws IOException {
+        writeText(
+                out,
+                f.getCoordinates(),
+                f.getRotates(),
+                f.getText(),
+                f.getAttributes());
     }
 
-    protected Element createText(Element doc,
+    protected void writeText(SVGElementWriter out,
             Point2D.Double[] coordinates, double[] rotate,
-            StyledDocument text,
+            String text,
             Map<AttributeKey<?>, Object> attributes) throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("text");
-        StringBuilder bufX = new StringBuilder();
-        StringBuilder bufY = new StringBuilder();
+        out.startElement("text");
+        out.beginValue();
         for (int i = 0; i < coordinates.length; i++) {
             if (i != 0) {
-                bufX.append(',');
-                bufY.append(',');
+                out.append(',');
             }
-            bufX.append(toNumber(coordinates[i].getX()));
-            bufY.append(toNumber(coordinates[i].getY()));
+            out.appendNumber(coordinates[i].getX());
         }
-        StringBuilder bufR = new StringBuilder();
+        out.endValue("x", "0");
+        out.beginValue();
+        for (int i = 0; i < coordinates.length; i++) {
+            if (i != 0) {
+                out.append(',');
+            }
+            out.appendNumber(coordinates[i].getY());
+        }
+        out.endValue("y", "0");
+        out.beginValue();
         if (rotate != null) {
             for (int i = 0; i < rotate.length; i++) {
                 if (i != 0) {
-                    bufR.append(',');
+                    out.append(',');
                 }
-                bufR.append(toNumber(rotate[i]));
+                out.appendNumber(rotate[i]);
             }
         }
-        writeAttribute(elem, "x", bufX.toString(), "0");
-        writeAttribute(elem, "y", bufY.toString(), "0");
-        writeAttribute(elem, "rotate", bufR.toString(), "");
-        String str;
-        try {
-            str = text.getText(0, text.getLength());
-        } catch (BadLocationException e) {
-            InternalError error = new InternalError(e.getMessage());
-            error.initCause(e);
-            throw error;
-        }
-        elem.setTextContent(str);
-        writeShapeAttributes(elem, attributes);
-        writeOpacityAttribute(elem, attributes);
-        writeTransformAttribute(elem, attributes);
-        writeFontAttributes(elem, attributes);
-        return elem;
+        out.endValue("rotate", "");
+        writeShapeAttributes(out, attributes);
+        writeOpacityAttribute(out, attributes);
+        writeTransformAttribute(out, attributes);
+        writeFontAttributes(out, attributes);
+        out.text(text == null ? "" : text);
+        out.endElement();
     }
 
-    protected void writeTextAreaElement(Element parent, SVGTextAreaFigure f)
+    protected void writeTextAreaElement(SVGElementWriter out, SVGTextAreaFigure f)
             throws IOException {
-        DefaultStyledDocument styledDoc = new DefaultStyledDocument();
-        try {
-            styledDoc.insertString(0, f.getText(), null);
-        } catch (BadLocationException e) {
-            InternalError error = new InternalError(e.getMessage());
-            error.initCause(e);
-            throw error;
-        }
         Rectangle2D.Double bounds = f.getBounds();
-        parent.appendChild(
-                createTextArea(
-                        document,
-                        bounds.x, bounds.y, bounds.width, bounds.height,
-                        styledDoc,
-                        f.getAttributes()));
+        writeTextArea(
+                out,
+                bounds.x, bounds.y, bounds.width, bounds.height,
+                f.getText(),
+                f.getAttributes());
     }
 
-    protected Element createTextArea(Element doc,
+    protected void writeTextArea(SVGElementWriter out,
             double x, double y, double w, double h,
-            StyledDocument text,
+            String text,
             Map<AttributeKey<?>, Object> attributes)
             throws IOException {
-        Element elem = doc.getOwnerDocument().createElement("textArea");
-        writeAttribute(elem, "x", toNumber(x), "0");
-        writeAttribute(elem, "y", toNumber(y), "0");
-        writeAttribute(elem, "width", toNumber(w), "0");
-        writeAttribute(elem, "height", toNumber(h), "0");
-        String str;
-        try {
-            str = text.getText(0, text.getLength());
-        } catch (BadLocationException e) {
-            InternalError error = new InternalError(e.getMessage());
-            error.initCause(e);
-            throw error;
-        }
-        String[] lines = str.split("\n");
+        out.startElement("textArea");
+        writeAttribute(out, "x", toNumber(x), "0");
+        writeAttribute(out, "y", toNumber(y), "0");
+        writeAttribute(out, "width", toNumber(w), "0");
+        writeAttribute(out, "height", toNumber(h), "0");
+        writeShapeAttributes(out, attributes);
+        writeTransformAttribute(out, attributes);
+        writeOpacityAttribute(out, attributes);
+        writeFontAttributes(out, attributes);
+        String[] lines = (text == null ? "" : text).split("\n");
         for (int i = 0; i < lines.length; i++) {
             if (i != 0) {
-                elem.appendChild(doc.getOwnerDocument().createElement("tbreak"));
+                out.startElement("tbreak");
+                out.endElement();
             }
-            Element contentElement = doc.getOwnerDocument().createElement(null);
-            contentElement.setTextContent(lines[i]);
-            elem.appendChild(contentElement);
+            out.text(lines[i]);
         }
-        writeShapeAttributes(elem, attributes);
-        writeTransformAttribute(elem, attributes);
-        writeOpacityAttribute(elem, attributes);
-        writeFontAttributes(elem, attributes);
-        return elem;
+        out.endElement();
     }
 
     // ------------
@@ -580,7 +546,7 @@ public class SVGOutputFormat implements OutputFormat {
     // ------------
     /* Writes shape attributes.
      */
-    protected void writeShapeAttributes(Element elem, Map<AttributeKey<?>, Object> m)
+    protected void writeShapeAttributes(SVGElementWriter out, Map<AttributeKey<?>, Object> m)
             throws IOException {
         Color color;
         String value;
@@ -616,41 +582,9 @@ public class SVGOutputFormat implements OutputFormat {
         // Computed value:    "none", system paint, specified <color> value or absolute IRI
         Gradient gradient = FILL_GRADIENT.get(m);
         if (gradient != null) {
-            String id;
-            if (gradientToIDMap.containsKey(gradient)) {
-                id = gradientToIDMap.get(gradient);
-            } else {
-                Element gradientElem;
-                if (gradient instanceof LinearGradient) {
-                    LinearGradient lg = (LinearGradient) gradient;
-                    gradientElem = createLinearGradient(document,
-                            lg.getX1(), lg.getY1(),
-                            lg.getX2(), lg.getY2(),
-                            lg.getStopOffsets(),
-                            lg.getStopColors(),
-                            lg.getStopOpacities(),
-                            lg.isRelativeToFigureBounds(),
-                            lg.getTransform());
-                } else /*if (gradient instanceof RadialGradient)*/ {
-                    RadialGradient rg = (RadialGradient) gradient;
-                    gradientElem = createRadialGradient(document,
-                            rg.getCX(), rg.getCY(),
-                            rg.getFX(), rg.getFY(),
-                            rg.getR(),
-                            rg.getStopOffsets(),
-                            rg.getStopColors(),
-                            rg.getStopOpacities(),
-                            rg.isRelativeToFigureBounds(),
-                            rg.getTransform());
-                }
-                id = getId(gradientElem);
-                gradientElem.setAttributeNS("xml", "id", id);
-                defs.appendChild(gradientElem);
-                gradientToIDMap.put(gradient, id);
-            }
-            writeAttribute(elem, "fill", "url(#" + id + ")", "#000");
+            writeAttribute(out, "fill", "url(#" + gradientToIDMap.get(gradient) + ")", "#000");
         } else {
-            writeAttribute(elem, "fill", toColor(FILL_COLOR.get(m)), "#000");
+            writeAttribute(out, "fill", toColor(FILL_COLOR.get(m)), "#000");
         }
         //'fill-opacity'
         //Value:    <opacity-value> | inherit
@@ -661,7 +595,7 @@ public class SVGOutputFormat implements OutputFormat {
         //Media:    visual
         //Animatable:    yes
         //Computed value:    Specified value, except inherit
-        writeAttribute(elem, "fill-opacity", FILL_OPACITY.get(m), 1d);
+        writeAttribute(out, "fill-opacity", FILL_OPACITY.get(m), 1d);
         // 'fill-rule'
         // Value:  nonzero | evenodd | inherit
         // Initial:   nonzero
@@ -672,7 +606,7 @@ public class SVGOutputFormat implements OutputFormat {
         // Animatable:    yes
         // Computed value:    Specified value, except inherit
         if (WINDING_RULE.get(m) != WindingRule.NON_ZERO) {
-            writeAttribute(elem, "fill-rule", "evenodd", "nonzero");
+            writeAttribute(out, "fill-rule", "evenodd", "nonzero");
         }
         //'stroke'
         //Value:   <paint> | inherit (See Specifying paint)
@@ -686,41 +620,9 @@ public class SVGOutputFormat implements OutputFormat {
         // or absolute IRI
         gradient = STROKE_GRADIENT.get(m);
         if (gradient != null) {
-            String id;
-            if (gradientToIDMap.containsKey(gradient)) {
-                id = gradientToIDMap.get(gradient);
-            } else {
-                Element gradientElem;
-                if (gradient instanceof LinearGradient) {
-                    LinearGradient lg = (LinearGradient) gradient;
-                    gradientElem = createLinearGradient(document,
-                            lg.getX1(), lg.getY1(),
-                            lg.getX2(), lg.getY2(),
-                            lg.getStopOffsets(),
-                            lg.getStopColors(),
-                            lg.getStopOpacities(),
-                            lg.isRelativeToFigureBounds(),
-                            lg.getTransform());
-                } else /*if (gradient instanceof RadialGradient)*/ {
-                    RadialGradient rg = (RadialGradient) gradient;
-                    gradientElem = createRadialGradient(document,
-                            rg.getCX(), rg.getCY(),
-                            rg.getFX(), rg.getFY(),
-                            rg.getR(),
-                            rg.getStopOffsets(),
-                            rg.getStopColors(),
-                            rg.getStopOpacities(),
-                            rg.isRelativeToFigureBounds(),
-                            rg.getTransform());
-                }
-                id = getId(gradientElem);
-                gradientElem.setAttributeNS("xml", "id", id);
-                defs.appendChild(gradientElem);
-                gradientToIDMap.put(gradient, id);
-            }
-            writeAttribute(elem, "stroke", "url(#" + id + ")", "none");
+            writeAttribute(out, "stroke", "url(#" + gradientToIDMap.get(gradient) + ")", "none");
         } else {
-            writeAttribute(elem, "stroke", toColor(STROKE_COLOR.get(m)), "none");
+            writeAttribute(out, "stroke", toColor(STROKE_COLOR.get(m)), "none");
         }
         //'stroke-dasharray'
         //Value:    none | <dasharray> | inherit
@@ -733,14 +635,14 @@ public class SVGOutputFormat implements OutputFormat {
         //Computed value:    Specified value, except inherit
         double[] dashes = STROKE_DASHES.get(m);
         if (dashes != null) {
-            StringBuilder buf = new StringBuilder();
+            out.beginValue();
             for (int i = 0; i < dashes.length; i++) {
                 if (i != 0) {
-                    buf.append(',');
+                    out.append(',');
                 }
-                buf.append(toNumber(dashes[i]));
+                out.appendNumber(dashes[i]);
             }
-            writeAttribute(elem, "stroke-dasharray", buf.toString(), null);
+            out.endValue("stroke-dasharray", null);
         }
         //'stroke-dashoffset'
         //Value:   <length> | inherit
@@ -751,7 +653,7 @@ public class SVGOutputFormat implements OutputFormat {
         //Media:    visual
         //Animatable:    yes
         //Computed value:    Specified value, except inherit
-        writeAttribute(elem, "stroke-dashoffset", STROKE_DASH_PHASE.get(m), 0d);
+        writeAttribute(out, "stroke-dashoffset", STROKE_DASH_PHASE.get(m), 0d);
         //'stroke-linecap'
         //Value:    butt | round | square | inherit
         //Initial:    butt
@@ -761,7 +663,7 @@ public class SVGOutputFormat implements OutputFormat {
         //Media:    visual
         //Animatable:    yes
         //Computed value:    Specified value, except inherit
-        writeAttribute(elem, "stroke-linecap", STROKE_LINECAP.get(STROKE_CAP.get(m)), "butt");
+        writeAttribute(out, "stroke-linecap", STROKE_LINECAP.get(STROKE_CAP.get(m)), "butt");
         //'stroke-linejoin'
         //Value:    miter | round | bevel | inherit
         //Initial:    miter
@@ -771,7 +673,7 @@ public class SVGOutputFormat implements OutputFormat {
         //Media:    visual
         //Animatable:    yes
         //Computed value:    Specified value, except inherit
-        writeAttribute(elem, "stroke-linejoin", STROKE_LINEJOIN.get(STROKE_JOIN.get(m)), "miter");
+        writeAttribute(out, "stroke-linejoin", STROKE_LINEJOIN.get(STROKE_JOIN.get(m)), "miter");
         //'stroke-miterlimit'
         //Value:    <miterlimit> | inherit
         //Initial:    4
@@ -781,7 +683,7 @@ public class SVGOutputFormat implements OutputFormat {
         //Media:    visual
         //Animatable:    yes
         //Computed value:    Specified value, except inherit
-        writeAttribute(elem, "stroke-miterlimit", STROKE_MITER_LIMIT.get(m), 4d);
+        writeAttribute(out, "stroke-miterlimit", STROKE_MITER_LIMIT.get(m), 4d);
         //'stroke-opacity'
         //Value:    <opacity-value> | inherit
         //Initial:    1
@@ -791,7 +693,7 @@ public class SVGOutputFormat implements OutputFormat {
         //Media:    visual
         //Animatable:    yes
         //Computed value:    Specified value, except inherit
-        writeAttribute(elem, "stroke-opacity", STROKE_OPACITY.get(m), 1d);
+        writeAttribute(out, "stroke-opacity", STROKE_OPACITY.get(m), 1d);
         //'stroke-width'
         //Value:   <length> | inherit
         //Initial:    1
@@ -801,12 +703,12 @@ public class SVGOutputFormat implements OutputFormat {
         //Media:    visual
         //Animatable:    yes
         //Computed value:    Specified value, except inherit
-        writeAttribute(elem, "stroke-width", STROKE_WIDTH.get(m), 1d);
+        writeAttribute(out, "stroke-width", STROKE_WIDTH.get(m), 1d);
     }
 
     /* Writes the opacity attribute.
      */
-    protected void writeOpacityAttribute(Element elem, Map<AttributeKey<?>, Object> m)
+    protected void writeOpacityAttribute(SVGElementWriter out, Map<AttributeKey<?>, Object> m)
             throws IOException {
         //'opacity'
         //Value:   <opacity-value> | inherit
@@ -822,25 +724,27 @@ public class SVGOutputFormat implements OutputFormat {
         //Any values outside the range 0.0 (fully transparent) to 1.0
         //(fully opaque) shall be clamped to this range.
         //(See Clamping values which are restricted to a particular range.)
-        writeAttribute(elem, "opacity", OPACITY.get(m), 1d);
+        writeAttribute(out, "opacity", OPACITY.get(m), 1d);
     }
 
     /* Writes the transform attribute as specified in
      * http://www.w3.org/TR/SVGMobile12/coords.html#TransformAttribute
      *
      */
-    protected void writeTransformAttribute(Element elem, Map<AttributeKey<?>, Object> a)
+    protected void writeTransformAttribute(SVGElementWriter out, Map<AttributeKey<?>, Object> a)
             throws IOException {
         AffineTransform t = TRANSFORM.get(a);
         if (t != null) {
-            writeAttribute(elem, "transform", toTransform(t), "none");
+            out.beginValue();
+            appendTransform(out, t);
+            out.endValue("transform", "none");
         }
     }
 
     /* Writes font attributes as listed in
      * http://www.w3.org/TR/SVGMobile12/feature.html#Font
      */
-    private void writeFontAttributes(Element elem, Map<AttributeKey<?>, Object> a)
+    private void writeFontAttributes(SVGElementWriter out, Map<AttributeKey<?>, Object> a)
             throws IOException {
         String value;
         double doubleValue;
@@ -855,7 +759,7 @@ public class SVGOutputFormat implements OutputFormat {
         // Media:   visual
         // Animatable:   yes
         // Computed value:    Specified value, except inherit
-        writeAttribute(elem, "font-family", FONT_FACE.get(a).getFontName(), "Dialog");
+        writeAttribute(out, "font-family", FONT_FACE.get(a).getFontName(), "Dialog");
         // 'font-getChildCount'
         // Value:   <absolute-getChildCount> | <relative-getChildCount> |
         // <length> | inherit
@@ -866,7 +770,7 @@ public class SVGOutputFormat implements OutputFormat {
         // Media:   visual
         // Animatable:   yes
         // Computed value:    Absolute length
-        writeAttribute(elem, "font-size", FONT_SIZE.get(a), 0d);
+        writeAttribute(out, "font-size", FONT_SIZE.get(a), 0d);
         // 'font-style'
         // Value:   normal | italic | oblique | inherit
         // Initial:   normal
@@ -876,7 +780,7 @@ public class SVGOutputFormat implements OutputFormat {
         // Media:   visual
         // Animatable:   yes
         // Computed value:    Specified value, except inherit
-        writeAttribute(elem, "font-style", (FONT_ITALIC.get(a)) ? "italic" : "normal", "normal");
+        writeAttribute(out, "font-style", (FONT_ITALIC.get(a)) ? "italic" : "normal", "normal");
         //'font-variant'
         //Value:   normal | small-caps | inherit
         //Initial:   normal
@@ -887,7 +791,7 @@ public class SVGOutputFormat implements OutputFormat {
         //Animatable:   no
         //Computed value:    Specified value, except inherit
         // XXX - Implement me
-        writeAttribute(elem, "font-variant", "normal", "normal");
+        writeAttribute(out, "font-variant", "normal", "normal");
         // 'font-weight'
         // Value:   normal | bold | bolder | lighter | 100 | 200 | 300
         // | 400 | 500 | 600 | 700 | 800 | 900 | inherit
@@ -900,7 +804,7 @@ public class SVGOutputFormat implements OutputFormat {
         // Computed value:    one of the legal numeric values, non-numeric
         // values shall be converted to numeric values according to the rules
         // defined below.
-        writeAttribute(elem, "font-weight", (FONT_BOLD.get(a)) ? "bold" : "normal", "normal");
+        writeAttribute(out, "font-weight", (FONT_BOLD.get(a)) ? "bold" : "normal", "normal");
         // Note: text-decoration is an SVG 1.1 feature
         //'text-decoration'
         //Value:   none | [ underline || overline || line-through || blink ] | inherit
@@ -910,20 +814,20 @@ public class SVGOutputFormat implements OutputFormat {
         //Percentages:   N/A
         //Media:   visual
         //Animatable:   yes
-        writeAttribute(elem, "text-decoration", (FONT_UNDERLINE.get(a)) ? "underline" : "none", "none");
+        writeAttribute(out, "text-decoration", (FONT_UNDERLINE.get(a)) ? "underline" : "none", "none");
     }
 
     /* Writes viewport attributes.
      */
-    private void writeViewportAttributes(Element elem, Map<AttributeKey<?>, Object> a)
+    private void writeViewportAttributes(SVGElementWriter out, Map<AttributeKey<?>, Object> a)
             throws IOException {
         Object value;
         Double doubleValue;
         if (VIEWPORT_WIDTH.get(a) != null && VIEWPORT_HEIGHT.get(a) != null) {
             // width of the viewport
-            writeAttribute(elem, "width", toNumber(VIEWPORT_WIDTH.get(a)), null);
+            writeAttribute(out, "width", toNumber(VIEWPORT_WIDTH.get(a)), null);
             // height of the viewport
-            writeAttribute(elem, "height", toNumber(VIEWPORT_HEIGHT.get(a)), null);
+            writeAttribute(out, "height", toNumber(VIEWPORT_HEIGHT.get(a)), null);
         }
         //'viewport-fill'
         //Value:  "none" | <color> | inherit
@@ -934,7 +838,7 @@ public class SVGOutputFormat implements OutputFormat {
         //Media:  visual
         //Animatable:  yes
         //Computed value:    "none" or specified <color> value, except inherit
-        writeAttribute(elem, "viewport-fill", toColor(VIEWPORT_FILL.get(a)), "none");
+        writeAttribute(out, "viewport-fill", toColor(VIEWPORT_FILL.get(a)), "none");
         //'viewport-fill-opacity'
         //Value: <opacity-value> | inherit
         //Initial:  1.0
@@ -944,27 +848,15 @@ public class SVGOutputFormat implements OutputFormat {
         //Media:  visual
         //Animatable:  yes
         //Computed value:    Specified value, except inherit
-        writeAttribute(elem, "viewport-fill-opacity", VIEWPORT_FILL_OPACITY.get(a), 1.0);
+        writeAttribute(out, "viewport-fill-opacity", VIEWPORT_FILL_OPACITY.get(a), 1.0);
     }
 
-    protected void writeAttribute(Element elem, String name, String value, String defaultValue) {
-        writeAttribute(elem, name, SVG_NAMESPACE, value, defaultValue);
+    protected void writeAttribute(SVGElementWriter out, String name, String value, String defaultValue) {
+        out.attribute(name, value, defaultValue);
     }
 
-    protected void writeAttribute(Element elem, String name, String namespace, String value, String defaultValue) {
-        if (!value.equals(defaultValue)) {
-            elem.setAttribute(name, value);
-        }
-    }
-
-    protected void writeAttribute(Element elem, String name, double value, double defaultValue) {
-        writeAttribute(elem, name, SVG_NAMESPACE, value, defaultValue);
-    }
-
-    protected void writeAttribute(Element elem, String name, String namespace, double value, double defaultValue) {
-        if (value != defaultValue) {
-            elem.setAttribute(name, toNumber(value));
-        }
+    protected void writeAttribute(SVGElementWriter out, String name, double value, double defaultValue) {
+        out.attribute(name, value, defaultValue);
     }
 
     /**
@@ -972,29 +864,39 @@ public class SVGOutputFormat implements OutputFormat {
      * as specified in http://www.w3.org/TR/SVGMobile12/paths.html#PathDataBNF
      */
     public static String toPath(BezierPath[] paths) {
-        StringBuilder buf = new StringBuilder();
+        SVGElementWriter out = new SVGElementWriter(0, false);
+        out.beginValue();
+        appendPath(out, paths);
+        return out.endValue();
+    }
+
+    /**
+     * Appends a value as a SVG Path attribute to the attribute value of the
+     * specified element writer.
+     */
+    protected static void appendPath(SVGElementWriter out, BezierPath[] paths) {
         for (int j = 0; j < paths.length; j++) {
             BezierPath path = paths[j];
             if (path.size() == 0) {
                 // nothing to do
             } else if (path.size() == 1) {
                 BezierPath.Node current = path.get(0);
-                buf.append("M ");
-                buf.append(toNumber(current.x[0]));
-                buf.append(' ');
-                buf.append(toNumber(current.y[0]));
-                //buf.append(" L ");
-                buf.append(toNumber(current.x[0]));
-                buf.append(' ');
-                buf.append(toNumber(current.y[0] + 1));
+                out.append("M ");
+                out.appendNumber(current.x[0]);
+                out.append(' ');
+                out.appendNumber(current.y[0]);
+                //out.append(" L ");
+                out.appendNumber(current.x[0]);
+                out.append(' ');
+                out.appendNumber(current.y[0] + 1);
             } else {
                 BezierPath.Node previous;
                 BezierPath.Node current;
                 previous = current = path.get(0);
-                buf.append("M ");
-                buf.append(toNumber(current.x[0]));
-                buf.append(' ');
-                buf.append(toNumber(current.y[0]));
+                out.append("M ");
+                out.appendNumber(current.x[0]);
+                out.append(' ');
+                out.appendNumber(current.y[0]);
                 char nextCommand = 'L';
                 for (int i = 1, n = path.size(); i < n; i++) {
                     previous = current;
@@ -1002,62 +904,62 @@ public class SVGOutputFormat implements OutputFormat {
                     if ((previous.mask & BezierPath.C2_MASK) == 0) {
                         if ((current.mask & BezierPath.C1_MASK) == 0) {
                             if (nextCommand != 'L') {
-                                buf.append(" L ");
+                                out.append(" L ");
                                 nextCommand = 'L';
                             } else {
-                                buf.append(' ');
+                                out.append(' ');
                             }
-                            buf.append(toNumber(current.x[0]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.y[0]));
+                            out.appendNumber(current.x[0]);
+                            out.append(' ');
+                            out.appendNumber(current.y[0]);
                         } else {
                             if (nextCommand != 'Q') {
-                                buf.append(" Q ");
+                                out.append(" Q ");
                                 nextCommand = 'Q';
                             } else {
-                                buf.append(' ');
+                                out.append(' ');
                             }
-                            buf.append(toNumber(current.x[1]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.y[1]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.x[0]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.y[0]));
+                            out.appendNumber(current.x[1]);
+                            out.append(' ');
+                            out.appendNumber(current.y[1]);
+                            out.append(' ');
+                            out.appendNumber(current.x[0]);
+                            out.append(' ');
+                            out.appendNumber(current.y[0]);
                         }
                     } else {
                         if ((current.mask & BezierPath.C1_MASK) == 0) {
                             if (nextCommand != 'Q') {
-                                buf.append(" Q ");
+                                out.append(" Q ");
                                 nextCommand = 'Q';
                             } else {
-                                buf.append(' ');
+                                out.append(' ');
                             }
-                            buf.append(toNumber(previous.x[2]));
-                            buf.append(' ');
-                            buf.append(toNumber(previous.y[2]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.x[0]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.y[0]));
+                            out.appendNumber(previous.x[2]);
+                            out.append(' ');
+                            out.appendNumber(previous.y[2]);
+                            out.append(' ');
+                            out.appendNumber(current.x[0]);
+                            out.append(' ');
+                            out.appendNumber(current.y[0]);
                         } else {
                             if (nextCommand != 'C') {
-                                buf.append(" C ");
+                                out.append(" C ");
                                 nextCommand = 'C';
                             } else {
-                                buf.append(' ');
+                                out.append(' ');
                             }
-                            buf.append(toNumber(previous.x[2]));
-                            buf.append(' ');
-                            buf.append(toNumber(previous.y[2]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.x[1]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.y[1]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.x[0]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.y[0]));
+                            out.appendNumber(previous.x[2]);
+                            out.append(' ');
+                            out.appendNumber(previous.y[2]);
+                            out.append(' ');
+                            out.appendNumber(current.x[1]);
+                            out.append(' ');
+                            out.appendNumber(current.y[1]);
+                            out.append(' ');
+                            out.appendNumber(current.x[0]);
+                            out.append(' ');
+                            out.appendNumber(current.y[0]);
                         }
                     }
                 }
@@ -1068,78 +970,81 @@ public class SVGOutputFormat implements OutputFormat {
                         if ((previous.mask & BezierPath.C2_MASK) == 0) {
                             if ((current.mask & BezierPath.C1_MASK) == 0) {
                                 if (nextCommand != 'L') {
-                                    buf.append(" L ");
+                                    out.append(" L ");
                                     nextCommand = 'L';
                                 } else {
-                                    buf.append(' ');
+                                    out.append(' ');
                                 }
-                                buf.append(toNumber(current.x[0]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[0]));
+                                out.appendNumber(current.x[0]);
+                                out.append(' ');
+                                out.appendNumber(current.y[0]);
                             } else {
                                 if (nextCommand != 'Q') {
-                                    buf.append(" Q ");
+                                    out.append(" Q ");
                                     nextCommand = 'Q';
                                 } else {
-                                    buf.append(' ');
+                                    out.append(' ');
                                 }
-                                buf.append(toNumber(current.x[1]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[1]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.x[0]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[0]));
+                                out.appendNumber(current.x[1]);
+                                out.append(' ');
+                                out.appendNumber(current.y[1]);
+                                out.append(' ');
+                                out.appendNumber(current.x[0]);
+                                out.append(' ');
+                                out.appendNumber(current.y[0]);
                             }
                         } else {
                             if ((current.mask & BezierPath.C1_MASK) == 0) {
                                 if (nextCommand != 'Q') {
-                                    buf.append(" Q ");
+                                    out.append(" Q ");
                                     nextCommand = 'Q';
                                 } else {
-                                    buf.append(' ');
+                                    out.append(' ');
                                 }
-                                buf.append(toNumber(previous.x[2]));
-                                buf.append(' ');
-                                buf.append(toNumber(previous.y[2]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.x[0]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[0]));
+                                out.appendNumber(previous.x[2]);
+                                out.append(' ');
+                                out.appendNumber(previous.y[2]);
+                                out.append(' ');
+                                out.appendNumber(current.x[0]);
+                                out.append(' ');
+                                out.appendNumber(current.y[0]);
                             } else {
                                 if (nextCommand != 'C') {
-                                    buf.append(" C ");
+                                    out.append(" C ");
                                     nextCommand = 'C';
                                 } else {
-                                    buf.append(' ');
+                                    out.append(' ');
                                 }
-                                buf.append(toNumber(previous.x[2]));
-                                buf.append(' ');
-                                buf.append(toNumber(previous.y[2]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.x[1]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[1]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.x[0]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[0]));
+                                out.appendNumber(previous.x[2]);
+                                out.append(' ');
+                                out.appendNumber(previous.y[2]);
+                                out.append(' ');
+                                out.appendNumber(current.x[1]);
+                                out.append(' ');
+                                out.appendNumber(current.y[1]);
+                                out.append(' ');
+                                out.appendNumber(current.x[0]);
+                                out.append(' ');
+                                out.appendNumber(current.y[0]);
                             }
                         }
                     }
-                    buf.append(" Z");
+                    out.append(" Z");
                     nextCommand = '\0';
                 }
             }
         }
-        return buf.toString();
     }
 
     /**
      * Returns a double array as a number attribute value.
      */
     public static String toNumber(double number) {
-        String str = (IS_FLOAT_PRECISION) ? Float.toString((float) number) : Double.toString(number);
+        if (IS_FLOAT_PRECISION) {
+            char[] buf = new char[32];
+            return new String(buf, 0, SVGElementWriter.formatNumber(number, buf, 0));
+        }
+        String str = Double.toString(number);
         if (str.endsWith(".0")) {
             str = str.substring(0, str.length() - 2);
         }
@@ -1151,37 +1056,56 @@ public class SVGOutputFormat implements OutputFormat {
      * as specified in http://www.w3.org/TR/SVGMobile12/shapes.html#PointsBNF
      */
     public static String toPoints(Point2D.Double[] points) throws IOException {
-        StringBuilder buf = new StringBuilder();
+        SVGElementWriter out = new SVGElementWriter(0, false);
+        out.beginValue();
+        appendPoints(out, points);
+        return out.endValue();
+    }
+
+    /**
+     * Appends a Point2D.Double array as a Points attribute value to the
+     * attribute value of the specified element writer.
+     */
+    protected static void appendPoints(SVGElementWriter out, Point2D.Double[] points) {
         for (int i = 0; i < points.length; i++) {
             if (i != 0) {
-                buf.append(", ");
+                out.append(", ");
             }
-            buf.append(toNumber(points[i].x));
-            buf.append(',');
-            buf.append(toNumber(points[i].y));
+            out.appendNumber(points[i].x);
+            out.append(',');
+            out.appendNumber(points[i].y);
         }
-        return buf.toString();
     }
 
     /* Converts an AffineTransform into an SVG transform attribute value as specified in
      * http://www.w3.org/TR/SVGMobile12/coords.html#TransformAttribute
      */
     public static String toTransform(AffineTransform t) throws IOException {
-        StringBuilder buf = new StringBuilder();
+        SVGElementWriter out = new SVGElementWriter(0, false);
+        out.beginValue();
+        appendTransform(out, t);
+        return out.endValue();
+    }
+
+    /**
+     * Appends an AffineTransform as a transform attribute value to the
+     * attribute value of the specified element writer.
+     */
+    protected static void appendTransform(SVGElementWriter out, AffineTransform t) {
         switch (t.getType()) {
             case AffineTransform.TYPE_IDENTITY:
-                buf.append("none");
+                out.append("none");
                 break;
             case AffineTransform.TYPE_TRANSLATION:
                 // translate(<tx> [<ty>]), specifies a translation by tx and ty.
                 // If <ty> is not provided, it is assumed to be zero.
-                buf.append("translate(");
-                buf.append(toNumber(t.getTranslateX()));
+                out.append("translate(");
+                out.appendNumber(t.getTranslateX());
                 if (t.getTranslateY() != 0d) {
-                    buf.append(' ');
-                    buf.append(toNumber(t.getTranslateY()));
+                    out.append(' ');
+                    out.appendNumber(t.getTranslateY());
                 }
-                buf.append(')');
+                out.append(')');
                 break;
             /*
             case AffineTransform.TYPE_GENERAL_ROTATION :
@@ -1198,47 +1122,49 @@ public class SVGOutputFormat implements OutputFormat {
             // equivalent of the following specification:
             // translate(<cx>, <cy>) rotate(<rotate-angle>)
             // translate(-<cx>, -<cy>).
-            buf.append("rotate(");
-            buf.append(toNumber(t.getScaleX()));
-            buf.append(')');
+            out.append("rotate(");
+            out.appendNumber(t.getScaleX());
+            out.append(')');
             break;*/
             case AffineTransform.TYPE_UNIFORM_SCALE:
                 // scale(<sx> [<sy>]), specifies a scale operation by sx
                 // and sy. If <sy> is not provided, it is assumed to be equal
                 // to <sx>.
-                buf.append("scale(");
-                buf.append(toNumber(t.getScaleX()));
-                buf.append(')');
+                out.append("scale(");
+                out.appendNumber(t.getScaleX());
+                out.append(')');
                 break;
             case AffineTransform.TYPE_GENERAL_SCALE:
             case AffineTransform.TYPE_MASK_SCALE:
                 // scale(<sx> [<sy>]), specifies a scale operation by sx
                 // and sy. If <sy> is not provided, it is assumed to be equal
                 // to <sx>.
-                buf.append("scale(");
-                buf.append(toNumber(t.getScaleX()));
-                buf.append(' ');
-                buf.append(toNumber(t.getScaleY()));
-                buf.append(')');
+                out.append("scale(");
+                out.appendNumber(t.getScaleX());
+                out.append(' ');
+                out.appendNumber(t.getScaleY());
+                out.append(')');
                 break;
             default:
                 // matrix(<a> <b> <c> <d> <e> <f>), specifies a transformation
                 // in the form of a transformation matrix of six values.
                 // matrix(a,b,c,d,e,f) is equivalent to applying the
                 // transformation matrix [a b c d e f].
-                buf.append("matrix(");
-                double[] matrix = new double[6];
-                t.getMatrix(matrix);
-                for (int i = 0; i < matrix.length; i++) {
-                    if (i != 0) {
-                        buf.append(' ');
-                    }
-                    buf.append(toNumber(matrix[i]));
-                }
-                buf.append(')');
+                out.append("matrix(");
+                out.appendNumber(t.getScaleX());
+                out.append(' ');
+                out.appendNumber(t.getShearY());
+                out.append(' ');
+                out.appendNumber(t.getShearX());
+                out.append(' ');
+                out.appendNumber(t.getScaleY());
+                out.append(' ');
+                out.appendNumber(t.getTranslateX());
+                out.append(' ');
+                out.appendNumber(t.getTranslateY());
+                out.append(')');
                 break;
         }
-        return buf.toString();
     }
 
     public static String toColor(Color color) {
@@ -1285,63 +1211,143 @@ public class SVGOutputFormat implements OutputFormat {
      * All other write methods delegate their work to here.
      */
     public void write(OutputStream out, Drawing drawing, java.util.List<Figure> figures) throws IOException {
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder dBuilder;
-        try {
-            dBuilder = dbFactory.newDocumentBuilder();
-        } catch (ParserConfigurationException ex) {
-            Logger.getLogger(ImageMapOutputFormat.class.getName()).log(Level.SEVERE, null, ex);
-            throw new IOException(ex);
-        }
-        Document doc = dBuilder.newDocument();
-        document = doc.createElementNS(SVG_NAMESPACE, "svg");
-        document.setAttribute("xmlns:xlink", "http://www.w3.org/1999/xlink");
-        document.setAttribute("version", "1.2");
-        document.setAttribute("baseProfile", "tiny");
-        writeViewportAttributes(document, drawing.getAttributes());
-        initStorageContext(document);
-        defs = doc.createElement("defs");
-        document.appendChild(defs);
-        for (Figure f : figures) {
-            writeElement(document, f);
-        }
+        write(new OutputStreamWriter(out, StandardCharsets.UTF_8), drawing, figures);
+    }
+
+    /**
+     * Writes the figures to a writer.
+     * The XML declaration of the document specifies UTF-8 as the encoding.
+     * The writer is flushed but not closed.
+     */
+    public void write(Writer w, Drawing drawing, java.util.List<Figure> figures) throws IOException {
+        SVGElementWriter out = new SVGElementWriter(w, isPrettyPrint);
         // Write XML prolog
-        PrintWriter writer = new PrintWriter(
-                new OutputStreamWriter(out, "UTF-8"));
-        writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        out.writeRaw("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
         // Write XML content
-        Transformer t;
-        try {
-            t = TransformerFactory.newInstance().newTransformer();
-            if (isPrettyPrint) {
-                t.setOutputProperty(OutputKeys.INDENT, "yes");
+        out.startElement("svg");
+        out.attribute("xmlns", SVG_NAMESPACE, null);
+        out.attribute("xmlns:xlink", "http://www.w3.org/1999/xlink", null);
+        out.attribute("version", "1.2", null);
+        out.attribute("baseProfile", "tiny", null);
+        writeViewportAttributes(out, drawing.getAttributes());
+        initStorageContext();
+        // The gradients must be known before we write the figures, because
+        // the figures can be encoded concurrently.
+        out.startElement("defs");
+        for (Figure f : figures) {
+            writeGradients(out, f);
+        }
+        out.endElement();
+        if (figures.size() >= PARALLEL_THRESHOLD
+                && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            writeConcurrently(out, figures);
+        } else {
+            for (Figure f : figures) {
+                writeElement(out, f);
             }
-            t.transform(new DOMSource(document), new StreamResult(out));
-        } catch (TransformerException ex) {
-            Logger.getLogger(SVGOutputFormat.class.getName()).log(Level.SEVERE, null, ex);
         }
-        // Flush writer
-        writer.flush();
+        out.endElement();
+        if (isPrettyPrint) {
+            out.writeRaw("\n");
+        }
+        out.flush();
     }
 
-    private void initStorageContext(Element root) {
-        identifiedElements = new HashMap<Element, String>();
-        gradientToIDMap = new HashMap<Gradient, String>();
+    /**
+     * Encodes batches of figures concurrently, and writes them in
+     * document order. At most a few batches per processor are held in
+     * memory at the same time.
+     */
+    private void writeConcurrently(SVGElementWriter out, final java.util.List<Figure> figures) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int window = pool.getParallelism() * 2;
+        ArrayList<Callable<SVGElementWriter>> tasks = new ArrayList<Callable<SVGElementWriter>>(window);
+        for (int start = 0, n = figures.size(); start < n;) {
+            tasks.clear();
+            for (int i = 0; i < window && start < n; i++) {
+                final int from = start;
+                final int to = Math.min(n, start + BATCH_SIZE);
+                tasks.add(new Callable<SVGElementWriter>() {
+                    @Override
+                    public SVGElementWriter call() throws IOException {
+                        SVGElementWriter batch = new SVGElementWriter(1, isPrettyPrint);
+                        for (Figure f : figures.subList(from, to)) {
+                            writeElement(batch, f);
+                        }
+                        return batch;
+                    }
+                });
+                start = to;
+            }
+            for (Future<SVGElementWriter> result : pool.invokeAll(tasks)) {
+                try {
+                    out.append(result.get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof IOException) {
+                        throw (IOException) ex.getCause();
+                    }
+                    throw new IOException(ex.getCause());
+                }
+            }
+        }
     }
 
     /**
-     * Gets a unique ID for the specified element.
+     * Writes the gradients of a figure, which have not been written yet,
+     * and assigns ID's to them.
      */
-    public String getId(Element element) {
-        if (identifiedElements.containsKey(element)) {
-            return identifiedElements.get(element);
-        } else {
-            String id = Integer.toString(nextId++, Character.MAX_RADIX);
-            identifiedElements.put(element, id);
-            return id;
+    private void writeGradients(SVGElementWriter out, Figure f) throws IOException {
+        if (f instanceof SVGGroupFigure) {
+            for (Figure child : ((SVGGroupFigure) f).getChildren()) {
+                writeGradients(out, child);
+            }
+        } else if (f instanceof SVGEllipseFigure
+                || f instanceof SVGPathFigure
+                || f instanceof SVGRectFigure
+                || f instanceof SVGTextFigure
+                || f instanceof SVGTextAreaFigure) {
+            writeGradient(out, FILL_GRADIENT.get(f.getAttributes()));
+            writeGradient(out, STROKE_GRADIENT.get(f.getAttributes()));
         }
     }
 
+    private void writeGradient(SVGElementWriter out, Gradient gradient) throws IOException {
+        if (gradient == null || gradientToIDMap.containsKey(gradient)) {
+            return;
+        }
+        String id = Integer.toString(nextId++, Character.MAX_RADIX);
+        gradientToIDMap.put(gradient, id);
+        if (gradient instanceof LinearGradient) {
+            LinearGradient lg = (LinearGradient) gradient;
+            writeLinearGradient(out, id,
+                    lg.getX1(), lg.getY1(),
+                    lg.getX2(), lg.getY2(),
+                    lg.getStopOffsets(),
+                    lg.getStopColors(),
+                    lg.getStopOpacities(),
+                    lg.isRelativeToFigureBounds(),
+                    lg.getTransform());
+        } else /*if (gradient instanceof RadialGradient)*/ {
+            RadialGradient rg = (RadialGradient) gradient;
+            writeRadialGradient(out, id,
+                    rg.getCX(), rg.getCY(),
+                    rg.getFX(), rg.getFY(),
+                    rg.getR(),
+                    rg.getStopOffsets(),
+                    rg.getStopColors(),
+                    rg.getStopOpacities(),
+                    rg.isRelativeToFigureBounds(),
+                    rg.getTransform());
+        }
+    }
+
+    private void initStorageContext() {
+        gradientToIDMap = new HashMap<Gradient, String>();
+    }
+
     @Override
     public Transferable createTransferable(Drawing drawing, java.util.List<Figure> figures, double scaleFactor) throws IOException {
         ByteArrayOutputStream buf = new ByteArrayOutputStream();
@@ -0,0 +1,284 @@
+/*
+ * @(#)SVGScanner.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.samples.svg.io;
+
+/**
+ * Scans the numbers, commands and keywords of SVG attribute values, such as
+ * path data, point lists and transforms.
+ * <p>
+ * The scanner copies the attribute value into a reusable character array
+ * and parses numbers in place, without creating strings or boxed values.
+ * It supports the compact number syntax of SVG path data, where numbers
+ * need not be separated if the next number starts with a sign or with a
+ * decimal point, for example {@code "1.5.5"} is scanned as 1.5 and 0.5,
+ * and {@code "-1-2"} is scanned as -1 and -2.
+ * <p>
+ * White space and commas are skipped between tokens.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+final class SVGScanner {
+
+    /**
+     * Powers of ten which can be represented exactly by a double.
+     */
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    /**
+     * Mantissas up to this value are converted exactly into a double.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private char[] chars = new char[64];
+    private int pos;
+    private int end;
+    /**
+     * The value of the last number that has been scanned.
+     */
+    private double number;
+    /**
+     * The start and end position of the last word that has been scanned.
+     */
+    private int wordStart;
+    private int wordEnd;
+
+    /**
+     * Sets the string which is scanned.
+     */
+    void reset(String str) {
+        reset(str, 0, str.length());
+    }
+
+    /**
+     * Sets the region of a string which is scanned.
+     */
+    void reset(String str, int start, int end) {
+        int n = end - start;
+        if (chars.length < n) {
+            chars = new char[Math.max(n, chars.length * 2)];
+        }
+        str.getChars(start, end, chars, 0);
+        this.pos = 0;
+        this.end = n;
+    }
+
+    /**
+     * Returns the current position in the scanned region.
+     */
+    int getPosition() {
+        return pos;
+    }
+
+    /**
+     * Skips white space and commas, and returns the next character without
+     * consuming it. Returns -1 at the end of the region.
+     */
+    int peek() {
+        while (pos < end) {
+            char c = chars[pos];
+            if (c > ' ' && c != ',') {
+                return c;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    /**
+     * Skips white space and commas, and consumes the next character.
+     * Returns -1 at the end of the region.
+     */
+    int next() {
+        int c = peek();
+        if (c != -1) {
+            pos++;
+        }
+        return c;
+    }
+
+    /**
+     * Returns true if the scanner is at the end of the region, ignoring
+     * white space and commas.
+     */
+    boolean isAtEnd() {
+        return peek() == -1;
+    }
+
+    /**
+     * Skips white space and commas, and returns true if the next token
+     * starts like a number.
+     */
+    boolean isNumberAhead() {
+        int c = peek();
+        int i = pos + 1;
+        if (c == '-' || c == '+') {
+            if (i >= end) {
+                return false;
+            }
+            c = chars[i++];
+        }
+        if (c == '.') {
+            if (i >= end) {
+                return false;
+            }
+            c = chars[i];
+        }
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Returns the value of the last number that has been scanned by
+     * {@link #nextNumber}.
+     */
+    double getNumber() {
+        return number;
+    }
+
+    /**
+     * Skips white space and commas, and scans a number.
+     * <p>
+     * If the next token is not a number, the position is not changed and
+     * false is returned.
+     *
+     * @return true if a number has been scanned
+     */
+    boolean nextNumber() {
+        if (peek() == -1) {
+            return false;
+        }
+        int start = pos;
+        int i = pos;
+        boolean isNegative = false;
+        char c = chars[i];
+        if (c == '-' || c == '+') {
+            isNegative = c == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean isExact = true;
+        // Integer part
+        for (; i < end && (c = chars[i]) >= '0' && c <= '9'; i++) {
+            digits++;
+            if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                mantissa = mantissa * 10 + (c - '0');
+            } else {
+                // The digit is dropped
+                exponent++;
+                isExact &= c == '0';
+            }
+        }
+        // Fraction part
+        if (i < end && chars[i] == '.') {
+            i++;
+            for (; i < end && (c = chars[i]) >= '0' && c <= '9'; i++) {
+                digits++;
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    exponent--;
+                } else {
+                    isExact &= c == '0';
+                }
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        // Exponent part. It is only scanned if it is followed by a digit.
+        if (i + 1 < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            int j = i + 1;
+            boolean isNegativeExponent = false;
+            if (chars[j] == '-' || chars[j] == '+') {
+                isNegativeExponent = chars[j] == '-';
+                j++;
+            }
+            if (j < end && chars[j] >= '0' && chars[j] <= '9') {
+                int e = 0;
+                for (; j < end && (c = chars[j]) >= '0' && c <= '9'; j++) {
+                    if (e < 100000) {
+                        e = e * 10 + (c - '0');
+                    }
+                }
+                exponent += isNegativeExponent ? -e : e;
+                i = j;
+            }
+        }
+        pos = i;
+        double value;
+        if (isExact && exponent >= -22 && exponent <= 22) {
+            // Both the mantissa and the power of ten are exact, so that a
+            // single multiplication or division yields the correctly
+            // rounded value.
+            value = exponent < 0
+                    ? mantissa / POW10[-exponent]
+                    : mantissa * POW10[exponent];
+        } else if (mantissa == 0) {
+            value = 0;
+        } else {
+            value = Double.parseDouble(new String(chars, start, i - start));
+            isNegative = false;
+        }
+        number = isNegative ? -value : value;
+        return true;
+    }
+
+    /**
+     * Skips white space and commas, and scans a word, which consists of
+     * letters.
+     *
+     * @return true if a word has been scanned
+     */
+    boolean nextWord() {
+        int c = peek();
+        if (!isLetter(c)) {
+            return false;
+        }
+        wordStart = pos;
+        for (pos++; pos < end; pos++) {
+            c = chars[pos];
+            if (!isLetter(c)) {
+                break;
+            }
+        }
+        wordEnd = pos;
+        return true;
+    }
+
+    private static boolean isLetter(int c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= 128 + 32;
+    }
+
+    /**
+     * Returns true if the last word which has been scanned by
+     * {@link #nextWord} is equal to the specified string.
+     */
+    boolean isWord(String str) {
+        int n = wordEnd - wordStart;
+        if (n != str.length()) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (chars[wordStart + i] != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the last word which has been scanned by {@link #nextWord}.
+     */
+    String getWord() {
+        return new String(chars, wordStart, wordEnd - wordStart);
+    }
+}
@@ -8,6 +8,7 @@ package org.jhotdraw.samples.teddy;
 import org.jhotdraw.api.app.Application;
 import java.awt.*;
 import java.util.prefs.*;
+import java.util.regex.PatternSyntaxException;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.text.*;
@@ -43,7 +44,8 @@ public class FindDialog extends javax.swing.JDialog {
         modeCombo.setModel(new DefaultComboBoxModel(new Object[]{
             labels.getString("find.contains.text"),
             labels.getString("find.startsWith.text"),
-            labels.getString("find.word.text")}));
+            labels.getString("find.word.text"),
+            labels.getString("find.regex.text")}));
         ignoreCaseCheck.setSelected(prefs.getBoolean("find.ignoreCase", true));
         wrapAroundCheck.setSelected(prefs.getBoolean("find.wrapAround", true));
         modeCombo.setSelectedIndex(Math.min(0, Math.max(modeCombo.getModel().getSize() - 1,
@@ -273,7 +275,7 @@ public class FindDialog extends javax.swing.JDialog {
                 if (pos == -1) {
                     getToolkit().beep();
                 } else {
-                    view.select(pos, matcher.getFindString().length() + pos);
+                    view.select(pos, matcher.getMatchEnd());
                 }
             }
         }
@@ -290,7 +292,7 @@ public class FindDialog extends javax.swing.JDialog {
                 if (pos == -1) {
                     getToolkit().beep();
                 } else {
-                    view.select(pos, matcher.getFindString().length() + pos);
+                    view.select(pos, matcher.getMatchEnd());
                 }
             }
         }
@@ -300,22 +302,17 @@ public class FindDialog extends javax.swing.JDialog {
         if (view != null) {
             updateMatcher();
             if (matcher != null) {
-                int pos = matcher.findNext((wrapAroundCheck.isSelected()) ? 0 : view.getSelectionEnd());
-                if (pos == -1) {
+                // The matcher replaces all matches with a single document change
+                CompositeEdit edit = new CompositeEdit("Replace All");
+                view.fireEdit(edit);
+                int count = matcher.replaceAll(
+                        (wrapAroundCheck.isSelected()) ? 0 : view.getSelectionEnd(),
+                        replaceField.getText());
+                view.fireEdit(edit);
+                if (count == 0) {
                     getToolkit().beep();
                 } else {
-                    CompositeEdit edit = new CompositeEdit("Replace All");
-                    view.fireEdit(edit);
-                    view.select(pos, matcher.getFindString().length() + pos);
-                    do {
-                        view.replaceRange(
-                                replaceField.getText(),
-                                pos,
-                                pos + matcher.getFindString().length()
-                        );
-                        pos = matcher.findNext(pos + replaceField.getText().length());
-                    } while (pos != -1);
-                    view.fireEdit(edit);
+                    view.select(matcher.getMatchEnd(), matcher.getMatchEnd());
                 }
             }
         }
@@ -332,15 +329,23 @@ public class FindDialog extends javax.swing.JDialog {
                     matchType = MatchType.STARTS_WITH;
                     break;
                 case 2:
-                default:
                     matchType = MatchType.FULL_WORD;
                     break;
+                case 3:
+                default:
+                    matchType = MatchType.REGULAR_EXPRESSION;
+                    break;
+            }
+            try {
+                matcher = new Matcher(view.getDocument(),
+                        findField.getText(),
+                        !ignoreCaseCheck.isSelected(),
+                        matchType
+                );
+            } catch (PatternSyntaxException e) {
+                getToolkit().beep();
+                matcher = null;
             }
-            matcher = new Matcher(view.getDocument(),
-                    findField.getText(),
-                    !ignoreCaseCheck.isSelected(),
-                    matchType
-            );
         } else {
             matcher = null;
         }
@@ -13,6 +13,7 @@ import java.beans.*;
 import java.io.*;
 import java.lang.reflect.*;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.util.prefs.*;
 import javax.swing.*;
 import javax.swing.event.*;
@@ -270,30 +271,20 @@ public class TeddyView extends AbstractView {
      */
     private Document readDocument(File f, String characterSet)
             throws IOException {
-        ProgressMonitorInputStream pin = new ProgressMonitorInputStream(this, "Reading " + f.getName(), new FileInputStream(f));
-        BufferedReader in = new BufferedReader(new InputStreamReader(pin, characterSet));
+        final ProgressMonitor monitor = new ProgressMonitor(this, "Reading " + f.getName(), null, 0, 100);
         try {
-            // PlainDocument doc = new PlainDocument();
-            StyledDocument doc = createDocument();
             MutableAttributeSet attrs = ((StyledEditorKit) editor.getEditorKit()).getInputAttributes();
-            String line;
-            boolean isFirst = true;
-            while ((line = in.readLine()) != null) {
-                if (isFirst) {
-                    isFirst = false;
-                } else {
-                    doc.insertString(doc.getLength(), "\n", attrs);
-                }
-                doc.insertString(doc.getLength(), line, attrs);
-            }
-            return doc;
-        } catch (BadLocationException e) {
-            throw new IOException(e.getMessage());
+            return LineIndexedDocument.read(f, Charset.forName(characterSet), attrs, monitor);
         } catch (OutOfMemoryError e) {
             System.err.println("out of memory!");
             throw new IOException("Out of memory.");
         } finally {
-            in.close();
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    monitor.close();
+                }
+            });
         }
     }
 
@@ -318,7 +309,7 @@ public class TeddyView extends AbstractView {
     }
 
     protected StyledDocument createDocument() {
-        DefaultStyledDocument doc = new DefaultStyledDocument();
+        LineIndexedDocument doc = new LineIndexedDocument();
         doc.setParagraphAttributes(0, 1, ((StyledEditorKit) editor.getEditorKit()).getInputAttributes(), true);
         return doc;
     }
@@ -331,9 +322,12 @@ public class TeddyView extends AbstractView {
         LFWriter out = new LFWriter(new OutputStreamWriter(new FileOutputStream(f), characterSet));
         out.setLineSeparator(lineSeparator);
         try {
-            String sequence;
-            for (int i = 0; i < doc.getLength(); i += 256) {
-                out.write(doc.getText(i, Math.min(256, doc.getLength() - i)));
+            if (doc instanceof LineIndexedDocument) {
+                ((LineIndexedDocument) doc).write(out);
+            } else {
+                for (int i = 0; i < doc.getLength(); i += 256) {
+                    out.write(doc.getText(i, Math.min(256, doc.getLength() - i)));
+                }
             }
         } catch (BadLocationException e) {
             throw new IOException(e.getMessage());
@@ -404,6 +398,9 @@ public class TeddyView extends AbstractView {
      * @return the number of lines &gt; 0
      */
     public int getLineCount() {
+        if (getDocument() instanceof LineIndexedDocument) {
+            return ((LineIndexedDocument) getDocument()).getLineCount();
+        }
         Element map = getDocument().getDefaultRootElement();
         return map.getElementCount();
     }
@@ -444,6 +441,8 @@ public class TeddyView extends AbstractView {
             throw new BadLocationException("Can't translate offset to line", -1);
         } else if (offset > doc.getLength()) {
             throw new BadLocationException("Can't translate offset to line", doc.getLength() + 1);
+        } else if (doc instanceof LineIndexedDocument) {
+            return ((LineIndexedDocument) doc).getLineOfOffset(offset);
         } else {
             Element map = getDocument().getDefaultRootElement();
             return map.getElementIndex(offset);
@@ -456,6 +455,12 @@ public class TeddyView extends AbstractView {
      */
     public int getLineStartOffset(int line) throws BadLocationException {
         //return editor.getLineStartOffset(line);
+        if (getDocument() instanceof LineIndexedDocument) {
+            if (line < 0) {
+                throw new BadLocationException("Negative line", -1);
+            }
+            return ((LineIndexedDocument) getDocument()).getLineStartOffset(line);
+        }
         int lineCount = getLineCount();
         if (line < 0) {
             throw new BadLocationException("Negative line", -1);
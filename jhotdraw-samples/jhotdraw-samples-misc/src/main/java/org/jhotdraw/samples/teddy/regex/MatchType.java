@@ -14,5 +14,5 @@ package org.jhotdraw.samples.teddy.regex;
  * @version $Id$
  */
 public enum MatchType {
-    CONTAINS, STARTS_WITH, FULL_WORD
+    CONTAINS, STARTS_WITH, FULL_WORD, REGULAR_EXPRESSION
 }
@@ -7,12 +7,17 @@
  */
 package org.jhotdraw.samples.teddy.regex;
 
+import java.util.regex.Pattern;
 import javax.swing.text.*;
 
 /**
- * Searches for an occurence of a case (in)sensitive text on a document. This is
- * a rather slow implementation that does not use advanced techniques such as
- * Boyer-Moore.
+ * Searches for an occurence of a case (in)sensitive text on a document.
+ * <p>
+ * Plain text is searched with the Boyer-Moore-Horspool algorithm. The
+ * document is scanned in the segments which it returns with partial return
+ * enabled, so that the text of the document is not copied. If the match type
+ * is {@link MatchType#REGULAR_EXPRESSION}, the find string is a
+ * {@link java.util.regex.Pattern}.
  *
  * @author Werner Randelshofer
  * @version $Id$
@@ -43,6 +48,29 @@ public class Matcher {
      * The match type.
      */
     private MatchType matchType;
+    /**
+     * The shifts of the Boyer-Moore-Horspool algorithm for forward search,
+     * indexed by the low byte of the last char of the search window. Chars
+     * with the same low byte share the smallest shift.
+     */
+    private int[] shifts;
+    /**
+     * The shifts for backward search, indexed by the low byte of the first
+     * char of the search window. This is created when it is needed.
+     */
+    private int[] reverseShifts;
+    /**
+     * The compiled pattern for match type REGULAR_EXPRESSION.
+     */
+    private Pattern pattern;
+    /**
+     * The end index of the last match, or -1.
+     */
+    private int matchEnd = -1;
+    /**
+     * Segment for looking up word chars.
+     */
+    private final Segment charSegment = new Segment();
 
     /**
      * Creates a new instance of Matcher which performs a case sensitive search.
@@ -61,6 +89,8 @@ public class Matcher {
      * @param findString The string to be searched.
      * @param matchCase Set to true for case sensitive search.
      * @param matchType Sets the match type.
+     * @throws java.util.regex.PatternSyntaxException if the match type is
+     * REGULAR_EXPRESSION and the find string is not a valid pattern.
      */
     public Matcher(Document document, String findString, boolean matchCase, MatchType matchType) {
         this.document = document;
@@ -70,10 +100,26 @@ public class Matcher {
         if (matchCase) {
             matchLowerCase = matchUpperCase = findString.toCharArray();
         } else {
-            matchUpperCase = findString.toUpperCase().toCharArray();
-            matchLowerCase = findString.toLowerCase().toCharArray();
+            // Convert char by char, so that both arrays have the same length
+            matchUpperCase = findString.toCharArray();
+            matchLowerCase = findString.toCharArray();
+            for (int i = 0; i < matchUpperCase.length; i++) {
+                matchUpperCase[i] = Character.toUpperCase(matchUpperCase[i]);
+                matchLowerCase[i] = Character.toLowerCase(matchLowerCase[i]);
+            }
         }
         this.matchType = matchType;
+        if (matchType == MatchType.REGULAR_EXPRESSION) {
+            pattern = Pattern.compile(findString, matchCase ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        } else {
+            int m = matchLowerCase.length;
+            shifts = new int[256];
+            java.util.Arrays.fill(shifts, Math.max(1, m));
+            for (int j = 0; j < m - 1; j++) {
+                shifts[matchUpperCase[j] & 0xff] = m - 1 - j;
+                shifts[matchLowerCase[j] & 0xff] = m - 1 - j;
+            }
+        }
     }
 
     public String getFindString() {
@@ -88,6 +134,14 @@ public class Matcher {
         return matchType;
     }
 
+    /**
+     * Returns the end index of the last match which was found by findNext()
+     * or findPrevious(), or -1 if no match was found.
+     */
+    public int getMatchEnd() {
+        return matchEnd;
+    }
+
     /**
      * Sets the start index for the findNext(), findPrevious() methods.
      */
@@ -121,53 +175,50 @@ public class Matcher {
      * at the specified offset, or -1 if no occurrence was found.
      */
     public int findNext() {
+        matchEnd = -1;
+        if (pattern != null) {
+            return findNextPattern();
+        }
+        int m = matchLowerCase.length;
         // Don't match empty strings and don't match if we are at the end of the document.
-        if (findString.length() == 0
-                || document.getLength() - findString.length() < startIndex) {
+        if (m == 0
+                || document.getLength() - m < startIndex) {
             return -1;
         }
         try {
-            int nextMatch = 0; // index of next matching character
             // Iterate through all segments of the document starting from offset
             Segment text = new Segment();
             text.setPartialReturn(true);
-            int offset = startIndex;
-            int nleft = document.getLength() - startIndex;
+            int offset = Math.max(0, startIndex);
+            int nleft = document.getLength() - offset;
+            // The last m - 1 chars of the previous segments, for finding
+            // matches which span two segments
+            char[] carry = new char[2 * (m - 1)];
+            int carryCount = 0;
             while (nleft > 0) {
                 document.getText(offset, nleft, text);
-                // Iterate through the characters in the current segment
-                char next = text.first();
-                for (text.first(); next != Segment.DONE; next = text.next()) {
-                    // Check if the current character matches with the next
-                    // search character.
-                    char current = text.current();
-                    if (current == matchUpperCase[nextMatch]
-                            || current == matchLowerCase[nextMatch]) {
-                        nextMatch++;
-                        // Did we match all search characters?
-                        if (nextMatch == matchLowerCase.length) {
-                            int foundIndex = text.getIndex() - text.getBeginIndex() + offset
-                                    - matchLowerCase.length + 1;
-                            switch (matchType) {
-                                case CONTAINS:
-                                    return foundIndex;
-                                // break; <- never reached
-                                case STARTS_WITH:
-                                    if (!isWordChar(foundIndex - 1)) {
-                                        return foundIndex;
-                                    }
-                                    break;
-                                case FULL_WORD:
-                                    if (!isWordChar(foundIndex - 1)
-                                            && !isWordChar(foundIndex + matchLowerCase.length)) {
-                                        return foundIndex;
-                                    }
-                                    break;
-                            }
-                            nextMatch = 0;
-                        }
+                if (carryCount > 0) {
+                    int n = Math.min(m - 1, text.count);
+                    System.arraycopy(text.array, text.offset, carry, carryCount, n);
+                    int foundIndex = search(carry, 0, carryCount + n, offset - carryCount);
+                    if (foundIndex != -1) {
+                        return foundIndex;
+                    }
+                }
+                int foundIndex = search(text.array, text.offset, text.offset + text.count, offset);
+                if (foundIndex != -1) {
+                    return foundIndex;
+                }
+                // Keep the last m - 1 chars for the next segment
+                if (m > 1) {
+                    if (text.count >= m - 1) {
+                        System.arraycopy(text.array, text.offset + text.count - (m - 1), carry, 0, m - 1);
+                        carryCount = m - 1;
                     } else {
-                        nextMatch = 0;
+                        int keep = Math.min(carryCount, m - 1 - text.count);
+                        System.arraycopy(carry, carryCount - keep, carry, 0, keep);
+                        System.arraycopy(text.array, text.offset, carry, keep, text.count);
+                        carryCount = keep + text.count;
                     }
                 }
                 // Move forward to the next segment
@@ -180,6 +231,82 @@ public class Matcher {
         }
     }
 
+    /**
+     * Searches forward for the find string in a char array with the
+     * Boyer-Moore-Horspool algorithm.
+     *
+     * @param a The chars.
+     * @param from The index of the first char in the array.
+     * @param to The index after the last char in the array.
+     * @param documentOffset The offset of the char at index {@code from} in
+     * the document.
+     * @return the offset of the first match in the document which also
+     * satisfies the match type, or -1.
+     */
+    private int search(char[] a, int from, int to, int documentOffset) {
+        int m = matchLowerCase.length;
+        char[] upper = matchUpperCase;
+        char[] lower = matchLowerCase;
+        for (int i = from + m - 1; i < to; i += shifts[a[i] & 0xff]) {
+            int j = m - 1;
+            for (int k = i; j >= 0 && (a[k] == upper[j] || a[k] == lower[j]); k--) {
+                j--;
+            }
+            if (j < 0) {
+                int foundIndex = documentOffset + i - m + 1 - from;
+                if (isMatchTypeSatisfied(foundIndex)) {
+                    matchEnd = foundIndex + m;
+                    return foundIndex;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private boolean isMatchTypeSatisfied(int foundIndex) {
+        switch (matchType) {
+            case STARTS_WITH:
+                return !isWordChar(foundIndex - 1);
+            case FULL_WORD:
+                return !isWordChar(foundIndex - 1)
+                        && !isWordChar(foundIndex + matchLowerCase.length);
+            case CONTAINS:
+            default:
+                return true;
+        }
+    }
+
+    private int findNextPattern() {
+        int length = document.getLength();
+        if (startIndex > length) {
+            return -1;
+        }
+        java.util.regex.Matcher m = pattern.matcher(getText(0, length));
+        for (int from = Math.max(0, startIndex); from <= length && m.find(from); from = m.start() + 1) {
+            // Don't match empty strings
+            if (m.end() > m.start()) {
+                matchEnd = m.end();
+                return m.start();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the text of the specified range of the document. The text is
+     * only copied, if the range is not stored contiguously in the document.
+     */
+    private Segment getText(int offset, int length) {
+        try {
+            Segment text = new Segment();
+            text.setPartialReturn(false);
+            document.getText(offset, length, text);
+            return text;
+        } catch (BadLocationException e) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
     /**
      * Resets this matcher and then attempts to find the previous subsequence of
      * the input sequence that matches the pattern, starting at the specified
@@ -207,56 +334,147 @@ public class Matcher {
      * at the specified offset, or -1 if no occurrence was found.
      */
     public int findPrevious() {
+        matchEnd = -1;
+        // The match must end at or before the char at startIndex
+        int end = Math.min(startIndex, document.getLength() - 1);
+        if (pattern != null) {
+            return findPreviousPattern(end);
+        }
+        int m = matchLowerCase.length;
         // Don't match empty strings and don't match if we are at the beginning of the document.
-        if (findString.length() == 0
-                || startIndex < findString.length() - 1) {
-            //System.out.println("too close to start");
+        if (m == 0
+                || end < m - 1) {
             return -1;
         }
-        try {
-            int nextMatch = matchLowerCase.length - 1; // index of next matching character
-            // For simplicity, we request all text of the document in a single
-            // segment.
-            Segment text = new Segment();
-            text.setPartialReturn(false);
-            document.getText(0, startIndex + 1, text);
-            // Iterate through the characters in the current segment
-            char previous = text.last();
-            //System.out.println("previus isch "+previous);
-            for (text.last(); previous != Segment.DONE; previous = text.previous()) {
-                // Check if the current character matches with the next
-                // search character.
-                char current = text.current();
-                if (current == matchUpperCase[nextMatch]
-                        || current == matchLowerCase[nextMatch]) {
-                    nextMatch--;
-                    //System.out.println("matched "+nextMatch);
-                    // Did we match all search characters?
-                    if (nextMatch == -1) {
-                        int foundIndex = text.getIndex() - text.getBeginIndex();
-                        //System.out.println("found index:"+foundIndex);
-                        if (matchType == MatchType.CONTAINS) {
-                            return foundIndex;
-                        } else if (matchType == MatchType.STARTS_WITH) {
-                            if (!isWordChar(foundIndex - 1)) {
-                                return foundIndex;
-                            }
-                        } else if (matchType == MatchType.FULL_WORD) {
-                            if (!isWordChar(foundIndex - 1)
-                                    && !isWordChar(foundIndex + matchLowerCase.length)) {
-                                return foundIndex;
-                            }
-                        }
-                        nextMatch = matchLowerCase.length - 1;
+        if (reverseShifts == null) {
+            reverseShifts = new int[256];
+            java.util.Arrays.fill(reverseShifts, m);
+            for (int j = m - 1; j > 0; j--) {
+                reverseShifts[matchUpperCase[j] & 0xff] = j;
+                reverseShifts[matchLowerCase[j] & 0xff] = j;
+            }
+        }
+        // We request all text up to the start index in a single segment.
+        Segment text = getText(0, end + 1);
+        char[] a = text.array;
+        char[] upper = matchUpperCase;
+        char[] lower = matchLowerCase;
+        for (int i = text.offset + text.count - m; i >= text.offset; i -= reverseShifts[a[i] & 0xff]) {
+            int j = 0;
+            for (int k = i; j < m && (a[k] == upper[j] || a[k] == lower[j]); k++) {
+                j++;
+            }
+            if (j == m) {
+                int foundIndex = i - text.offset;
+                if (isMatchTypeSatisfied(foundIndex)) {
+                    matchEnd = foundIndex + m;
+                    return foundIndex;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int findPreviousPattern(int end) {
+        if (end < 0) {
+            return -1;
+        }
+        java.util.regex.Matcher m = pattern.matcher(getText(0, document.getLength()));
+        m.region(0, end + 1);
+        m.useTransparentBounds(true);
+        m.useAnchoringBounds(false);
+        int foundIndex = -1;
+        while (m.find()) {
+            if (m.end() > m.start()) {
+                foundIndex = m.start();
+                matchEnd = m.end();
+            }
+        }
+        return foundIndex;
+    }
+
+    /**
+     * Replaces all matches from the specified index up to the end of the
+     * document.
+     * <p>
+     * The replaced text is built once, and is then replaced in the document
+     * with a single call to {@link AbstractDocument#replace}, so that the
+     * document and its listeners only see a single change from the first to
+     * the last match. If the match type is REGULAR_EXPRESSION, the
+     * replacement may refer to captured groups as described in
+     * {@link java.util.regex.Matcher#appendReplacement}.
+     *
+     * @param startIndex the index from which to start the search.
+     * @param replacement the replacement for each match.
+     * @return the number of replaced matches.
+     */
+    public int replaceAll(int startIndex, String replacement) {
+        matchEnd = -1;
+        int length = document.getLength();
+        if (startIndex < 0 || startIndex > length) {
+            return 0;
+        }
+        Segment text = getText(0, length);
+        int first = -1;
+        int last = -1;
+        int count = 0;
+        StringBuilder buf = new StringBuilder();
+        if (pattern != null) {
+            java.util.regex.Matcher m = pattern.matcher(text);
+            m.region(startIndex, length);
+            m.useTransparentBounds(true);
+            m.useAnchoringBounds(false);
+            StringBuffer sbuf = new StringBuffer();
+            while (m.find()) {
+                // Don't replace empty strings
+                if (m.end() > m.start()) {
+                    if (first == -1) {
+                        first = m.start();
                     }
+                    m.appendReplacement(sbuf, replacement);
+                    last = m.end();
+                    count++;
+                }
+            }
+            if (count > 0) {
+                // The buffer contains the text before the first match too
+                buf.append(sbuf, first, sbuf.length());
+            }
+        } else {
+            int m = matchLowerCase.length;
+            if (m == 0) {
+                return 0;
+            }
+            for (int pos = startIndex; pos <= length - m;) {
+                int foundIndex = search(text.array, text.offset + pos, text.offset + text.count, pos);
+                if (foundIndex == -1) {
+                    break;
+                }
+                if (first == -1) {
+                    first = foundIndex;
                 } else {
-                    nextMatch = matchLowerCase.length - 1;
+                    buf.append(text.array, text.offset + last, foundIndex - last);
                 }
+                buf.append(replacement);
+                last = foundIndex + m;
+                count++;
+                pos = last;
             }
-            return -1;
-        } catch (BadLocationException e) {
-            throw new IndexOutOfBoundsException();
         }
+        if (count > 0) {
+            try {
+                if (document instanceof AbstractDocument) {
+                    ((AbstractDocument) document).replace(first, last - first, buf.toString(), null);
+                } else {
+                    document.remove(first, last - first);
+                    document.insertString(first, buf.toString(), null);
+                }
+            } catch (BadLocationException e) {
+                throw new IndexOutOfBoundsException();
+            }
+            matchEnd = first + buf.length();
+        }
+        return count;
     }
 
     /**
@@ -267,9 +485,12 @@ public class Matcher {
     }
 
     private boolean isWordChar(int index) {
+        if (index < 0 || index >= document.getLength()) {
+            return false;
+        }
         try {
-            char ch = document.getText(index, 1).charAt(0);
-            return Character.isLetterOrDigit(ch);
+            document.getText(index, 1, charSegment);
+            return Character.isLetterOrDigit(charSegment.first());
         } catch (BadLocationException e) {
             return false;
         }
@@ -0,0 +1,155 @@
+/*
+ * @(#)LineIndexedContent.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.samples.teddy.text;
+
+import java.util.Arrays;
+import javax.swing.text.*;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * A gap buffer which supports appending large amounts of text without
+ * creating strings, and which maintains a lazy index of the start offsets
+ * of its lines.
+ * <p>
+ * The line index is built on demand, by scanning the buffer only as far as
+ * needed to answer a query. An edit invalidates the index from the edited
+ * line onwards.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class LineIndexedContent extends GapContent {
+
+    private static final long serialVersionUID = 1L;
+    /**
+     * The start offsets of the lines. Only the first {@code lineCount}
+     * entries are valid.
+     */
+    private int[] lineStarts = new int[]{0};
+    private int lineCount = 1;
+    /**
+     * All lines which start at or before this offset are in the index.
+     */
+    private int scannedTo;
+
+    /**
+     * Creates a new instance.
+     */
+    public LineIndexedContent() {
+        this(10);
+    }
+
+    /**
+     * Creates a new instance with enough room for the specified number of
+     * characters.
+     */
+    public LineIndexedContent(int initialLength) {
+        super(initialLength);
+    }
+
+    /**
+     * Appends characters in front of the implicit newline at the end of the
+     * content. This does not create an undoable edit.
+     *
+     * @param chars The characters. The first character must be at index 0.
+     * @param length The number of characters.
+     */
+    public void append(char[] chars, int length) {
+        if (length > 0) {
+            int where = length() - 1;
+            invalidateLines(where);
+            replace(where, 0, chars, length);
+        }
+    }
+
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        invalidateLines(where);
+        return super.insertString(where, str);
+    }
+
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        invalidateLines(where);
+        return super.remove(where, nitems);
+    }
+
+    /**
+     * Removes all lines which start after the specified offset from the
+     * index.
+     */
+    private synchronized void invalidateLines(int offset) {
+        if (offset < scannedTo) {
+            lineCount = findLine(offset) + 1;
+            scannedTo = offset;
+        }
+    }
+
+    /**
+     * Scans the content for lines until the specified offset or the
+     * specified line count is reached.
+     */
+    private void scanLines(int toOffset, int toLineCount) {
+        char[] array = (char[]) getArray();
+        int gapStart = getGapStart();
+        int gapLength = getGapEnd() - gapStart;
+        // The last character is the implicit newline, which does not start a line
+        int end = length() - 1;
+        int offset = scannedTo;
+        while (offset < end && offset < toOffset && lineCount < toLineCount) {
+            int index = offset < gapStart ? offset : offset + gapLength;
+            if (array[index] == '\n') {
+                if (lineCount == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                }
+                lineStarts[lineCount++] = offset + 1;
+            }
+            offset++;
+        }
+        scannedTo = offset;
+    }
+
+    /**
+     * Returns the index of the last line in the index, which starts at or
+     * before the specified offset.
+     */
+    private int findLine(int offset) {
+        int i = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * Returns the line which contains the specified offset.
+     */
+    public synchronized int getLineOfOffset(int offset) {
+        scanLines(offset, Integer.MAX_VALUE);
+        return findLine(offset);
+    }
+
+    /**
+     * Returns the start offset of the specified line.
+     *
+     * @throws BadLocationException if there is no such line
+     */
+    public synchronized int getLineStartOffset(int line) throws BadLocationException {
+        scanLines(Integer.MAX_VALUE, line + 1);
+        if (line < 0 || line >= lineCount) {
+            throw new BadLocationException("No such line", line);
+        }
+        return lineStarts[line];
+    }
+
+    /**
+     * Returns the number of lines. This is the number of newline characters
+     * in the content, including the implicit newline at its end.
+     */
+    public synchronized int getLineCount() {
+        scanLines(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        return lineCount;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * @(#)LineIndexedDocument.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.samples.teddy.text;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.*;
+
+/**
+ * A styled document which keeps its text in a {@link LineIndexedContent}.
+ * <p>
+ * The document can be loaded from a file in bulk: the file is mapped into
+ * memory and decoded in chunks directly into the content, and the element
+ * structure for all lines is created in a single pass. The document can be
+ * written to a writer without copying its text.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class LineIndexedDocument extends DefaultStyledDocument {
+
+    private static final long serialVersionUID = 1L;
+    /**
+     * The number of bytes which are decoded at once.
+     */
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Creates a new instance.
+     */
+    public LineIndexedDocument() {
+        this(new LineIndexedContent());
+    }
+
+    private LineIndexedDocument(LineIndexedContent content) {
+        super(content, new StyleContext());
+    }
+
+    /**
+     * Creates a new instance which contains the text of the specified file.
+     * <p>
+     * Line separators are converted to newline characters. Malformed input
+     * is replaced with the replacement character of the character set.
+     * This method can be called from a worker thread.
+     *
+     * @param file The file.
+     * @param charset The character set of the file.
+     * @param attr The attributes of the text.
+     * @param monitor A progress monitor or null.
+     */
+    public static LineIndexedDocument read(File file, Charset charset, AttributeSet attr, final ProgressMonitor monitor)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            long capacity = (long) Math.ceil(size * (double) decoder.averageCharsPerByte()) + 1;
+            if (capacity >= Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + file);
+            }
+            LineIndexedDocument doc = new LineIndexedDocument(new LineIndexedContent((int) capacity));
+            doc.setParagraphAttributes(0, 1, attr, true);
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            doc.load(in, decoder, attr, monitor);
+            return doc;
+        }
+    }
+
+    /**
+     * Decodes the bytes into the content and creates the element structure.
+     */
+    private void load(ByteBuffer in, CharsetDecoder decoder, AttributeSet attr, final ProgressMonitor monitor)
+            throws IOException {
+        LineIndexedContent content = (LineIndexedContent) getContent();
+        CharBuffer out = CharBuffer.allocate(CHUNK_SIZE);
+        char[] chars = new char[CHUNK_SIZE];
+        int size = in.limit();
+        boolean pendingCR = false;
+        int length = 0;
+        boolean decoded = false;
+        boolean flushed = false;
+        while (!flushed) {
+            if (!decoded) {
+                in.limit(Math.min(size, in.position() + CHUNK_SIZE));
+                boolean endOfInput = in.limit() == size;
+                CoderResult result = decoder.decode(in, out, endOfInput);
+                decoded = endOfInput && result.isUnderflow();
+            }
+            if (decoded) {
+                flushed = decoder.flush(out).isUnderflow();
+            }
+            // Convert line separators to newlines
+            out.flip();
+            int n = 0;
+            while (out.hasRemaining()) {
+                char c = out.get();
+                if (c == '\r') {
+                    chars[n++] = '\n';
+                    pendingCR = true;
+                } else {
+                    if (c != '\n' || !pendingCR) {
+                        chars[n++] = c;
+                    }
+                    pendingCR = false;
+                }
+            }
+            out.clear();
+            content.append(chars, n);
+            length += n;
+            if (monitor != null) {
+                if (monitor.isCanceled()) {
+                    throw new InterruptedIOException("Reading canceled");
+                }
+                final int progress = (int) (in.position() * 100L / Math.max(1, size));
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        monitor.setProgress(progress);
+                    }
+                });
+            }
+        }
+        if (length > 0) {
+            writeLock();
+            try {
+                DefaultDocumentEvent e = new DefaultDocumentEvent(0, length, DocumentEvent.EventType.INSERT);
+                insertUpdate(e, attr);
+                e.end();
+                fireInsertUpdate(e);
+            } finally {
+                writeUnlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the text of the document to the specified writer. The text is
+     * passed to the writer in the segments in which the content stores it.
+     */
+    public void write(final Writer out) throws IOException {
+        final IOException[] error = new IOException[1];
+        render(new Runnable() {
+            @Override
+            public void run() {
+                Segment segment = new Segment();
+                segment.setPartialReturn(true);
+                try {
+                    for (int offset = 0, length = getLength(); offset < length; offset += segment.count) {
+                        getText(offset, length - offset, segment);
+                        out.write(segment.array, segment.offset, segment.count);
+                    }
+                } catch (IOException e) {
+                    error[0] = e;
+                } catch (BadLocationException e) {
+                    error[0] = new IOException(e.getMessage(), e);
+                }
+            }
+        });
+        if (error[0] != null) {
+            throw error[0];
+        }
+    }
+
+    /**
+     * Returns the line which contains the specified offset.
+     */
+    public int getLineOfOffset(int offset) {
+        return ((LineIndexedContent) getContent()).getLineOfOffset(offset);
+    }
+
+    /**
+     * Returns the start offset of the specified line.
+     */
+    public int getLineStartOffset(int line) throws BadLocationException {
+        return ((LineIndexedContent) getContent()).getLineStartOffset(line);
+    }
+
+    /**
+     * Returns the number of lines.
+     */
+    public int getLineCount() {
+        return ((LineIndexedContent) getContent()).getLineCount();
+    }
+}
@@ -47,9 +47,10 @@ public class NumberedParagraphView extends ParagraphView {
                 int lineAscent = g.getFontMetrics().getAscent();
                 g.setFont(numberFont);
                 //int numberAscent = g.getFontMetrics().getAscent();
-                int lineNumber = getDocument().
-                        getDefaultRootElement().
-                        getElementIndex(getStartOffset());
+                Document doc = getDocument();
+                int lineNumber = (doc instanceof LineIndexedDocument)
+                        ? ((LineIndexedDocument) doc).getLineOfOffset(getStartOffset())
+                        : doc.getDefaultRootElement().getElementIndex(getStartOffset());
                 int numberX = r.x - getLeftInset();
                 //int numberY = r.y + g.getFontMetrics().getAscent();
                 int numberY = r.y + lineAscent;
@@ -43,7 +43,9 @@ public class NumberedViewFactory implements ViewFactory {
                 // return new ParagraphView(elem);
                 //}
             } else if (kind.equals(AbstractDocument.SectionElementName)) {
-                return new BoxView(elem, View.Y_AXIS);
+                // Lay out the paragraphs on a background thread, so that
+                // large documents do not block the user interface.
+                return new AsyncBoxView(elem, View.Y_AXIS);
             } else if (kind.equals(StyleConstants.ComponentElementName)) {
                 return new ComponentView(elem);
             } else if (kind.equals(StyleConstants.IconElementName)) {
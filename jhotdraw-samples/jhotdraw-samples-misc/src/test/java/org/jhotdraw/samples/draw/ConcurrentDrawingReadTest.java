@@ -0,0 +1,110 @@
+package org.jhotdraw.samples.draw;
+
+import java.awt.geom.Point2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.jhotdraw.draw.DefaultDrawing;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.figure.EllipseFigure;
+import org.jhotdraw.draw.figure.LineFigure;
+import org.jhotdraw.draw.figure.RectangleFigure;
+import org.jhotdraw.draw.figure.TextFigure;
+import org.jhotdraw.draw.io.DOMStorableInputOutputFormat;
+import org.jhotdraw.xml.JavaxDOMInput;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stress test which reads the same drawing concurrently from many threads,
+ * and tests that the XML parsers do not resolve external entities.
+ */
+public class ConcurrentDrawingReadTest {
+
+    private static final int THREADS = 16;
+    private static final int READS_PER_THREAD = 25;
+
+    private static byte[] write(Drawing drawing) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DOMStorableInputOutputFormat(new DrawFigureFactory()).write(out, drawing);
+        return out.toByteArray();
+    }
+
+    private static Drawing createDrawing() {
+        Drawing drawing = new DefaultDrawing();
+        for (int i = 0; i < 200; i++) {
+            switch (i % 4) {
+                case 0:
+                    drawing.add(new RectangleFigure(i, i * 2, 10 + i, 20));
+                    break;
+                case 1:
+                    drawing.add(new EllipseFigure(i * 3, i, 15, 5 + i));
+                    break;
+                case 2:
+                    drawing.add(new TextFigure("Text <" + i + "> & more"));
+                    break;
+                default:
+                    LineFigure line = new LineFigure();
+                    line.setBounds(new Point2D.Double(i, 0), new Point2D.Double(0, i));
+                    drawing.add(line);
+                    break;
+            }
+        }
+        return drawing;
+    }
+
+    @Test
+    public void readsDrawingsConcurrently() throws Exception {
+        final byte[] expected = write(createDrawing());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS * READS_PER_THREAD; i++) {
+                results.add(executor.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException {
+                        Drawing drawing = new DefaultDrawing();
+                        new DOMStorableInputOutputFormat(new DrawFigureFactory())
+                                .read(new ByteArrayInputStream(expected), drawing, true);
+                        return write(drawing);
+                    }
+                }));
+            }
+            for (Future<byte[]> result : results) {
+                assertTrue(Arrays.equals(expected, result.get()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void doesNotResolveExternalEntities() throws IOException {
+        File secret = File.createTempFile("secret", ".txt");
+        try {
+            Files.write(secret.toPath(), "secret".getBytes(StandardCharsets.UTF_8));
+            String xml = "<?xml version=\"1.0\"?>"
+                    + "<!DOCTYPE doc SYSTEM \"http://example.invalid/doc.dtd\" ["
+                    + "<!ENTITY secret SYSTEM \"" + secret.toURI() + "\">]>"
+                    + "<doc>&secret;</doc>";
+            JavaxDOMInput in = new JavaxDOMInput(new DrawFigureFactory(), new StringReader(xml));
+            in.openElement("doc");
+            String text = in.getText("");
+            assertFalse(text, text.contains("secret"));
+        } finally {
+            secret.delete();
+        }
+    }
+}
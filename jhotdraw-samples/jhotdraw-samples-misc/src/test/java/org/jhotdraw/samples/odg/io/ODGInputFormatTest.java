@@ -0,0 +1,117 @@
+package org.jhotdraw.samples.odg.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.samples.odg.ODGDrawing;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.jhotdraw.samples.odg.ODGAttributeKeys.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests reading ODG packages from files and streams.
+ */
+public class ODGInputFormatTest {
+
+    private static final String NAMESPACES = " xmlns=\"urn:oasis:names:tc:opendocument:xmlns:office:1.0\""
+            + " xmlns:style=\"urn:oasis:names:tc:opendocument:xmlns:style:1.0\""
+            + " xmlns:draw=\"urn:oasis:names:tc:opendocument:xmlns:drawing:1.0\""
+            + " xmlns:svg=\"urn:oasis:names:tc:opendocument:xmlns:svg-compatible:1.0\"";
+    private static final String STYLES = "<document-styles" + NAMESPACES + "><styles>"
+            + "<style style:name=\"base\" style:family=\"graphic\">"
+            + "<graphic-properties svg:stroke-width=\"2\"/></style>"
+            + "</styles></document-styles>";
+    private static final String CONTENT = "<document-content" + NAMESPACES + ">"
+            + "<automatic-styles><style style:name=\"line\" style:family=\"graphic\" style:parent-style-name=\"base\"/>"
+            + "</automatic-styles>"
+            + "<body><forms/><drawing><page>"
+            + "<line draw:style-name=\"line\" svg:x1=\"10\" svg:y1=\"10\" svg:x2=\"40\" svg:y2=\"30\"/>"
+            + "</page></drawing></body><scripts/></document-content>";
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void putEntry(ZipOutputStream out, String name, byte[] data, boolean stored) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (stored) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        out.write(data);
+        out.closeEntry();
+    }
+
+    /**
+     * Creates a package whose content.xml entry precedes its styles.xml
+     * entry, as in packages written by office applications.
+     */
+    private File createPackage() throws IOException {
+        File f = folder.newFile("drawing.odg");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(f))) {
+            putEntry(out, "mimetype", "application/vnd.oasis.opendocument.graphics".getBytes(StandardCharsets.US_ASCII), true);
+            byte[] picture = new byte[100000];
+            new Random(1).nextBytes(picture);
+            putEntry(out, "Pictures/picture.png", picture, true);
+            putEntry(out, "content.xml", CONTENT.getBytes(StandardCharsets.UTF_8), false);
+            putEntry(out, "styles.xml", STYLES.getBytes(StandardCharsets.UTF_8), false);
+        }
+        return f;
+    }
+
+    private static void assertLineWithInheritedStyle(Drawing drawing) {
+        assertEquals(1, drawing.getChildCount());
+        Figure line = drawing.getChild(0);
+        assertEquals(2.0, line.get(STROKE_WIDTH), 0.0);
+        assertEquals(40.0, line.getBounds().getMaxX(), 1e-9);
+    }
+
+    @Test
+    public void readsPackageFromFile() throws IOException {
+        Drawing drawing = new ODGDrawing();
+        new ODGInputFormat().read(createPackage(), drawing);
+        assertLineWithInheritedStyle(drawing);
+    }
+
+    @Test
+    public void readsPackageFromStream() throws IOException {
+        Drawing drawing = new ODGDrawing();
+        try (InputStream in = new FileInputStream(createPackage())) {
+            new ODGInputFormat().read(in, drawing, true);
+        }
+        assertLineWithInheritedStyle(drawing);
+    }
+
+    @Test
+    public void readsContentWithoutPackage() throws IOException {
+        Drawing drawing = new ODGDrawing();
+        String content = CONTENT.replace(" style:parent-style-name=\"base\"/>",
+                "><graphic-properties svg:stroke-width=\"2\"/></style>");
+        new ODGInputFormat().read(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), drawing, true);
+        assertLineWithInheritedStyle(drawing);
+
+        File f = folder.newFile("content.xml");
+        try (OutputStream out = new FileOutputStream(f)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        drawing = new ODGDrawing();
+        new ODGInputFormat().read(f, drawing);
+        assertLineWithInheritedStyle(drawing);
+    }
+}
@@ -0,0 +1,60 @@
+package org.jhotdraw.samples.odg.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.jhotdraw.draw.AttributeKey;
+import org.junit.Test;
+
+import static org.jhotdraw.samples.odg.ODGAttributeKeys.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the resolution of inherited styles in ODGStylesReader.
+ */
+public class ODGStylesReaderTest {
+
+    private static ODGStylesReader read(String styles) throws IOException {
+        String xml = "<document-styles xmlns=\"urn:oasis:names:tc:opendocument:xmlns:office:1.0\""
+                + " xmlns:style=\"urn:oasis:names:tc:opendocument:xmlns:style:1.0\""
+                + " xmlns:svg=\"urn:oasis:names:tc:opendocument:xmlns:svg-compatible:1.0\">"
+                + "<styles>" + styles + "</styles></document-styles>";
+        ODGStylesReader reader = new ODGStylesReader();
+        reader.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        return reader;
+    }
+
+    private static String style(String name, String parent, String strokeWidth) {
+        return "<style style:name=\"" + name + "\" style:family=\"graphic\""
+                + (parent == null ? "" : " style:parent-style-name=\"" + parent + "\"") + ">"
+                + (strokeWidth == null ? "" : "<graphic-properties svg:stroke-width=\"" + strokeWidth + "\"/>")
+                + "</style>";
+    }
+
+    @Test
+    public void mergesParentStylesOnce() throws IOException {
+        ODGStylesReader reader = read(style("base", null, "2")
+                + style("middle", "base", null)
+                + style("leaf", "middle", "5"));
+        Map<AttributeKey<?>, Object> leaf = reader.getAttributes("leaf", "graphic");
+        assertEquals(5.0, STROKE_WIDTH.get(leaf), 0.0);
+        assertEquals(2.0, STROKE_WIDTH.get(reader.getAttributes("middle", "graphic")), 0.0);
+        assertSame(leaf, reader.getAttributes("leaf", "graphic"));
+        assertTrue(reader.getAttributes("unknown", "graphic").isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sharedAttributesCanNotBeModified() throws IOException {
+        ODGStylesReader reader = read(style("base", null, "2"));
+        STROKE_WIDTH.put(reader.getAttributes("base", "graphic"), 3.0);
+    }
+
+    @Test
+    public void cutsOffCyclicInheritance() throws IOException {
+        ODGStylesReader reader = read(style("a", "b", "1") + style("b", "a", "3"));
+        assertEquals(1.0, STROKE_WIDTH.get(reader.getAttributes("a", "graphic")), 0.0);
+        // The chain from "a" is cut off at "b", whose parent "a" was already visited
+        assertEquals(3.0, STROKE_WIDTH.get(reader.getAttributes("b", "graphic")), 0.0);
+    }
+}
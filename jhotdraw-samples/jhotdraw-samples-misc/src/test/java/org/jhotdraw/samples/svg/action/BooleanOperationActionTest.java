@@ -0,0 +1,123 @@
+package org.jhotdraw.samples.svg.action;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.HashSet;
+import javax.swing.Action;
+import javax.swing.undo.UndoableEdit;
+import org.jhotdraw.draw.DefaultDrawing;
+import org.jhotdraw.draw.DefaultDrawingEditor;
+import org.jhotdraw.draw.DefaultDrawingView;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.geom.BezierPath;
+import org.jhotdraw.geom.PolygonClipper;
+import org.jhotdraw.samples.odg.ODGDrawingPanel;
+import org.jhotdraw.samples.svg.figures.SVGBezierFigure;
+import org.jhotdraw.samples.svg.figures.SVGPathFigure;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests BooleanOperationAction on SVG paths.
+ */
+public class BooleanOperationActionTest {
+
+    private Drawing drawing;
+    private DefaultDrawingView view;
+
+    @Before
+    public void createView() {
+        drawing = new DefaultDrawing();
+        DefaultDrawingEditor editor = new DefaultDrawingEditor();
+        view = new DefaultDrawingView();
+        view.setDrawing(drawing);
+        editor.add(view);
+        editor.setActiveView(view);
+    }
+
+    private static SVGPathFigure square(double x, double y, double size) {
+        BezierPath path = new BezierPath();
+        path.moveTo(x, y);
+        path.lineTo(x + size, y);
+        path.lineTo(x + size, y + size);
+        path.lineTo(x, y + size);
+        path.setClosed(true);
+        SVGBezierFigure child = new SVGBezierFigure(true);
+        child.setBezierPath(path);
+        SVGPathFigure f = new SVGPathFigure(true);
+        f.add(child);
+        return f;
+    }
+
+    @Test
+    public void leavesDrawingUnchangedIfResultIsEmpty() {
+        SVGPathFigure a = square(0, 0, 10);
+        SVGPathFigure b = square(50, 0, 10);
+        drawing.add(a);
+        drawing.add(b);
+        view.addToSelection(Arrays.<Figure>asList(a, b));
+        BooleanOperationAction action = new BooleanOperationAction(view.getEditor(), PolygonClipper.Operation.INTERSECTION);
+        assertNull(action.computeResult(drawing.sort(view.getSelectedFigures())));
+
+        action.actionPerformed(null);
+        assertEquals(Arrays.<Figure>asList(a, b), drawing.getChildren());
+    }
+
+    @Test
+    public void replacesPathsByResult() {
+        SVGPathFigure a = square(0, 0, 10);
+        SVGPathFigure b = square(5, 0, 10);
+        drawing.add(a);
+        drawing.add(b);
+        view.addToSelection(Arrays.<Figure>asList(a, b));
+        new BooleanOperationAction(view.getEditor(), PolygonClipper.Operation.UNION).actionPerformed(null);
+        assertEquals(1, drawing.getChildCount());
+        assertEquals(15, drawing.getChild(0).getBounds().width, 1e-6);
+    }
+
+    @Test
+    public void restoresPathsAtTheirIndicesOnUndo() {
+        SVGPathFigure a = square(0, 0, 10);
+        SVGPathFigure other = square(100, 0, 10);
+        SVGPathFigure b = square(5, 0, 10);
+        SVGPathFigure top = square(200, 0, 10);
+        drawing.add(a);
+        drawing.add(other);
+        drawing.add(b);
+        drawing.add(top);
+        final UndoableEdit[] edit = new UndoableEdit[1];
+        drawing.addUndoableEditListener(evt -> edit[0] = evt.getEdit());
+        view.addToSelection(Arrays.<Figure>asList(a, b));
+        new BooleanOperationAction(view.getEditor(), PolygonClipper.Operation.UNION).actionPerformed(null);
+        Figure result = drawing.getChild(0);
+        assertEquals(Arrays.<Figure>asList(result, other, top), drawing.getChildren());
+        assertSame(result, drawing.findFigure(new Point2D.Double(12, 5)));
+
+        edit[0].undo();
+        assertEquals(Arrays.<Figure>asList(a, other, b, top), drawing.getChildren());
+        assertEquals(new HashSet<Figure>(Arrays.<Figure>asList(a, b)), view.getSelectedFigures());
+        assertSame(b, drawing.findFigure(new Point2D.Double(12, 5)));
+
+        edit[0].redo();
+        assertEquals(Arrays.<Figure>asList(result, other, top), drawing.getChildren());
+        assertSame(result, drawing.findFigure(new Point2D.Double(12, 5)));
+    }
+
+    @Test
+    public void isEnabledForPathsOfOdgDrawingPanel() {
+        drawing.add(square(0, 0, 10));
+        drawing.add(square(5, 0, 10));
+        view.addToSelection(drawing.getChildren());
+        int count = 0;
+        for (Action a : ODGDrawingPanel.createSelectionActions(view.getEditor())) {
+            if (a instanceof BooleanOperationAction) {
+                assertTrue(a.isEnabled());
+                count++;
+            }
+        }
+        assertEquals(4, count);
+    }
+}
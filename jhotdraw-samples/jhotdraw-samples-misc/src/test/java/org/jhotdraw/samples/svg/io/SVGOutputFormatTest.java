@@ -0,0 +1,346 @@
+package org.jhotdraw.samples.svg.io;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.jhotdraw.draw.DefaultDrawing;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.figure.Figure;
+import org.jhotdraw.geom.BezierPath;
+import org.jhotdraw.io.Base64;
+import org.jhotdraw.samples.svg.Gradient;
+import org.jhotdraw.samples.svg.LinearGradient;
+import org.jhotdraw.samples.svg.RadialGradient;
+import org.jhotdraw.samples.svg.figures.SVGBezierFigure;
+import org.jhotdraw.samples.svg.figures.SVGEllipseFigure;
+import org.jhotdraw.samples.svg.figures.SVGGroupFigure;
+import org.jhotdraw.samples.svg.figures.SVGImageFigure;
+import org.jhotdraw.samples.svg.figures.SVGPathFigure;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+import org.jhotdraw.samples.svg.figures.SVGTextAreaFigure;
+import org.jhotdraw.samples.svg.figures.SVGTextFigure;
+import org.junit.Test;
+
+import static org.jhotdraw.draw.AttributeKeys.*;
+import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that SVGOutputFormat writes the same documents as the DOM based
+ * implementation which it replaces. The expected documents have been written
+ * by the DOM based implementation.
+ */
+public class SVGOutputFormatTest {
+
+    private static final String[] TEXTS = {
+        "Hello", "a & b", "<tag>", "\"quoted\" 'single'", "tab\tand\nnewline",
+        "carriage\r\nreturn", "été €", "smile 😀", "bell\u0001", ""
+    };
+
+    private final Random random = new Random(20101);
+    private final List<Gradient> gradients = new ArrayList<>();
+
+    private double number() {
+        switch (random.nextInt(7)) {
+            case 0:
+                return random.nextInt(400) - 100;
+            case 1:
+                return random.nextInt(4000) / 10.0;
+            case 2:
+                return random.nextDouble() * 1e-5;
+            case 3:
+                return random.nextDouble() * 1e9;
+            case 4:
+                return -random.nextDouble() * 500;
+            default:
+                return random.nextDouble() * 500;
+        }
+    }
+
+    private Color color() {
+        switch (random.nextInt(3)) {
+            case 0:
+                return null;
+            case 1:
+                return new Color(random.nextInt(16) * 0x11, random.nextInt(16) * 0x11, random.nextInt(16) * 0x11);
+            default:
+                return new Color(random.nextInt(0x1000000));
+        }
+    }
+
+    private AffineTransform transform() {
+        switch (random.nextInt(6)) {
+            case 0:
+                return AffineTransform.getTranslateInstance(number(), random.nextBoolean() ? 0 : number());
+            case 1:
+                return AffineTransform.getScaleInstance(2, 2);
+            case 2:
+                return AffineTransform.getScaleInstance(number(), number());
+            case 3:
+                return AffineTransform.getRotateInstance(random.nextDouble() * 6);
+            case 4:
+                return new AffineTransform();
+            default:
+                return null;
+        }
+    }
+
+    private Gradient gradient() {
+        if (!gradients.isEmpty() && random.nextBoolean()) {
+            return gradients.get(random.nextInt(gradients.size()));
+        }
+        int n = 1 + random.nextInt(3);
+        double[] offsets = new double[n];
+        Color[] colors = new Color[n];
+        double[] opacities = new double[n];
+        for (int i = 0; i < n; i++) {
+            offsets[i] = i / (double) n;
+            colors[i] = new Color(random.nextInt(0x1000000));
+            opacities[i] = random.nextBoolean() ? 1 : random.nextDouble();
+        }
+        AffineTransform tx = transform();
+        if (tx == null) {
+            tx = new AffineTransform();
+        }
+        Gradient g;
+        if (random.nextBoolean()) {
+            g = new LinearGradient(random.nextDouble(), 0, 1, random.nextDouble(),
+                    offsets, colors, opacities, random.nextBoolean(), tx);
+        } else {
+            double c = random.nextBoolean() ? 0.5 : random.nextDouble();
+            g = new RadialGradient(c, c, random.nextBoolean() ? c : random.nextDouble(), c, 0.5,
+                    offsets, colors, opacities, random.nextBoolean(), tx);
+        }
+        gradients.add(g);
+        return g;
+    }
+
+    private void setShapeAttributes(Figure f) {
+        if (random.nextInt(4) == 0) {
+            f.set(FILL_GRADIENT, gradient());
+        } else {
+            f.set(FILL_COLOR, color());
+        }
+        if (random.nextInt(4) == 0) {
+            f.set(STROKE_GRADIENT, gradient());
+        } else {
+            f.set(STROKE_COLOR, color());
+        }
+        f.set(FILL_OPACITY, random.nextBoolean() ? 1 : random.nextDouble());
+        f.set(WINDING_RULE, random.nextBoolean() ? WindingRule.NON_ZERO : WindingRule.EVEN_ODD);
+        if (random.nextInt(4) == 0) {
+            f.set(STROKE_DASHES, new double[]{number(), number()});
+            f.set(STROKE_DASH_PHASE, number());
+        }
+        f.set(STROKE_CAP, random.nextInt(3));
+        f.set(STROKE_JOIN, random.nextInt(3));
+        f.set(STROKE_MITER_LIMIT, random.nextBoolean() ? 4 : number());
+        f.set(STROKE_OPACITY, random.nextBoolean() ? 1 : random.nextDouble());
+        f.set(STROKE_WIDTH, random.nextBoolean() ? 1 : number());
+        f.set(OPACITY, random.nextBoolean() ? 1 : random.nextDouble());
+        f.set(TRANSFORM, transform());
+        if (random.nextInt(8) == 0) {
+            f.set(LINK, TEXTS[random.nextInt(TEXTS.length)]);
+            f.set(LINK_TARGET, random.nextBoolean() ? null : "_blank");
+        }
+    }
+
+    private BezierPath bezierPath(boolean linear) {
+        BezierPath p = new BezierPath();
+        int n = 1 + random.nextInt(6);
+        for (int i = 0; i < n; i++) {
+            int mask = linear ? 0 : random.nextInt(4);
+            p.add(new BezierPath.Node(mask, number(), number(), number(), number(), number(), number()));
+        }
+        p.setClosed(random.nextBoolean());
+        return p;
+    }
+
+    private Figure figure(int depth) {
+        Figure f;
+        switch (random.nextInt(depth < 2 ? 7 : 6)) {
+            case 0: {
+                SVGRectFigure r = new SVGRectFigure(number(), number(), number(), number());
+                if (random.nextBoolean()) {
+                    r.setArc(number(), number());
+                }
+                f = r;
+                break;
+            }
+            case 1: {
+                double size = number();
+                f = random.nextBoolean()
+                        ? new SVGEllipseFigure(number(), number(), size, size)
+                        : new SVGEllipseFigure(number(), number(), number(), number());
+                break;
+            }
+            case 2:
+            case 3: {
+                SVGPathFigure p = new SVGPathFigure(true);
+                boolean linear = random.nextBoolean();
+                int n = 1 + (random.nextInt(3) == 0 ? random.nextInt(3) : 0);
+                for (int i = 0; i < n; i++) {
+                    SVGBezierFigure b = new SVGBezierFigure();
+                    b.setBezierPath(bezierPath(linear));
+                    p.add(b);
+                }
+                f = p;
+                break;
+            }
+            case 4: {
+                SVGTextFigure t = new SVGTextFigure(TEXTS[random.nextInt(TEXTS.length)]);
+                t.setCoordinates(new Point2D.Double[]{new Point2D.Double(random.nextBoolean() ? 0 : number(), number())});
+                if (random.nextBoolean()) {
+                    t.setRotates(new double[]{number()});
+                }
+                t.set(FONT_FACE, new Font(random.nextBoolean() ? "Serif" : "Dialog", Font.PLAIN, 12));
+                t.set(FONT_SIZE, 8 + random.nextInt(300) / 10.0);
+                t.set(FONT_ITALIC, random.nextBoolean());
+                t.set(FONT_BOLD, random.nextBoolean());
+                t.set(FONT_UNDERLINE, random.nextBoolean());
+                f = t;
+                break;
+            }
+            case 5: {
+                SVGImageFigure img = new SVGImageFigure(number(), number(), number(), number());
+                byte[] data = new byte[random.nextInt(100)];
+                random.nextBytes(data);
+                img.setImage(data, new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
+                f = img;
+                break;
+            }
+            default: {
+                SVGGroupFigure g = new SVGGroupFigure();
+                int n = random.nextInt(4);
+                for (int i = 0; i < n; i++) {
+                    g.add(figure(depth + 1));
+                }
+                g.set(OPACITY, random.nextBoolean() ? 1 : random.nextDouble());
+                return g;
+            }
+        }
+        setShapeAttributes(f);
+        return f;
+    }
+
+    private Drawing createDrawing(int figureCount) {
+        Drawing drawing = new DefaultDrawing();
+        drawing.set(VIEWPORT_WIDTH, 640.0);
+        drawing.set(VIEWPORT_HEIGHT, 480.5);
+        drawing.set(VIEWPORT_FILL, new Color(0x336699));
+        drawing.set(VIEWPORT_FILL_OPACITY, 0.5);
+        for (int i = 0; i < figureCount; i++) {
+            drawing.add(figure(0));
+        }
+        return drawing;
+    }
+
+    private static String write(Drawing drawing, boolean prettyPrint) throws IOException {
+        SVGOutputFormat format = new SVGOutputFormat();
+        format.setPrettyPrint(prettyPrint);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        format.write(out, drawing);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream in = SVGOutputFormatTest.class.getResourceAsStream(name)) {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            byte[] bytes = new byte[8192];
+            for (int len; (len = in.read(bytes)) != -1;) {
+                buf.write(bytes, 0, len);
+            }
+            return new String(buf.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void writesSameDocumentAsDom() throws IOException {
+        assertEquals(readResource("drawing.svg"), write(createDrawing(300), false));
+    }
+
+    @Test
+    public void writesSamePrettyPrintedDocumentAsDom() throws IOException {
+        assertEquals(readResource("drawing-pretty.svg"), write(createDrawing(300), true));
+    }
+
+    @Test
+    public void writesEmptyDrawing() throws IOException {
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\""
+                + " baseProfile=\"tiny\" version=\"1.2\" viewport-fill=\"#fff\"><defs/></svg>",
+                write(new DefaultDrawing(), false));
+    }
+
+    @Test
+    public void writesTextAreaWithLineBreaks() throws IOException {
+        Drawing drawing = new DefaultDrawing();
+        SVGTextAreaFigure f = new SVGTextAreaFigure("first\nsecond & third");
+        f.setBounds(new Point2D.Double(10, 20), new Point2D.Double(110, 70));
+        drawing.add(f);
+        String svg = write(drawing, false);
+        assertTrue(svg, svg.contains("<textArea "));
+        assertTrue(svg, svg.contains(">first<tbreak/>second &amp; third</textArea>"));
+    }
+
+    @Test
+    public void writesLargeBinaryDataInPieces() throws IOException {
+        byte[] data = new byte[100000];
+        random.nextBytes(data);
+        String expected = "<image x=\"1\" xlink:href=\"data:image;base64,"
+                + Base64.encodeBytes(data).replace("\n", "&#10;") + "\"/>";
+        StringWriter w = new StringWriter();
+        SVGElementWriter out = new SVGElementWriter(w, false);
+        out.startElement("image");
+        out.beginValue();
+        out.append("data:image;base64,");
+        out.appendBase64(data);
+        out.endValue("xlink:href", null);
+        out.attribute("x", 1, 0);
+        out.endElement();
+        out.flush();
+        assertEquals(expected, w.toString());
+
+        out = new SVGElementWriter(0, false);
+        out.beginValue();
+        out.appendBase64(data);
+        assertEquals(Base64.encodeBytes(data), out.endValue());
+    }
+
+    @Test
+    public void formatsNumbersLikeFloatToString() {
+        Random r = new Random(7);
+        for (int i = 0; i < 200000; i++) {
+            double d;
+            switch (i % 4) {
+                case 0:
+                    d = r.nextDouble() * Math.pow(10, r.nextInt(20) - 8);
+                    break;
+                case 1:
+                    d = -r.nextInt(100000) / 1000.0;
+                    break;
+                case 2:
+                    d = Float.intBitsToFloat(r.nextInt());
+                    break;
+                default:
+                    d = r.nextGaussian() * 1000;
+                    break;
+            }
+            String expected = Float.toString((float) d);
+            if (expected.endsWith(".0")) {
+                expected = expected.substring(0, expected.length() - 2);
+            }
+            assertEquals("number " + d, expected, SVGOutputFormat.toNumber(d));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.jhotdraw.samples.svg.io;
+
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.jhotdraw.io.StreamPosTokenizer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that SVGScanner scans path data like the StreamPosTokenizer which
+ * it replaces, and that it parses numbers exactly like Double.parseDouble.
+ */
+public class SVGScannerTest {
+
+    private static final String COMMANDS = "MmZzLlHhVvCcSsQqTtAa";
+
+    private static List<Object> scan(String str) {
+        SVGScanner s = new SVGScanner();
+        s.reset(str);
+        List<Object> tokens = new ArrayList<>();
+        while (!s.isAtEnd()) {
+            if (s.isNumberAhead()) {
+                assertTrue(str, s.nextNumber());
+                tokens.add(s.getNumber());
+            } else {
+                tokens.add((char) s.next());
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Scans a string with a StreamPosTokenizer which is configured like the
+     * tokenizer of the previous path parser.
+     */
+    private static List<Object> tokenize(String str) throws IOException {
+        StreamPosTokenizer tt = new StreamPosTokenizer(new StringReader(str));
+        tt.resetSyntax();
+        tt.parseNumbers();
+        tt.parseExponents();
+        tt.parsePlusAsNumber();
+        tt.whitespaceChars(0, ' ');
+        tt.whitespaceChars(',', ',');
+        List<Object> tokens = new ArrayList<>();
+        while (tt.nextToken() != StreamPosTokenizer.TT_EOF) {
+            if (tt.ttype == StreamPosTokenizer.TT_NUMBER) {
+                tokens.add(tt.nval);
+            } else {
+                tokens.add((char) tt.ttype);
+            }
+        }
+        return tokens;
+    }
+
+    private static String number(Random r) {
+        StringBuilder buf = new StringBuilder();
+        if (r.nextInt(3) == 0) {
+            buf.append('-');
+        }
+        switch (r.nextInt(4)) {
+            case 0:
+                buf.append(r.nextInt(1000));
+                break;
+            case 1:
+                buf.append(r.nextInt(1000)).append('.').append(r.nextInt(1000));
+                break;
+            case 2:
+                buf.append('.').append(r.nextInt(100));
+                break;
+            default:
+                buf.append(r.nextInt(100)).append('.').append(r.nextInt(100))
+                        .append('e').append(r.nextBoolean() ? "-" : "").append(r.nextInt(5));
+                break;
+        }
+        return buf.toString();
+    }
+
+    private static String separator(Random r) {
+        switch (r.nextInt(5)) {
+            case 0:
+                return ",";
+            case 1:
+                return " , ";
+            case 2:
+                return "\n\t";
+            default:
+                return " ";
+        }
+    }
+
+    @Test
+    public void scansPathDataLikeStreamPosTokenizer() throws IOException {
+        Random r = new Random(33);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder buf = new StringBuilder();
+            int n = r.nextInt(30);
+            for (int j = 0; j < n; j++) {
+                if (r.nextInt(4) == 0) {
+                    buf.append(COMMANDS.charAt(r.nextInt(COMMANDS.length())));
+                }
+                buf.append(separator(r)).append(number(r)).append(separator(r));
+            }
+            String str = buf.toString();
+            List<Object> expected = tokenize(str);
+            List<Object> actual = scan(str);
+            assertEquals(str, expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); j++) {
+                Object e = expected.get(j);
+                Object a = actual.get(j);
+                if (e instanceof Double) {
+                    double d = (Double) e;
+                    assertEquals(str, d, (Double) a, Math.abs(d) * 1e-12);
+                } else {
+                    assertEquals(str, e, a);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void scansCompactNumbers() {
+        assertEquals(list('M', 1.5, 0.5, -1.0, -2.0, 'z'), scan("M1.5.5-1-2z"));
+        assertEquals(list(100000.0, 2.5e-3, 'L', 3.0), scan("1e+5 2.5E-3L3"));
+        assertEquals(list(1.0, 'e', 'L', 2.0), scan("1eL2"));
+        assertEquals(list('-', '.', 'h'), scan("- . h"));
+    }
+
+    @Test
+    public void parsesNumbersLikeDoubleParseDouble() {
+        Random r = new Random(34);
+        SVGScanner s = new SVGScanner();
+        for (int i = 0; i < 100000; i++) {
+            double d;
+            switch (i % 3) {
+                case 0:
+                    d = r.nextDouble() * Math.pow(10, r.nextInt(40) - 20);
+                    break;
+                case 1:
+                    d = Double.longBitsToDouble(r.nextLong());
+                    break;
+                default:
+                    d = r.nextInt(100000) / 1000.0;
+                    break;
+            }
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                continue;
+            }
+            String str = Double.toString(d);
+            s.reset(str);
+            assertTrue(str, s.nextNumber());
+            assertEquals(str, str.length(), s.getPosition());
+            assertEquals(str, Double.parseDouble(str), s.getNumber(), 0);
+        }
+        for (String str : new String[]{"0.1", "123456789012345678901234567890", "9007199254740993",
+            "0.30000000000000004", "1e-320", "-0"}) {
+            s.reset(str);
+            assertTrue(str, s.nextNumber());
+            assertEquals(str, Double.parseDouble(str), s.getNumber(), 0);
+        }
+    }
+
+    @Test
+    public void scansWords() {
+        SVGScanner s = new SVGScanner();
+        s.reset(" translate(1)");
+        assertTrue(s.nextWord());
+        assertTrue(s.isWord("translate"));
+        assertEquals("translate", s.getWord());
+        assertFalse(s.nextWord());
+        assertEquals('(', s.next());
+    }
+
+    @Test
+    public void parsesTransforms() throws IOException {
+        AffineTransform expected = new AffineTransform(1, 2, 3, 4, 5, 6);
+        expected.translate(10, 0);
+        expected.scale(2, 3);
+        expected.rotate(Math.toRadians(45), 1, 2);
+        expected.concatenate(new AffineTransform(1, 0, Math.tan(Math.toRadians(30)), 1, 0, 0));
+        assertEquals(expected, SVGInputFormat.toTransform(null,
+                "matrix(1 2,3 4 5 6) translate(10) scale(2,3)rotate(45 1 2), skewX(30)"));
+        assertEquals(AffineTransform.getScaleInstance(1e5, 1e5),
+                SVGInputFormat.toTransform(null, "scale(1e+5)"));
+        assertEquals(new AffineTransform(), SVGInputFormat.toTransform(null, "none"));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsUnknownTransforms() throws IOException {
+        SVGInputFormat.toTransform(null, "shear(1)");
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsUnclosedTransforms() throws IOException {
+        SVGInputFormat.toTransform(null, "scale(1 2");
+    }
+
+    private static List<Object> list(Object... tokens) {
+        List<Object> list = new ArrayList<>();
+        for (Object t : tokens) {
+            list.add(t);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,116 @@
+package org.jhotdraw.samples.teddy.regex;
+
+import java.util.Random;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the matcher on documents whose text is split into several segments.
+ */
+public class MatcherTest {
+
+    /**
+     * Creates a document with a gap in its content, so that the text is
+     * returned in two segments.
+     */
+    private static PlainDocument createDocument(String text, int gap) throws BadLocationException {
+        PlainDocument doc = new PlainDocument();
+        doc.insertString(0, text.substring(0, gap) + text.substring(gap + 1), null);
+        doc.insertString(gap, text.substring(gap, gap + 1), null);
+        return doc;
+    }
+
+    private static String randomText(Random rnd, int length) {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            int r = rnd.nextInt(8);
+            buf.append(r == 0 ? ' ' : (char) ('a' + (r % 3)));
+        }
+        return buf.toString();
+    }
+
+    @Test
+    public void findsSameMatchesAsIndexOf() throws BadLocationException {
+        Random rnd = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            String text = randomText(rnd, 20 + rnd.nextInt(200));
+            String find = randomText(rnd, 1 + rnd.nextInt(4)).trim();
+            if (find.isEmpty()) {
+                continue;
+            }
+            PlainDocument doc = createDocument(text, rnd.nextInt(text.length()));
+            Matcher matcher = new Matcher(doc, find);
+            for (int start = 0; start <= text.length(); start++) {
+                assertEquals(text + "/" + find + "@" + start, text.indexOf(find, start), matcher.findNext(start));
+            }
+            for (int start = 0; start < text.length(); start++) {
+                assertEquals(text + "/" + find + "@" + start,
+                        text.lastIndexOf(find, start - find.length() + 1), matcher.findPrevious(start));
+            }
+        }
+    }
+
+    @Test
+    public void findsCaseInsensitiveWords() throws BadLocationException {
+        PlainDocument doc = createDocument("Find the FIND in finder, then find.", 10);
+        Matcher matcher = new Matcher(doc, "find", false, MatchType.FULL_WORD);
+        assertEquals(0, matcher.findNext(0));
+        assertEquals(9, matcher.findNext(1));
+        assertEquals(13, matcher.getMatchEnd());
+        assertEquals(30, matcher.findNext(10));
+        assertEquals(-1, matcher.findNext(31));
+        assertEquals(9, matcher.findPrevious(29));
+
+        matcher = new Matcher(doc, "find", false, MatchType.STARTS_WITH);
+        assertEquals(17, matcher.findNext(10));
+        matcher = new Matcher(doc, "find", true, MatchType.CONTAINS);
+        assertEquals(17, matcher.findNext(1));
+    }
+
+    @Test
+    public void findsRegularExpressions() throws BadLocationException {
+        PlainDocument doc = createDocument("a1 bb22 ccc333", 5);
+        Matcher matcher = new Matcher(doc, "[a-z]+(\\d+)", true, MatchType.REGULAR_EXPRESSION);
+        assertEquals(3, matcher.findNext(1));
+        assertEquals(7, matcher.getMatchEnd());
+        assertEquals(3, matcher.findPrevious(7));
+        assertEquals(8, matcher.findPrevious(13));
+        assertEquals(14, matcher.getMatchEnd());
+    }
+
+    @Test
+    public void replacesAllWithOneDocumentChange() throws BadLocationException {
+        PlainDocument doc = createDocument("x foo y foo z foofoo", 9);
+        final int[] changes = new int[2];
+        doc.addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                changes[0]++;
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                changes[1]++;
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        Matcher matcher = new Matcher(doc, "foo");
+        assertEquals(3, matcher.replaceAll(3, "barbar"));
+        assertEquals("x foo y barbar z barbarbarbar", doc.getText(0, doc.getLength()));
+        assertEquals(1, changes[0]);
+        assertEquals(1, changes[1]);
+
+        matcher = new Matcher(doc, "(b)ar", true, MatchType.REGULAR_EXPRESSION);
+        assertEquals(6, matcher.replaceAll(0, "$1"));
+        assertEquals("x foo y bb z bbbb", doc.getText(0, doc.getLength()));
+        assertEquals(0, new Matcher(doc, "none").replaceAll(0, "x"));
+    }
+}
@@ -0,0 +1,102 @@
+package org.jhotdraw.samples.teddy.text;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests bulk loading, writing and the line index of LineIndexedDocument.
+ */
+public class LineIndexedDocumentTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File createFile(String text, Charset charset) throws IOException {
+        File f = folder.newFile();
+        try (OutputStream out = new FileOutputStream(f)) {
+            out.write(text.getBytes(charset));
+        }
+        return f;
+    }
+
+    private static void assertLinesMatchElements(LineIndexedDocument doc) throws BadLocationException {
+        Element root = doc.getDefaultRootElement();
+        assertEquals(root.getElementCount(), doc.getLineCount());
+        for (int i = 0; i < root.getElementCount(); i++) {
+            assertEquals(root.getElement(i).getStartOffset(), doc.getLineStartOffset(i));
+        }
+        for (int offset = 0; offset <= doc.getLength(); offset++) {
+            assertEquals(root.getElementIndex(offset), doc.getLineOfOffset(offset));
+        }
+    }
+
+    private static String write(LineIndexedDocument doc) throws IOException {
+        StringWriter out = new StringWriter();
+        doc.write(out);
+        return out.toString();
+    }
+
+    @Test
+    public void readsFileAndConvertsLineSeparators() throws Exception {
+        File f = createFile("first\r\nsecond\rthird\nä€\r\n", StandardCharsets.UTF_8);
+        LineIndexedDocument doc = LineIndexedDocument.read(f, StandardCharsets.UTF_8, new SimpleAttributeSet(), null);
+        assertEquals("first\nsecond\nthird\nä€\n", doc.getText(0, doc.getLength()));
+        assertEquals(5, doc.getLineCount());
+        assertEquals("first\nsecond\nthird\nä€\n", write(doc));
+        assertLinesMatchElements(doc);
+    }
+
+    @Test
+    public void readsFilesLargerThanOneChunk() throws Exception {
+        Random rnd = new Random(5);
+        StringBuilder buf = new StringBuilder();
+        while (buf.length() < 1500000) {
+            int r = rnd.nextInt(40);
+            buf.append(r == 0 ? "\r\n" : r == 1 ? "\n" : r == 2 ? "ö" : "x");
+        }
+        String text = buf.toString();
+        LineIndexedDocument doc = LineIndexedDocument.read(createFile(text, StandardCharsets.UTF_8),
+                StandardCharsets.UTF_8, new SimpleAttributeSet(), null);
+        String expected = text.replace("\r\n", "\n");
+        assertEquals(expected, write(doc));
+        Element root = doc.getDefaultRootElement();
+        assertEquals(root.getElementCount(), doc.getLineCount());
+        for (int i = 0; i < root.getElementCount(); i += 97) {
+            assertEquals(root.getElement(i).getStartOffset(), doc.getLineStartOffset(i));
+        }
+    }
+
+    @Test
+    public void updatesLineIndexOnEdits() throws Exception {
+        LineIndexedDocument doc = new LineIndexedDocument();
+        Random rnd = new Random(3);
+        for (int round = 0; round < 300; round++) {
+            int offset = rnd.nextInt(doc.getLength() + 1);
+            if (rnd.nextInt(3) == 0 && doc.getLength() > 0) {
+                doc.remove(offset, Math.min(rnd.nextInt(8), doc.getLength() - offset));
+            } else {
+                doc.insertString(offset, rnd.nextBoolean() ? "ab\ncd" : "\n", null);
+            }
+            // Query only part of the index, so that it is extended lazily
+            doc.getLineOfOffset(rnd.nextInt(doc.getLength() + 1));
+            if (round % 30 == 0) {
+                assertLinesMatchElements(doc);
+            }
+        }
+        assertLinesMatchElements(doc);
+    }
+}
@@ -59,68 +59,32 @@ public class Bezier {
      * digitized points.
      */
     public static BezierPath fitBezierPath(Point2D.Double[] digitizedPoints, double error) {
-        return fitBezierPath(Arrays.asList(digitizedPoints), error);
+        BezierFitter fitter = new BezierFitter(error);
+        for (Point2D.Double p : digitizedPoints) {
+            fitter.add(p.x, p.y);
+        }
+        return fitter.finish();
     }
 
     /**
      * Fits a bezier path to the specified list of digitized points.
+     * <p>
+     * The points are split into segments at corners. The points of each
+     * segment are cleaned up with {@link #removeClosePoints} and
+     * {@link #reduceNoise}, and are then fitted with cubic curves.
+     * See {@link BezierFitter} for fitting points while they are being
+     * digitized.
      *
      * @param digitizedPoints digited points.
      * @param error the maximal allowed error between the bezier path and the
      * digitized points.
      */
     public static BezierPath fitBezierPath(java.util.List<Point2D.Double> digitizedPoints, double error) {
-        // Split into segments at corners
-        ArrayList<ArrayList<Point2D.Double>> segments;
-        segments = splitAtCorners(digitizedPoints, 77 / 180d * Math.PI, error * error);
-        // Clean up the data in the segments
-        for (int i = 0, n = segments.size(); i < n; i++) {
-            ArrayList<Point2D.Double> seg = segments.get(i);
-            seg = removeClosePoints(seg, error * 2);
-            seg = reduceNoise(seg, 0.8);
-            segments.set(i, seg);
-        }
-        // Create fitted bezier path
-        BezierPath fittedPath = new BezierPath();
-        // Quickly deal with empty dataset
-        boolean isEmpty = false;
-        for (ArrayList<Point2D.Double> seg : segments) {
-            if (seg.isEmpty()) {
-                isEmpty = false;
-                break;
-            }
-        }
-        if (!isEmpty) {
-            // Process each segment of digitized points
-            double errorSquared = error * error;
-            for (ArrayList<Point2D.Double> seg : segments) {
-                switch (seg.size()) {
-                    case 0:
-                        break;
-                    case 1:
-                        fittedPath.add(new BezierPath.Node(seg.get(0)));
-                        break;
-                    case 2:
-                        if (fittedPath.isEmpty()) {
-                            fittedPath.add(new BezierPath.Node(seg.get(0)));
-                        }
-                        fittedPath.lineTo(seg.get(1).x, seg.get(1).y);
-                        break;
-                    default:
-                        if (fittedPath.isEmpty()) {
-                            fittedPath.add(new BezierPath.Node(seg.get(0)));
-                        }
-                        /*  Unit tangent vectors at endpoints */
-                        Point2D.Double tHat1;
-                        Point2D.Double tHat2;
-                        tHat1 = computeLeftTangent(seg, 0);
-                        tHat2 = computeRightTangent(seg, seg.size() - 1);
-                        fitCubic(seg, 0, seg.size() - 1, tHat1, tHat2, errorSquared, fittedPath);
-                        break;
-                }
-            }
+        BezierFitter fitter = new BezierFitter(error);
+        for (Point2D.Double p : digitizedPoints) {
+            fitter.add(p.x, p.y);
         }
-        return fittedPath;
+        return fitter.finish();
     }
 
     /**
@@ -133,11 +97,11 @@ public class Bezier {
      * digitized points.
      */
     public static BezierPath fitBezierPath(BezierPath digitizedPoints, double error) {
-        ArrayList<Point2D.Double> d = new ArrayList<>(digitizedPoints.size());
+        BezierFitter fitter = new BezierFitter(error);
         for (BezierPath.Node n : digitizedPoints) {
-            d.add(new Point2D.Double(n.x[0], n.y[0]));
+            fitter.add(n.x[0], n.y[0]);
         }
-        return fitBezierPath(d, error);
+        return fitter.finish();
     }
 
     /**
@@ -240,6 +204,10 @@ public class Bezier {
 
     /**
      * Finds corners in the provided point list, and returns their indices.
+     * <p>
+     * The adjacent points of a point are the nearest points, which are at
+     * least minDistance away from it along the digitized path. A corner
+     * is also used as the preceding point of subsequent points.
      *
      * @param digitizedPoints List of digitized points.
      * @param minAngle Minimal angle for corner points
@@ -248,50 +216,11 @@ public class Bezier {
      * @return list of corner indices.
      */
     public static ArrayList<Integer> findCorners(java.util.List<Point2D.Double> digitizedPoints, double minAngle, double minDistance) {
-        ArrayList<Integer> cornerIndices = new ArrayList<>();
-        double squaredDistance = minDistance * minDistance;
-        int previousCorner = -1;
-        double previousCornerAngle = 0;
-        for (int i = 1, n = digitizedPoints.size(); i < n - 1; i++) {
-            Point2D.Double p = digitizedPoints.get(i);
-            // search for a preceding point for corner detection
-            Point2D.Double prev = null;
-            boolean intersectsPreviousCorner = false;
-            for (int j = i - 1; j >= 0; j--) {
-                if (j == previousCorner || v2SquaredDistanceBetween2Points(digitizedPoints.get(j), p) >= squaredDistance) {
-                    prev = digitizedPoints.get(j);
-                    intersectsPreviousCorner = j < previousCorner;
-                    break;
-                }
-            }
-            if (prev == null) {
-                continue;
-            }
-            // search for a succeeding point for corner detection
-            Point2D.Double next = null;
-            for (int j = i + 1; j < n; j++) {
-                if (v2SquaredDistanceBetween2Points(digitizedPoints.get(j), p) >= squaredDistance) {
-                    next = digitizedPoints.get(j);
-                    break;
-                }
-            }
-            if (next == null) {
-                continue;
-            }
-            double aPrev = Math.atan2(prev.y - p.y, prev.x - p.x);
-            double aNext = Math.atan2(next.y - p.y, next.x - p.x);
-            double angle = Math.abs(aPrev - aNext);
-            if (angle < Math.PI - minAngle || angle > Math.PI + minAngle) {
-                if (intersectsPreviousCorner) {
-                    cornerIndices.set(cornerIndices.size() - 1, i);
-                } else {
-                    cornerIndices.add(i);
-                }
-                previousCorner = i;
-                previousCornerAngle = angle;
-            }
+        BezierFitter fitter = new BezierFitter(0, minAngle, minDistance, false);
+        for (Point2D.Double p : digitizedPoints) {
+            fitter.add(p.x, p.y);
         }
-        return cornerIndices;
+        return fitter.getCorners();
     }
 
     /**
@@ -330,104 +259,147 @@ public class Bezier {
         return cleaned;
     }
 
+    /**
+     * Fits a segment of digitized points, which represent a smooth curve
+     * without corners, and adds the curves to the bezier path.
+     *
+     * @param xs X coordinates of the digitized points. Must not contain
+     * subsequent coincident points.
+     * @param ys Y coordinates of the digitized points.
+     * @param count Number of digitized points.
+     * @param errorSquared User-defined error squared.
+     * @param fittedPath Path to which the bezier curve segments are added.
+     */
+    static void fitSegment(double[] xs, double[] ys, int count, double errorSquared, BezierPath fittedPath) {
+        switch (count) {
+            case 0:
+                break;
+            case 1:
+                fittedPath.add(new BezierPath.Node(xs[0], ys[0]));
+                break;
+            case 2:
+                if (fittedPath.isEmpty()) {
+                    fittedPath.add(new BezierPath.Node(xs[0], ys[0]));
+                }
+                fittedPath.lineTo(xs[1], ys[1]);
+                break;
+            default:
+                if (fittedPath.isEmpty()) {
+                    fittedPath.add(new BezierPath.Node(xs[0], ys[0]));
+                }
+                /*  Unit tangent vectors at endpoints */
+                Span span = new Span(0, count - 1);
+                span.setLeftTangent(xs[1] - xs[0], ys[1] - ys[0]);
+                span.setRightTangent(xs[count - 2] - xs[count - 1], ys[count - 2] - ys[count - 1]);
+                fitCubic(xs, ys, count, span, errorSquared, fittedPath);
+                break;
+        }
+    }
+
+    /**
+     * A range of digitized points, and the unit tangent vectors at its
+     * endpoints.
+     */
+    private static class Span {
+
+        final int first;
+        final int last;
+        double t1x, t1y, t2x, t2y;
+
+        Span(int first, int last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        void setLeftTangent(double x, double y) {
+            double len = Math.sqrt(x * x + y * y);
+            t1x = len == 0.0 ? x : x / len;
+            t1y = len == 0.0 ? y : y / len;
+        }
+
+        void setRightTangent(double x, double y) {
+            double len = Math.sqrt(x * x + y * y);
+            t2x = len == 0.0 ? x : x / len;
+            t2y = len == 0.0 ? y : y / len;
+        }
+    }
+
     /**
      * Fit one or multiple subsequent cubic bezier curves to a (sub)set of
      * digitized points. The digitized points represent a smooth curve without
      * corners.
+     * <p>
+     * If a curve does not fit, the points are split at the point with the
+     * maximal error. The resulting spans are kept on a stack instead of
+     * fitting them recursively, because long strokes can be split many
+     * times.
      *
-     * @param d Array of digitized points. Must not contain subsequent
-     * coincident points.
-     * @param first Indice of first point in d.
-     * @param last Indice of last point in d.
-     * @param tHat1 Unit tangent vectors at start point.
-     * @param tHat2 Unit tanget vector at end point.
+     * @param xs X coordinates of the digitized points. Must not contain
+     * subsequent coincident points.
+     * @param ys Y coordinates of the digitized points.
+     * @param count Number of digitized points.
+     * @param span The span of points, and the unit tangent vectors at its
+     * endpoints.
      * @param errorSquared User-defined errorSquared squared.
      * @param bezierPath Path to which the bezier curve segments are added.
      */
-    private static void fitCubic(ArrayList<Point2D.Double> d, int first, int last,
-            Point2D.Double tHat1, Point2D.Double tHat2,
+    private static void fitCubic(double[] xs, double[] ys, int count, Span span,
             double errorSquared, BezierPath bezierPath) {
-        Point2D.Double[] bezCurve;
-        /*Control points of fitted Bezier curve*/
-        double[] u;
-        /*  Parameter values for point  */
-        double maxError;
-        /*  Maximum fitting errorSquared */
-        int[] splitPoint = new int[1];
+        /*  Control points of fitted Bezier curve */
+        double[] bezCurve = new double[8];
+        /*  Parameter values for points */
+        double[] u = new double[count];
         /*  Point to split point set at.
         This is an array of size one, because we need it as an input/output parameter.
          */
-        int nPts;
-        /*  Number of points in subset  */
-        double iterationError;
+        int[] splitPoint = new int[1];
         /* Error below which you try iterating  */
-        int maxIterations = 4;
+        double iterationError = errorSquared * errorSquared;
         /*  Max times to try iterating  */
-        Point2D.Double tHatCenter;
-        /* Unit tangent vector at splitPoint */
-        int i;
-        // clone unit tangent vectors, so that we can alter their coordinates
-        // without affecting the input values.
-        tHat1 = (Point2D.Double) tHat1.clone();
-        tHat2 = (Point2D.Double) tHat2.clone();
-        iterationError = errorSquared * errorSquared;
-        nPts = last - first + 1;
-        /*  Use heuristic if region only has two points in it */
-        if (nPts == 2) {
-            double dist = v2DistanceBetween2Points(d.get(last), d.get(first)) / 3.0;
-            bezCurve = new Point2D.Double[4];
-            for (i = 0; i < bezCurve.length; i++) {
-                bezCurve[i] = new Point2D.Double();
+        int maxIterations = 4;
+        ArrayDeque<Span> stack = new ArrayDeque<>();
+        stack.push(span);
+        while (!stack.isEmpty()) {
+            Span s = stack.pop();
+            int first = s.first;
+            int last = s.last;
+            boolean connectsCorners = first == 0 && last == count - 1;
+            generateBezier(xs, ys, s, bezCurve);
+            /*  Use heuristic if region only has two points in it */
+            if (last - first + 1 == 2) {
+                bezierPath.curveTo(bezCurve[2], bezCurve[3], bezCurve[4], bezCurve[5], bezCurve[6], bezCurve[7]);
+                continue;
             }
-            bezCurve[0] = d.get(first);
-            bezCurve[3] = d.get(last);
-            v2Add(bezCurve[0], v2Scale(tHat1, dist), bezCurve[1]);
-            v2Add(bezCurve[3], v2Scale(tHat2, dist), bezCurve[2]);
-            bezierPath.curveTo(
-                    bezCurve[1].x, bezCurve[1].y,
-                    bezCurve[2].x, bezCurve[2].y,
-                    bezCurve[3].x, bezCurve[3].y);
-            return;
-        }
-        /*  Parameterize points, and attempt to fit curve */
-        u = chordLengthParameterize(d, first, last);
-        bezCurve = generateBezier(d, first, last, u, tHat1, tHat2);
-        /*  Find max deviation of points to fitted curve */
-        maxError = computeMaxError(d, first, last, bezCurve, u, splitPoint);
-        if (maxError < errorSquared) {
-            addCurveTo(bezCurve, bezierPath, errorSquared, first == 0 && last == d.size() - 1);
-            return;
-        }
-        /*  If errorSquared not too large, try some reparameterization  */
- /*  and iteration */
-        if (maxError < iterationError) {
-            double[] uPrime;
-            /*  Improved parameter values */
-            for (i = 0; i < maxIterations; i++) {
-                uPrime = reparameterize(d, first, last, u, bezCurve);
-                bezCurve = generateBezier(d, first, last, uPrime, tHat1, tHat2);
-                maxError = computeMaxError(d, first, last, bezCurve, uPrime, splitPoint);
-                if (maxError < errorSquared) {
-                    addCurveTo(bezCurve, bezierPath, errorSquared, first == 0 && last == d.size() - 1);
-                    return;
-                }
-                u = uPrime;
+            /*  Parameterize points, and attempt to fit curve */
+            chordLengthParameterize(xs, ys, first, last, u);
+            /*  Find max deviation of points to fitted curve */
+            double maxError = computeMaxError(xs, ys, first, last, bezCurve, u, splitPoint);
+            /*  If errorSquared not too large, try some reparameterization
+            and iteration */
+            int iterations = maxError < iterationError ? maxIterations : 0;
+            for (int i = 0; maxError >= errorSquared && i < iterations; i++) {
+                reparameterize(xs, ys, first, last, u, bezCurve);
+                maxError = computeMaxError(xs, ys, first, last, bezCurve, u, splitPoint);
             }
-        }
-        /* Fitting failed -- split at max errorSquared point and fit recursively */
-        tHatCenter = computeCenterTangent(d, splitPoint[0]);
-        if (first < splitPoint[0]) {
-            fitCubic(d, first, splitPoint[0], tHat1, tHatCenter, errorSquared, bezierPath);
-        } else {
-            bezierPath.lineTo(d.get(splitPoint[0]).x, d.get(splitPoint[0]).y);
-            //   System.err.println("Can't split any further " + first + ".." + splitPoint[0]);
-        }
-        v2Negate(tHatCenter);
-        if (splitPoint[0] < last) {
-            fitCubic(d, splitPoint[0], last, tHatCenter, tHat2, errorSquared, bezierPath);
-        } else {
-            bezierPath.lineTo(d.get(last).x, d.get(last).y);
-            //  System.err.println("Can't split any further " + splitPoint[0] + ".." + last);
+            if (maxError < errorSquared) {
+                addCurveTo(bezCurve, bezierPath, errorSquared, connectsCorners);
+                continue;
+            }
+            /* Fitting failed -- split at max errorSquared point and fit the
+            left part before the right part */
+            int center = splitPoint[0];
+            double cx = ((xs[center - 1] - xs[center]) + (xs[center] - xs[center + 1])) / 2.0;
+            double cy = ((ys[center - 1] - ys[center]) + (ys[center] - ys[center + 1])) / 2.0;
+            Span right = new Span(center, last);
+            right.setLeftTangent(-cx, -cy);
+            right.t2x = s.t2x;
+            right.t2y = s.t2y;
+            Span left = new Span(first, center);
+            left.t1x = s.t1x;
+            left.t1y = s.t1y;
+            left.setRightTangent(cx, cy);
+            stack.push(right);
+            stack.push(left);
         }
     }
 
@@ -437,181 +409,111 @@ public class Bezier {
      * @param bezCurve
      * @param bezierPath
      */
-    private static void addCurveTo(Point2D.Double[] bezCurve, BezierPath bezierPath, double errorSquared, boolean connectsCorners) {
+    private static void addCurveTo(double[] bezCurve, BezierPath bezierPath, double errorSquared, boolean connectsCorners) {
         BezierPath.Node lastNode = bezierPath.get(bezierPath.size() - 1);
         double error = Math.sqrt(errorSquared);
-        if (connectsCorners && Geom.lineContainsPoint(lastNode.x[0], lastNode.y[0], bezCurve[3].x, bezCurve[3].y, bezCurve[1].x, bezCurve[1].y, error)
-                && Geom.lineContainsPoint(lastNode.x[0], lastNode.y[0], bezCurve[3].x, bezCurve[3].y, bezCurve[2].x, bezCurve[2].y, error)) {
+        if (connectsCorners && Geom.lineContainsPoint(lastNode.x[0], lastNode.y[0], bezCurve[6], bezCurve[7], bezCurve[2], bezCurve[3], error)
+                && Geom.lineContainsPoint(lastNode.x[0], lastNode.y[0], bezCurve[6], bezCurve[7], bezCurve[4], bezCurve[5], error)) {
             bezierPath.lineTo(
-                    bezCurve[3].x, bezCurve[3].y);
+                    bezCurve[6], bezCurve[7]);
         } else {
             bezierPath.curveTo(
-                    bezCurve[1].x, bezCurve[1].y,
-                    bezCurve[2].x, bezCurve[2].y,
-                    bezCurve[3].x, bezCurve[3].y);
+                    bezCurve[2], bezCurve[3],
+                    bezCurve[4], bezCurve[5],
+                    bezCurve[6], bezCurve[7]);
         }
     }
 
-    /**
-     * Approximate unit tangents at "left" endpoint of digitized curve.
-     *
-     * @param d Digitized points.
-     * @param end Index to "left" end of region.
-     */
-    private static Point2D.Double computeLeftTangent(ArrayList<Point2D.Double> d, int end) {
-        Point2D.Double tHat1;
-        tHat1 = v2SubII(d.get(end + 1), d.get(end));
-        tHat1 = v2Normalize(tHat1);
-        return tHat1;
-    }
-
-    /**
-     * Approximate unit tangents at "right" endpoint of digitized curve.
-     *
-     * @param d Digitized points.
-     * @param end Index to "right" end of region.
-     */
-    private static Point2D.Double computeRightTangent(ArrayList<Point2D.Double> d, int end) {
-        Point2D.Double tHat2;
-        tHat2 = v2SubII(d.get(end - 1), d.get(end));
-        tHat2 = v2Normalize(tHat2);
-        return tHat2;
-    }
-
-    /**
-     * Approximate unit tangents at "center" of digitized curve.
-     *
-     * @param d Digitized points.
-     * @param center Index to "center" end of region.
-     */
-    private static Point2D.Double computeCenterTangent(ArrayList<Point2D.Double> d, int center) {
-        Point2D.Double V1, V2,
-                tHatCenter = new Point2D.Double();
-        V1 = v2SubII(d.get(center - 1), d.get(center));
-        V2 = v2SubII(d.get(center), d.get(center + 1));
-        tHatCenter.x = (V1.x + V2.x) / 2.0;
-        tHatCenter.y = (V1.y + V2.y) / 2.0;
-        tHatCenter = v2Normalize(tHatCenter);
-        return tHatCenter;
-    }
-
     /**
      * Assign parameter values to digitized points
      * using relative distances between points.
      *
-     * @param d Digitized points.
-     * @param first Indice of first point of region in d.
-     * @param last Indice of last point of region in d.
-     */
-    private static double[] chordLengthParameterize(ArrayList<Point2D.Double> d, int first, int last) {
-        int i;
-        double[] u;
-        /*  Parameterization */
-        u = new double[last - first + 1];
+     * @param xs X coordinates of the digitized points.
+     * @param ys Y coordinates of the digitized points.
+     * @param first Indice of first point of region.
+     * @param last Indice of last point of region.
+     * @param u Parameterization, the value for point i is stored at index
+     * i - first.
+     */
+    private static void chordLengthParameterize(double[] xs, double[] ys, int first, int last, double[] u) {
         u[0] = 0.0;
-        for (i = first + 1; i <= last; i++) {
-            u[i - first] = u[i - first - 1]
-                    + v2DistanceBetween2Points(d.get(i), d.get(i - 1));
+        for (int i = first + 1; i <= last; i++) {
+            double dx = xs[i] - xs[i - 1];
+            double dy = ys[i] - ys[i - 1];
+            u[i - first] = u[i - first - 1] + Math.sqrt(dx * dx + dy * dy);
         }
-        for (i = first + 1; i <= last; i++) {
-            u[i - first] = u[i - first] / u[last - first];
+        double length = u[last - first];
+        for (int i = first + 1; i <= last; i++) {
+            u[i - first] = u[i - first] / length;
         }
-        return (u);
     }
 
     /**
      * Given set of points and their parameterization, try to find
      * a better parameterization.
      *
-     * @param d Array of digitized points.
-     * @param first Indice of first point of region in d.
-     * @param last Indice of last point of region in d.
-     * @param u Current parameter values.
+     * @param xs X coordinates of the digitized points.
+     * @param ys Y coordinates of the digitized points.
+     * @param first Indice of first point of region.
+     * @param last Indice of last point of region.
+     * @param u Current parameter values, are replaced by the new values.
      * @param bezCurve Current fitted curve.
      */
-    private static double[] reparameterize(ArrayList<Point2D.Double> d, int first, int last, double[] u, Point2D.Double[] bezCurve) {
-        int nPts = last - first + 1;
-        int i;
-        double[] uPrime;
-        /*  New parameter values */
-        uPrime = new double[nPts];
-        for (i = first; i <= last; i++) {
-            uPrime[i - first] = newtonRaphsonRootFind(bezCurve, d.get(i), u[i - first]);
+    private static void reparameterize(double[] xs, double[] ys, int first, int last, double[] u, double[] bezCurve) {
+        for (int i = first; i <= last; i++) {
+            u[i - first] = newtonRaphsonRootFind(bezCurve, xs[i], ys[i], u[i - first]);
         }
-        return (uPrime);
     }
 
     /**
      * Use Newton-Raphson iteration to find better root.
      *
      * @param Q Current fitted bezier curve.
-     * @param P Digitized point.
+     * @param px X coordinate of the digitized point.
+     * @param py Y coordinate of the digitized point.
      * @param u Parameter value vor P.
      */
-    private static double newtonRaphsonRootFind(Point2D.Double[] Q, Point2D.Double P, double u) {
-        double numerator, denominator;
-        Point2D.Double[] Q1 = new Point2D.Double[3], Q2 = new Point2D.Double[2];
-        /*  Q' and Q''   */
-        Point2D.Double Q_u, Q1_u, Q2_u;
-        /*u evaluated at Q, Q', & Q'' */
-        double uPrime;
-        /*  Improved u */
-        int i;
+    private static double newtonRaphsonRootFind(double[] Q, double px, double py, double u) {
+        double v = 1.0 - u;
         /* Compute Q(u) */
-        Q_u = bezierII(3, Q, u);
-        /* Generate control vertices for Q' */
-        for (i = 0; i <= 2; i++) {
-            Q1[i] = new Point2D.Double(
-                    (Q[i + 1].x - Q[i].x) * 3.0,
-                    (Q[i + 1].y - Q[i].y) * 3.0);
-        }
-        /* Generate control vertices for Q'' */
-        for (i = 0; i <= 1; i++) {
-            Q2[i] = new Point2D.Double(
-                    (Q1[i + 1].x - Q1[i].x) * 2.0,
-                    (Q1[i + 1].y - Q1[i].y) * 2.0);
-        }
+        double qx = b0(u) * Q[0] + b1(u) * Q[2] + b2(u) * Q[4] + b3(u) * Q[6];
+        double qy = b0(u) * Q[1] + b1(u) * Q[3] + b2(u) * Q[5] + b3(u) * Q[7];
         /* Compute Q'(u) and Q''(u) */
-        Q1_u = bezierII(2, Q1, u);
-        Q2_u = bezierII(1, Q2, u);
+        double q1x = 3.0 * (v * v * (Q[2] - Q[0]) + 2.0 * u * v * (Q[4] - Q[2]) + u * u * (Q[6] - Q[4]));
+        double q1y = 3.0 * (v * v * (Q[3] - Q[1]) + 2.0 * u * v * (Q[5] - Q[3]) + u * u * (Q[7] - Q[5]));
+        double q2x = 6.0 * (v * (Q[4] - 2.0 * Q[2] + Q[0]) + u * (Q[6] - 2.0 * Q[4] + Q[2]));
+        double q2y = 6.0 * (v * (Q[5] - 2.0 * Q[3] + Q[1]) + u * (Q[7] - 2.0 * Q[5] + Q[3]));
         /* Compute f(u)/f'(u) */
-        numerator = (Q_u.x - P.x) * (Q1_u.x) + (Q_u.y - P.y) * (Q1_u.y);
-        denominator = (Q1_u.x) * (Q1_u.x) + (Q1_u.y) * (Q1_u.y)
-                + (Q_u.x - P.x) * (Q2_u.x) + (Q_u.y - P.y) * (Q2_u.y);
+        double numerator = (qx - px) * q1x + (qy - py) * q1y;
+        double denominator = q1x * q1x + q1y * q1y
+                + (qx - px) * q2x + (qy - py) * q2y;
         /* u = u - f(u)/f'(u) */
-        uPrime = u - (numerator / denominator);
-        return (uPrime);
+        return u - (numerator / denominator);
     }
 
     /**
      * Find the maximum squared distance of digitized points
      * to fitted curve.
      *
-     * @param d Digitized points.
-     * @param first Indice of first point of region in d.
-     * @param last Indice of last point of region in d.
+     * @param xs X coordinates of the digitized points.
+     * @param ys Y coordinates of the digitized points.
+     * @param first Indice of first point of region.
+     * @param last Indice of last point of region.
      * @param bezCurve Fitted Bezier curve
      * @param u Parameterization of points
      *
      * @param splitPoint Point of maximum error (input/output parameter, must be
      * an array of 1)
      */
-    private static double computeMaxError(ArrayList<Point2D.Double> d, int first, int last, Point2D.Double[] bezCurve, double[] u, int[] splitPoint) {
-        int i;
-        double maxDist;
-        /*  Maximum error */
-        double dist;
-        /*  Current error */
-        Point2D.Double P;
-        /*  Point on curve */
-        Point2D.Double v;
-        /*  Vector from point to curve */
+    private static double computeMaxError(double[] xs, double[] ys, int first, int last, double[] bezCurve, double[] u, int[] splitPoint) {
         splitPoint[0] = (last - first + 1) / 2;
-        maxDist = 0.0;
-        for (i = first + 1; i < last; i++) {
-            P = bezierII(3, bezCurve, u[i - first]);
-            v = v2SubII(P, d.get(i));
-            dist = v2SquaredLength(v);
+        double maxDist = 0.0;
+        for (int i = first + 1; i < last; i++) {
+            double t = u[i - first];
+            double b0 = b0(t), b1 = b1(t), b2 = b2(t), b3 = b3(t);
+            double dx = b0 * bezCurve[0] + b1 * bezCurve[2] + b2 * bezCurve[4] + b3 * bezCurve[6] - xs[i];
+            double dy = b0 * bezCurve[1] + b1 * bezCurve[3] + b2 * bezCurve[5] + b3 * bezCurve[7] - ys[i];
+            double dist = dx * dx + dy * dy;
             if (dist >= maxDist) {
                 maxDist = dist;
                 splitPoint[0] = i;
@@ -621,58 +523,26 @@ public class Bezier {
     }
 
     /**
-     * Use least-squares method to find Bezier control points for region.
+     * Use the Wu/Barsky heuristic to find Bezier control points for region.
      *
-     * @param d Array of digitized points.
-     * @param first Indice of first point in d.
-     * @param last Indice of last point in d.
-     * @param uPrime Parameter values for region .
-     * @param tHat1 Unit tangent vectors at start point.
-     * @param tHat2 Unit tanget vector at end point.
-     * @return A cubic bezier curve consisting of 4 control points.
-     */
-    private static Point2D.Double[] generateBezier(ArrayList<Point2D.Double> d, int first, int last, double[] uPrime, Point2D.Double tHat1, Point2D.Double tHat2) {
-        Point2D.Double[] bezCurve;
-        bezCurve = new Point2D.Double[4];
-        for (int i = 0; i < bezCurve.length; i++) {
-            bezCurve[i] = new Point2D.Double();
-        }
-        /*  Use the Wu/Barsky heuristic*/
-        double dist = v2DistanceBetween2Points(d.get(last), d.get(first)) / 3.0;
-        bezCurve[0] = d.get(first);
-        bezCurve[3] = d.get(last);
-        v2Add(bezCurve[0], v2Scale(tHat1, dist), bezCurve[1]);
-        v2Add(bezCurve[3], v2Scale(tHat2, dist), bezCurve[2]);
-        return (bezCurve);
-    }
-
-    /**
-     * Evaluate a Bezier curve at a particular parameter value.
-     *
-     * @param degree The degree of the bezier curve.
-     * @param V Array of control points.
-     * @param t Parametric value to find point for.
-     */
-    private static Point2D.Double bezierII(int degree, Point2D.Double[] V, double t) {
-        int i, j;
-        Point2D.Double q;
-        /* Point on curve at parameter t */
-        Point2D.Double[] vTemp;
-        /* Local copy of control points  */
- /* Copy array */
-        vTemp = new Point2D.Double[degree + 1];
-        for (i = 0; i <= degree; i++) {
-            vTemp[i] = (Point2D.Double) V[i].clone();
-        }
-        /* Triangle computation */
-        for (i = 1; i <= degree; i++) {
-            for (j = 0; j <= degree - i; j++) {
-                vTemp[j].x = (1.0 - t) * vTemp[j].x + t * vTemp[j + 1].x;
-                vTemp[j].y = (1.0 - t) * vTemp[j].y + t * vTemp[j + 1].y;
-            }
-        }
-        q = vTemp[0];
-        return q;
+     * @param xs X coordinates of the digitized points.
+     * @param ys Y coordinates of the digitized points.
+     * @param span The region and the unit tangent vectors at its endpoints.
+     * @param bezCurve Receives the x and y coordinates of the 4 control
+     * points of the cubic bezier curve.
+     */
+    private static void generateBezier(double[] xs, double[] ys, Span span, double[] bezCurve) {
+        double x0 = xs[span.first], y0 = ys[span.first];
+        double x3 = xs[span.last], y3 = ys[span.last];
+        double dist = Math.sqrt((x3 - x0) * (x3 - x0) + (y3 - y0) * (y3 - y0)) / 3.0;
+        bezCurve[0] = x0;
+        bezCurve[1] = y0;
+        bezCurve[2] = x0 + span.t1x * dist;
+        bezCurve[3] = y0 + span.t1y * dist;
+        bezCurve[4] = x3 + span.t2x * dist;
+        bezCurve[5] = y3 + span.t2y * dist;
+        bezCurve[6] = x3;
+        bezCurve[7] = y3;
     }
 
     /* -------------------------------------------------------------------------
@@ -682,13 +552,6 @@ public class Bezier {
      * from "Graphics Gems", Academic Press, 1990
      * -------------------------------------------------------------------------
      */
-    /**
-     * Return the distance between two points
-     */
-    private static double v2DistanceBetween2Points(Point2D.Double a, Point2D.Double b) {
-        return Math.sqrt(v2SquaredDistanceBetween2Points(a, b));
-    }
-
     /**
      * Return the distance between two points
      */
@@ -698,109 +561,6 @@ public class Bezier {
         return (dx * dx) + (dy * dy);
     }
 
-    /**
-     * Scales the input vector to the new length and returns it.
-     * <p>
-     * This method alters the value of the input point!
-     */
-    private static Point2D.Double v2Scale(Point2D.Double v, double newlen) {
-        double len = v2Length(v);
-        if (len != 0.0) {
-            v.x *= newlen / len;
-            v.y *= newlen / len;
-        }
-        return v;
-    }
-
-    /**
-     * Scales the input vector by the specified factor and returns it.
-     * <p>
-     * This method alters the value of the input point!
-     */
-    private static Point2D.Double v2ScaleIII(Point2D.Double v, double s) {
-        Point2D.Double result = new Point2D.Double();
-        result.x = v.x * s;
-        result.y = v.y * s;
-        return result;
-    }
-
-    /**
-     * Returns length of input vector.
-     */
-    private static double v2Length(Point2D.Double a) {
-        return Math.sqrt(v2SquaredLength(a));
-    }
-
-    /**
-     * Returns squared length of input vector.
-     */
-    private static double v2SquaredLength(Point2D.Double a) {
-        return (a.x * a.x) + (a.y * a.y);
-    }
-
-    /**
-     * Return vector sum c = a+b.
-     * <p>
-     * This method alters the value of c.
-     */
-    private static Point2D.Double v2Add(Point2D.Double a, Point2D.Double b, Point2D.Double c) {
-        c.x = a.x + b.x;
-        c.y = a.y + b.y;
-        return c;
-    }
-
-    /**
-     * Return vector sum = a+b.
-     */
-    private static Point2D.Double v2AddII(Point2D.Double a, Point2D.Double b) {
-        Point2D.Double c = new Point2D.Double();
-        c.x = a.x + b.x;
-        c.y = a.y + b.y;
-        return c;
-    }
-
-    /**
-     * Negates the input vector and returns it.
-     */
-    private static Point2D.Double v2Negate(Point2D.Double v) {
-        v.x = -v.x;
-        v.y = -v.y;
-        return v;
-    }
-
-    /**
-     * Return the dot product of vectors a and b.
-     */
-    private static double v2Dot(Point2D.Double a, Point2D.Double b) {
-        return (a.x * b.x) + (a.y * b.y);
-    }
-
-    /**
-     * Normalizes the input vector and returns it.
-     */
-    private static Point2D.Double v2Normalize(Point2D.Double v) {
-        double len = v2Length(v);
-        if (len != 0.0) {
-            v.x /= len;
-            v.y /= len;
-        }
-        return v;
-    }
-
-    /**
-     * Subtract Vector a from Vector b.
-     *
-     * @param a Vector a - the value is not changed by this method
-     * @param b Vector b - the value is not changed by this method
-     * @return Vector a subtracted by Vector v.
-     */
-    private static Point2D.Double v2SubII(Point2D.Double a, Point2D.Double b) {
-        Point2D.Double c = new Point2D.Double();
-        c.x = a.x - b.x;
-        c.y = a.y - b.y;
-        return (c);
-    }
-
     /**
      * B0, B1, B2, B3 :
      * Bezier multipliers
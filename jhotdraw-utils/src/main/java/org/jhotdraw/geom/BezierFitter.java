@@ -0,0 +1,262 @@
+/*
+ * @(#)BezierFitter.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Fits a bezier path to digitized points while the points are being added,
+ * for example while the user draws a freehand stroke with the mouse.
+ * <p>
+ * The points are kept in arrays of coordinates. Corners are detected with
+ * two pointers, which trail and lead the current point by a minimal
+ * distance along the digitized path. Both pointers only move forward, so
+ * corner detection takes linear time. As soon as a corner has been found,
+ * the points between the previous corner and the new corner are cleaned up
+ * and fitted. When the last point has been added, {@link #finish} only has
+ * to fit the points after the last corner.
+ * <p>
+ * {@link Bezier#fitBezierPath(java.util.List, double)} uses this class,
+ * and yields the same path as adding all points to a fitter with the same
+ * error and calling {@code finish}.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public class BezierFitter {
+
+    /**
+     * The maximal allowed error between the bezier path and the digitized
+     * points.
+     */
+    private final double error;
+    /**
+     * Minimal angle for corner points.
+     */
+    private final double minAngle;
+    /**
+     * Minimal distance along the path between a point and the adjacent
+     * points which are used for corner detection.
+     */
+    private final double minDistance;
+    /**
+     * Set this to false, to only detect corners.
+     */
+    private final boolean isFitting;
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    /**
+     * The length of the digitized path up to each point.
+     */
+    private double[] arcs = new double[64];
+    private int size;
+    /**
+     * The index of the next point, which is checked for a corner.
+     */
+    private int candidate = 1;
+    /**
+     * The index of the last point, which is at least minDistance behind the
+     * candidate, or -1.
+     */
+    private int behind = -1;
+    /**
+     * The index of the first point after the candidate, which is not yet
+     * known to be closer than minDistance to the candidate.
+     */
+    private int ahead = 2;
+    private int previousCorner = -1;
+    private final ArrayList<Integer> corners = new ArrayList<>();
+    private final BezierPath fittedPath = new BezierPath();
+    private boolean isFinished;
+    /**
+     * Buffers for cleaning up the points of a segment.
+     */
+    private double[] cleanedXs = new double[0];
+    private double[] cleanedYs = new double[0];
+    private double[] smoothedXs = new double[0];
+    private double[] smoothedYs = new double[0];
+
+    /**
+     * Creates a new instance.
+     *
+     * @param error the maximal allowed error between the bezier path and the
+     * digitized points.
+     */
+    public BezierFitter(double error) {
+        this(error, 77 / 180d * Math.PI, error * error, true);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param error the maximal allowed error between the bezier path and the
+     * digitized points.
+     * @param minAngle Minimal angle for corner points.
+     * @param minDistance Minimal distance along the path between a point and
+     * the adjacent points which are used for corner detection.
+     * @param isFitting Set this to false, to only detect corners.
+     */
+    BezierFitter(double error, double minAngle, double minDistance, boolean isFitting) {
+        this.error = error;
+        this.minAngle = minAngle;
+        this.minDistance = minDistance;
+        this.isFitting = isFitting;
+    }
+
+    /**
+     * Adds a digitized point.
+     *
+     * @throws IllegalStateException if {@link #finish} has been called.
+     */
+    public void add(double x, double y) {
+        if (isFinished) {
+            throw new IllegalStateException("Fitter is finished");
+        }
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+            arcs = Arrays.copyOf(arcs, size * 2);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        if (size > 0) {
+            double dx = x - xs[size - 1];
+            double dy = y - ys[size - 1];
+            arcs[size] = arcs[size - 1] + Math.sqrt(dx * dx + dy * dy);
+        }
+        size++;
+        findCorners();
+    }
+
+    /**
+     * Returns the number of digitized points.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the path, which has been fitted to the points up to the last
+     * corner found so far. The returned path is changed when more points are
+     * added, and must not be changed by the caller.
+     */
+    public BezierPath getFittedPath() {
+        return fittedPath;
+    }
+
+    /**
+     * Fits the points after the last corner, and returns the fitted path.
+     * No more points can be added after this method has been called.
+     */
+    public BezierPath finish() {
+        if (!isFinished) {
+            isFinished = true;
+            if (isFitting && size > 0) {
+                fitSegment(Math.max(0, previousCorner), size - 1);
+            }
+        }
+        return fittedPath;
+    }
+
+    /**
+     * Returns the indices of the corners, which have been found so far.
+     */
+    ArrayList<Integer> getCorners() {
+        return corners;
+    }
+
+    /**
+     * Checks all candidates for which a succeeding point at minDistance is
+     * available.
+     */
+    private void findCorners() {
+        for (; candidate < size - 1; candidate++) {
+            double arc = arcs[candidate];
+            ahead = Math.max(ahead, candidate + 1);
+            while (ahead < size && arcs[ahead] - arc < minDistance) {
+                ahead++;
+            }
+            if (ahead == size) {
+                // wait for more points
+                return;
+            }
+            while (behind + 1 < candidate && arc - arcs[behind + 1] >= minDistance) {
+                behind++;
+            }
+            int prev = Math.max(behind, previousCorner);
+            if (prev < 0) {
+                continue;
+            }
+            double x = xs[candidate];
+            double y = ys[candidate];
+            double aPrev = Math.atan2(ys[prev] - y, xs[prev] - x);
+            double aNext = Math.atan2(ys[ahead] - y, xs[ahead] - x);
+            double angle = Math.abs(aPrev - aNext);
+            if (angle < Math.PI - minAngle || angle > Math.PI + minAngle) {
+                corners.add(candidate);
+                if (isFitting) {
+                    fitSegment(Math.max(0, previousCorner), candidate);
+                }
+                previousCorner = candidate;
+            }
+        }
+    }
+
+    /**
+     * Removes close points and noise from a segment of digitized points
+     * without corners, and adds the fitted curves to the path.
+     *
+     * @param first Index of the first point.
+     * @param last Index of the last point.
+     */
+    private void fitSegment(int first, int last) {
+        int n = last - first + 1;
+        if (cleanedXs.length < n) {
+            int capacity = Math.max(n, cleanedXs.length * 2);
+            cleanedXs = new double[capacity];
+            cleanedYs = new double[capacity];
+            smoothedXs = new double[capacity];
+            smoothedYs = new double[capacity];
+        }
+        // Remove close points, see Bezier.removeClosePoints
+        double squaredDistance = 4 * error * error;
+        double prevX = xs[first];
+        double prevY = ys[first];
+        cleanedXs[0] = prevX;
+        cleanedYs[0] = prevY;
+        int m = 1;
+        for (int i = first; i <= last; i++) {
+            double dx = xs[i] - prevX;
+            double dy = ys[i] - prevY;
+            if (error == 0 ? (dx != 0 || dy != 0) : dx * dx + dy * dy > squaredDistance) {
+                prevX = cleanedXs[m] = xs[i];
+                prevY = cleanedYs[m] = ys[i];
+                m++;
+            }
+        }
+        if (error != 0 && (prevX != xs[last] || prevY != ys[last])) {
+            cleanedXs[m - 1] = xs[last];
+            cleanedYs[m - 1] = ys[last];
+        }
+        // Reduce noise, see Bezier.reduceNoise
+        double weight = 0.8;
+        double pnWeight = (1d - weight) / 2d;
+        smoothedXs[0] = cleanedXs[0];
+        smoothedYs[0] = cleanedYs[0];
+        for (int i = 1; i < m - 1; i++) {
+            smoothedXs[i] = cleanedXs[i] * weight + pnWeight * cleanedXs[i - 1] + pnWeight * cleanedXs[i + 1];
+            smoothedYs[i] = cleanedYs[i] * weight + pnWeight * cleanedYs[i - 1] + pnWeight * cleanedYs[i + 1];
+        }
+        if (m > 1) {
+            smoothedXs[m - 1] = cleanedXs[m - 1];
+            smoothedYs[m - 1] = cleanedYs[m - 1];
+        }
+        Bezier.fitSegment(smoothedXs, smoothedYs, m, error * error, fittedPath);
+    }
+}
@@ -68,6 +68,35 @@ public class BezierPath extends ArrayList<BezierPath.Node>
      * The winding rule for filling the bezier path.
      */
     private int windingRule = Path2D.Double.WIND_EVEN_ODD;
+    /**
+     * We cache flattened versions of the path, one per flatness, to speed up
+     * length computations and outline hit tests.
+     */
+    private transient HashMap<Double, FlattenedPath> flattenedPaths;
+    /**
+     * The modification count of the list at the time the flattened paths
+     * were created.
+     */
+    private transient int flattenedModCount;
+    /**
+     * The maximal number of flattened paths that we cache.
+     */
+    private static final int MAX_FLATTENED_PATHS = 4;
+    /**
+     * We cache the shapes created by {@link DoubleStroke}s and
+     * {@link GrowStroke}s, one per stroke, to speed up repeated paints and
+     * hit tests.
+     */
+    private transient HashMap<Stroke, Shape> strokedShapes;
+    /**
+     * The modification count of the list at the time the stroked shapes
+     * were created.
+     */
+    private transient int strokedModCount;
+    /**
+     * The maximal number of stroked shapes that we cache.
+     */
+    private static final int MAX_STROKED_SHAPES = 4;
 
     /**
      * Defines a vertex (node) of the bezier path.
@@ -335,6 +364,8 @@ public class BezierPath extends ArrayList<BezierPath.Node>
         generalPath = null;
         bounds = null;
         outer = -1;
+        flattenedPaths = null;
+        strokedShapes = null;
     }
 
     /**
@@ -346,6 +377,53 @@ public class BezierPath extends ArrayList<BezierPath.Node>
         }
     }
 
+    /**
+     * Returns the flattened version of this path for the specified flatness.
+     * The flattened path is cached until invalidatePath is called or until
+     * nodes are added or removed.
+     */
+    FlattenedPath getFlattenedPath(double flatness) {
+        if (flattenedPaths == null || flattenedModCount != modCount) {
+            flattenedPaths = new HashMap<>();
+            flattenedModCount = modCount;
+        }
+        FlattenedPath fp = flattenedPaths.get(flatness);
+        if (fp == null) {
+            if (flattenedPaths.size() >= MAX_FLATTENED_PATHS) {
+                flattenedPaths.clear();
+            }
+            fp = FlattenedPath.flatten(this, flatness);
+            flattenedPaths.put(flatness, fp);
+        }
+        return fp;
+    }
+
+    /**
+     * Returns the cached shape that was created with the specified stroke,
+     * or null. The shape is cached until invalidatePath is called or until
+     * nodes are added or removed.
+     */
+    Shape getStrokedShape(Stroke stroke) {
+        if (strokedShapes == null || strokedModCount != modCount) {
+            return null;
+        }
+        return strokedShapes.get(stroke);
+    }
+
+    /**
+     * Caches a shape that was created with the specified stroke. The stroke
+     * must be immutable and implement equals and hashCode.
+     */
+    void putStrokedShape(Stroke stroke, Shape shape) {
+        if (strokedShapes == null || strokedModCount != modCount) {
+            strokedShapes = new HashMap<>();
+            strokedModCount = modCount;
+        } else if (strokedShapes.size() >= MAX_STROKED_SHAPES) {
+            strokedShapes.clear();
+        }
+        strokedShapes.put(stroke, shape);
+    }
+
     /**
      * Converts the BezierPath into a Path2D.Double.
      */
@@ -436,7 +514,7 @@ public class BezierPath extends ArrayList<BezierPath.Node>
      * @param tolerance The tolerance for the test.
      */
     public boolean outlineContains(Point2D.Double p, double tolerance) {
-        return Shapes.outlineContains(this, p, tolerance);
+        return getFlattenedPath(tolerance).outlineContains(p.x, p.y, tolerance);
     }
 
     @Override
@@ -650,6 +728,8 @@ public class BezierPath extends ArrayList<BezierPath.Node>
     @Override
     public BezierPath clone() {
         BezierPath that = (BezierPath) super.clone();
+        that.flattenedPaths = null;
+        that.strokedShapes = null;
         for (int i = 0, n = this.size(); i < n; i++) {
             that.set(i, (Node) this.get(i).clone());
         }
@@ -745,7 +825,6 @@ public class BezierPath extends ArrayList<BezierPath.Node>
      * @param relative a value between 0 and 1.
      */
     public Point2D.Double getPointOnPath(double relative, double flatness) {
-        // This method works only for straight lines
         if (size() == 0) {
             return null;
         } else if (size() == 1) {
@@ -756,37 +835,8 @@ public class BezierPath extends ArrayList<BezierPath.Node>
         } else if (relative >= 1) {
             return get(size() - 1).getControlPoint(0);
         }
-        validatePath();
-        // Compute the relative point on the path
-        double len = getLengthOfPath(flatness);
-        double relativeLen = len * relative;
-        double pos = 0;
-        double[] coords = new double[6];
-        PathIterator i = generalPath.getPathIterator(new AffineTransform(), flatness);
-        double prevX = coords[0];
-        double prevY = coords[1];
-        i.next();
-        for (; !i.isDone(); i.next()) {
-            i.currentSegment(coords);
-            double segLen = Geom.length(prevX, prevY, coords[0], coords[1]);
-            if (pos + segLen >= relativeLen) {
-                //if (true) return new Point2D.Double(coords[0], coords[1]);
-                // Compute the relative Point2D.Double on the line
-                /*
-                return new Point2D.Double(
-                prevX * pos / len + coords[0] * (pos + segLen) / len,
-                prevY * pos / len + coords[1] * (pos + segLen) / len
-                );*/
-                double factor = (relativeLen - pos) / segLen;
-                return new Point2D.Double(
-                        prevX * (1 - factor) + coords[0] * factor,
-                        prevY * (1 - factor) + coords[1] * factor);
-            }
-            pos += segLen;
-            prevX = coords[0];
-            prevY = coords[1];
-        }
-        throw new InternalError("We should never get here");
+        FlattenedPath fp = getFlattenedPath(flatness);
+        return fp.getPointAtLength(fp.getLength() * relative);
     }
 
     /**
@@ -795,19 +845,7 @@ public class BezierPath extends ArrayList<BezierPath.Node>
      * @param flatness the flatness used to approximate the length.
      */
     public double getLengthOfPath(double flatness) {
-        double len = 0;
-        PathIterator i = generalPath.getPathIterator(new AffineTransform(), flatness);
-        double[] coords = new double[6];
-        double prevX = coords[0];
-        double prevY = coords[1];
-        i.next();
-        for (; !i.isDone(); i.next()) {
-            i.currentSegment(coords);
-            len += Geom.length(prevX, prevY, coords[0], coords[1]);
-            prevX = coords[0];
-            prevY = coords[1];
-        }
-        return len;
+        return getFlattenedPath(flatness).getLength();
     }
 
     /**
@@ -819,55 +857,14 @@ public class BezierPath extends ArrayList<BezierPath.Node>
      * Returns -1, if the point is not on the path.
      */
     public double getRelativePositionOnPath(Point2D.Double find, double flatness) {
-        // XXX - This method works only for straight lines!
-        double len = getLengthOfPath(flatness);
-        double relativeLen = 0d;
-        Node v1, v2;
-        BezierPath tempPath = new BezierPath();
-        Node t1, t2;
-        tempPath.add(t1 = new Node());
-        tempPath.add(t2 = new Node());
-        for (int i = 0, n = size() - 1; i < n; i++) {
-            v1 = get(i);
-            v2 = get(i + 1);
-            if (v1.mask == 0 && v2.mask == 0) {
-                if (Geom.lineContainsPoint(v1.x[0], v1.y[0], v2.x[0], v2.y[0], find.x, find.y, flatness)) {
-                    relativeLen += Geom.length(v1.x[0], v1.y[0], find.x, find.y);
-                    return relativeLen / len;
-                } else {
-                    relativeLen += Geom.length(v1.x[0], v1.y[0], v2.x[0], v2.y[0]);
-                }
-            } else {
-                t1.setTo(v1);
-                t2.setTo(v2);
-                tempPath.invalidatePath();
-                if (tempPath.outlineContains(find, flatness)) {
-                    relativeLen += Geom.length(v1.x[0], v1.y[0], find.x, find.y);
-                    return relativeLen / len;
-                } else {
-                    relativeLen += Geom.length(v1.x[0], v1.y[0], v2.x[0], v2.y[0]);
-                }
-            }
+        FlattenedPath fp = getFlattenedPath(flatness);
+        int i = fp.findLineSegment(find.x, find.y, flatness);
+        if (i == -1) {
+            return -1;
         }
-        if (isClosed && size() > 1) {
-            v1 = get(size() - 1);
-            v2 = get(0);
-            if (v1.mask == 0 && v2.mask == 0) {
-                if (Geom.lineContainsPoint(v1.x[0], v1.y[0], v2.x[0], v2.y[0], find.x, find.y, flatness)) {
-                    relativeLen += Geom.length(v1.x[0], v1.y[0], find.x, find.y);
-                    return relativeLen / len;
-                }
-            } else {
-                t1.setTo(v1);
-                t2.setTo(v2);
-                tempPath.invalidatePath();
-                if (tempPath.outlineContains(find, flatness)) {
-                    relativeLen += Geom.length(v1.x[0], v1.y[0], find.x, find.y);
-                    return relativeLen / len;
-                }
-            }
-        }
-        return -1;
+        double relativeLen = fp.getLengthAtSegment(i)
+                + Geom.length(fp.getSegmentStartX(i), fp.getSegmentStartY(i), find.x, find.y);
+        return relativeLen / fp.getLength();
     }
 
     /**
@@ -877,45 +874,9 @@ public class BezierPath extends ArrayList<BezierPath.Node>
      * @return the index of the segment or -1 if no segment was hit.
      */
     public int findSegment(Point2D.Double find, double tolerance) {
-        // XXX - This works only for straight lines!
-        Node v1, v2;
-        BezierPath tempPath = new BezierPath();
-        Node t1, t2;
-        tempPath.add(t1 = new Node());
-        tempPath.add(t2 = new Node());
-        for (int i = 0, n = size() - 1; i < n; i++) {
-            v1 = get(i);
-            v2 = get(i + 1);
-            if (v1.mask == 0 && v2.mask == 0) {
-                if (Geom.lineContainsPoint(v1.x[0], v1.y[0], v2.x[0], v2.y[0], find.x, find.y, tolerance)) {
-                    return i;
-                }
-            } else {
-                t1.setTo(v1);
-                t2.setTo(v2);
-                tempPath.invalidatePath();
-                if (tempPath.outlineContains(find, tolerance)) {
-                    return i;
-                }
-            }
-        }
-        if (isClosed && size() > 1) {
-            v1 = get(size() - 1);
-            v2 = get(0);
-            if (v1.mask == 0 && v2.mask == 0) {
-                if (Geom.lineContainsPoint(v1.x[0], v1.y[0], v2.x[0], v2.y[0], find.x, find.y, tolerance)) {
-                    return size() - 1;
-                }
-            } else {
-                t1.setTo(v1);
-                t2.setTo(v2);
-                tempPath.invalidatePath();
-                if (tempPath.outlineContains(find, tolerance)) {
-                    return size() - 1;
-                }
-            }
-        }
-        return -1;
+        FlattenedPath fp = getFlattenedPath(tolerance);
+        int i = fp.findLineSegment(find.x, find.y, tolerance);
+        return i == -1 ? -1 : fp.getSourceSegment(i);
     }
 
     /**
@@ -0,0 +1,342 @@
+/*
+ * @(#)FlattenedPath.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.geom;
+
+import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.QuadCurve2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A flattened polyline approximation of a path, together with a table of
+ * cumulative arc lengths and a lazily built bounding box hierarchy over its
+ * line segments.
+ * <p>
+ * Curves are flattened by recursive subdivision in the same way as
+ * {@code java.awt.geom.FlatteningPathIterator} does it with its default
+ * recursion limit. For each line segment of the polyline we remember the
+ * index of the bezier segment it was created from, so that hit tests can be
+ * mapped back to the nodes of the {@link BezierPath}.
+ * <p>
+ * Instances are immutable once they have been built. {@code BezierPath}
+ * keeps one instance per flatness and discards them in
+ * {@link BezierPath#invalidatePath}.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+final class FlattenedPath {
+
+    /**
+     * The recursion limit used by FlatteningPathIterator.
+     */
+    private static final int RECURSION_LIMIT = 10;
+    /**
+     * Number of line segments per leaf of the bounding box hierarchy.
+     */
+    private static final int LEAF_SIZE = 8;
+    private final double squareFlatness;
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+    /**
+     * The source segment index of the line segment ending at point i, or -1
+     * if point i starts a new sub-path.
+     */
+    private int[] source = new int[16];
+    /**
+     * The cumulative arc length at point i.
+     */
+    private double[] lengths = new double[16];
+    private int count;
+    /**
+     * Bounding box hierarchy. Level 0 holds one box per {@code LEAF_SIZE}
+     * line segments, each further level merges two boxes of the level below.
+     * Each box is stored as minX, minY, maxX, maxY.
+     */
+    private double[][] levels;
+
+    private FlattenedPath(double flatness) {
+        this.squareFlatness = flatness * flatness;
+    }
+
+    /**
+     * Flattens the segments of a bezier path. The source segment of a line
+     * segment is the index of the node at which the bezier segment starts.
+     */
+    static FlattenedPath flatten(BezierPath path, double flatness) {
+        FlattenedPath fp = new FlattenedPath(flatness);
+        int n = path.size();
+        if (n > 0) {
+            BezierPath.Node first = path.get(0);
+            fp.moveTo(first.x[0], first.y[0]);
+            for (int i = 1; i < n; i++) {
+                fp.segmentTo(path.get(i - 1), path.get(i), i - 1);
+            }
+            if (path.isClosed() && n > 1) {
+                fp.segmentTo(path.get(n - 1), first, n - 1);
+            }
+        }
+        return fp;
+    }
+
+    private void segmentTo(BezierPath.Node previous, BezierPath.Node current, int segment) {
+        if ((previous.mask & BezierPath.C2_MASK) == 0) {
+            if ((current.mask & BezierPath.C1_MASK) == 0) {
+                lineTo(current.x[0], current.y[0], segment);
+            } else {
+                quadTo(previous.x[0], previous.y[0],
+                        current.x[1], current.y[1],
+                        current.x[0], current.y[0], 0, segment);
+            }
+        } else {
+            if ((current.mask & BezierPath.C1_MASK) == 0) {
+                quadTo(previous.x[0], previous.y[0],
+                        previous.x[2], previous.y[2],
+                        current.x[0], current.y[0], 0, segment);
+            } else {
+                cubicTo(previous.x[0], previous.y[0],
+                        previous.x[2], previous.y[2],
+                        current.x[1], current.y[1],
+                        current.x[0], current.y[0], 0, segment);
+            }
+        }
+    }
+
+    private void moveTo(double x, double y) {
+        add(x, y, -1, count == 0 ? 0 : lengths[count - 1]);
+    }
+
+    private void lineTo(double x, double y, int segment) {
+        if (count == 0) {
+            moveTo(x, y);
+            return;
+        }
+        double len = lengths[count - 1] + Geom.length(xs[count - 1], ys[count - 1], x, y);
+        add(x, y, segment, len);
+    }
+
+    private void quadTo(double x0, double y0, double x1, double y1, double x2, double y2,
+            int level, int segment) {
+        if (level < RECURSION_LIMIT
+                && QuadCurve2D.getFlatnessSq(x0, y0, x1, y1, x2, y2) >= squareFlatness) {
+            double x01 = (x0 + x1) / 2, y01 = (y0 + y1) / 2;
+            double x12 = (x1 + x2) / 2, y12 = (y1 + y2) / 2;
+            double xm = (x01 + x12) / 2, ym = (y01 + y12) / 2;
+            quadTo(x0, y0, x01, y01, xm, ym, level + 1, segment);
+            quadTo(xm, ym, x12, y12, x2, y2, level + 1, segment);
+        } else {
+            lineTo(x2, y2, segment);
+        }
+    }
+
+    private void cubicTo(double x0, double y0, double x1, double y1,
+            double x2, double y2, double x3, double y3,
+            int level, int segment) {
+        if (level < RECURSION_LIMIT
+                && CubicCurve2D.getFlatnessSq(x0, y0, x1, y1, x2, y2, x3, y3) >= squareFlatness) {
+            double x01 = (x0 + x1) / 2, y01 = (y0 + y1) / 2;
+            double x12 = (x1 + x2) / 2, y12 = (y1 + y2) / 2;
+            double x23 = (x2 + x3) / 2, y23 = (y2 + y3) / 2;
+            double x012 = (x01 + x12) / 2, y012 = (y01 + y12) / 2;
+            double x123 = (x12 + x23) / 2, y123 = (y12 + y23) / 2;
+            double xm = (x012 + x123) / 2, ym = (y012 + y123) / 2;
+            cubicTo(x0, y0, x01, y01, x012, y012, xm, ym, level + 1, segment);
+            cubicTo(xm, ym, x123, y123, x23, y23, x3, y3, level + 1, segment);
+        } else {
+            lineTo(x3, y3, segment);
+        }
+    }
+
+    private void add(double x, double y, int segment, double length) {
+        if (count == xs.length) {
+            int newCapacity = count * 2;
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+            source = Arrays.copyOf(source, newCapacity);
+            lengths = Arrays.copyOf(lengths, newCapacity);
+        }
+        xs[count] = x;
+        ys[count] = y;
+        source[count] = segment;
+        lengths[count] = length;
+        count++;
+    }
+
+    /**
+     * Returns the length of the polyline.
+     */
+    double getLength() {
+        return count == 0 ? 0 : lengths[count - 1];
+    }
+
+    /**
+     * Returns the point at the specified arc length along the polyline.
+     * Uses a binary search over the cumulative arc length table.
+     *
+     * @return the point, or null if the polyline is empty.
+     */
+    Point2D.Double getPointAtLength(double length) {
+        if (count == 0) {
+            return null;
+        }
+        if (length <= 0) {
+            return new Point2D.Double(xs[0], ys[0]);
+        }
+        if (length >= lengths[count - 1]) {
+            return new Point2D.Double(xs[count - 1], ys[count - 1]);
+        }
+        // Find the first point whose cumulative length is >= length
+        int lo = 1, hi = count - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (lengths[mid] < length) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        double segLen = lengths[lo] - lengths[lo - 1];
+        if (segLen == 0) {
+            return new Point2D.Double(xs[lo], ys[lo]);
+        }
+        double factor = (length - lengths[lo - 1]) / segLen;
+        return new Point2D.Double(
+                xs[lo - 1] * (1 - factor) + xs[lo] * factor,
+                ys[lo - 1] * (1 - factor) + ys[lo] * factor);
+    }
+
+    /**
+     * Returns the cumulative arc length at the start of the specified line
+     * segment of the polyline.
+     */
+    double getLengthAtSegment(int lineSegment) {
+        return lengths[lineSegment];
+    }
+
+    /**
+     * Returns the start point x coordinate of the specified line segment.
+     */
+    double getSegmentStartX(int lineSegment) {
+        return xs[lineSegment];
+    }
+
+    /**
+     * Returns the start point y coordinate of the specified line segment.
+     */
+    double getSegmentStartY(int lineSegment) {
+        return ys[lineSegment];
+    }
+
+    /**
+     * Returns the index of the source segment from which the specified line
+     * segment of the polyline was created.
+     */
+    int getSourceSegment(int lineSegment) {
+        return source[lineSegment + 1];
+    }
+
+    /**
+     * Returns true, if the polyline contains the specified point within the
+     * given tolerance.
+     */
+    boolean outlineContains(double px, double py, double tolerance) {
+        return findLineSegment(px, py, tolerance) != -1;
+    }
+
+    /**
+     * Returns the index of the first line segment of the polyline which
+     * contains the specified point within the given tolerance. Line segment
+     * i goes from point i to point i + 1.
+     *
+     * @return the index of the line segment or -1 if no line segment was hit.
+     */
+    int findLineSegment(double px, double py, double tolerance) {
+        if (count < 2) {
+            return -1;
+        }
+        if (levels == null) {
+            levels = buildLevels();
+        }
+        // Geom.lineContainsPoint grows the bounding box of a line by this margin
+        double grow = Math.max(2, Math.ceil(tolerance));
+        return findLineSegment(levels.length - 1, 0, px, py, tolerance, grow);
+    }
+
+    private int findLineSegment(int level, int box, double px, double py, double tolerance, double grow) {
+        double[] boxes = levels[level];
+        int b = box * 4;
+        if (px < boxes[b] - grow || py < boxes[b + 1] - grow
+                || px > boxes[b + 2] + grow || py > boxes[b + 3] + grow) {
+            return -1;
+        }
+        if (level == 0) {
+            for (int i = box * LEAF_SIZE, n = Math.min(count - 1, i + LEAF_SIZE); i < n; i++) {
+                if (source[i + 1] != -1
+                        && Geom.lineContainsPoint(xs[i], ys[i], xs[i + 1], ys[i + 1], px, py, tolerance)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int child = box * 2;
+        int result = findLineSegment(level - 1, child, px, py, tolerance, grow);
+        if (result == -1 && (child + 1) * 4 < levels[level - 1].length) {
+            result = findLineSegment(level - 1, child + 1, px, py, tolerance, grow);
+        }
+        return result;
+    }
+
+    private double[][] buildLevels() {
+        int segments = count - 1;
+        int n = (segments + LEAF_SIZE - 1) / LEAF_SIZE;
+        double[] leaves = new double[n * 4];
+        for (int box = 0; box < n; box++) {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (int i = box * LEAF_SIZE, end = Math.min(segments, i + LEAF_SIZE); i < end; i++) {
+                if (source[i + 1] == -1) {
+                    continue;
+                }
+                minX = Math.min(minX, Math.min(xs[i], xs[i + 1]));
+                minY = Math.min(minY, Math.min(ys[i], ys[i + 1]));
+                maxX = Math.max(maxX, Math.max(xs[i], xs[i + 1]));
+                maxY = Math.max(maxY, Math.max(ys[i], ys[i + 1]));
+            }
+            leaves[box * 4] = minX;
+            leaves[box * 4 + 1] = minY;
+            leaves[box * 4 + 2] = maxX;
+            leaves[box * 4 + 3] = maxY;
+        }
+        ArrayList<double[]> list = new ArrayList<>();
+        list.add(leaves);
+        double[] below = leaves;
+        while (below.length > 4) {
+            int m = below.length / 4;
+            int parents = (m + 1) / 2;
+            double[] above = new double[parents * 4];
+            for (int p = 0; p < parents; p++) {
+                int a = p * 8;
+                int o = p * 4;
+                above[o] = below[a];
+                above[o + 1] = below[a + 1];
+                above[o + 2] = below[a + 2];
+                above[o + 3] = below[a + 3];
+                if (a + 4 < below.length) {
+                    above[o] = Math.min(above[o], below[a + 4]);
+                    above[o + 1] = Math.min(above[o + 1], below[a + 5]);
+                    above[o + 2] = Math.max(above[o + 2], below[a + 6]);
+                    above[o + 3] = Math.max(above[o + 3], below[a + 7]);
+                }
+            }
+            list.add(above);
+            below = above;
+        }
+        return list.toArray(new double[list.size()][]);
+    }
+}
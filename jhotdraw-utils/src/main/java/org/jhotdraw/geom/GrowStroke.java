@@ -10,7 +10,6 @@ package org.jhotdraw.geom;
 import java.awt.BasicStroke;
 import java.awt.Shape;
 import java.awt.geom.Path2D;
-import java.awt.geom.PathIterator;
 
 /**
  * GrowStroke can be used to grow/shrink a figure by a specified line width.
@@ -32,8 +31,7 @@ public class GrowStroke extends DoubleStroke {
     }
 
     @Override
-    public Shape createStrokedShape(Shape s) {
-        BezierPath bp = new BezierPath();
+    protected Shape computeStrokedShape(Shape s) {
         Path2D.Double left = new Path2D.Double();
         Path2D.Double right = new Path2D.Double();
         if (s instanceof Path2D.Double) {
@@ -43,38 +41,8 @@ public class GrowStroke extends DoubleStroke {
             left.setWindingRule(((BezierPath) s).getWindingRule());
             right.setWindingRule(((BezierPath) s).getWindingRule());
         }
-        double[] coords = new double[6];
         // FIXME - We only do a flattened path
-        for (PathIterator i = s.getPathIterator(null, 0.1d); !i.isDone(); i.next()) {
-            int type = i.currentSegment(coords);
-            switch (type) {
-                case PathIterator.SEG_MOVETO:
-                    if (bp.size() != 0) {
-                        traceStroke(bp, left, right);
-                    }
-                    bp.clear();
-                    bp.moveTo(coords[0], coords[1]);
-                    break;
-                case PathIterator.SEG_LINETO:
-                    if (coords[0] != bp.get(bp.size() - 1).x[0]
-                            || coords[1] != bp.get(bp.size() - 1).y[0]) {
-                        bp.lineTo(coords[0], coords[1]);
-                    }
-                    break;
-                case PathIterator.SEG_QUADTO:
-                    bp.quadTo(coords[0], coords[1], coords[2], coords[3]);
-                    break;
-                case PathIterator.SEG_CUBICTO:
-                    bp.curveTo(coords[0], coords[1], coords[2], coords[3], coords[4], coords[5]);
-                    break;
-                case PathIterator.SEG_CLOSE:
-                    bp.setClosed(true);
-                    break;
-            }
-        }
-        if (bp.size() > 1) {
-            traceStroke(bp, left, right);
-        }
+        new PolylineOffsetter(grow * 2d, getMiterLimit()).offset(s, 0.1d, left, right);
         if (Geom.contains(left.getBounds2D(), right.getBounds2D())) {
             return (grow > 0) ? left : right;
         } else {
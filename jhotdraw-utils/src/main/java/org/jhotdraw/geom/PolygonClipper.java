@@ -0,0 +1,697 @@
+/*
+ * @(#)PolygonClipper.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.geom;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Computes the union, intersection, difference or exclusive or of two
+ * shapes.
+ * <p>
+ * Both shapes are flattened into polygons. The clipper then proceeds in
+ * these steps:
+ * <ol>
+ * <li>All edges are snapped to a fine grid which depends on the magnitude of
+ * the coordinates.</li>
+ * <li>A sweep over the x-axis finds all pairs of edges which intersect or
+ * touch, and splits the edges at these points.</li>
+ * <li>Coincident edges are merged. For each remaining edge, a sweep over the
+ * y-axis computes the winding numbers of both shapes just to the left and
+ * just to the right of the edge. The edge is kept, if the operation yields
+ * a different result on its two sides.</li>
+ * <li>The kept edges are oriented with the interior of the result on their
+ * left side, and chained into closed polygons.</li>
+ * </ol>
+ * Unlike {@link java.awt.geom.Area}, the clipper only works on straight
+ * edges. The polygons of the result can optionally be fitted with bezier
+ * curves using {@link Bezier#fitBezierPath(java.util.List, double)}.
+ * <p>
+ * The polygons of the result never overlap. Holes run in the opposite
+ * direction of the polygons which contain them, so the result can be filled
+ * with either winding rule.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public final class PolygonClipper {
+
+    /**
+     * Boolean operations supported by the clipper.
+     */
+    public enum Operation {
+        /**
+         * The area covered by the subject or by the clip.
+         */
+        UNION,
+        /**
+         * The area covered by the subject and by the clip.
+         */
+        INTERSECTION,
+        /**
+         * The area covered by the subject but not by the clip.
+         */
+        DIFFERENCE,
+        /**
+         * The area covered by either the subject or the clip, but not by both.
+         */
+        XOR;
+
+        boolean isInside(boolean inSubject, boolean inClip) {
+            switch (this) {
+                case UNION:
+                    return inSubject || inClip;
+                case INTERSECTION:
+                    return inSubject && inClip;
+                case DIFFERENCE:
+                    return inSubject && !inClip;
+                case XOR:
+                default:
+                    return inSubject != inClip;
+            }
+        }
+    }
+
+    private static final int SUBJECT = 0;
+    private static final int CLIP = 1;
+    /**
+     * Coordinates are snapped to a grid which is this many binary orders of
+     * magnitude smaller than the largest coordinate.
+     */
+    private static final int GRID_BITS = 32;
+    /**
+     * The edges. The coordinates of edge i are stored in
+     * {@code xs[2*i], ys[2*i]} and {@code xs[2*i+1], ys[2*i+1]}.
+     */
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private int[] owners = new int[32];
+    private int edgeCount;
+    private final int[] windingRules = new int[2];
+    private double grid;
+    private double tolerance;
+    /**
+     * The points at which the edges must be split.
+     */
+    private int[] splitEdges = new int[16];
+    private double[] splitXs = new double[16];
+    private double[] splitYs = new double[16];
+    private int splitCount;
+
+    private PolygonClipper() {
+    }
+
+    /**
+     * Computes a boolean operation on two shapes.
+     *
+     * @param op The operation.
+     * @param subject The subject shape.
+     * @param clip The clip shape.
+     * @param flatness The flatness used for flattening the shapes.
+     * @return The closed polygons of the result.
+     */
+    public static List<BezierPath> clip(Operation op, Shape subject, Shape clip, double flatness) {
+        return clip(op, subject, clip, flatness, 0);
+    }
+
+    /**
+     * Computes a boolean operation on two shapes, and optionally fits bezier
+     * curves to the polygons of the result.
+     *
+     * @param op The operation.
+     * @param subject The subject shape.
+     * @param clip The clip shape.
+     * @param flatness The flatness used for flattening the shapes.
+     * @param fitError If this value is greater than 0, bezier curves are
+     * fitted to the polygons with this maximal error.
+     * @return The closed paths of the result.
+     */
+    public static List<BezierPath> clip(Operation op, Shape subject, Shape clip, double flatness, double fitError) {
+        PolygonClipper clipper = new PolygonClipper();
+        clipper.addShape(subject, SUBJECT, flatness);
+        clipper.addShape(clip, CLIP, flatness);
+        List<BezierPath> result = clipper.compute(op);
+        if (fitError > 0) {
+            for (int i = 0, n = result.size(); i < n; i++) {
+                result.set(i, fit(result.get(i), fitError));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a path which contains all the specified paths.
+     * This is useful for feeding the result of an operation into another one.
+     */
+    public static Path2D.Double toPath(List<BezierPath> paths) {
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO);
+        for (BezierPath bp : paths) {
+            path.append(bp, false);
+        }
+        return path;
+    }
+
+    private static BezierPath fit(BezierPath polygon, double error) {
+        ArrayList<Point2D.Double> points = new ArrayList<>(polygon.size() + 1);
+        for (BezierPath.Node node : polygon) {
+            points.add(new Point2D.Double(node.x[0], node.y[0]));
+        }
+        points.add(points.get(0));
+        BezierPath fitted = Bezier.fitBezierPath(points, error);
+        if (fitted.size() < 3) {
+            return polygon;
+        }
+        fitted.setClosed(true);
+        fitted.setWindingRule(Path2D.WIND_NON_ZERO);
+        return fitted;
+    }
+
+    // ---- Input ----
+    private void addShape(Shape shape, int owner, double flatness) {
+        double[] coords = new double[6];
+        double moveX = 0, moveY = 0, x = 0, y = 0;
+        PathIterator i = shape.getPathIterator(null, flatness);
+        windingRules[owner] = i.getWindingRule();
+        for (; !i.isDone(); i.next()) {
+            switch (i.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    // Sub-paths are implicitly closed for filling
+                    addEdge(x, y, moveX, moveY, owner);
+                    x = moveX = coords[0];
+                    y = moveY = coords[1];
+                    break;
+                case PathIterator.SEG_LINETO:
+                    addEdge(x, y, coords[0], coords[1], owner);
+                    x = coords[0];
+                    y = coords[1];
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    addEdge(x, y, moveX, moveY, owner);
+                    x = moveX;
+                    y = moveY;
+                    break;
+                default:
+                    // A flattening path iterator does not return curves
+                    break;
+            }
+        }
+        addEdge(x, y, moveX, moveY, owner);
+    }
+
+    private void addEdge(double xa, double ya, double xb, double yb, int owner) {
+        if (xa == xb && ya == yb) {
+            return;
+        }
+        if (edgeCount == owners.length) {
+            owners = Arrays.copyOf(owners, edgeCount * 2);
+            xs = Arrays.copyOf(xs, edgeCount * 4);
+            ys = Arrays.copyOf(ys, edgeCount * 4);
+        }
+        xs[2 * edgeCount] = xa;
+        ys[2 * edgeCount] = ya;
+        xs[2 * edgeCount + 1] = xb;
+        ys[2 * edgeCount + 1] = yb;
+        owners[edgeCount] = owner;
+        edgeCount++;
+    }
+
+    /**
+     * Snaps all edge coordinates to the grid and removes edges which
+     * have become degenerate.
+     */
+    private void snapEdges() {
+        double magnitude = 0;
+        for (int i = 0, n = 2 * edgeCount; i < n; i++) {
+            magnitude = Math.max(magnitude, Math.max(Math.abs(xs[i]), Math.abs(ys[i])));
+        }
+        grid = magnitude == 0 ? Double.MIN_NORMAL : Math.scalb(1d, Math.getExponent(magnitude) - GRID_BITS);
+        tolerance = grid * 4;
+        int j = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            double xa = snap(xs[2 * i]), ya = snap(ys[2 * i]);
+            double xb = snap(xs[2 * i + 1]), yb = snap(ys[2 * i + 1]);
+            if (xa != xb || ya != yb) {
+                xs[2 * j] = xa;
+                ys[2 * j] = ya;
+                xs[2 * j + 1] = xb;
+                ys[2 * j + 1] = yb;
+                owners[j] = owners[i];
+                j++;
+            }
+        }
+        edgeCount = j;
+    }
+
+    private double snap(double v) {
+        return Math.rint(v / grid) * grid;
+    }
+
+    // ---- Intersections ----
+    /**
+     * Sweeps over the x-axis and finds the points where edges must be split.
+     */
+    private void findIntersections() {
+        Integer[] order = new Integer[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(e -> Math.min(xs[2 * e], xs[2 * e + 1])));
+        int[] active = new int[16];
+        int activeCount = 0;
+        for (Integer e : order) {
+            double eMinX = Math.min(xs[2 * e], xs[2 * e + 1]);
+            double eMinY = Math.min(ys[2 * e], ys[2 * e + 1]);
+            double eMaxY = Math.max(ys[2 * e], ys[2 * e + 1]);
+            int j = 0;
+            for (int k = 0; k < activeCount; k++) {
+                int a = active[k];
+                if (Math.max(xs[2 * a], xs[2 * a + 1]) < eMinX - tolerance) {
+                    // The sweep line has passed this edge
+                    continue;
+                }
+                active[j++] = a;
+                if (Math.max(ys[2 * a], ys[2 * a + 1]) >= eMinY - tolerance
+                        && Math.min(ys[2 * a], ys[2 * a + 1]) <= eMaxY + tolerance) {
+                    intersect(a, e);
+                }
+            }
+            activeCount = j;
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, activeCount * 2);
+            }
+            active[activeCount++] = e;
+        }
+    }
+
+    /**
+     * Adds split points for edges a and b, if they intersect or touch.
+     */
+    private void intersect(int a, int b) {
+        double ax0 = xs[2 * a], ay0 = ys[2 * a], ax1 = xs[2 * a + 1], ay1 = ys[2 * a + 1];
+        double bx0 = xs[2 * b], by0 = ys[2 * b], bx1 = xs[2 * b + 1], by1 = ys[2 * b + 1];
+        // An end point which lies on the other edge splits it. This
+        // handles touching edges and overlapping collinear edges.
+        boolean touching = false;
+        touching |= splitIfOnEdge(b, ax0, ay0);
+        touching |= splitIfOnEdge(b, ax1, ay1);
+        touching |= splitIfOnEdge(a, bx0, by0);
+        touching |= splitIfOnEdge(a, bx1, by1);
+        if (touching) {
+            return;
+        }
+        double d0 = cross(bx0, by0, bx1, by1, ax0, ay0);
+        double d1 = cross(bx0, by0, bx1, by1, ax1, ay1);
+        double d2 = cross(ax0, ay0, ax1, ay1, bx0, by0);
+        double d3 = cross(ax0, ay0, ax1, ay1, bx1, by1);
+        if ((d0 > 0 && d1 < 0 || d0 < 0 && d1 > 0)
+                && (d2 > 0 && d3 < 0 || d2 < 0 && d3 > 0)) {
+            double t = d0 / (d0 - d1);
+            double x = snap(ax0 + t * (ax1 - ax0));
+            double y = snap(ay0 + t * (ay1 - ay0));
+            addSplit(a, x, y);
+            addSplit(b, x, y);
+        }
+    }
+
+    /**
+     * Adds a split point to edge e, if point p lies on its interior.
+     */
+    private boolean splitIfOnEdge(int e, double px, double py) {
+        double x0 = xs[2 * e], y0 = ys[2 * e], x1 = xs[2 * e + 1], y1 = ys[2 * e + 1];
+        if (px == x0 && py == y0 || px == x1 && py == y1) {
+            return true;
+        }
+        double dx = x1 - x0, dy = y1 - y0;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = ((px - x0) * dx + (py - y0) * dy) / lengthSquared;
+        if (t <= 0 || t >= 1) {
+            return false;
+        }
+        double distance = Math.abs(cross(x0, y0, x1, y1, px, py)) / Math.sqrt(lengthSquared);
+        if (distance > tolerance) {
+            return false;
+        }
+        addSplit(e, px, py);
+        return true;
+    }
+
+    private static double cross(double x0, double y0, double x1, double y1, double px, double py) {
+        return (x1 - x0) * (py - y0) - (y1 - y0) * (px - x0);
+    }
+
+    private void addSplit(int e, double x, double y) {
+        if (splitCount == splitEdges.length) {
+            splitEdges = Arrays.copyOf(splitEdges, splitCount * 2);
+            splitXs = Arrays.copyOf(splitXs, splitCount * 2);
+            splitYs = Arrays.copyOf(splitYs, splitCount * 2);
+        }
+        splitEdges[splitCount] = e;
+        splitXs[splitCount] = x;
+        splitYs[splitCount] = y;
+        splitCount++;
+    }
+
+    /**
+     * Replaces all edges by the sub-edges between their split points.
+     */
+    private void splitEdges() {
+        if (splitCount == 0) {
+            return;
+        }
+        // Bucket the split points by edge
+        int[] start = new int[edgeCount + 1];
+        for (int i = 0; i < splitCount; i++) {
+            start[splitEdges[i] + 1]++;
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            start[i + 1] += start[i];
+        }
+        int[] fill = Arrays.copyOf(start, edgeCount);
+        double[] px = new double[splitCount];
+        double[] py = new double[splitCount];
+        double[] pt = new double[splitCount];
+        for (int i = 0; i < splitCount; i++) {
+            int e = splitEdges[i];
+            int k = fill[e]++;
+            px[k] = splitXs[i];
+            py[k] = splitYs[i];
+            pt[k] = (px[k] - xs[2 * e]) * (xs[2 * e + 1] - xs[2 * e])
+                    + (py[k] - ys[2 * e]) * (ys[2 * e + 1] - ys[2 * e]);
+        }
+        double[] oldXs = xs, oldYs = ys;
+        int[] oldOwners = owners;
+        int oldCount = edgeCount;
+        xs = new double[2 * (oldCount + splitCount)];
+        ys = new double[2 * (oldCount + splitCount)];
+        owners = new int[oldCount + splitCount];
+        edgeCount = 0;
+        for (int e = 0; e < oldCount; e++) {
+            // Sort the split points along the edge. There are only a few of them.
+            for (int i = start[e] + 1; i < start[e + 1]; i++) {
+                for (int k = i; k > start[e] && pt[k - 1] > pt[k]; k--) {
+                    swap(px, k, k - 1);
+                    swap(py, k, k - 1);
+                    swap(pt, k, k - 1);
+                }
+            }
+            double x = oldXs[2 * e], y = oldYs[2 * e];
+            for (int i = start[e]; i < start[e + 1]; i++) {
+                addEdge(x, y, px[i], py[i], oldOwners[e]);
+                x = px[i];
+                y = py[i];
+            }
+            addEdge(x, y, oldXs[2 * e + 1], oldYs[2 * e + 1], oldOwners[e]);
+        }
+        splitCount = 0;
+    }
+
+    private static void swap(double[] a, int i, int j) {
+        double tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+
+    // ---- Classification ----
+    /**
+     * Computes the winding numbers of both shapes at the specified points
+     * with a sweep over the y-axis.
+     *
+     * @param qx The x-coordinates of the points.
+     * @param qy The y-coordinates of the points.
+     * @param windings Receives the winding numbers of the subject at index
+     * {@code 2*i} and of the clip at index {@code 2*i+1}.
+     */
+    private void computeWindings(double[] qx, double[] qy, int[] windings) {
+        Integer[] queries = new Integer[qx.length];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = i;
+        }
+        Arrays.sort(queries, Comparator.comparingDouble(q -> qy[q]));
+        Integer[] edges = new Integer[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            edges[i] = i;
+        }
+        Arrays.sort(edges, Comparator.comparingDouble(e -> Math.min(ys[2 * e], ys[2 * e + 1])));
+        int[] active = new int[16];
+        int activeCount = 0;
+        int next = 0;
+        for (Integer q : queries) {
+            double x = qx[q], y = qy[q];
+            while (next < edgeCount && Math.min(ys[2 * edges[next]], ys[2 * edges[next] + 1]) <= y) {
+                if (activeCount == active.length) {
+                    active = Arrays.copyOf(active, activeCount * 2);
+                }
+                active[activeCount++] = edges[next++];
+            }
+            int j = 0;
+            int subject = 0, clip = 0;
+            for (int k = 0; k < activeCount; k++) {
+                int e = active[k];
+                double x0 = xs[2 * e], y0 = ys[2 * e], x1 = xs[2 * e + 1], y1 = ys[2 * e + 1];
+                if (Math.max(y0, y1) <= y) {
+                    // The sweep line has passed this edge
+                    continue;
+                }
+                active[j++] = e;
+                // Count crossings of a ray from the point in positive x-direction
+                if (x0 + (y - y0) * (x1 - x0) / (y1 - y0) > x) {
+                    int direction = y1 > y0 ? 1 : -1;
+                    if (owners[e] == SUBJECT) {
+                        subject += direction;
+                    } else {
+                        clip += direction;
+                    }
+                }
+            }
+            activeCount = j;
+            windings[2 * q] = subject;
+            windings[2 * q + 1] = clip;
+        }
+    }
+
+    private boolean isInside(int owner, int winding) {
+        return windingRules[owner] == PathIterator.WIND_EVEN_ODD ? (winding & 1) != 0 : winding != 0;
+    }
+
+    /**
+     * Computes the edges of the result.
+     *
+     * @return The edges as quadruples of x0, y0, x1, y1.
+     */
+    private double[] classifyEdges(Operation op) {
+        // Sort the edges by their lexicographically ordered end points, so
+        // that coincident edges are adjacent
+        Integer[] order = new Integer[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            order[i] = i;
+        }
+        Comparator<Integer> byEndPoints = (a, b) -> {
+            int c = Double.compare(lowX(a), lowX(b));
+            if (c == 0) {
+                c = Double.compare(lowY(a), lowY(b));
+            }
+            if (c == 0) {
+                c = Double.compare(highX(a), highX(b));
+            }
+            if (c == 0) {
+                c = Double.compare(highY(a), highY(b));
+            }
+            return c;
+        };
+        Arrays.sort(order, byEndPoints);
+        int[] unique = new int[edgeCount];
+        int uniqueCount = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            if (i == 0 || byEndPoints.compare(order[i - 1], order[i]) != 0) {
+                unique[uniqueCount++] = order[i];
+            }
+        }
+
+        // Place two sample points next to the middle of each unique edge
+        double[] qx = new double[2 * uniqueCount];
+        double[] qy = new double[2 * uniqueCount];
+        double maxOffset = grid * 1024;
+        for (int i = 0; i < uniqueCount; i++) {
+            int e = unique[i];
+            double x0 = lowX(e), y0 = lowY(e), x1 = highX(e), y1 = highY(e);
+            double dx = x1 - x0, dy = y1 - y0;
+            double length = Math.sqrt(dx * dx + dy * dy);
+            double scale = Math.min(length * 1e-3, maxOffset) / length;
+            double mx = (x0 + x1) * 0.5, my = (y0 + y1) * 0.5;
+            qx[2 * i] = mx - dy * scale;
+            qy[2 * i] = my + dx * scale;
+            qx[2 * i + 1] = mx + dy * scale;
+            qy[2 * i + 1] = my - dx * scale;
+        }
+        int[] windings = new int[4 * uniqueCount];
+        computeWindings(qx, qy, windings);
+
+        double[] result = new double[4 * uniqueCount];
+        int resultCount = 0;
+        for (int i = 0; i < uniqueCount; i++) {
+            boolean left = op.isInside(isInside(SUBJECT, windings[4 * i]), isInside(CLIP, windings[4 * i + 1]));
+            boolean right = op.isInside(isInside(SUBJECT, windings[4 * i + 2]), isInside(CLIP, windings[4 * i + 3]));
+            if (left != right) {
+                int e = unique[i];
+                // Orient the edge with the interior of the result on its left side
+                if (left) {
+                    result[resultCount++] = lowX(e);
+                    result[resultCount++] = lowY(e);
+                    result[resultCount++] = highX(e);
+                    result[resultCount++] = highY(e);
+                } else {
+                    result[resultCount++] = highX(e);
+                    result[resultCount++] = highY(e);
+                    result[resultCount++] = lowX(e);
+                    result[resultCount++] = lowY(e);
+                }
+            }
+        }
+        return Arrays.copyOf(result, resultCount);
+    }
+
+    private boolean isLowFirst(int e) {
+        double x0 = xs[2 * e], x1 = xs[2 * e + 1];
+        return x0 < x1 || x0 == x1 && ys[2 * e] < ys[2 * e + 1];
+    }
+
+    private double lowX(int e) {
+        return xs[isLowFirst(e) ? 2 * e : 2 * e + 1];
+    }
+
+    private double lowY(int e) {
+        return ys[isLowFirst(e) ? 2 * e : 2 * e + 1];
+    }
+
+    private double highX(int e) {
+        return xs[isLowFirst(e) ? 2 * e + 1 : 2 * e];
+    }
+
+    private double highY(int e) {
+        return ys[isLowFirst(e) ? 2 * e + 1 : 2 * e];
+    }
+
+    // ---- Output ----
+    /**
+     * Chains the edges of the result into closed polygons.
+     */
+    private static List<BezierPath> chainEdges(double[] edges) {
+        int n = edges.length / 4;
+        Integer[] byStart = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byStart[i] = i;
+        }
+        Comparator<Integer> comparator = (a, b) -> {
+            int c = Double.compare(edges[4 * a], edges[4 * b]);
+            return c != 0 ? c : Double.compare(edges[4 * a + 1], edges[4 * b + 1]);
+        };
+        Arrays.sort(byStart, comparator);
+        boolean[] used = new boolean[n];
+        List<BezierPath> polygons = new ArrayList<>();
+        double[] ringXs = new double[16];
+        double[] ringYs = new double[16];
+        for (int first = 0; first < n; first++) {
+            if (used[first]) {
+                continue;
+            }
+            int count = 0;
+            int e = first;
+            while (e != -1) {
+                used[e] = true;
+                if (count == ringXs.length) {
+                    ringXs = Arrays.copyOf(ringXs, count * 2);
+                    ringYs = Arrays.copyOf(ringYs, count * 2);
+                }
+                ringXs[count] = edges[4 * e];
+                ringYs[count] = edges[4 * e + 1];
+                count++;
+                e = findUnusedEdge(edges, byStart, used, edges[4 * e + 2], edges[4 * e + 3]);
+            }
+            BezierPath polygon = createPolygon(ringXs, ringYs, count);
+            if (polygon != null) {
+                polygons.add(polygon);
+            }
+        }
+        return polygons;
+    }
+
+    /**
+     * Finds an unused edge which starts at the specified point with a binary
+     * search.
+     *
+     * @return the edge index or -1
+     */
+    private static int findUnusedEdge(double[] edges, Integer[] byStart, boolean[] used, double x, double y) {
+        int low = 0, high = byStart.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int e = byStart[mid];
+            if (edges[4 * e] < x || edges[4 * e] == x && edges[4 * e + 1] < y) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < byStart.length; i++) {
+            int e = byStart[i];
+            if (edges[4 * e] != x || edges[4 * e + 1] != y) {
+                break;
+            }
+            if (!used[e]) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Creates a closed polygon from the points of a ring, leaving out points
+     * which lie on a straight line between their neighbours.
+     *
+     * @return the polygon or null if the ring has no area
+     */
+    private static BezierPath createPolygon(double[] ringXs, double[] ringYs, int count) {
+        BezierPath polygon = new BezierPath();
+        for (int i = 0; i < count; i++) {
+            int prev = (i + count - 1) % count, next = (i + 1) % count;
+            double cross = cross(ringXs[prev], ringYs[prev], ringXs[i], ringYs[i], ringXs[next], ringYs[next]);
+            double dot = (ringXs[i] - ringXs[prev]) * (ringXs[next] - ringXs[i])
+                    + (ringYs[i] - ringYs[prev]) * (ringYs[next] - ringYs[i]);
+            if (cross == 0 && dot > 0) {
+                continue;
+            }
+            if (polygon.isEmpty()) {
+                polygon.moveTo(ringXs[i], ringYs[i]);
+            } else {
+                polygon.lineTo(ringXs[i], ringYs[i]);
+            }
+        }
+        if (polygon.size() < 3) {
+            return null;
+        }
+        polygon.setClosed(true);
+        polygon.setWindingRule(Path2D.WIND_NON_ZERO);
+        return polygon;
+    }
+
+    private List<BezierPath> compute(Operation op) {
+        snapEdges();
+        if (edgeCount == 0) {
+            return new ArrayList<>();
+        }
+        findIntersections();
+        splitEdges();
+        return chainEdges(classifyEdges(op));
+    }
+}
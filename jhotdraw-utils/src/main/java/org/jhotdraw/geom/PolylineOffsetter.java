@@ -0,0 +1,269 @@
+/*
+ * @(#)PolylineOffsetter.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.geom;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+
+/**
+ * Computes the two outlines which run parallel to a polyline at half of a
+ * specified width to its left and to its right.
+ * <p>
+ * The points of a sub-path are kept in primitive arrays. Duplicate points
+ * are removed in a single pass, and adjacent offset segments are joined at
+ * their intersection if it lies within the miter limit, or with a bevel
+ * otherwise.
+ * <p>
+ * This class is used by {@link DoubleStroke} and {@link GrowStroke}.
+ * Instances are not thread safe.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+final class PolylineOffsetter {
+
+    private final double width;
+    private final double miterLimit;
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+    private int count;
+    private boolean closed;
+    /**
+     * The corners of the thick line of the previous and of the current
+     * segment. See {@link #computeThickLine}.
+     */
+    private double[] prevCorners = new double[8];
+    private double[] currentCorners = new double[8];
+    /**
+     * The intersection point computed by {@link #intersect}.
+     */
+    private double ix, iy;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param width The distance between the left and the right outline.
+     * @param miterLimit Offset segments are joined at their intersection if
+     * it is not farther away than this from the segment end points.
+     */
+    PolylineOffsetter(double width, double miterLimit) {
+        this.width = width;
+        this.miterLimit = miterLimit;
+    }
+
+    /**
+     * Flattens the shape and appends the outlines of all its sub-paths to
+     * the left and to the right path.
+     */
+    void offset(Shape s, double flatness, Path2D.Double left, Path2D.Double right) {
+        double[] coords = new double[6];
+        count = 0;
+        closed = false;
+        for (PathIterator i = s.getPathIterator(null, flatness); !i.isDone(); i.next()) {
+            switch (i.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    trace(left, right);
+                    count = 0;
+                    closed = false;
+                    add(coords[0], coords[1]);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    add(coords[0], coords[1]);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    closed = true;
+                    break;
+                default:
+                    // A flattening path iterator does not return curves
+                    break;
+            }
+        }
+        trace(left, right);
+    }
+
+    /**
+     * Appends the outlines of the nodes of a bezier path to the left and to
+     * the right path. Only the end points of the nodes are used.
+     */
+    void offset(BezierPath bp, Path2D.Double left, Path2D.Double right) {
+        count = 0;
+        closed = bp.isClosed();
+        for (BezierPath.Node node : bp) {
+            add(node.x[0], node.y[0]);
+        }
+        trace(left, right);
+    }
+
+    private void add(double x, double y) {
+        if (count == xs.length) {
+            xs = Arrays.copyOf(xs, count * 2);
+            ys = Arrays.copyOf(ys, count * 2);
+        }
+        xs[count] = x;
+        ys[count] = y;
+        count++;
+    }
+
+    /**
+     * Removes consecutive duplicate points in a single pass. If the
+     * polyline is closed, trailing points which are equal to the first point
+     * are removed as well.
+     */
+    private void removeDuplicates() {
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            if (j == 0 || xs[i] != xs[j - 1] || ys[i] != ys[j - 1]) {
+                xs[j] = xs[i];
+                ys[j] = ys[i];
+                j++;
+            }
+        }
+        if (closed) {
+            while (j > 1 && xs[j - 1] == xs[0] && ys[j - 1] == ys[0]) {
+                j--;
+            }
+        }
+        count = j;
+    }
+
+    /**
+     * Traces the current polyline.
+     */
+    private void trace(Path2D.Double left, Path2D.Double right) {
+        removeDuplicates();
+        int n = count;
+        if (n < 2) {
+            return;
+        }
+        // Handle the first point of the polyline
+        if (closed) {
+            computeThickLine(n - 1, 0, prevCorners);
+            computeThickLine(0, 1, currentCorners);
+            join(right, 0, true);
+            join(left, 2, true);
+        } else {
+            computeThickLine(0, 1, currentCorners);
+            right.moveTo(currentCorners[0], currentCorners[1]);
+            left.moveTo(currentCorners[2], currentCorners[3]);
+        }
+        // Handle points in the middle of the polyline
+        for (int i = 1; i < n - 1; i++) {
+            swapCorners();
+            computeThickLine(i, i + 1, currentCorners);
+            join(right, 0, false);
+            join(left, 2, false);
+        }
+        // Handle the last point of the polyline
+        if (closed) {
+            swapCorners();
+            computeThickLine(n - 1, 0, currentCorners);
+            join(right, 0, false);
+            join(left, 2, false);
+            right.closePath();
+            left.closePath();
+        } else {
+            right.lineTo(currentCorners[4], currentCorners[5]);
+            left.lineTo(currentCorners[6], currentCorners[7]);
+        }
+    }
+
+    private void swapCorners() {
+        double[] tmp = prevCorners;
+        prevCorners = currentCorners;
+        currentCorners = tmp;
+    }
+
+    /**
+     * Joins the offset segments of the previous and of the current thick
+     * line on one side.
+     *
+     * @param side 0 for the right side, 2 for the left side.
+     */
+    private void join(Path2D.Double path, int side, boolean move) {
+        double[] p = prevCorners;
+        double[] c = currentCorners;
+        if (intersect(p[side], p[side + 1], p[side + 4], p[side + 5],
+                c[side], c[side + 1], c[side + 4], c[side + 5])) {
+            if (move) {
+                path.moveTo(ix, iy);
+            } else {
+                path.lineTo(ix, iy);
+            }
+        } else {
+            if (move) {
+                path.moveTo(p[side + 4], p[side + 5]);
+            } else {
+                path.lineTo(p[side + 4], p[side + 5]);
+            }
+            path.lineTo(c[side], c[side + 1]);
+        }
+    }
+
+    /**
+     * Computes the corners of the thick line from point i to point j.
+     * The corners are stored in the sequence start right, start left,
+     * end right, end left.
+     */
+    private void computeThickLine(int i, int j, double[] corners) {
+        double x1 = xs[i], y1 = ys[i], x2 = xs[j], y2 = ys[j];
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double scale = width / (2d * Math.sqrt(dx * dx + dy * dy));
+        double ddx = -scale * dy;
+        double ddy = scale * dx;
+        corners[0] = x1 + ddx;
+        corners[1] = y1 + ddy;
+        corners[2] = x1 - ddx;
+        corners[3] = y1 - ddy;
+        corners[4] = x2 + ddx;
+        corners[5] = y2 + ddy;
+        corners[6] = x2 - ddx;
+        corners[7] = y2 - ddy;
+    }
+
+    /**
+     * Intersects line AB with line CD and stores the intersection point in
+     * {@code ix, iy}. This is the same computation as
+     * {@link Geom#intersect(double, double, double, double, double, double, double, double, double)},
+     * but it does not allocate a point.
+     *
+     * @return true if the lines intersect within the miter limit
+     */
+    private boolean intersect(double xa, double ya, double xb, double yb,
+            double xc, double yc, double xd, double yd) {
+        double denom = ((xb - xa) * (yd - yc) - (yb - ya) * (xd - xc));
+        double rnum = ((ya - yc) * (xd - xc) - (xa - xc) * (yd - yc));
+        if (denom == 0.0) { // parallel
+            if (rnum == 0.0) { // coincident; pick one end of first line
+                if ((xa < xb && (xb < xc || xb < xd))
+                        || (xa > xb && (xb > xc || xb > xd))) {
+                    ix = xb;
+                    iy = yb;
+                } else {
+                    ix = xa;
+                    iy = ya;
+                }
+                return true;
+            }
+            return false;
+        }
+        double r = rnum / denom;
+        double s = ((ya - yc) * (xb - xa) - (xa - xc) * (yb - ya)) / denom;
+        ix = xa + (xb - xa) * r;
+        iy = ya + (yb - ya) * r;
+        if (0.0 <= r && r <= 1.0 && 0.0 <= s && s <= 1.0) {
+            return true;
+        }
+        return Geom.length(xa, ya, ix, iy) <= miterLimit
+                || Geom.length(xb, yb, ix, iy) <= miterLimit
+                || Geom.length(xc, yc, ix, iy) <= miterLimit
+                || Geom.length(xd, yd, ix, iy) <= miterLimit;
+    }
+}
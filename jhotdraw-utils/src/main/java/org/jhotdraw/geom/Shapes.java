@@ -35,6 +35,10 @@ public class Shapes {
      * @param tolerance The tolerance for the test.
      */
     public static boolean outlineContains(Shape shape, Point2D.Double p, double tolerance) {
+        if (shape instanceof BezierPath) {
+            // Bezier paths cache their flattened outline
+            return ((BezierPath) shape).outlineContains(p, tolerance);
+        }
         double[] coords = new double[6];
         double prevX = 0, prevY = 0;
         double moveX = 0, moveY = 0;
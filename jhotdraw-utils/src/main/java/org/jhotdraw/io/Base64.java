@@ -104,6 +104,12 @@ public class Base64 {
                 (byte) '6', (byte) '7', (byte) '8', (byte) '9', (byte) '+', (byte) '/'
             };
 
+    /**
+     * The 64 valid Base64 values as characters.
+     */
+    private static final char[] ALPHABET_CHARS
+            = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
     /**
      * Determine which ALPHABET to use.
      */
@@ -486,6 +492,70 @@ public class Base64 {
         }
     }
 
+    /**
+     * Returns the number of characters which {@link #encode(byte[], int, int, char[], int, int)}
+     * produces for the specified number of bytes.
+     *
+     * @param len Length of data to convert
+     * @param options Specified options
+     * @return the number of characters
+     */
+    public static int getEncodedLength(int len, int options) {
+        int encodedLength = (len + 2) / 3 * 4;
+        if ((options & DONT_BREAK_LINES) == 0) {
+            encodedLength += len / 3 / (MAX_LINE_LENGTH / 4);
+        }
+        return encodedLength;
+    }
+
+    /**
+     * Encodes a byte array into Base64 notation, and writes the characters
+     * directly into a char array.
+     * This produces the same characters as {@link #encodeBytes(byte[], int, int, int)}
+     * without creating intermediate arrays.
+     * Does not support GZIP compression.
+     * <p>
+     * The destination array must have room for
+     * {@link #getEncodedLength getEncodedLength(len, options)} characters.
+     *
+     * @param source The data to convert
+     * @param off Offset in array where conversion should begin
+     * @param len Length of data to convert
+     * @param dest The array to hold the characters
+     * @param destOff The index where the characters will be put
+     * @param options Specified options, only DONT_BREAK_LINES is supported
+     * @return the index after the last character
+     */
+    public static int encode(byte[] source, int off, int len, char[] dest, int destOff, int options) {
+        boolean breakLines = (options & DONT_BREAK_LINES) == 0;
+        int e = destOff;
+        int end = off + len;
+        int d = off;
+        int groups = 0;
+        for (; d + 3 <= end; d += 3) {
+            int inBuff = (source[d] & 0xff) << 16 | (source[d + 1] & 0xff) << 8 | (source[d + 2] & 0xff);
+            dest[e] = ALPHABET_CHARS[inBuff >>> 18];
+            dest[e + 1] = ALPHABET_CHARS[(inBuff >>> 12) & 0x3f];
+            dest[e + 2] = ALPHABET_CHARS[(inBuff >>> 6) & 0x3f];
+            dest[e + 3] = ALPHABET_CHARS[inBuff & 0x3f];
+            e += 4;
+            if (breakLines && ++groups == MAX_LINE_LENGTH / 4) {
+                dest[e++] = '\n';
+                groups = 0;
+            }
+        }
+        int rest = end - d;
+        if (rest > 0) {
+            int inBuff = (source[d] & 0xff) << 16 | (rest > 1 ? (source[d + 1] & 0xff) << 8 : 0);
+            dest[e] = ALPHABET_CHARS[inBuff >>> 18];
+            dest[e + 1] = ALPHABET_CHARS[(inBuff >>> 12) & 0x3f];
+            dest[e + 2] = rest > 1 ? ALPHABET_CHARS[(inBuff >>> 6) & 0x3f] : '=';
+            dest[e + 3] = '=';
+            e += 4;
+        }
+        return e;
+    }
+
     /* ********  D E C O D I N G   M E T H O D S  ******** */
     /**
      * Decodes four bytes from array <var>source</var>
@@ -662,6 +732,43 @@ public class Base64 {
         return bytes;
     }
 
+    /**
+     * Decodes the Base64 characters in the specified region of a char
+     * sequence. Unlike {@link #decode(String)}, this method does not create
+     * a copy of the characters, allocates the decoded data with its exact
+     * size, and does not detect gzip-compressed data.
+     *
+     * @param s the characters to decode
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @return the decoded data
+     * @throws java.io.IOException if the characters are not in Base64 notation
+     */
+    public static byte[] decode(CharSequence s, int start, int end) throws java.io.IOException {
+        // Count the significant characters, so that we can allocate an
+        // array with the exact size
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '=') {
+                break;
+            }
+            if (c < 128 && DECODABET[c] >= 0) {
+                n++;
+            }
+        }
+        byte[] bytes = new byte[n * 3 / 4];
+        try (CharSequenceInputStream in = new CharSequenceInputStream(s, start, end)) {
+            for (int off = 0, count; off < bytes.length; off += count) {
+                count = in.read(bytes, off, bytes.length - off);
+                if (count < 0) {
+                    throw new java.io.IOException("Improperly padded Base64 input.");
+                }
+            }
+        }
+        return bytes;
+    }
+
     /**
      * Attempts to decode Base64 data and deserialize a Java
      * Object within. Returns <tt>null</tt> if there was an error.
@@ -1025,6 +1132,144 @@ public class Base64 {
         }
     }
 
+    /* ********  I N N E R   C L A S S   C H A R S E Q U E N C E I N P U T S T R E A M  ******** */
+    /**
+     * A {@link Base64.CharSequenceInputStream} decodes the Base64 characters
+     * of a char sequence on the fly, for example of a data URI in an XML
+     * attribute. The characters are not copied, and the decoded bytes are
+     * produced as they are read. White space is skipped.
+     */
+    public static class CharSequenceInputStream extends java.io.InputStream {
+
+        private final CharSequence chars;
+        private int pos;
+        private final int end;
+        /**
+         * Holds the decoded bytes of a quantum which did not fit into the
+         * array of a read call.
+         */
+        private final byte[] buffer = new byte[3];
+        private int bufferPos;
+        private int bufferLength;
+
+        /**
+         * Constructs a stream which decodes all characters of a sequence.
+         */
+        public CharSequenceInputStream(CharSequence chars) {
+            this(chars, 0, chars.length());
+        }
+
+        /**
+         * Constructs a stream which decodes a region of a char sequence.
+         *
+         * @param chars the characters in Base64 notation
+         * @param start the index of the first character
+         * @param end the index after the last character
+         */
+        public CharSequenceInputStream(CharSequence chars, int start, int end) {
+            this.chars = chars;
+            this.pos = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws java.io.IOException {
+            if (bufferPos == bufferLength) {
+                bufferPos = 0;
+                bufferLength = decodeQuantum(buffer, 0);
+                if (bufferLength == 0) {
+                    return -1;
+                }
+            }
+            return buffer[bufferPos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] dest, int off, int len) throws java.io.IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int i = off;
+            int n = off + len;
+            while (i < n && bufferPos < bufferLength) {
+                dest[i++] = buffer[bufferPos++];
+            }
+            // Decode full quanta directly into the destination array
+            while (n - i >= 3) {
+                int count = decodeQuantum(dest, i);
+                i += count;
+                if (count < 3) {
+                    return i == off ? -1 : i - off;
+                }
+            }
+            if (i < n) {
+                int b = read();
+                if (b >= 0) {
+                    dest[i++] = (byte) b;
+                    while (i < n && bufferPos < bufferLength) {
+                        dest[i++] = buffer[bufferPos++];
+                    }
+                }
+            }
+            return i == off ? -1 : i - off;
+        }
+
+        @Override
+        public int available() {
+            return bufferLength - bufferPos;
+        }
+
+        /**
+         * Decodes the next four significant characters.
+         *
+         * @return the number of decoded bytes, 0 at the end of the data
+         */
+        private int decodeQuantum(byte[] dest, int off) throws java.io.IOException {
+            int inBuff = 0;
+            int count = 0;
+            int padding = 0;
+            while (count < 4 && pos < end) {
+                char c = chars.charAt(pos++);
+                int value = c < 128 ? DECODABET[c] : -9;
+                if (value >= 0) {
+                    if (padding > 0) {
+                        throw new java.io.IOException("Invalid character in Base64 data.");
+                    }
+                    inBuff = inBuff << 6 | value;
+                    count++;
+                } else if (value == EQUALS_SIGN_ENC) {
+                    if (count < 2) {
+                        throw new java.io.IOException("Improperly padded Base64 input.");
+                    }
+                    inBuff <<= 6;
+                    padding++;
+                    count++;
+                } else if (value != WHITE_SPACE_ENC) {
+                    throw new java.io.IOException("Invalid character in Base64 data.");
+                }
+            }
+            if (count == 0) {
+                return 0;
+            }
+            if (count < 4) {
+                throw new java.io.IOException("Improperly padded Base64 input.");
+            }
+            dest[off] = (byte) (inBuff >>> 16);
+            if (padding > 0) {
+                // The data ends with the padding
+                pos = end;
+                if (padding == 2) {
+                    return 1;
+                }
+                dest[off + 1] = (byte) (inBuff >>> 8);
+                return 2;
+            }
+            dest[off + 1] = (byte) (inBuff >>> 8);
+            dest[off + 2] = (byte) inBuff;
+            return 3;
+        }
+    }
+
     /* ********  I N N E R   C L A S S   O U T P U T S T R E A M  ******** */
     /**
      * A {@link Base64.OutputStream} will write data to another
@@ -7,6 +7,7 @@
  */
 package org.jhotdraw.undo;
 
+import java.util.*;
 import javax.swing.undo.*;
 
 /**
@@ -168,4 +169,12 @@ public class CompositeEdit extends CompoundEdit {
     public void setSignificant(boolean newValue) {
         isSignificant = newValue;
     }
+
+    /**
+     * Returns the edits of this composite edit. Used by the
+     * {@code UndoRedoManager} to find {@link SpillableEdit}s.
+     */
+    List<UndoableEdit> getEdits() {
+        return Collections.unmodifiableList(edits);
+    }
 }
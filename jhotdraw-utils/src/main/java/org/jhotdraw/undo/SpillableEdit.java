@@ -0,0 +1,49 @@
+/*
+ * @(#)SpillableEdit.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.undo;
+
+import java.io.Serializable;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * An {@code UndoableEdit} whose restore data can be moved out of memory
+ * by an {@link UndoRedoManager} with a memory budget.
+ * <p>
+ * The restore data of an edit must be self-contained: it is serialized and
+ * deserialized, so it must not contain objects whose identity matters, such
+ * as the figures the edit applies to. The edit keeps references to those
+ * objects itself and only hands out its restore data.
+ * <p>
+ * The restore data must not change after the edit has been added to the
+ * undo manager. The undo manager writes it only once and may release and
+ * reload it several times.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public interface SpillableEdit extends UndoableEdit {
+
+    /**
+     * Returns the restore data of the edit, or null if the restore data has
+     * been released.
+     */
+    public Serializable getSpillData();
+
+    /**
+     * Sets the restore data of the edit. The undo manager calls this method
+     * with null to release the restore data, and with the deserialized
+     * restore data before the edit is undone or redone.
+     */
+    public void setSpillData(Serializable data);
+
+    /**
+     * Returns an estimate of the number of bytes of memory which are used
+     * by the restore data. Returns 0 if the restore data has been released.
+     */
+    public long getSpillDataSize();
+}
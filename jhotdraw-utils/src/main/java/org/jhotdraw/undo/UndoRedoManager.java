@@ -9,6 +9,7 @@ package org.jhotdraw.undo;
 
 import java.awt.event.*;
 import java.beans.*;
+import java.io.*;
 import java.util.*;
 import javax.swing.*;
 import javax.swing.undo.*;
@@ -17,6 +18,13 @@ import org.jhotdraw.util.*;
 /**
  * Same as javax.swing.UndoManager but provides actions for undo and
  * redo operations.
+ * <p>
+ * If a memory budget is set, the restore data of {@link SpillableEdit}s is
+ * serialized, compressed and written to a temporary file, when the restore
+ * data of all edits in memory exceeds the budget. The edits which are
+ * farthest away from the current position in the history are written out
+ * first. Their restore data is read back in before they are undone or
+ * redone.
  *
  * @author Werner Randelshofer
  * @version $Id$
@@ -70,6 +78,25 @@ public class UndoRedoManager extends UndoManager { //javax.swing.undo.UndoManage
      * The redo action instance.
      */
     private RedoAction redoAction;
+    /**
+     * The maximal number of bytes used by the restore data of
+     * {@code SpillableEdit}s in memory. The value 0 means no limit.
+     */
+    private long memoryBudget;
+    /**
+     * Holds the restore data of spilled edits.
+     */
+    private transient UndoSpillFile spillFile;
+    /**
+     * Maps spilled edits to their records in the spill file. An edit keeps
+     * its record when its restore data is read back in, because the restore
+     * data does not change anymore.
+     */
+    private transient IdentityHashMap<SpillableEdit, UndoSpillFile.Record> spillRecords;
+    /**
+     * Edits whose restore data could not be serialized.
+     */
+    private transient Set<SpillableEdit> unspillableEdits;
 
     public static ResourceBundleUtil getLabels() {
         if (labels == null) {
@@ -97,10 +124,203 @@ public class UndoRedoManager extends UndoManager { //javax.swing.undo.UndoManage
     @Override
     public void discardAllEdits() {
         super.discardAllEdits();
+        closeSpillFile();
         updateActions();
         setHasSignificantEdits(false);
     }
 
+    @Override
+    public void die() {
+        super.die();
+        closeSpillFile();
+    }
+
+    /**
+     * Removes edits from the history and frees their records in the spill
+     * file.
+     */
+    @Override
+    protected void trimEdits(int from, int to) {
+        if (spillRecords != null) {
+            for (int i = from; i <= to; i++) {
+                for (SpillableEdit e : getSpillableEdits(edits.get(i), new ArrayList<SpillableEdit>())) {
+                    UndoSpillFile.Record r = spillRecords.remove(e);
+                    unspillableEdits.remove(e);
+                    if (r != null) {
+                        try {
+                            spillFile.free(r);
+                        } catch (IOException ex) {
+                            // The space in the spill file is lost, but this
+                            // does not affect the remaining edits.
+                        }
+                    }
+                }
+            }
+        }
+        super.trimEdits(from, to);
+    }
+
+    /**
+     * Sets the maximal number of bytes which may be used by the restore data
+     * of {@link SpillableEdit}s in memory. Specify 0 for no limit.
+     */
+    public void setMemoryBudget(long newValue) {
+        long oldValue = memoryBudget;
+        memoryBudget = Math.max(0, newValue);
+        propertySupport.firePropertyChange("memoryBudget", oldValue, memoryBudget);
+        enforceMemoryBudget();
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Returns the estimated number of bytes used in memory by the restore
+     * data of the {@code SpillableEdit}s in the history.
+     */
+    public long getMemoryFootprint() {
+        long footprint = 0;
+        ArrayList<SpillableEdit> spillables = new ArrayList<>();
+        for (UndoableEdit edit : edits) {
+            getSpillableEdits(edit, spillables);
+        }
+        for (SpillableEdit e : spillables) {
+            footprint += e.getSpillDataSize();
+        }
+        return footprint;
+    }
+
+    /**
+     * Returns the number of bytes used on disk by the spilled restore data.
+     */
+    public long getDiskFootprint() {
+        return spillFile == null ? 0 : spillFile.length();
+    }
+
+    /**
+     * Adds the specified edit and the spillable edits contained in it to the
+     * list.
+     */
+    private static List<SpillableEdit> getSpillableEdits(UndoableEdit edit, List<SpillableEdit> list) {
+        if (edit instanceof SpillableEdit) {
+            list.add((SpillableEdit) edit);
+        }
+        if (edit instanceof CompositeEdit) {
+            for (UndoableEdit child : ((CompositeEdit) edit).getEdits()) {
+                getSpillableEdits(child, list);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns the index of the next edit to be redone. The edits which have
+     * been undone are at the end of the history.
+     */
+    private int getIndexOfNextAdd() {
+        int i = edits.size();
+        while (i > 0 && edits.get(i - 1).canRedo()) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Spills the restore data of edits until the memory budget is met. The
+     * edits which are farthest away from the current position are spilled
+     * first.
+     */
+    private void enforceMemoryBudget() {
+        if (memoryBudget <= 0) {
+            return;
+        }
+        final ArrayList<SpillableEdit> resident = new ArrayList<>();
+        final IdentityHashMap<SpillableEdit, Integer> distances = new IdentityHashMap<>();
+        long footprint = 0;
+        int indexOfNextAdd = getIndexOfNextAdd();
+        for (int i = 0, n = edits.size(); i < n; i++) {
+            int distance = (i < indexOfNextAdd) ? indexOfNextAdd - 1 - i : i - indexOfNextAdd;
+            for (SpillableEdit e : getSpillableEdits(edits.get(i), new ArrayList<SpillableEdit>())) {
+                long size = e.getSpillDataSize();
+                if (size > 0) {
+                    footprint += size;
+                    if (unspillableEdits == null || !unspillableEdits.contains(e)) {
+                        resident.add(e);
+                        distances.put(e, distance);
+                    }
+                }
+            }
+        }
+        if (footprint <= memoryBudget) {
+            return;
+        }
+        resident.sort((a, b) -> distances.get(b) - distances.get(a));
+        for (SpillableEdit e : resident) {
+            if (footprint <= memoryBudget) {
+                break;
+            }
+            long size = e.getSpillDataSize();
+            if (spill(e)) {
+                footprint -= size;
+            }
+        }
+    }
+
+    /**
+     * Writes the restore data of an edit to the spill file, unless it has
+     * already been written, and releases it.
+     *
+     * @return true on success.
+     */
+    private boolean spill(SpillableEdit e) {
+        if (spillFile == null) {
+            spillFile = new UndoSpillFile();
+            spillRecords = new IdentityHashMap<>();
+            unspillableEdits = Collections.newSetFromMap(new IdentityHashMap<SpillableEdit, Boolean>());
+        }
+        if (!spillRecords.containsKey(e)) {
+            try {
+                spillRecords.put(e, spillFile.write(e.getSpillData()));
+            } catch (IOException ex) {
+                // The restore data is not serializable; keep it in memory
+                unspillableEdits.add(e);
+                return false;
+            }
+        }
+        e.setSpillData(null);
+        return true;
+    }
+
+    /**
+     * Reads back the restore data of the spilled edits contained in the
+     * specified edit.
+     */
+    private void unspill(UndoableEdit edit) throws IOException {
+        if (spillRecords == null) {
+            return;
+        }
+        for (SpillableEdit e : getSpillableEdits(edit, new ArrayList<SpillableEdit>())) {
+            UndoSpillFile.Record r = spillRecords.get(e);
+            if (r != null && e.getSpillData() == null) {
+                e.setSpillData(spillFile.read(r));
+            }
+        }
+    }
+
+    private void closeSpillFile() {
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException ex) {
+                // The temporary file is deleted on exit
+            }
+            spillFile = null;
+            spillRecords = null;
+            unspillableEdits = null;
+        }
+    }
+
     public void setHasSignificantEdits(boolean newValue) {
         boolean oldValue = hasSignificantEdits;
         hasSignificantEdits = newValue;
@@ -143,6 +363,7 @@ public class UndoRedoManager extends UndoManager { //javax.swing.undo.UndoManage
             return true;
         }
         boolean success = super.addEdit(anEdit);
+        enforceMemoryBudget();
         updateActions();
         if (success && anEdit.isSignificant() && editToBeUndone() == anEdit) {
             setHasSignificantEdits(true);
@@ -211,9 +432,29 @@ public class UndoRedoManager extends UndoManager { //javax.swing.undo.UndoManage
             throws CannotUndoException {
         undoOrRedoInProgress = true;
         try {
+            try {
+                if (isInProgress()) {
+                    // Read back the edits up to the next significant edit
+                    for (int i = getIndexOfNextAdd() - 1; i >= 0; i--) {
+                        unspill(edits.get(i));
+                        if (edits.get(i).isSignificant()) {
+                            break;
+                        }
+                    }
+                } else {
+                    for (UndoableEdit edit : edits) {
+                        unspill(edit);
+                    }
+                }
+            } catch (IOException e) {
+                CannotUndoException cue = new CannotUndoException();
+                cue.initCause(e);
+                throw cue;
+            }
             super.undo();
         } finally {
             undoOrRedoInProgress = false;
+            enforceMemoryBudget();
             updateActions();
         }
     }
@@ -228,9 +469,29 @@ public class UndoRedoManager extends UndoManager { //javax.swing.undo.UndoManage
             throws CannotUndoException {
         undoOrRedoInProgress = true;
         try {
+            try {
+                if (isInProgress()) {
+                    // Read back the edits up to the next significant edit
+                    for (int i = getIndexOfNextAdd(), n = edits.size(); i < n; i++) {
+                        unspill(edits.get(i));
+                        if (edits.get(i).isSignificant()) {
+                            break;
+                        }
+                    }
+                } else {
+                    for (UndoableEdit edit : edits) {
+                        unspill(edit);
+                    }
+                }
+            } catch (IOException e) {
+                CannotRedoException cre = new CannotRedoException();
+                cre.initCause(e);
+                throw cre;
+            }
             super.redo();
         } finally {
             undoOrRedoInProgress = false;
+            enforceMemoryBudget();
             updateActions();
         }
     }
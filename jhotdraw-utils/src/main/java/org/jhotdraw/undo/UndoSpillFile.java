@@ -0,0 +1,205 @@
+/*
+ * @(#)UndoSpillFile.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.undo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A temporary file which holds the serialized and compressed restore data of
+ * {@link SpillableEdit}s.
+ * <p>
+ * Records are appended to the end of the file. The space of freed records is
+ * reclaimed by truncating the file when no record is left, or by compacting
+ * the file when more than half of it is unused.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+final class UndoSpillFile {
+
+    /**
+     * The location of a record in the file.
+     */
+    static final class Record {
+
+        private long offset;
+        private final int length;
+
+        private Record(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        int getLength() {
+            return length;
+        }
+    }
+    /**
+     * The file is only compacted if it has at least this many unused bytes.
+     */
+    private static final long COMPACT_THRESHOLD = 1L << 20;
+    private File file;
+    private RandomAccessFile raf;
+    private final Set<Record> records = Collections.newSetFromMap(new IdentityHashMap<Record, Boolean>());
+    private long end;
+    private long usedBytes;
+
+    private RandomAccessFile getFile() throws IOException {
+        if (raf == null) {
+            file = File.createTempFile("jhotdraw-undo", ".tmp");
+            file.deleteOnExit();
+            raf = new RandomAccessFile(file, "rw");
+        }
+        return raf;
+    }
+
+    /**
+     * Serializes, compresses and appends the specified data to the file.
+     */
+    Record write(Serializable data) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(buf, deflater))) {
+            out.writeObject(data);
+        } finally {
+            deflater.end();
+        }
+        byte[] bytes = buf.toByteArray();
+        RandomAccessFile f = getFile();
+        f.seek(end);
+        f.write(bytes);
+        Record r = new Record(end, bytes.length);
+        end += bytes.length;
+        usedBytes += bytes.length;
+        records.add(r);
+        return r;
+    }
+
+    /**
+     * Reads and deserializes the data of a record.
+     */
+    Serializable read(Record r) throws IOException {
+        byte[] bytes = new byte[r.length];
+        RandomAccessFile f = getFile();
+        f.seek(r.offset);
+        f.readFully(bytes);
+        try (ObjectInputStream in = new ContextObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            return (Serializable) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Frees a record. The record must not be read anymore.
+     */
+    void free(Record r) throws IOException {
+        if (!records.remove(r)) {
+            return;
+        }
+        usedBytes -= r.length;
+        if (records.isEmpty()) {
+            end = 0;
+            usedBytes = 0;
+            getFile().setLength(0);
+        } else if (end - usedBytes > Math.max(usedBytes, COMPACT_THRESHOLD)) {
+            compact();
+        }
+    }
+
+    /**
+     * Moves all records to the start of the file, and truncates the file.
+     */
+    private void compact() throws IOException {
+        ArrayList<Record> sorted = new ArrayList<>(records);
+        sorted.sort((a, b) -> Long.compare(a.offset, b.offset));
+        RandomAccessFile f = getFile();
+        long pos = 0;
+        byte[] bytes = new byte[0];
+        for (Record r : sorted) {
+            if (r.offset != pos) {
+                if (bytes.length < r.length) {
+                    bytes = new byte[r.length];
+                }
+                f.seek(r.offset);
+                f.readFully(bytes, 0, r.length);
+                f.seek(pos);
+                f.write(bytes, 0, r.length);
+                r.offset = pos;
+            }
+            pos += r.length;
+        }
+        end = pos;
+        f.setLength(end);
+    }
+
+    /**
+     * Returns the size of the file in bytes.
+     */
+    long length() {
+        return end;
+    }
+
+    /**
+     * Closes and deletes the file.
+     */
+    void close() throws IOException {
+        records.clear();
+        end = 0;
+        usedBytes = 0;
+        if (raf != null) {
+            try {
+                raf.close();
+            } finally {
+                raf = null;
+                file.delete();
+                file = null;
+            }
+        }
+    }
+
+    /**
+     * Resolves classes with the context class loader of the current thread,
+     * so that restore data of classes from plugins can be read.
+     */
+    private static class ContextObjectInputStream extends ObjectInputStream {
+
+        ContextObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            ClassLoader cl = Thread.currentThread().getContextClassLoader();
+            if (cl != null) {
+                try {
+                    return Class.forName(desc.getName(), false, cl);
+                } catch (ClassNotFoundException e) {
+                    // fall back to the default class loader
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
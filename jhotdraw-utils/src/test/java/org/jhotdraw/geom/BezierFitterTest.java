@@ -0,0 +1,109 @@
+package org.jhotdraw.geom;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests corner detection and incremental curve fitting of BezierFitter.
+ */
+public class BezierFitterTest {
+
+    /**
+     * Samples the outline of a square with the specified number of points
+     * per side, starting and ending at the origin.
+     */
+    private static List<Point2D.Double> createSquare(double size, int pointsPerSide) {
+        List<Point2D.Double> points = new ArrayList<>();
+        double[][] corners = {{0, 0}, {size, 0}, {size, size}, {0, size}, {0, 0}};
+        for (int side = 0; side < 4; side++) {
+            for (int i = 0; i < pointsPerSide; i++) {
+                double t = i / (double) pointsPerSide;
+                points.add(new Point2D.Double(
+                        corners[side][0] + t * (corners[side + 1][0] - corners[side][0]),
+                        corners[side][1] + t * (corners[side + 1][1] - corners[side][1])));
+            }
+        }
+        points.add(new Point2D.Double(0, 0));
+        return points;
+    }
+
+    private static double distanceToPath(BezierPath path, Point2D.Double p) {
+        List<Point2D.Double> points = flatten(path);
+        double min = Double.MAX_VALUE;
+        for (int i = 1; i < points.size(); i++) {
+            min = Math.min(min, Line2D.ptSegDist(points.get(i - 1).x, points.get(i - 1).y, points.get(i).x, points.get(i).y, p.x, p.y));
+        }
+        return min;
+    }
+
+    private static List<Point2D.Double> flatten(BezierPath path) {
+        List<Point2D.Double> points = new ArrayList<>();
+        double[] coords = new double[6];
+        for (PathIterator i = path.toGeneralPath().getPathIterator(null, 0.01); !i.isDone(); i.next()) {
+            i.currentSegment(coords);
+            points.add(new Point2D.Double(coords[0], coords[1]));
+        }
+        return points;
+    }
+
+    @Test
+    public void testFindCornersOfSquare() {
+        List<Point2D.Double> square = createSquare(100, 50);
+        assertEquals(Arrays.asList(50, 100, 150), Bezier.findCorners(square, 77 / 180d * Math.PI, 4));
+    }
+
+    @Test
+    public void testFitsSegmentsWhilePointsAreAdded() {
+        List<Point2D.Double> square = createSquare(100, 50);
+        BezierFitter fitter = new BezierFitter(1.5);
+        BezierPath partial = null;
+        for (Point2D.Double p : square) {
+            fitter.add(p.x, p.y);
+            if (fitter.size() == 160) {
+                partial = (BezierPath) fitter.getFittedPath().clone();
+            }
+        }
+        BezierPath fitted = fitter.finish();
+        // The first three sides have been fitted before the last point was added
+        assertNotNull(partial);
+        assertEquals(4, partial.size());
+        assertEquals(0, partial.get(3).x[0], 1e-9);
+        assertEquals(100, partial.get(3).y[0], 1e-9);
+        assertEquals(partial, fitted.subList(0, partial.size()));
+        assertEquals(5, fitted.size());
+        assertEquals(Bezier.fitBezierPath(square, 1.5), fitted);
+        for (Point2D.Double p : square) {
+            assertTrue(distanceToPath(fitted, p) <= 1.5);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddAfterFinish() {
+        BezierFitter fitter = new BezierFitter(1.5);
+        fitter.add(0, 0);
+        fitter.finish();
+        fitter.add(1, 1);
+    }
+
+    @Test(timeout = 10000)
+    public void testFitsLongStroke() {
+        // A wavy stroke with 200000 samples, which are 0.25 units apart
+        int n = 200000;
+        BezierFitter fitter = new BezierFitter(1.5);
+        for (int i = 0; i < n; i++) {
+            double x = i * 0.25;
+            fitter.add(x, 20 * Math.sin(x / 40));
+        }
+        BezierPath fitted = fitter.finish();
+        assertEquals(0, fitted.get(0).x[0], 1e-9);
+        assertEquals((n - 1) * 0.25, fitted.get(fitted.size() - 1).x[0], 1e-9);
+        assertTrue(fitted.size() < n / 100);
+    }
+}
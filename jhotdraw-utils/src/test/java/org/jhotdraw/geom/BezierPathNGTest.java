@@ -135,4 +135,62 @@ public class BezierPathNGTest {
             pathIterator.next();
         }
     }
+
+    @Test
+    public void testLengthAndPointOnPath() {
+        BezierPath instance = new BezierPath();
+        instance.add(10, 10);
+        instance.add(40, 10);
+        instance.add(40, 50);
+        assertEquals(instance.getLengthOfPath(1), 70.0, 1e-9);
+        Point2D.Double p = instance.getPointOnPath(0.5, 1);
+        assertEquals(p.x, 40.0, 1e-9);
+        assertEquals(p.y, 15.0, 1e-9);
+        p = instance.getPointOnPath(0.25, 1);
+        assertEquals(p.x, 27.5, 1e-9);
+        assertEquals(p.y, 10.0, 1e-9);
+    }
+
+    @Test
+    public void testRelativePositionAndFindSegment() {
+        BezierPath instance = new BezierPath();
+        instance.add(10, 10);
+        instance.add(40, 10);
+        instance.curveTo(60, 10, 60, 50, 40, 50);
+        assertEquals(instance.findSegment(new Point2D.Double(20, 11), 2), 0);
+        assertEquals(instance.findSegment(new Point2D.Double(55, 30), 1), 1);
+        assertEquals(instance.findSegment(new Point2D.Double(0, 30), 2), -1);
+        assertEquals(instance.getRelativePositionOnPath(new Point2D.Double(25, 10), 1),
+                15 / instance.getLengthOfPath(1), 1e-9);
+        assertTrue(instance.outlineContains(new Point2D.Double(55, 30), 1));
+        assertFalse(instance.outlineContains(new Point2D.Double(30, 30), 1));
+    }
+
+    @Test
+    public void testFlattenedPathIsInvalidated() {
+        BezierPath instance = new BezierPath();
+        instance.add(0, 0);
+        instance.add(10, 0);
+        assertEquals(instance.getLengthOfPath(1), 10.0, 1e-9);
+        instance.get(1).moveTo(20, 0);
+        instance.invalidatePath();
+        assertEquals(instance.getLengthOfPath(1), 20.0, 1e-9);
+        instance.add(20, 10);
+        assertEquals(instance.getLengthOfPath(1), 30.0, 1e-9);
+        instance.setClosed(true);
+        assertEquals(instance.getLengthOfPath(1), 30.0 + Math.sqrt(500), 1e-9);
+    }
+
+    @Test
+    public void testOutlineContainsLongPolyline() {
+        BezierPath instance = new BezierPath();
+        for (int i = 0; i < 1000; i++) {
+            instance.add(i, (i % 2) * 10);
+        }
+        assertTrue(instance.outlineContains(new Point2D.Double(500.5, 5), 1));
+        assertEquals(instance.findSegment(new Point2D.Double(998.5, 5), 0.4), 998);
+        assertFalse(instance.outlineContains(new Point2D.Double(500, 30), 1));
+        assertEquals(Shapes.outlineContains(instance, new Point2D.Double(500.5, 5), 1),
+                instance.outlineContains(new Point2D.Double(500.5, 5), 1));
+    }
 }
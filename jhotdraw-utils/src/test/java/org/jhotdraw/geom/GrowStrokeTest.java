@@ -0,0 +1,83 @@
+package org.jhotdraw.geom;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the outlines of GrowStroke and DoubleStroke, and the caching of
+ * stroked shapes in BezierPath.
+ */
+public class GrowStrokeTest {
+
+    private static BezierPath createSquare() {
+        BezierPath bp = new BezierPath();
+        bp.moveTo(0, 0);
+        bp.lineTo(100, 0);
+        bp.lineTo(100, 0);
+        bp.lineTo(100, 100);
+        bp.lineTo(0, 100);
+        bp.lineTo(0, 0);
+        bp.setClosed(true);
+        return bp;
+    }
+
+    private static void assertBounds(double x, double y, double w, double h, Shape s) {
+        Rectangle2D b = s.getBounds2D();
+        assertEquals(x, b.getX(), 1e-9);
+        assertEquals(y, b.getY(), 1e-9);
+        assertEquals(w, b.getWidth(), 1e-9);
+        assertEquals(h, b.getHeight(), 1e-9);
+    }
+
+    @Test
+    public void growsAndShrinksSquareWithDuplicateNodes() {
+        BezierPath square = createSquare();
+        assertBounds(-5, -5, 110, 110, new GrowStroke(5, 100).createStrokedShape(square));
+        assertBounds(5, 5, 90, 90, new GrowStroke(-5, 100).createStrokedShape(square));
+        Shape grown = new GrowStroke(5, 100).createStrokedShape(new Rectangle2D.Double(0, 0, 100, 100));
+        assertBounds(-5, -5, 110, 110, grown);
+        assertTrue(grown.contains(-4, 50));
+        assertFalse(grown.contains(-6, 50));
+    }
+
+    @Test
+    public void tracesBothSidesOfOpenPolyline() {
+        Path2D.Double line = new Path2D.Double();
+        line.moveTo(0, 0);
+        line.lineTo(50, 0);
+        line.lineTo(50, 0);
+        line.lineTo(100, 0);
+        Shape stroked = new DoubleStroke(10, 2).createStrokedShape(line);
+        assertTrue(stroked.contains(50, 5));
+        assertTrue(stroked.contains(50, -5));
+        assertFalse(stroked.contains(50, 0));
+        assertFalse(stroked.contains(50, 8));
+    }
+
+    @Test
+    public void cachesStrokedShapesUntilPathChanges() {
+        BezierPath square = createSquare();
+        Shape first = new GrowStroke(5, 100).createStrokedShape(square);
+        assertNotNull(square.getStrokedShape(new GrowStroke(5, 100)));
+        assertNull(square.getStrokedShape(new GrowStroke(4, 100)));
+        assertNull(square.getStrokedShape(new DoubleStroke(10, 1, java.awt.BasicStroke.CAP_SQUARE,
+                java.awt.BasicStroke.JOIN_BEVEL, 100, null, 0f)));
+        Shape second = new GrowStroke(5, 100).createStrokedShape(square);
+        assertNotSame(first, second);
+        assertEquals(first.getBounds2D(), second.getBounds2D());
+
+        for (int i = 1; i <= 3; i++) {
+            square.get(i).x[0] = 200;
+        }
+        square.invalidatePath();
+        assertNull(square.getStrokedShape(new GrowStroke(5, 100)));
+        assertBounds(-5, -5, 210, 110, new GrowStroke(5, 100).createStrokedShape(square));
+
+        square.lineTo(0, 50);
+        assertNull(square.getStrokedShape(new GrowStroke(5, 100)));
+    }
+}
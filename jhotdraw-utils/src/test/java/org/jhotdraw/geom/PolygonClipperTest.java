@@ -0,0 +1,162 @@
+package org.jhotdraw.geom;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the boolean operations of PolygonClipper against java.awt.geom.Area.
+ */
+public class PolygonClipperTest {
+
+    private static final double FLATNESS = 0.5;
+
+    private static Path2D.Double flatten(Shape s) {
+        Path2D.Double p = new Path2D.Double(Path2D.WIND_NON_ZERO);
+        p.append(s.getPathIterator(null, FLATNESS), false);
+        p.setWindingRule(s.getPathIterator(null).getWindingRule());
+        return p;
+    }
+
+    private static Path2D.Double createStar(double cx, double cy, double r, int points, int windingRule) {
+        Path2D.Double star = new Path2D.Double(windingRule);
+        for (int i = 0; i < points; i++) {
+            double angle = Math.PI * 2 * i * (points / 2) / points;
+            double x = cx + r * Math.cos(angle), y = cy + r * Math.sin(angle);
+            if (i == 0) {
+                star.moveTo(x, y);
+            } else {
+                star.lineTo(x, y);
+            }
+        }
+        star.closePath();
+        return star;
+    }
+
+    private static Path2D.Double createWavyCircle(double cx, double cy, double r, int n, int waves) {
+        Path2D.Double p = new Path2D.Double();
+        for (int i = 0; i < n; i++) {
+            double angle = Math.PI * 2 * i / n;
+            double radius = r * (1 + 0.1 * Math.sin(angle * waves));
+            double x = cx + radius * Math.cos(angle), y = cy + radius * Math.sin(angle);
+            if (i == 0) {
+                p.moveTo(x, y);
+            } else {
+                p.lineTo(x, y);
+            }
+        }
+        p.closePath();
+        return p;
+    }
+
+    private static Area expected(PolygonClipper.Operation op, Shape subject, Shape clip) {
+        Area a = new Area(flatten(subject));
+        Area b = new Area(flatten(clip));
+        switch (op) {
+            case UNION:
+                a.add(b);
+                break;
+            case INTERSECTION:
+                a.intersect(b);
+                break;
+            case DIFFERENCE:
+                a.subtract(b);
+                break;
+            default:
+                a.exclusiveOr(b);
+                break;
+        }
+        return a;
+    }
+
+    /**
+     * Compares the result of the clipper with Area on a grid of sample
+     * points which do not coincide with any edges.
+     */
+    private static void assertSameAsArea(Shape subject, Shape clip) {
+        assertSameAsArea(subject, clip, 1);
+    }
+
+    private static void assertSameAsArea(Shape subject, Shape clip, double step) {
+        for (PolygonClipper.Operation op : PolygonClipper.Operation.values()) {
+            Area expected = expected(op, subject, clip);
+            List<BezierPath> result = PolygonClipper.clip(op, subject, clip, FLATNESS);
+            for (BezierPath bp : result) {
+                assertTrue(bp.isClosed());
+            }
+            Path2D.Double actual = PolygonClipper.toPath(result);
+            Path2D.Double evenOdd = new Path2D.Double(actual);
+            evenOdd.setWindingRule(Path2D.WIND_EVEN_ODD);
+            Rectangle2D bounds = subject.getBounds2D().createUnion(clip.getBounds2D());
+            for (double y = bounds.getMinY() - 1.0137; y < bounds.getMaxY() + 1; y += 0.7311 * step) {
+                for (double x = bounds.getMinX() - 1.0173; x < bounds.getMaxX() + 1; x += 0.6917 * step) {
+                    boolean inside = expected.contains(x, y);
+                    assertEquals(op + " at " + x + "," + y, inside, actual.contains(x, y));
+                    assertEquals(op + " at " + x + "," + y, inside, evenOdd.contains(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void matchesAreaForOverlappingShapes() {
+        assertSameAsArea(new Ellipse2D.Double(0, 0, 60, 40), new Rectangle2D.Double(30, 10, 50, 50));
+        assertSameAsArea(createStar(40, 40, 35, 5, Path2D.WIND_EVEN_ODD), new Ellipse2D.Double(20, 20, 50, 50));
+        assertSameAsArea(createStar(40, 40, 35, 5, Path2D.WIND_NON_ZERO), createStar(50, 45, 30, 7, Path2D.WIND_EVEN_ODD));
+    }
+
+    @Test
+    public void matchesAreaForSharedEdgesAndHoles() {
+        // Rectangles with collinear and coincident edges
+        assertSameAsArea(new Rectangle2D.Double(0, 0, 40, 40), new Rectangle2D.Double(40, 10, 40, 20));
+        assertSameAsArea(new Rectangle2D.Double(0, 0, 40, 40), new Rectangle2D.Double(0, 0, 40, 20));
+        assertSameAsArea(new Rectangle2D.Double(0, 0, 40, 40), new Rectangle2D.Double(0, 0, 40, 40));
+        // A ring and a shape touching it at a vertex
+        Path2D.Double ring = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+        ring.append(new Rectangle2D.Double(0, 0, 50, 50), false);
+        ring.append(new Rectangle2D.Double(10, 10, 30, 30), false);
+        assertSameAsArea(ring, createStar(25, 25, 15, 5, Path2D.WIND_NON_ZERO));
+        assertSameAsArea(ring, new Rectangle2D.Double(50, 50, 10, 10));
+    }
+
+    @Test
+    public void matchesAreaForLargeInputs() {
+        Shape a = createWavyCircle(100, 100, 80, 4000, 37);
+        Shape b = AffineTransform.getRotateInstance(0.3, 110, 95).createTransformedShape(createWavyCircle(110, 95, 75, 5000, 53));
+        assertSameAsArea(a, b, 7);
+    }
+
+    @Test
+    public void handlesEmptyShapes() {
+        Shape empty = new Path2D.Double();
+        Rectangle2D r = new Rectangle2D.Double(0, 0, 10, 10);
+        assertTrue(PolygonClipper.clip(PolygonClipper.Operation.INTERSECTION, r, empty, FLATNESS).isEmpty());
+        assertTrue(PolygonClipper.clip(PolygonClipper.Operation.UNION, empty, empty, FLATNESS).isEmpty());
+        List<BezierPath> union = PolygonClipper.clip(PolygonClipper.Operation.UNION, empty, r, FLATNESS);
+        assertEquals(1, union.size());
+        assertEquals(4, union.get(0).size());
+        assertEquals(r, union.get(0).getBounds2D());
+    }
+
+    @Test
+    public void fitsCurvesToTheResult() {
+        Ellipse2D.Double circle = new Ellipse2D.Double(0, 0, 100, 100);
+        List<BezierPath> fitted = PolygonClipper.clip(PolygonClipper.Operation.DIFFERENCE,
+                circle, new Rectangle2D.Double(50, -10, 60, 120), 0.1, 0.5);
+        assertEquals(1, fitted.size());
+        BezierPath half = fitted.get(0);
+        assertTrue(half.size() < 20);
+        Rectangle2D b = half.getBounds2D();
+        assertEquals(0, b.getMinX(), 1);
+        assertEquals(50, b.getMaxX(), 1);
+        assertTrue(half.contains(25, 50));
+        assertFalse(half.contains(75, 50));
+    }
+}
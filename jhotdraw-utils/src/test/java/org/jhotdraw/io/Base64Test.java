@@ -0,0 +1,79 @@
+package org.jhotdraw.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class Base64Test {
+
+    private final Random random = new Random(34);
+
+    private byte[] bytes(int n) {
+        byte[] data = new byte[n];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private static String encode(byte[] data, int options) {
+        char[] chars = new char[Base64.getEncodedLength(data.length, options)];
+        int end = Base64.encode(data, 0, data.length, chars, 0, options);
+        assertEquals(chars.length, end);
+        return new String(chars);
+    }
+
+    @Test
+    public void encodesLikeEncodeBytes() {
+        for (int n = 0; n < 400; n++) {
+            byte[] data = bytes(n);
+            assertEquals(Base64.encodeBytes(data), encode(data, Base64.NO_OPTIONS));
+            assertEquals(Base64.encodeBytes(data, Base64.DONT_BREAK_LINES), encode(data, Base64.DONT_BREAK_LINES));
+        }
+    }
+
+    @Test
+    public void decodesCharSequence() throws IOException {
+        for (int n = 0; n < 400; n++) {
+            byte[] data = bytes(n);
+            String str = "data:" + Base64.encodeBytes(data) + " ";
+            assertArrayEquals(data, Base64.decode(str, 5, str.length()));
+        }
+    }
+
+    @Test
+    public void readsCharSequenceInputStreamInPieces() throws IOException {
+        byte[] data = bytes(10000);
+        String str = Base64.encodeBytes(data);
+        for (int piece = 1; piece < 10; piece++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (InputStream in = new Base64.CharSequenceInputStream(str)) {
+                byte[] buf = new byte[piece];
+                for (int len; (len = in.read(buf)) != -1;) {
+                    assertTrue(len > 0);
+                    out.write(buf, 0, len);
+                }
+            }
+            assertArrayEquals(data, out.toByteArray());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new Base64.CharSequenceInputStream(str)) {
+            for (int b; (b = in.read()) != -1;) {
+                out.write(b);
+            }
+        }
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsInvalidCharacters() throws IOException {
+        Base64.decode("AAAA*AAA", 0, 8);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedData() throws IOException {
+        Base64.decode("AAAAAA", 0, 6);
+    }
+}
@@ -0,0 +1,141 @@
+package org.jhotdraw.undo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class UndoRedoManagerSpillTest {
+    private UndoRedoManager manager;
+
+    /**
+     * An edit which restores a value from a large byte array.
+     */
+    private static class ByteArrayEdit extends TestUndoableEdit implements SpillableEdit {
+        private byte[] data;
+        private final byte value;
+        private byte restoredValue;
+
+        ByteArrayEdit(int size, int value) {
+            this.value = (byte) value;
+            this.data = new byte[size];
+            Arrays.fill(data, this.value);
+        }
+
+        @Override
+        public void undo() {
+            super.undo();
+            restoredValue = data[data.length - 1];
+        }
+
+        @Override
+        public Serializable getSpillData() {
+            return data;
+        }
+
+        @Override
+        public void setSpillData(Serializable newValue) {
+            data = (byte[]) newValue;
+        }
+
+        @Override
+        public long getSpillDataSize() {
+            return data == null ? 0 : data.length;
+        }
+    }
+
+    @Before
+    public void initializeManager() {
+        manager = new UndoRedoManager();
+    }
+
+    @After
+    public void discardEdits() {
+        manager.discardAllEdits();
+    }
+
+    @Test
+    public void keepsEditsInMemoryWithoutBudget() {
+        manager.addEdit(new ByteArrayEdit(1000, 1));
+        manager.addEdit(new ByteArrayEdit(1000, 2));
+        assertEquals(2000, manager.getMemoryFootprint());
+        assertEquals(0, manager.getDiskFootprint());
+    }
+
+    @Test
+    public void spillsOldestEditsWhenBudgetIsExceeded() {
+        manager.setMemoryBudget(2500);
+        List<ByteArrayEdit> added = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ByteArrayEdit edit = new ByteArrayEdit(1000, i);
+            added.add(edit);
+            manager.addEdit(edit);
+        }
+        assertTrue(manager.getMemoryFootprint() <= 2500);
+        assertTrue(manager.getDiskFootprint() > 0);
+        assertNull(added.get(0).getSpillData());
+        assertNotNull(added.get(9).getSpillData());
+
+        for (int i = 9; i >= 0; i--) {
+            manager.undo();
+            assertEquals(i, added.get(i).restoredValue);
+            assertTrue(manager.getMemoryFootprint() <= 2500);
+        }
+        for (int i = 0; i < 10; i++) {
+            manager.redo();
+            assertTrue(added.get(i).wasRedone);
+        }
+    }
+
+    @Test
+    public void compressesSpilledEdits() {
+        manager.setMemoryBudget(1);
+        manager.addEdit(new ByteArrayEdit(100000, 7));
+        manager.addEdit(new ByteArrayEdit(100000, 8));
+        assertEquals(0, manager.getMemoryFootprint());
+        assertTrue(manager.getDiskFootprint() > 0);
+        assertTrue(manager.getDiskFootprint() < 10000);
+    }
+
+    @Test
+    public void freesDiskSpaceOfDiscardedEdits() {
+        manager.setLimit(2);
+        manager.setMemoryBudget(1);
+        manager.addEdit(new ByteArrayEdit(1000, 0));
+        long singleEdit = manager.getDiskFootprint();
+        assertTrue(singleEdit > 0);
+        for (int i = 1; i < 10; i++) {
+            manager.addEdit(new ByteArrayEdit(1000, i));
+        }
+        manager.undo();
+        manager.undo();
+        // Discards the two undone edits, only the new edit is left
+        manager.addEdit(new ByteArrayEdit(1000, 0));
+        assertEquals(singleEdit, manager.getDiskFootprint());
+        manager.addEdit(new ByteArrayEdit(1000, 11));
+        manager.discardAllEdits();
+        assertEquals(0, manager.getDiskFootprint());
+    }
+
+    @Test
+    public void spillsEditsInCompositeEdits() {
+        manager.setMemoryBudget(1500);
+        CompositeEdit ce = new CompositeEdit("composite");
+        manager.addEdit(ce);
+        ByteArrayEdit first = new ByteArrayEdit(1000, 1);
+        ByteArrayEdit second = new ByteArrayEdit(1000, 2);
+        manager.addEdit(first);
+        manager.addEdit(second);
+        manager.addEdit(ce);
+        assertTrue(manager.getMemoryFootprint() <= 1500);
+
+        manager.undo();
+        assertEquals(1, first.restoredValue);
+        assertEquals(2, second.restoredValue);
+    }
+}
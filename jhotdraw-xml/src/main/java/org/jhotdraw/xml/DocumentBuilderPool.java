@@ -0,0 +1,174 @@
+/*
+ * @(#)DocumentBuilderPool.java
+ *
+ * Copyright (c) 1996-2010 The authors and contributors of JHotDraw.
+ * You may not use, copy or modify this file, except in compliance with the
+ * accompanying license terms.
+ */
+package org.jhotdraw.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * A bounded pool of namespace aware {@link DocumentBuilder}s, which allows
+ * to parse XML documents concurrently.
+ * <p>
+ * A {@code DocumentBuilder} is not thread safe, and creating one is
+ * expensive. Therefore readers obtain a builder from this pool with
+ * {@link #acquire}, and return it with {@link #release} when they are done.
+ * The {@link #parse} methods do this for them.
+ * <p>
+ * The builders do not access the network or the file system while parsing:
+ * external DTDs and external entities are not loaded, and the builders
+ * resolve all remaining external entities to empty documents.
+ *
+ * @author Werner Randelshofer
+ * @version $Id$
+ */
+public final class DocumentBuilderPool {
+
+    /**
+     * The maximal number of idle builders which are kept in the pool.
+     */
+    private static final int MAX_IDLE_BUILDERS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final ConcurrentLinkedQueue<DocumentBuilder> IDLE_BUILDERS = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger IDLE_COUNT = new AtomicInteger();
+    /**
+     * The factory is configured once. Access to it is synchronized, because
+     * a {@code DocumentBuilderFactory} is not thread safe either.
+     */
+    private static DocumentBuilderFactory factory;
+    /**
+     * Resolves external entities to empty documents.
+     */
+    private static final EntityResolver EMPTY_ENTITY_RESOLVER = new EntityResolver() {
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId) {
+            InputSource source = new InputSource(new StringReader(""));
+            source.setPublicId(publicId);
+            source.setSystemId(systemId);
+            return source;
+        }
+    };
+
+    /**
+     * Prevent instance creation.
+     */
+    private DocumentBuilderPool() {
+    }
+
+    private static synchronized DocumentBuilder newBuilder() throws IOException {
+        try {
+            if (factory == null) {
+                DocumentBuilderFactory f = DocumentBuilderFactory.newInstance();
+                f.setNamespaceAware(true);
+                f.setValidating(false);
+                f.setXIncludeAware(false);
+                f.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+                setFeatureIfSupported(f, "http://xml.org/sax/features/external-general-entities", false);
+                setFeatureIfSupported(f, "http://xml.org/sax/features/external-parameter-entities", false);
+                setFeatureIfSupported(f, "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+                setAttributeIfSupported(f, XMLConstants.ACCESS_EXTERNAL_DTD, "");
+                setAttributeIfSupported(f, XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+                factory = f;
+            }
+            return factory.newDocumentBuilder();
+        } catch (ParserConfigurationException ex) {
+            throw new IOException("Unable to create DocumentBuilder", ex);
+        }
+    }
+
+    private static void setFeatureIfSupported(DocumentBuilderFactory f, String name, boolean value) {
+        try {
+            f.setFeature(name, value);
+        } catch (ParserConfigurationException ex) {
+            // The parser does not support this feature
+        }
+    }
+
+    private static void setAttributeIfSupported(DocumentBuilderFactory f, String name, Object value) {
+        try {
+            f.setAttribute(name, value);
+        } catch (IllegalArgumentException ex) {
+            // The parser does not support this attribute
+        }
+    }
+
+    /**
+     * Obtains a builder from the pool, or creates a new one if the pool is
+     * empty. The builder must be used by one thread at a time, and should be
+     * returned with {@link #release}.
+     */
+    public static DocumentBuilder acquire() throws IOException {
+        DocumentBuilder builder = IDLE_BUILDERS.poll();
+        if (builder != null) {
+            IDLE_COUNT.decrementAndGet();
+        } else {
+            builder = newBuilder();
+        }
+        builder.setEntityResolver(EMPTY_ENTITY_RESOLVER);
+        return builder;
+    }
+
+    /**
+     * Returns a builder to the pool. The builder is discarded if the pool is
+     * full, or if it can not be reset.
+     */
+    public static void release(DocumentBuilder builder) {
+        try {
+            builder.reset();
+        } catch (UnsupportedOperationException ex) {
+            return;
+        }
+        if (IDLE_COUNT.incrementAndGet() <= MAX_IDLE_BUILDERS) {
+            IDLE_BUILDERS.offer(builder);
+        } else {
+            IDLE_COUNT.decrementAndGet();
+        }
+    }
+
+    /**
+     * Parses an XML document with a pooled builder.
+     */
+    public static Document parse(InputStream in) throws IOException {
+        return parse(new InputSource(in));
+    }
+
+    /**
+     * Parses an XML document with a pooled builder.
+     */
+    public static Document parse(InputSource in) throws IOException {
+        DocumentBuilder builder = acquire();
+        try {
+            return builder.parse(in);
+        } catch (SAXException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        } finally {
+            release(builder);
+        }
+    }
+
+    /**
+     * Creates an empty document with a pooled builder.
+     */
+    public static Document newDocument() throws IOException {
+        DocumentBuilder builder = acquire();
+        try {
+            return builder.newDocument();
+        } finally {
+            release(builder);
+        }
+    }
+}
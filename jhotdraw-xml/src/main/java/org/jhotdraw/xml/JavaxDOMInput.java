@@ -9,11 +9,8 @@ package org.jhotdraw.xml;
 
 import java.io.*;
 import java.util.*;
-import javax.xml.XMLConstants;
-import javax.xml.parsers.*;
 import org.w3c.dom.*;
 import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 /**
  * DOMInput.
@@ -46,52 +43,27 @@ public class JavaxDOMInput implements DOMInput {
      * The factory used to create objects from XML tag names.
      */
     private DOMFactory factory;
-    protected static DocumentBuilder documentBuilder;
 
     /**
-     * Lazily create the document builder and keep a reference to it for
-     * performance improvement.
+     * Creates a new instance which reads from the specified input stream.
+     * The document is parsed with a builder from the {@link DocumentBuilderPool},
+     * so that several instances can be created concurrently.
      */
-    protected static DocumentBuilder getBuilder() throws IOException {
-        if (documentBuilder == null) {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            factory.setValidating(false);
-            factory.setXIncludeAware(false);
-            try {
-                factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-                documentBuilder = factory.newDocumentBuilder();
-            } catch (Exception ex) {
-                InternalError error = new InternalError("Unable to create DocumentBuilder");
-                error.initCause(ex);
-                throw error;
-            }
-        }
-        return documentBuilder;
-    }
-
     public JavaxDOMInput(DOMFactory factory, InputStream in) throws IOException {
         this.factory = factory;
-        try {
-            document = getBuilder().parse(in);
-            current = document;
-        } catch (SAXException ex) {
-            IOException e = new IOException(ex.getMessage());
-            e.initCause(ex);
-            throw e;
-        }
+        document = DocumentBuilderPool.parse(in);
+        current = document;
     }
 
+    /**
+     * Creates a new instance which reads from the specified reader.
+     * The document is parsed with a builder from the {@link DocumentBuilderPool},
+     * so that several instances can be created concurrently.
+     */
     public JavaxDOMInput(DOMFactory factory, Reader in) throws IOException {
         this.factory = factory;
-        try {
-            document = getBuilder().parse(new InputSource(in));
-            current = document;
-        } catch (SAXException ex) {
-            IOException e = new IOException(ex.getMessage());
-            e.initCause(ex);
-            throw e;
-        }
+        document = DocumentBuilderPool.parse(new InputSource(in));
+        current = document;
     }
 
     /**
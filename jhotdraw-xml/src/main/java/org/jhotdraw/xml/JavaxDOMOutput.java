@@ -9,7 +9,6 @@ package org.jhotdraw.xml;
 
 import java.io.*;
 import java.util.*;
-import javax.xml.parsers.*;
 import javax.xml.transform.*;
 import javax.xml.transform.dom.*;
 import javax.xml.transform.stream.*;
@@ -64,15 +63,9 @@ public class JavaxDOMOutput implements DOMOutput {
     }
 
     protected void reset() throws IOException {
-        try {
-            objectids = new HashMap<Object, String>();
-            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            current = document;
-        } catch (ParserConfigurationException e) {
-            IOException error = new IOException(e.getMessage());
-            error.initCause(e);
-            throw error;
-        }
+        objectids = new HashMap<Object, String>();
+        document = DocumentBuilderPool.newDocument();
+        current = document;
     }
 
     /**
@@ -24,6 +24,10 @@ import org.w3c.dom.Element;
  * <li><code>#name</code> matches the value of the attribute "id".</li>
  * </ul>
  * This class supports net.n3.nanoxml as well as org.w3c.dom.
+ * <p>
+ * A {@link StyleManager} indexes its rules by their selectors. When the
+ * selector of a rule is changed, the style managers which hold the rule
+ * are informed, so that they index it again.
  *
  * @author Werner Randelshofer
  * @version $Id$
@@ -32,11 +36,15 @@ public class CSSRule {
 
     private String selector;
 
-    private static enum SelectorType {
+    static enum SelectorType {
         ALL, ELEMENT_NAME, CLASS_ATTRIBUTE, ID_ATTRIBUTE
     }
     private SelectorType type;
     protected Map<String, String> properties;
+    /**
+     * The style managers which hold this rule.
+     */
+    private ArrayList<StyleManager> styleManagers;
 
     public CSSRule(String name, String value) {
         properties = new HashMap<String, String>();
@@ -70,24 +78,62 @@ public class CSSRule {
                 break;
         }
         this.selector = (type == SelectorType.ELEMENT_NAME) ? selector : selector.substring(1);
+        if (styleManagers != null) {
+            for (StyleManager styleManager : styleManagers) {
+                styleManager.invalidateIndex();
+            }
+        }
+    }
+
+    void addStyleManager(StyleManager styleManager) {
+        if (styleManagers == null) {
+            styleManagers = new ArrayList<StyleManager>(1);
+        }
+        styleManagers.add(styleManager);
+    }
+
+    void removeStyleManager(StyleManager styleManager) {
+        if (styleManagers != null) {
+            styleManagers.remove(styleManager);
+        }
+    }
+
+    /**
+     * Returns the type of the selector, or null if the rule has no
+     * selector.
+     */
+    SelectorType getSelectorType() {
+        return type;
+    }
+
+    /**
+     * Returns the element name, class or id which is matched by the
+     * selector, without the leading '.' or '#'.
+     */
+    String getSelectorValue() {
+        return selector;
     }
 
     public boolean matches(Element elem) {
         boolean isMatch = false;
+        if (type == null) {
+            return false;
+        }
         switch (type) {
             case ALL:
                 isMatch = true;
                 break;
             case ELEMENT_NAME:
                 String name = elem.getLocalName();
-                isMatch = name.equals(selector);
+                isMatch = selector.equals(name == null ? elem.getTagName() : name);
                 break;
             case CLASS_ATTRIBUTE:
                 String value = elem.getAttribute("class");
                 if (value != null) {
-                    String[] clazzes = value.split(" ");
-                    for (String clazz : clazzes) {
-                        if (clazz.equals(selector)) {
+                    for (int i = value.indexOf(selector); i != -1; i = value.indexOf(selector, i + 1)) {
+                        int end = i + selector.length();
+                        if ((i == 0 || Character.isWhitespace(value.charAt(i - 1)))
+                                && (end == value.length() || Character.isWhitespace(value.charAt(end)))) {
                             isMatch = true;
                             break;
                         }
@@ -16,6 +16,17 @@ import org.w3c.dom.Element;
 /**
  * StyleManager applies styling Rules to an XML DOM.
  * This class supports net.n3.nanoxml as well as org.w3c.dom.
+ * <p>
+ * The rules are indexed by the id, class and element name which their
+ * selectors match, so that an element is only tested against the rules
+ * which can match it. The index is built again, when the selector of a rule
+ * is changed.
+ * <p>
+ * A property which is already set on an element is not changed. If several
+ * rules set the same property, the rule with the most specific selector
+ * wins: an id selector wins over a class selector, a class selector over an
+ * element name selector, and an element name selector over {@code *}. Among
+ * rules with equally specific selectors, the rule which was added last wins.
  *
  * @author Werner Randelshofer
  * @version $Id$
@@ -23,24 +34,182 @@ import org.w3c.dom.Element;
 public class StyleManager {
 
     private java.util.List<CSSRule> rules;
+    /**
+     * Maps ids, classes and element names to the indices of the rules which
+     * match them. The indices are in ascending order.
+     */
+    private HashMap<String, ArrayList<Integer>> idRules;
+    private HashMap<String, ArrayList<Integer>> classRules;
+    private HashMap<String, ArrayList<Integer>> elementNameRules;
+    /**
+     * The indices of the rules which match all elements.
+     */
+    private ArrayList<Integer> universalRules;
+    /**
+     * Whether the index reflects the current selectors of the rules.
+     */
+    private boolean isIndexValid = true;
 
     public StyleManager() {
         rules = new ArrayList<CSSRule>();
+        idRules = new HashMap<String, ArrayList<Integer>>();
+        classRules = new HashMap<String, ArrayList<Integer>>();
+        elementNameRules = new HashMap<String, ArrayList<Integer>>();
+        universalRules = new ArrayList<Integer>();
     }
 
     public void add(CSSRule rule) {
+        Integer index = rules.size();
         rules.add(rule);
+        rule.addStyleManager(this);
+        if (isIndexValid) {
+            addToIndex(rule, index);
+        }
+    }
+
+    private void addToIndex(CSSRule rule, Integer index) {
+        if (rule.getSelectorType() == null) {
+            // A rule without a selector matches nothing
+            return;
+        }
+        switch (rule.getSelectorType()) {
+            case ID_ATTRIBUTE:
+                addToBucket(idRules, rule.getSelectorValue(), index);
+                break;
+            case CLASS_ATTRIBUTE:
+                addToBucket(classRules, rule.getSelectorValue(), index);
+                break;
+            case ELEMENT_NAME:
+                addToBucket(elementNameRules, rule.getSelectorValue(), index);
+                break;
+            default:
+                universalRules.add(index);
+                break;
+        }
+    }
+
+    /**
+     * Discards the index. It is built again, before styles are applied the
+     * next time.
+     */
+    void invalidateIndex() {
+        isIndexValid = false;
+    }
+
+    private void validateIndex() {
+        if (!isIndexValid) {
+            clearIndex();
+            for (int i = 0, n = rules.size(); i < n; i++) {
+                addToIndex(rules.get(i), i);
+            }
+            isIndexValid = true;
+        }
+    }
+
+    private void clearIndex() {
+        idRules.clear();
+        classRules.clear();
+        elementNameRules.clear();
+        universalRules.clear();
+    }
+
+    private static void addToBucket(HashMap<String, ArrayList<Integer>> buckets, String key, Integer index) {
+        ArrayList<Integer> bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new ArrayList<Integer>(2);
+            buckets.put(key, bucket);
+        }
+        bucket.add(index);
     }
 
     public void applyStylesTo(Element elem) {
-        for (CSSRule rule : rules) {
-            if (rule.matches(elem)) {
-                rule.apply(elem);
+        if (rules.isEmpty()) {
+            return;
+        }
+        validateIndex();
+        // Apply the most specific rules first, because rules do not change
+        // properties which are already set
+        if (!idRules.isEmpty()) {
+            String id = elem.getAttribute("id");
+            if (id != null && id.length() != 0) {
+                applyReversed(idRules.get(id), elem);
+            }
+        }
+        if (!classRules.isEmpty()) {
+            String value = elem.getAttribute("class");
+            if (value != null && value.length() != 0) {
+                applyClassRules(value, elem);
             }
         }
+        if (!elementNameRules.isEmpty()) {
+            String name = elem.getLocalName();
+            applyReversed(elementNameRules.get(name == null ? elem.getTagName() : name), elem);
+        }
+        applyReversed(universalRules, elem);
+    }
+
+    /**
+     * Applies the rules with the specified indices from the last to the
+     * first.
+     */
+    private void applyReversed(List<Integer> indices, Element elem) {
+        if (indices != null) {
+            for (int i = indices.size() - 1; i >= 0; i--) {
+                rules.get(indices.get(i)).apply(elem);
+            }
+        }
+    }
+
+    /**
+     * Applies the class rules which match the classes in the specified
+     * class attribute value. The value is tokenized once.
+     */
+    private void applyClassRules(String value, Element elem) {
+        ArrayList<Integer> first = null;
+        ArrayList<Integer> merged = null;
+        for (int start = 0, n = value.length(); start < n;) {
+            while (start < n && Character.isWhitespace(value.charAt(start))) {
+                start++;
+            }
+            int end = start;
+            while (end < n && !Character.isWhitespace(value.charAt(end))) {
+                end++;
+            }
+            if (end > start) {
+                ArrayList<Integer> bucket = classRules.get(value.substring(start, end));
+                if (bucket != null && bucket != first) {
+                    if (first == null) {
+                        first = bucket;
+                    } else {
+                        if (merged == null) {
+                            merged = new ArrayList<Integer>(first);
+                        }
+                        for (Integer index : bucket) {
+                            if (!merged.contains(index)) {
+                                merged.add(index);
+                            }
+                        }
+                    }
+                }
+            }
+            start = end;
+        }
+        if (merged != null) {
+            // Rules of different classes are merged in the order in which
+            // they were added
+            Collections.sort(merged);
+            applyReversed(merged, elem);
+        } else {
+            applyReversed(first, elem);
+        }
     }
 
     public void clear() {
+        for (CSSRule rule : rules) {
+            rule.removeStyleManager(this);
+        }
         rules.clear();
+        clearIndex();
+        isIndexValid = true;
     }
 }
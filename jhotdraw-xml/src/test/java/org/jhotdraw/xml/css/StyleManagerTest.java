@@ -0,0 +1,150 @@
+package org.jhotdraw.xml.css;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the selector index and the cascade order of StyleManager.
+ */
+public class StyleManagerTest {
+
+    private Document doc;
+    private StyleManager manager;
+
+    @Before
+    public void createDocument() throws Exception {
+        doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        manager = new StyleManager();
+    }
+
+    private Element element(String name, String id, String classes) {
+        Element elem = doc.createElement(name);
+        if (id != null) {
+            elem.setAttribute("id", id);
+        }
+        if (classes != null) {
+            elem.setAttribute("class", classes);
+        }
+        return elem;
+    }
+
+    @Test
+    public void appliesOnlyRulesOfMatchingSelectors() {
+        manager.add(new CSSRule("rect", "fill", "red"));
+        manager.add(new CSSRule(".a", "stroke", "blue"));
+        manager.add(new CSSRule("#x", "opacity", "0.5"));
+        manager.add(new CSSRule("*", "visibility", "visible"));
+
+        Element circle = element("circle", "y", "b");
+        manager.applyStylesTo(circle);
+        assertEquals("", circle.getAttribute("fill"));
+        assertEquals("", circle.getAttribute("stroke"));
+        assertEquals("", circle.getAttribute("opacity"));
+        assertEquals("visible", circle.getAttribute("visibility"));
+
+        Element rect = element("rect", "x", "a");
+        manager.applyStylesTo(rect);
+        assertEquals("red", rect.getAttribute("fill"));
+        assertEquals("blue", rect.getAttribute("stroke"));
+        assertEquals("0.5", rect.getAttribute("opacity"));
+        assertEquals("visible", rect.getAttribute("visibility"));
+    }
+
+    @Test
+    public void matchesEachClassOfAnElement() {
+        manager.add(new CSSRule(".a", "fill", "red"));
+        manager.add(new CSSRule(".b", "stroke", "blue"));
+        manager.add(new CSSRule(".c", "opacity", "0.5"));
+        manager.add(new CSSRule(".ab", "visibility", "hidden"));
+
+        Element elem = element("rect", null, " a\tb\n c ");
+        manager.applyStylesTo(elem);
+        assertEquals("red", elem.getAttribute("fill"));
+        assertEquals("blue", elem.getAttribute("stroke"));
+        assertEquals("0.5", elem.getAttribute("opacity"));
+        assertEquals("", elem.getAttribute("visibility"));
+
+        assertTrue(new CSSRule(".b", "fill", "red").matches(elem));
+        assertFalse(new CSSRule(".ab", "fill", "red").matches(elem));
+        assertFalse(new CSSRule(".a", "fill", "red").matches(element("rect", null, "ab")));
+    }
+
+    @Test
+    public void appliesLastOfSeveralMatchingClassRules() {
+        manager.add(new CSSRule(".b", "fill", "green"));
+        manager.add(new CSSRule(".a", "fill", "red"));
+        manager.add(new CSSRule(".b", "fill", "blue"));
+
+        Element elem = element("rect", null, "b a");
+        manager.applyStylesTo(elem);
+        assertEquals("blue", elem.getAttribute("fill"));
+    }
+
+    @Test
+    public void appliesMostSpecificRuleFirst() {
+        manager.add(new CSSRule("#x", "fill", "id"));
+        manager.add(new CSSRule(".a", "fill", "class"));
+        manager.add(new CSSRule(".a", "stroke", "class"));
+        manager.add(new CSSRule("rect", "fill", "element"));
+        manager.add(new CSSRule("rect", "stroke", "element"));
+        manager.add(new CSSRule("rect", "opacity", "element"));
+        manager.add(new CSSRule("*", "fill", "all"));
+        manager.add(new CSSRule("*", "opacity", "all"));
+        manager.add(new CSSRule("*", "visibility", "all"));
+
+        Element elem = element("rect", "x", "a");
+        manager.applyStylesTo(elem);
+        assertEquals("id", elem.getAttribute("fill"));
+        assertEquals("class", elem.getAttribute("stroke"));
+        assertEquals("element", elem.getAttribute("opacity"));
+        assertEquals("all", elem.getAttribute("visibility"));
+    }
+
+    @Test
+    public void appliesLaterOfEquallySpecificRules() {
+        manager.add(new CSSRule("rect", "fill", "first"));
+        manager.add(new CSSRule("rect", "fill", "second"));
+
+        Element elem = element("rect", null, null);
+        manager.applyStylesTo(elem);
+        assertEquals("second", elem.getAttribute("fill"));
+    }
+
+    @Test
+    public void doesNotChangePropertiesWhichAreSet() {
+        manager.add(new CSSRule("#x", "fill", "red"));
+
+        Element elem = element("rect", "x", null);
+        elem.setAttribute("fill", "black");
+        manager.applyStylesTo(elem);
+        assertEquals("black", elem.getAttribute("fill"));
+    }
+
+    @Test
+    public void indexesRuleAgainWhenSelectorChanges() {
+        CSSRule rule = new CSSRule("rect", "fill", "red");
+        manager.add(rule);
+        rule.setSelector(".a");
+
+        Element rect = element("rect", null, null);
+        manager.applyStylesTo(rect);
+        assertEquals("", rect.getAttribute("fill"));
+
+        Element circle = element("circle", null, "a");
+        manager.applyStylesTo(circle);
+        assertEquals("red", circle.getAttribute("fill"));
+
+        manager.clear();
+        rule.setSelector("circle");
+        manager.add(new CSSRule("circle", "stroke", "blue"));
+        Element other = element("circle", null, null);
+        manager.applyStylesTo(other);
+        assertEquals("", other.getAttribute("fill"));
+        assertEquals("blue", other.getAttribute("stroke"));
+    }
+}